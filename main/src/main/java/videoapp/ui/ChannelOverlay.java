@@ -0,0 +1,143 @@
+package videoapp.ui;
+
+import videoapp.util.ClockMapping;
+import videoapp.util.SensorStream;
+import videoapp.util.SignalChannel;
+import videoapp.util.StreamRegistry;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Panel in the top-left corner of the video listing each loaded {@link SignalChannel} with
+ * its value at the playhead and a bar placing the value within the channel's range.
+ * Channels loaded with the gaze CSV follow the overlay time offset and come first, in the
+ * colours of the sparklines under the progress bar; the channels of registered sensor
+ * streams follow, each stream sampled through its own offset, drift and cursor.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class ChannelOverlay {
+    private static final int MARGIN = 10;
+    private static final int PAD = 6;
+    private static final int BAR_WIDTH = 60;
+    private static final Color BACKGROUND = new Color(0, 0, 0, 150);
+    private static final Color BAR_TRACK = new Color(255, 255, 255, 50);
+
+    private volatile List<SignalChannel> channels = List.of();
+    private volatile StreamRegistry streams = new StreamRegistry();
+    private volatile boolean visible = true;
+    private volatile long currentVideoMs;
+    private double[] values = new double[0];
+
+    void setChannels(List<SignalChannel> loaded) {
+        channels = (loaded != null) ? List.copyOf(loaded) : List.of();
+    }
+
+    List<SignalChannel> channels() {
+        return channels;
+    }
+
+    void setStreams(StreamRegistry registry) {
+        streams = (registry != null) ? registry : new StreamRegistry();
+    }
+
+    void setVisible(boolean show) {
+        visible = show;
+    }
+
+    boolean isVisible() {
+        return visible;
+    }
+
+    /** True if painting would draw anything. */
+    boolean isActive() {
+        return visible && (!channels.isEmpty() || !streams.isEmpty());
+    }
+
+    void onProgress(long videoMs) {
+        currentVideoMs = videoMs;
+    }
+
+    /** Paints the values at the playhead; {@code clock} maps video time to gaze-CSV time. */
+    void paint(Graphics2D g, VideoDrawArea drawArea, ClockMapping clock) {
+        if (drawArea == null || !isActive()) {
+            return;
+        }
+        long videoMs = currentVideoMs;
+        List<SignalChannel> rows = new ArrayList<>(channels);
+        List<String> names = new ArrayList<>();
+        for (SignalChannel channel : rows) {
+            names.add(channel.name());
+        }
+        StreamRegistry registry = streams;
+        for (SensorStream stream : registry.streams()) {
+            for (SignalChannel channel : stream.channels()) {
+                rows.add(channel);
+                names.add(stream.name() + '.' + channel.name());
+            }
+        }
+        if (values.length < rows.size()) {
+            values = new double[rows.size()];
+        }
+        int loaded = channels.size();
+        for (int i = 0; i < loaded; i++) {
+            values[i] = rows.get(i).valueAt(clock.recordingMs(videoMs));
+        }
+        Arrays.fill(values, loaded, rows.size(), Double.NaN);
+        registry.sample(videoMs, values, loaded);
+
+        Font previousFont = g.getFont();
+        g.setFont(previousFont.deriveFont(Font.PLAIN, 12f));
+        FontMetrics fm = g.getFontMetrics();
+        int nameWidth = 0;
+        for (String name : names) {
+            nameWidth = Math.max(nameWidth, fm.stringWidth(name));
+        }
+        int valueWidth = fm.stringWidth("-0.000");
+        int rowHeight = fm.getHeight();
+        int swatch = Math.max(6, fm.getAscent() - 4);
+        int width = PAD + swatch + PAD + nameWidth + PAD + valueWidth + PAD + BAR_WIDTH + PAD;
+        int height = PAD * 2 + rowHeight * rows.size();
+        int x = drawArea.x() + MARGIN;
+        int y = drawArea.y() + MARGIN;
+
+        Object previousAA = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(BACKGROUND);
+        g.fillRoundRect(x, y, width, height, 8, 8);
+        for (int i = 0; i < rows.size(); i++) {
+            SignalChannel channel = rows.get(i);
+            Color color = ParticipantOverlay.colorFor(i);
+            int rowTop = y + PAD + i * rowHeight;
+            int baseline = rowTop + fm.getAscent();
+            int column = x + PAD;
+            g.setColor(color);
+            g.fillRect(column, baseline - swatch, swatch, swatch);
+            column += swatch + PAD;
+            g.setColor(Color.WHITE);
+            g.drawString(names.get(i), column, baseline);
+            column += nameWidth + PAD;
+            double value = values[i];
+            String text = Double.isNaN(value) ? "–" : String.format(Locale.ROOT, "%.3f", value);
+            g.drawString(text, column + valueWidth - fm.stringWidth(text), baseline);
+            column += valueWidth + PAD;
+            int barTop = rowTop + rowHeight / 2 - 3;
+            g.setColor(BAR_TRACK);
+            g.fillRect(column, barTop, BAR_WIDTH, 6);
+            double span = channel.max() - channel.min();
+            if (!Double.isNaN(value)) {
+                double f = (span > 0) ? (value - channel.min()) / span : 1.0;
+                g.setColor(color);
+                g.fillRect(column, barTop, (int) Math.round(BAR_WIDTH * Math.max(0.0, Math.min(1.0, f))), 6);
+            }
+        }
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, previousAA);
+        g.setFont(previousFont);
+    }
+}
@@ -0,0 +1,43 @@
+package videoapp.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Small filled circle showing a participant's marker colour in menus.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public class ColorSwatchIcon implements Icon {
+    private final int size;
+    private final Color color;
+
+    public ColorSwatchIcon(int size, Color color) {
+        this.size = Math.max(6, size);
+        this.color = color == null ? Color.GRAY : color;
+    }
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(color);
+            g2.fillOval(x + 1, y + 1, size - 2, size - 2);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    @Override
+    public int getIconWidth() {
+        return size;
+    }
+
+    @Override
+    public int getIconHeight() {
+        return size;
+    }
+}
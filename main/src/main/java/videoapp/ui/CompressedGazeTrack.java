@@ -0,0 +1,331 @@
+package videoapp.ui;
+
+import videoapp.util.GazeFilter;
+import videoapp.util.PointIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time-sorted gaze samples packed into fixed-size compressed blocks, for recordings too
+ * long to keep as a {@link GazeTrack}. Within a block, times are stored as varint deltas
+ * and coordinates are quantised to 16 bits and stored as zig-zag varint deltas. A typical
+ * 1 kHz recording then needs about a quarter of the memory.
+ * <p>
+ * Every block records its first and last time. A playhead is therefore located by a
+ * binary search over the blocks, which decodes exactly one of them. Decoded blocks are
+ * kept in a small LRU, so the blocks around the playhead stay decoded during playback.
+ * Sequential readers, such as heatmap builders, go through the blocks one at a time,
+ * so the track is never fully decompressed.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class CompressedGazeTrack implements TimedSeries {
+    /** Tracks with at least this many samples are worth compressing. */
+    public static final int COMPACT_THRESHOLD = 1 << 21;
+
+    private static final int BLOCK_SHIFT = 12;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int MAX_SAMPLE_BYTES = 10 + 3 + 3;
+    private static final int QUANT_MAX = 0xFFFF;
+    private static final int CACHED_BLOCKS = 8;
+
+    private final int size;
+    private final long[] firstTimes;
+    private final long[] lastTimes;
+    private final byte[][] blocks;
+    private final Map<Integer, Block> decoded = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+    private volatile Block recent;
+
+    private record Block(int index, long[] t, float[] x, float[] y) {}
+
+    private CompressedGazeTrack(int size, long[] firstTimes, long[] lastTimes, byte[][] blocks) {
+        this.size = size;
+        this.firstTimes = firstTimes;
+        this.lastTimes = lastTimes;
+        this.blocks = blocks;
+    }
+
+    /** Compresses {@code series}, which must be in time order, whatever its size. */
+    public static CompressedGazeTrack compress(TimedSeries series) {
+        Builder builder = new Builder();
+        for (int i = 0; i < series.size(); i++) {
+            builder.append(series.timeMs(i), series.xNorm(i), series.yNorm(i));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long timeMs(int index) {
+        return block(index).t[index & BLOCK_MASK];
+    }
+
+    @Override
+    public double xNorm(int index) {
+        return block(index).x[index & BLOCK_MASK];
+    }
+
+    @Override
+    public double yNorm(int index) {
+        return block(index).y[index & BLOCK_MASK];
+    }
+
+    /** Finds the block from the per-block time range, then searches inside that block only. */
+    @Override
+    public int ceiling(long posMs, int from, int to) {
+        if (from >= to) {
+            return to;
+        }
+        int lo = from >>> BLOCK_SHIFT;
+        int hi = (to - 1) >>> BLOCK_SHIFT;
+        int target = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lastTimes[mid] >= posMs) {
+                target = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        if (target < 0) {
+            return to;
+        }
+        int start = Math.max(from, target << BLOCK_SHIFT);
+        int end = Math.min(to, (target + 1) << BLOCK_SHIFT);
+        if (firstTimes[target] >= posMs) {
+            return start;
+        }
+        long[] t = decode(target).t;
+        int base = target << BLOCK_SHIFT;
+        lo = start;
+        hi = end - 1;
+        int pos = end;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (t[mid - base] >= posMs) {
+                pos = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * This track run through {@code filter}, which is reset first. Blocks are decoded,
+     * filtered and compressed again one at a time, bypassing the decoded-block cache.
+     */
+    public CompressedGazeTrack smoothed(GazeFilter filter) {
+        filter.reset();
+        Builder builder = new Builder();
+        for (int b = 0; b < blocks.length; b++) {
+            Block block = inflate(b);
+            int count = block.t().length;
+            filter.filter(block.t(), block.x(), block.y(), block.x(), block.y(), 0, count);
+            for (int i = 0; i < count; i++) {
+                builder.append(block.t()[i], block.x()[i], block.y()[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * A {@link PointIndex} over every {@link PointIndex#stride stride}-th sample, the same
+     * ones {@code PointIndex.of} would pick. The samples are gathered a block at a time,
+     * bypassing the decoded-block cache, so the blocks around the playhead stay decoded.
+     */
+    public PointIndex pointIndex() {
+        int stride = PointIndex.stride(size);
+        int count = PointIndex.indexedCount(size);
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        int[] ids = new int[count];
+        for (int b = 0; b < blocks.length; b++) {
+            Block block = inflate(b);
+            long base = (long) b << BLOCK_SHIFT;
+            long end = base + block.t().length;
+            for (long k = (base + stride - 1) / stride; k * stride < end; k++) {
+                int i = (int) (k * stride - base);
+                xs[(int) k] = block.x()[i];
+                ys[(int) k] = block.y()[i];
+                ids[(int) k] = (int) (k * stride);
+            }
+        }
+        return PointIndex.of(xs, ys, ids);
+    }
+
+    /** Bytes held by the compressed blocks, excluding the decoded-block cache. */
+    public long compressedBytes() {
+        long bytes = 16L * blocks.length;
+        for (byte[] block : blocks) {
+            bytes += block.length;
+        }
+        return bytes;
+    }
+
+    private Block block(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return decode(index >>> BLOCK_SHIFT);
+    }
+
+    private Block decode(int blockIndex) {
+        Block last = recent;
+        if (last != null && last.index() == blockIndex) {
+            return last;
+        }
+        Block block;
+        synchronized (decoded) {
+            block = decoded.get(blockIndex);
+            if (block == null) {
+                block = inflate(blockIndex);
+                decoded.put(blockIndex, block);
+            }
+        }
+        recent = block;
+        return block;
+    }
+
+    private Block inflate(int blockIndex) {
+        int count = Math.min(BLOCK_SIZE, size - (blockIndex << BLOCK_SHIFT));
+        long[] t = new long[count];
+        float[] x = new float[count];
+        float[] y = new float[count];
+        byte[] data = blocks[blockIndex];
+        int[] pos = {0};
+        long time = firstTimes[blockIndex];
+        int qx = 0;
+        int qy = 0;
+        for (int i = 0; i < count; i++) {
+            time += readVarint(data, pos);
+            qx += unZigZag(readVarint(data, pos));
+            qy += unZigZag(readVarint(data, pos));
+            t[i] = time;
+            x[i] = qx / (float) QUANT_MAX;
+            y[i] = qy / (float) QUANT_MAX;
+        }
+        return new Block(blockIndex, t, x, y);
+    }
+
+    private static int quantise(double norm) {
+        return (int) Math.round(Math.max(0.0, Math.min(1.0, norm)) * QUANT_MAX);
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static int unZigZag(long v) {
+        return (int) ((v >>> 1) ^ -(v & 1));
+    }
+
+    private static int writeVarint(byte[] out, int pos, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static long readVarint(byte[] in, int[] pos) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[pos[0]++];
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return v;
+    }
+
+    /**
+     * Compresses samples appended in time order, one block at a time, so only the block
+     * being filled is ever held uncompressed. Not thread-safe; the finished track is.
+     */
+    public static final class Builder {
+        private final List<byte[]> blocks = new ArrayList<>();
+        private long[] firstTimes = new long[16];
+        private long[] lastTimes = new long[16];
+        private final long[] pendingT = new long[BLOCK_SIZE];
+        private final int[] pendingX = new int[BLOCK_SIZE];
+        private final int[] pendingY = new int[BLOCK_SIZE];
+        private final byte[] scratch = new byte[BLOCK_SIZE * MAX_SAMPLE_BYTES];
+        private int pending;
+        private int size;
+        private long lastTimeMs = Long.MIN_VALUE;
+
+        /**
+         * @return false if {@code timeMs} is older than the last appended sample, in which
+         *         case the sample is dropped
+         */
+        public boolean append(long timeMs, double xNorm, double yNorm) {
+            if (timeMs < lastTimeMs) {
+                return false;
+            }
+            pendingT[pending] = timeMs;
+            pendingX[pending] = quantise(xNorm);
+            pendingY[pending] = quantise(yNorm);
+            pending++;
+            size++;
+            lastTimeMs = timeMs;
+            if (pending == BLOCK_SIZE) {
+                flushBlock();
+            }
+            return true;
+        }
+
+        public CompressedGazeTrack build() {
+            if (pending > 0) {
+                flushBlock();
+            }
+            int count = blocks.size();
+            return new CompressedGazeTrack(size, Arrays.copyOf(firstTimes, count),
+                    Arrays.copyOf(lastTimes, count), blocks.toArray(new byte[0][]));
+        }
+
+        private void flushBlock() {
+            int index = blocks.size();
+            if (index == firstTimes.length) {
+                firstTimes = Arrays.copyOf(firstTimes, index * 2);
+                lastTimes = Arrays.copyOf(lastTimes, index * 2);
+            }
+            firstTimes[index] = pendingT[0];
+            lastTimes[index] = pendingT[pending - 1];
+            int pos = 0;
+            long prevT = pendingT[0];
+            int prevX = 0;
+            int prevY = 0;
+            for (int i = 0; i < pending; i++) {
+                pos = writeVarint(scratch, pos, pendingT[i] - prevT);
+                pos = writeVarint(scratch, pos, zigZag(pendingX[i] - prevX));
+                pos = writeVarint(scratch, pos, zigZag(pendingY[i] - prevY));
+                prevT = pendingT[i];
+                prevX = pendingX[i];
+                prevY = pendingY[i];
+            }
+            blocks.add(Arrays.copyOf(scratch, pos));
+            pending = 0;
+        }
+    }
+}
@@ -1,12 +1,28 @@
 package videoapp.ui;
 
 import videoapp.core.VideoPlayer;
+import videoapp.util.Aoi;
+import videoapp.util.AoiAnalytics;
+import videoapp.util.AoiStudyReport;
+import videoapp.util.ClockMapping;
+import videoapp.util.CorpusHeatmapAggregator;
 import videoapp.util.CsvOverlayLoader;
+import videoapp.util.CsvOverlayScan;
+import videoapp.util.FrameOffsetSamples;
+import videoapp.util.GazeEventDetector;
+import videoapp.util.GroupHeatmap;
+import videoapp.util.HeatmapComparison;
+import videoapp.util.HeatmapDifference;
+import videoapp.util.OverlayBatch;
+import videoapp.util.SensorStream;
+import videoapp.util.SignalChannel;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -40,20 +56,245 @@ public final class CsvOverlayImporter {
     }
 
     public File chooseCsvFile() {
-        return promptForCsv();
+        List<File> files = promptForCsv(false);
+        return files.isEmpty() ? null : files.get(0);
+    }
+
+    /**
+     * Lets the user pick one CSV or several parts of the same recording (rotated files,
+     * one file per eye, ...), which are then loaded as a single timeline.
+     *
+     * @return the selected files, empty if the dialog was cancelled
+     */
+    public List<File> chooseCsvParts() {
+        return promptForCsv(true);
+    }
+
+    /**
+     * Lets the user pick a study: a folder of participant CSVs or a manifest listing them.
+     *
+     * @return the folder or manifest, or null if the dialog was cancelled
+     */
+    public File chooseStudyInputs() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Select a folder of participant CSVs or a manifest");
+        chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        File start = chooserDelegate.initialDirectory();
+        if (start != null) {
+            chooser.setCurrentDirectory(start);
+        }
+        if (chooser.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION || chooser.getSelectedFile() == null) {
+            return null;
+        }
+        chooserDelegate.rememberSelection(chooser.getSelectedFile());
+        return chooser.getSelectedFile();
+    }
+
+    /**
+     * Aggregates every participant CSV of a study into one heatmap on the video panel's
+     * grid, each participant weighing the same. Call from a background thread.
+     */
+    public GroupHeatmap loadGroupHeatmap(List<File> participants) throws InterruptedException {
+        return new CorpusHeatmapAggregator(overlayLoader)
+                .aggregate(participants, videoPanel.heatmapRows(), videoPanel.heatmapCols(), true);
+    }
+
+    /**
+     * Compares the heatmap of {@code focus} with the rest of the study by a cell-wise
+     * permutation test on the video panel's grid. Participants without gaze samples are
+     * left out. Call from a background thread.
+     *
+     * @return the comparison, or null if {@code focus} has no samples or no other
+     *         participant does
+     */
+    public HeatmapDifference compareWithGroup(List<File> participants, File focus, int permutations)
+            throws InterruptedException {
+        int rows = videoPanel.heatmapRows();
+        int cols = videoPanel.heatmapCols();
+        CorpusHeatmapAggregator.ParticipantGrids grids =
+                new CorpusHeatmapAggregator(overlayLoader).participantGrids(participants, rows, cols);
+        int index = grids.indexOf(focus);
+        if (index < 0 || grids.files().size() < 2) {
+            return null;
+        }
+        // A fixed seed, so running the same comparison twice gives the same p-values.
+        return new HeatmapComparison(permutations, 0.05, 1L)
+                .participantVsRest(grids.grids(), index, rows, cols);
+    }
+
+    /**
+     * Computes the AOI metrics of every participant of a study, detecting fixations with
+     * {@code algorithm} at its default settings. Call from a background thread.
+     */
+    public AoiStudyReport analyseAois(List<File> participants, List<Aoi> aois,
+                                      GazeEventDetector.Algorithm algorithm) throws InterruptedException {
+        return new AoiAnalytics(overlayLoader, aois, GazeEventDetector.Settings.defaults(algorithm))
+                .analyseStudy(participants);
+    }
+
+    /**
+     * Lets the user pick a file of AOI definitions; see {@link Aoi#read}.
+     *
+     * @return the file, or null if the dialog was cancelled
+     */
+    public File chooseAoiFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Select AOI definitions");
+        File start = chooserDelegate.initialDirectory();
+        if (start != null) {
+            chooser.setCurrentDirectory(start);
+        }
+        if (chooser.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION || chooser.getSelectedFile() == null) {
+            return null;
+        }
+        chooserDelegate.rememberSelection(chooser.getSelectedFile());
+        return chooser.getSelectedFile();
+    }
+
+    /** Lets the user pick one CSV per participant for a multi-participant overlay. */
+    public List<File> chooseParticipantCsvs() {
+        return promptForCsv(true);
+    }
+
+    /**
+     * Loads one participant track per file, in order, skipping files without timed
+     * samples. Each track is mapped to the video like a single overlay: the clock fitted
+     * to its frame indices, with its saved offset if there is one, else its first sample
+     * at the start of the video. Call from a background thread.
+     */
+    public List<ParticipantTrack> loadParticipantTracks(List<File> files) {
+        double fps = player.fps();
+        List<ParticipantTrack> tracks = new ArrayList<>();
+        for (File file : files) {
+            CsvOverlayScan scan = overlayLoader.scan(file, 1, 1);
+            if (!scan.timed() || scan.track().size() == 0) {
+                continue;
+            }
+            ClockMapping fitted = (scan.frameOffsets() != null) ? scan.frameOffsets().fitClock(fps) : null;
+            ClockMapping clock = withSavedOffset(fitted, overlayOffsetProvider.apply(file));
+            if (clock == null) {
+                clock = ClockMapping.offset(-scan.track().timeMs(0));
+            }
+            tracks.add(new ParticipantTrack(participantName(file), scan.track(), clock,
+                    ParticipantOverlay.colorFor(tracks.size())));
+        }
+        return tracks;
+    }
+
+    /** Loads the numeric channels of {@code file}, such as emotion scores. Call from a background thread. */
+    public List<SignalChannel> loadSignalChannels(File file) {
+        return overlayLoader.loadChannels(file);
+    }
+
+    /**
+     * Loads {@code file} as a sensor stream named after the file, starting with no offset.
+     * Call from a background thread.
+     *
+     * @return the stream, or null if the file has no timed numeric channels
+     */
+    public SensorStream loadSensorStream(File file) {
+        List<SignalChannel> channels = overlayLoader.loadChannels(file);
+        return channels.isEmpty() ? null : new SensorStream(participantName(file), channels, 0L);
+    }
+
+    /**
+     * Asks where to save a CSV, starting in the usual CSV folder.
+     *
+     * @return the chosen file with a {@code .csv} suffix, or null if cancelled
+     */
+    public File chooseCsvSaveFile(String suggestedName) {
+        return chooseSaveFile("Save CSV", suggestedName, false);
+    }
+
+    /**
+     * Asks where to save a report, as JSON if the name ends in {@code .json} and as CSV
+     * otherwise.
+     *
+     * @return the chosen file with a {@code .json} or {@code .csv} suffix, or null if cancelled
+     */
+    public File chooseReportSaveFile(String suggestedName) {
+        return chooseSaveFile("Save report", suggestedName, true);
+    }
+
+    private File chooseSaveFile(String title, String suggestedName, boolean allowJson) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(title);
+        File start = chooserDelegate.initialDirectory();
+        if (start != null) {
+            chooser.setCurrentDirectory(start);
+            chooser.setSelectedFile(new File(start, suggestedName));
+        }
+        if (chooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION || chooser.getSelectedFile() == null) {
+            return null;
+        }
+        File file = chooser.getSelectedFile();
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (!name.endsWith(".csv") && !(allowJson && name.endsWith(".json"))) {
+            file = new File(file.getParentFile(), file.getName() + ".csv");
+        }
+        chooserDelegate.rememberSelection(file);
+        return file;
+    }
+
+    private static String participantName(File file) {
+        String name = file.getName();
+        int dot = name.indexOf('.');
+        return (dot > 0) ? name.substring(0, dot) : name;
     }
 
     public OverlayPayload loadOverlayPayload(File file, int heatRows, int heatCols) {
-        List<TimedOverlayPoint> timedPoints = overlayLoader.loadTimed(file);
-        if (!timedPoints.isEmpty()) {
-            HeatmapSnapshot snapshot = buildSnapshot(timedPoints, heatRows, heatCols);
-            String message = String.format("Loaded %d time-synced points from %s", timedPoints.size(), file.getName());
-            return OverlayPayload.timedPayload(file, timedPoints, snapshot.grid(), snapshot.maxCount(), message);
+        return toPayload(file, overlayLoader.scan(file, heatRows, heatCols));
+    }
+
+    /**
+     * Loads {@code file} like {@link #loadOverlayPayload}, but shows overlays while parsing:
+     * the video panel draws from the buffer the batches are published to, and the heatmap
+     * is refreshed from the running counts. Call from a background thread; the
+     * returned payload still has to be applied once loading finishes.
+     */
+    public OverlayPayload loadOverlayPayloadProgressively(File file, int heatRows, int heatCols) {
+        return loadOverlayPayloadProgressively(List.of(file), heatRows, heatCols);
+    }
+
+    /**
+     * Progressive load of a recording split over {@code parts}, merged by timestamp. The
+     * first part stands for the recording when looking up a saved offset.
+     */
+    public OverlayPayload loadOverlayPayloadProgressively(List<File> parts, int heatRows, int heatCols) {
+        File file = parts.get(0);
+        boolean[] attached = {false};
+        CsvOverlayScan scan = overlayLoader.scanParts(parts, heatRows, heatCols, batch -> {
+            boolean attach = batch.timed() && !attached[0];
+            attached[0] |= attach;
+            SwingUtilities.invokeLater(() -> applyBatch(file, batch, attach));
+        });
+        return toPayload(file, (parts.size() > 1) ? parts.size() + " parts of " + file.getName() : file.getName(), scan);
+    }
+
+    private void applyBatch(File file, OverlayBatch batch, boolean attach) {
+        if (attach) {
+            videoPanel.showProgressiveOverlay(batch.points());
+            applyTimeOffset(file, batch.frameOffsets());
+            videoPanel.hideLoadingIndicator();
         }
-        List<OverlayPoint> points = overlayLoader.load(file);
-        HeatmapSnapshot snapshot = buildSnapshot(points, heatRows, heatCols);
-        String message = String.format("Loaded %d points from %s (no time column)", points.size(), file.getName());
-        return OverlayPayload.staticPayload(file, points, snapshot.grid(), snapshot.maxCount(), message);
+        videoPanel.updateHeatmapSnapshot(batch.heatmapGrid(), batch.heatmapMaxCount());
+    }
+
+    private OverlayPayload toPayload(File file, CsvOverlayScan scan) {
+        return toPayload(file, file.getName(), scan);
+    }
+
+    private OverlayPayload toPayload(File file, String sourceName, CsvOverlayScan scan) {
+        if (scan.timed()) {
+            String message = String.format("Loaded %d time-synced points from %s",
+                    scan.track().size(), sourceName);
+            return OverlayPayload.timedPayload(file, scan.track(), scan.heatmapGrid(),
+                    scan.heatmapMaxCount(), scan.frameOffsets(), scan.stats(), message);
+        }
+        String message = String.format("Loaded %d points from %s (no time column)",
+                scan.staticPoints().size(), sourceName);
+        return OverlayPayload.staticPayload(file, scan.staticPoints(), scan.heatmapGrid(),
+                scan.heatmapMaxCount(), scan.frameOffsets(), scan.stats(), message);
     }
 
     public void applyOverlayPayload(OverlayPayload payload) {
@@ -62,18 +303,9 @@ public final class CsvOverlayImporter {
         }
         videoPanel.applyOverlayPayload(payload);
         if (payload.timed()) {
-            double fps = player.fps();
-            Long saved = overlayOffsetProvider.apply(payload.source());
-            Long autoOffset = overlayLoader.suggestOffsetFromFrameIndex(payload.source(), fps);
-            if (saved != null) {
-                videoPanel.setOverlayTimeOffsetMs(saved);
-            } else if (autoOffset != null) {
-                videoPanel.setOverlayTimeOffsetMs(autoOffset);
-            } else {
-                videoPanel.setTimedOverlayAnchorIndex(1);
-            }
+            applyTimeOffset(payload.source(), payload.frameOffsets());
         } else {
-            videoPanel.setOverlayTimeOffsetMs(0);
+            videoPanel.setOverlayClock(ClockMapping.IDENTITY);
         }
         JOptionPane.showMessageDialog(parent,
                 payload.message(),
@@ -81,44 +313,59 @@ public final class CsvOverlayImporter {
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private File promptForCsv() {
+    /**
+     * Uses the clock drift fitted to the frame-index column of {@code source} with its
+     * saved offset if there is one, else with the fitted offset; without a fit, the saved
+     * offset alone, else aligns the first sample with the start of the video.
+     */
+    private void applyTimeOffset(File source, FrameOffsetSamples frameOffsets) {
+        double fps = player.fps();
+        ClockMapping fitted = (frameOffsets != null)
+                ? frameOffsets.fitClock(fps)
+                : overlayLoader.fitClockFromFrameIndex(source, fps);
+        ClockMapping clock = withSavedOffset(fitted, overlayOffsetProvider.apply(source));
+        if (clock != null) {
+            videoPanel.setOverlayClock(clock);
+        } else {
+            videoPanel.setTimedOverlayAnchorIndex(1);
+        }
+    }
+
+    /**
+     * A saved offset replaces the fitted one but keeps the fitted drift, since only the
+     * offset is ever saved.
+     *
+     * @return the mapping, or null if there is neither a fit nor a saved offset
+     */
+    private static ClockMapping withSavedOffset(ClockMapping fitted, Long saved) {
+        if (saved == null) {
+            return fitted;
+        }
+        return (fitted != null) ? fitted.withOffset(saved) : ClockMapping.offset(saved);
+    }
+
+    private List<File> promptForCsv(boolean multiple) {
         JFileChooser chooser = new JFileChooser();
         chooser.setDialogTitle("Select CSV with surfaceX,surfaceY");
+        chooser.setMultiSelectionEnabled(multiple);
         chooserDelegate.configure(chooser);
         File start = chooserDelegate.initialDirectory();
         if (start != null) {
             chooser.setCurrentDirectory(start);
         }
         if (chooser.showOpenDialog(parent) == JFileChooser.APPROVE_OPTION) {
-            File file = chooser.getSelectedFile();
-            chooserDelegate.rememberSelection(file);
-            return file;
-        }
-        return null;
-    }
-
-    private HeatmapSnapshot buildSnapshot(List<? extends OverlayPoint> points, int rows, int cols) {
-        int[][] grid = new int[Math.max(1, rows)][Math.max(1, cols)];
-        int max = 0;
-        if (points != null) {
-            for (OverlayPoint pt : points) {
-                if (pt == null) continue;
-                int col = clamp((int) Math.floor(pt.xNorm * cols), cols);
-                int row = clamp((int) Math.floor((1.0 - pt.yNorm) * rows), rows);
-                int count = ++grid[row][col];
-                if (count > max) {
-                    max = count;
+            File[] selected = multiple ? chooser.getSelectedFiles() : new File[] {chooser.getSelectedFile()};
+            List<File> files = new ArrayList<>();
+            for (File file : selected) {
+                if (file != null) {
+                    files.add(file);
                 }
             }
+            if (!files.isEmpty()) {
+                chooserDelegate.rememberSelection(files.get(0));
+            }
+            return files;
         }
-        return new HeatmapSnapshot(grid, max);
-    }
-
-    private int clamp(int value, int bound) {
-        if (value < 0) return 0;
-        if (value >= bound) return bound - 1;
-        return value;
+        return List.of();
     }
-
-    private record HeatmapSnapshot(int[][] grid, int maxCount) {}
 }
@@ -0,0 +1,177 @@
+package videoapp.ui;
+
+import videoapp.util.ClockMapping;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Gaze position resampled onto the video's frame grid for one track and one clock mapping:
+ * for every frame, the interpolated normalised position and its label index, or nothing.
+ * Once a frame's entry exists, painting it is a single array read instead of a search
+ * plus interpolation, and exports or analytics can walk the frames directly.
+ * <p>
+ * Entries are computed in blocks of frames. {@link #fillInBackground} fills all blocks in
+ * parallel on the common pool, while a lookup computes its own block on the spot if the
+ * background work has not reached it yet. A different mapping needs a new table; the old
+ * one is {@linkplain #cancel cancelled} so its remaining blocks are never computed.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class FrameGazeTable {
+    /** Tables longer than this (about 19 hours at 60 fps) are not built. */
+    static final int MAX_FRAMES = 1 << 22;
+
+    private static final int BLOCK_SHIFT = 10;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCKS_PER_TASK = 8;
+
+    private final TimedSeries series;
+    private final double fps;
+    private final ClockMapping clock;
+    private final int frameCount;
+    private final AtomicReferenceArray<Block> blocks;
+    private volatile boolean cancelled;
+
+    private record Block(float[] x, float[] y, int[] index) {}
+
+    private FrameGazeTable(TimedSeries series, double fps, ClockMapping clock, int frameCount) {
+        this.series = series;
+        this.fps = fps;
+        this.clock = clock;
+        this.frameCount = frameCount;
+        this.blocks = new AtomicReferenceArray<>((frameCount + BLOCK_SIZE - 1) >>> BLOCK_SHIFT);
+    }
+
+    /**
+     * Prepares a table for {@code series} shown through {@code clock} on a video running at
+     * {@code fps}. No entries are computed yet.
+     *
+     * @return the table, or null if the frame rate is unknown, the series is empty, or
+     *         the table would exceed {@link #MAX_FRAMES}
+     */
+    public static FrameGazeTable create(TimedSeries series, double fps, ClockMapping clock) {
+        if (series == null || series.size() == 0 || !(fps > 0) || !Double.isFinite(fps)) {
+            return null;
+        }
+        double lastVisibleMs = ((double) series.timeMs(series.size() - 1) - clock.offsetMs()
+                + GazeInterpolator.MAX_SHOW_AGE_MS) / clock.scale();
+        if (lastVisibleMs < 0) {
+            return null;
+        }
+        double frames = Math.floor(lastVisibleMs * fps / 1000.0) + 2;
+        if (frames > MAX_FRAMES) {
+            return null;
+        }
+        return new FrameGazeTable(series, fps, clock, (int) frames);
+    }
+
+    public boolean matches(TimedSeries series, ClockMapping clock) {
+        return this.series == series && this.clock.equals(clock);
+    }
+
+    public int frameCount() {
+        return frameCount;
+    }
+
+    public double fps() {
+        return fps;
+    }
+
+    /** Frame shown at video time {@code videoMs}. */
+    public long frameAt(long videoMs) {
+        return Math.round(videoMs * fps / 1000.0);
+    }
+
+    /** Video time of {@code frame}, the instant its entry is sampled at (before the clock mapping). */
+    public long frameTimeMs(long frame) {
+        return Math.round(frame * 1000.0 / fps);
+    }
+
+    /**
+     * Writes the normalised gaze position for {@code frame} to {@code xy}.
+     *
+     * @return index of the sample the marker is labelled with, or -1 if nothing is shown
+     */
+    public int lookup(long frame, double[] xy) {
+        if (frame < 0 || frame >= frameCount) {
+            return -1;
+        }
+        int f = (int) frame;
+        Block block = block(f >>> BLOCK_SHIFT);
+        int i = f & (BLOCK_SIZE - 1);
+        int index = block.index()[i];
+        if (index >= 0) {
+            xy[0] = block.x()[i];
+            xy[1] = block.y()[i];
+        }
+        return index;
+    }
+
+    /** Computes every block not yet computed, in parallel, without waiting for it. */
+    public void fillInBackground() {
+        ForkJoinPool.commonPool().execute(new FillTask(0, blocks.length()));
+    }
+
+    /** Stops background work on this table; lookups still work. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private Block block(int b) {
+        Block block = blocks.get(b);
+        if (block == null) {
+            Block computed = compute(b);
+            block = blocks.compareAndSet(b, null, computed) ? computed : blocks.get(b);
+        }
+        return block;
+    }
+
+    private Block compute(int b) {
+        int from = b << BLOCK_SHIFT;
+        int count = Math.min(BLOCK_SIZE, frameCount - from);
+        float[] x = new float[count];
+        float[] y = new float[count];
+        int[] index = new int[count];
+        TimedSeriesCursor cursor = new TimedSeriesCursor();
+        double[] xy = new double[2];
+        for (int i = 0; i < count; i++) {
+            long posMs = clock.recordingMs(frameTimeMs(from + i));
+            int found = GazeInterpolator.locate(series, cursor.ceiling(series, posMs), posMs, xy);
+            index[i] = found;
+            if (found >= 0) {
+                x[i] = (float) xy[0];
+                y[i] = (float) xy[1];
+            }
+        }
+        return new Block(x, y, index);
+    }
+
+    private final class FillTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        FillTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+            if (to - from > BLOCKS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FillTask(from, mid), new FillTask(mid, to));
+                return;
+            }
+            for (int b = from; b < to && !cancelled; b++) {
+                block(b);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package videoapp.ui;
+
+/**
+ * How many gaze samples fall in any time range, for drawing where a recording has data
+ * and where it is dense. Built in one pass over a track: the samples are counted into
+ * fine buckets, at most {@value #MAX_BUCKETS} of them, and the counts are summed into a
+ * cumulative table. The count for any range, at any resolution, is then the difference
+ * of two table entries, so a timeline can be redrawn at any width without touching the
+ * samples again, and a compressed track is decoded only once.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class GazeDensity {
+    static final GazeDensity EMPTY = new GazeDensity(0L, 1L, new int[1]);
+
+    private static final int MAX_BUCKETS = 1 << 18;
+
+    private final long startMs;
+    private final long bucketMs;
+    private final int[] cumulative;
+
+    private GazeDensity(long startMs, long bucketMs, int[] cumulative) {
+        this.startMs = startMs;
+        this.bucketMs = bucketMs;
+        this.cumulative = cumulative;
+    }
+
+    /** Counts the samples of {@code series}, which must be in time order. */
+    static GazeDensity of(TimedSeries series) {
+        int n = series.size();
+        if (n == 0) {
+            return EMPTY;
+        }
+        long first = series.timeMs(0);
+        long span = series.timeMs(n - 1) - first + 1;
+        long bucketMs = Math.max(1L, (span + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        int buckets = (int) ((span + bucketMs - 1) / bucketMs);
+        int[] cumulative = new int[buckets + 1];
+        for (int i = 0; i < n; i++) {
+            cumulative[(int) ((series.timeMs(i) - first) / bucketMs) + 1]++;
+        }
+        for (int i = 1; i <= buckets; i++) {
+            cumulative[i] += cumulative[i - 1];
+        }
+        return new GazeDensity(first, bucketMs, cumulative);
+    }
+
+    boolean isEmpty() {
+        return cumulative[cumulative.length - 1] == 0;
+    }
+
+    /** Samples in {@code [fromMs, toMs)}, with the ends rounded to the nearest bucket. */
+    int count(long fromMs, long toMs) {
+        return cumulative[boundary(toMs)] - cumulative[boundary(fromMs)];
+    }
+
+    private int boundary(long timeMs) {
+        long index = Math.floorDiv(timeMs - startMs + bucketMs / 2, bucketMs);
+        return (int) Math.max(0L, Math.min(cumulative.length - 1L, index));
+    }
+}
@@ -0,0 +1,76 @@
+package videoapp.ui;
+
+/**
+ * Decides where the gaze marker goes at a given time: linear interpolation between the
+ * samples on either side when they are close enough together, otherwise the nearest
+ * sample if it is recent enough, otherwise nothing. Shared by the live overlay path and
+ * {@link FrameGazeTable} so both place the marker identically.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class GazeInterpolator {
+    static final long MAX_INTERP_GAP_MS = 250;
+    static final long MAX_SHOW_AGE_MS = 300;
+
+    private GazeInterpolator() {}
+
+    /**
+     * Locates the gaze at {@code posMs}, where {@code pos} is the index of the first sample
+     * at or after {@code posMs}. Writes the normalised position to {@code xy}.
+     *
+     * @return index of the sample the marker is labelled with, or -1 if nothing is shown
+     */
+    static int locate(TimedSeries series, int pos, long posMs, double[] xy) {
+        int n = series.size();
+        int right = (pos < n) ? pos : -1;
+        int left = pos - 1;
+        if (interpolate(series, left, right, posMs, xy)) {
+            return Math.max(0, pos - 1);
+        }
+        int nearest = -1;
+        long bestDt = Long.MAX_VALUE;
+        if (left >= 0) {
+            long dt = Math.abs(posMs - series.timeMs(left));
+            if (dt < bestDt) {
+                bestDt = dt;
+                nearest = left;
+            }
+        }
+        if (right >= 0) {
+            long dt = Math.abs(posMs - series.timeMs(right));
+            if (dt < bestDt) {
+                bestDt = dt;
+                nearest = right;
+            }
+        }
+        if (nearest < 0 || bestDt > MAX_SHOW_AGE_MS) {
+            return -1;
+        }
+        xy[0] = series.xNorm(nearest);
+        xy[1] = series.yNorm(nearest);
+        return nearest;
+    }
+
+    private static boolean interpolate(TimedSeries series, int left, int right, long posMs, double[] xy) {
+        if (left < 0 || right < 0) {
+            return false;
+        }
+        long leftMs = series.timeMs(left);
+        long rightMs = series.timeMs(right);
+        if (rightMs <= leftMs) {
+            return false;
+        }
+        long gap = rightMs - leftMs;
+        if (gap > MAX_INTERP_GAP_MS || posMs < leftMs || posMs > rightMs) {
+            return false;
+        }
+        double weight = (posMs - leftMs) / (double) gap;
+        double lx = series.xNorm(left);
+        double ly = series.yNorm(left);
+        xy[0] = lx + (series.xNorm(right) - lx) * weight;
+        xy[1] = ly + (series.yNorm(right) - ly) * weight;
+        return true;
+    }
+}
@@ -0,0 +1,198 @@
+package videoapp.ui;
+
+import videoapp.util.GazeFilter;
+import videoapp.util.TimeOrder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, time-sorted gaze samples held in three parallel primitive arrays. This
+ * costs 16 bytes per sample, where a list of {@link TimedOverlayPoint} objects needs a
+ * header, two doubles, a long and a reference each. Because the arrays are never
+ * written after construction, a track can be handed between threads and shared by the
+ * renderer, the heatmap and the payload without copying.
+ * <p>
+ * Tracks are assembled with a {@link Builder}, which accepts samples in any order and
+ * sorts them once when the track is built.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class GazeTrack implements TimedSeries {
+    public static final GazeTrack EMPTY = new GazeTrack(new long[0], new float[0], new float[0]);
+
+    private final long[] times;
+    private final float[] xs;
+    private final float[] ys;
+
+    private GazeTrack(long[] times, float[] xs, float[] ys) {
+        this.times = times;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /** Builds a track from {@code points}, sorted by time; ties keep their list order. */
+    public static GazeTrack of(List<? extends TimedOverlayPoint> points) {
+        if (points == null || points.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder(points.size());
+        for (TimedOverlayPoint p : points) {
+            builder.add(p.timeMs, p.xNorm, p.yNorm);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return times.length;
+    }
+
+    @Override
+    public long timeMs(int index) {
+        return times[index];
+    }
+
+    @Override
+    public double xNorm(int index) {
+        return xs[index];
+    }
+
+    @Override
+    public double yNorm(int index) {
+        return ys[index];
+    }
+
+    /**
+     * This track run through {@code filter}, which is reset first. The result shares this
+     * track's time column, so it costs only the two coordinate columns.
+     */
+    public GazeTrack smoothed(GazeFilter filter) {
+        int n = times.length;
+        if (n == 0) {
+            return this;
+        }
+        float[] smoothedX = new float[n];
+        float[] smoothedY = new float[n];
+        filter.reset();
+        filter.filter(times, xs, ys, smoothedX, smoothedY, 0, n);
+        return new GazeTrack(times, smoothedX, smoothedY);
+    }
+
+    /**
+     * Collects samples for a {@link GazeTrack}. Not thread-safe; the finished track is.
+     */
+    public static final class Builder {
+        private long[] times;
+        private float[] xs;
+        private float[] ys;
+        private int size;
+        private boolean sorted = true;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            this.times = new long[capacity];
+            this.xs = new float[capacity];
+            this.ys = new float[capacity];
+        }
+
+        public void add(long timeMs, double xNorm, double yNorm) {
+            if (size == times.length) {
+                grow(size + 1);
+            }
+            if (size > 0 && timeMs < times[size - 1]) {
+                sorted = false;
+            }
+            times[size] = timeMs;
+            xs[size] = (float) xNorm;
+            ys[size] = (float) yNorm;
+            size++;
+        }
+
+        /** Appends every sample of {@code other} after the samples added so far. */
+        public void addAll(Builder other) {
+            if (other.size == 0) {
+                return;
+            }
+            grow(size + other.size);
+            if (!other.sorted || (size > 0 && other.times[0] < times[size - 1])) {
+                sorted = false;
+            }
+            System.arraycopy(other.times, 0, times, size, other.size);
+            System.arraycopy(other.xs, 0, xs, size, other.size);
+            System.arraycopy(other.ys, 0, ys, size, other.size);
+            size += other.size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** Time of the {@code index}-th sample in the order it was added. */
+        public long timeMs(int index) {
+            return times[index];
+        }
+
+        public double xNorm(int index) {
+            return xs[index];
+        }
+
+        public double yNorm(int index) {
+            return ys[index];
+        }
+
+        /**
+         * Returns the finished track. The builder hands its arrays over when they are
+         * exactly full and must not be used afterwards.
+         */
+        public GazeTrack build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            if (!sorted) {
+                sortByTime();
+            }
+            if (size == times.length) {
+                return new GazeTrack(times, xs, ys);
+            }
+            return new GazeTrack(Arrays.copyOf(times, size), Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
+        }
+
+        private void grow(int minCapacity) {
+            if (minCapacity <= times.length) {
+                return;
+            }
+            int capacity = Math.max(minCapacity, times.length + (times.length >> 1));
+            times = Arrays.copyOf(times, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+
+        private void sortByTime() {
+            if (TimeOrder.isSorted(times, size)) {
+                sorted = true;
+                return;
+            }
+            int[] order = TimeOrder.order(times, size);
+            long[] sortedTimes = new long[size];
+            float[] sortedXs = new float[size];
+            float[] sortedYs = new float[size];
+            for (int i = 0; i < size; i++) {
+                int from = order[i];
+                sortedTimes[i] = times[from];
+                sortedXs[i] = xs[from];
+                sortedYs[i] = ys[from];
+            }
+            times = sortedTimes;
+            xs = sortedXs;
+            ys = sortedYs;
+            sorted = true;
+        }
+    }
+}
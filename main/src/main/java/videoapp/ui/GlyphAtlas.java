@@ -0,0 +1,106 @@
+package videoapp.ui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Pre-rasterised sprites for static overlay markers: the single-point ring, the cluster
+ * marker and the glyphs labels are made of. Labels are composed by copying one glyph per
+ * character, so no text layout or shape rasterisation happens per marker.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class GlyphAtlas {
+    private static final String GLYPHS = "0123456789×";
+    private static final Color CLUSTER_FILL = new Color(255, 220, 0, 70);
+
+    private final BufferedImage image;
+    private final int spriteSize;
+    private final int clusterX;
+    private final int glyphTop;
+    private final int glyphHeight;
+    private final int ascent;
+    private final int descent;
+    private final int[] glyphX = new int[GLYPHS.length()];
+    private final int[] glyphWidth = new int[GLYPHS.length()];
+
+    GlyphAtlas(int radius, float strokePx, Color ringColor, Color textColor, Font font) {
+        this.spriteSize = radius * 2 + (int) Math.ceil(strokePx) + 2;
+        this.clusterX = spriteSize;
+
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D pg = probe.createGraphics();
+        pg.setFont(font);
+        FontMetrics fm = pg.getFontMetrics();
+        pg.dispose();
+        this.ascent = fm.getAscent();
+        this.descent = fm.getDescent();
+        this.glyphHeight = fm.getAscent() + fm.getDescent();
+        this.glyphTop = spriteSize;
+        int x = 0;
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            glyphX[i] = x;
+            glyphWidth[i] = fm.charWidth(GLYPHS.charAt(i));
+            x += glyphWidth[i] + 1;
+        }
+
+        int width = Math.max(spriteSize * 2, x);
+        image = new BufferedImage(width, spriteSize + glyphHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setStroke(new BasicStroke(strokePx));
+            int c = spriteSize / 2;
+            g.setColor(ringColor);
+            g.drawOval(c - radius, c - radius, radius * 2, radius * 2);
+            g.setColor(CLUSTER_FILL);
+            g.fillOval(clusterX + c - radius, c - radius, radius * 2, radius * 2);
+            g.setColor(ringColor);
+            g.drawOval(clusterX + c - radius, c - radius, radius * 2, radius * 2);
+            g.setFont(font);
+            g.setColor(textColor);
+            for (int i = 0; i < GLYPHS.length(); i++) {
+                g.drawString(String.valueOf(GLYPHS.charAt(i)), glyphX[i], glyphTop + ascent);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    void drawRing(Graphics2D g, int cx, int cy) {
+        drawSprite(g, 0, cx, cy);
+    }
+
+    void drawCluster(Graphics2D g, int cx, int cy) {
+        drawSprite(g, clusterX, cx, cy);
+    }
+
+    private void drawSprite(Graphics2D g, int sx, int cx, int cy) {
+        int dx = cx - spriteSize / 2;
+        int dy = cy - spriteSize / 2;
+        g.drawImage(image, dx, dy, dx + spriteSize, dy + spriteSize, sx, 0, sx + spriteSize, spriteSize, null);
+    }
+
+    /** Draws {@code text} with its baseline at {@code baselineY}; characters without a glyph are skipped. */
+    void drawLabel(Graphics2D g, String text, int x, int baselineY) {
+        int top = baselineY - ascent;
+        for (int i = 0; i < text.length(); i++) {
+            int glyph = GLYPHS.indexOf(text.charAt(i));
+            if (glyph < 0) {
+                continue;
+            }
+            int sx = glyphX[glyph];
+            int w = glyphWidth[glyph];
+            g.drawImage(image, x, top, x + w, top + glyphHeight, sx, glyphTop, sx + w, glyphTop + glyphHeight, null);
+            x += w;
+        }
+    }
+
+    /** Offset from a marker's centre to the baseline that centres a label on it vertically. */
+    int labelBaselineOffset() {
+        return (ascent - descent) / 2;
+    }
+}
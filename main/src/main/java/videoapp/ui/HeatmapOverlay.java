@@ -1,25 +1,38 @@
 package videoapp.ui;
 
+import videoapp.util.GazeEvent;
+import videoapp.util.HeatmapDifference;
+
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.util.List;
 
 /**
  * Computes and renders a translucent heatmap showing the density of overlay
- * points on the video surface.
+ * points on the video surface, or the dwell time of fixations. A second mode
+ * renders a signed group difference map where only statistically significant
+ * cells are drawn at full strength.
  *
  * @author Glenn Anciado
  * @version 2.0
  */
 
 public final class HeatmapOverlay {
+    public enum Mode {DENSITY, DIFFERENCE}
+
     private static final Color BASE_YELLOW = new Color(255, 213, 0);
+    private static final Color POSITIVE_RED = new Color(230, 60, 40);
+    private static final Color NEGATIVE_BLUE = new Color(40, 110, 235);
+    private static final float NOT_SIGNIFICANT_ALPHA = 0.25f;
 
     private final int rows;
     private final int cols;
     private final int[][] grid;
     private int maxCount;
     private boolean heatmapVisible;
+    private Mode mode = Mode.DENSITY;
+    private HeatmapDifference difference;
+    private double differenceScale;
 
     public HeatmapOverlay(int rows, int cols) {
         this.rows = Math.max(1, rows);
@@ -28,6 +41,7 @@ public final class HeatmapOverlay {
     }
 
     public void rebuild(List<? extends OverlayPoint> points) {
+        mode = Mode.DENSITY;
         clearGrid();
         if (points == null || points.isEmpty()) {
             maxCount = 0;
@@ -35,21 +49,66 @@ public final class HeatmapOverlay {
         }
         for (OverlayPoint pt : points) {
             if (pt == null) continue;
-            int col = clamp((int) Math.floor(pt.xNorm * cols), cols);
-            int row = clamp((int) Math.floor((1.0 - pt.yNorm) * rows), rows);
-            int count = ++grid[row][col];
-            if (count > maxCount) {
-                maxCount = count;
-            }
+            countPoint(pt.xNorm, pt.yNorm);
+        }
+        heatmapVisible = false;
+    }
+
+    /** Rebuilds the density grid straight from a timed series, without materialising points. */
+    public void rebuild(TimedSeries series) {
+        mode = Mode.DENSITY;
+        clearGrid();
+        maxCount = 0;
+        int n = (series != null) ? series.size() : 0;
+        for (int i = 0; i < n; i++) {
+            countPoint(series.xNorm(i), series.yNorm(i));
         }
         heatmapVisible = false;
     }
 
+    /**
+     * Rebuilds the grid from fixations, each adding its duration in milliseconds to the
+     * cell of its centre, so long looks outweigh many brief ones. Saccades are skipped.
+     * Like {@link #applySnapshot}, this leaves the heatmap's visibility unchanged.
+     */
+    public void rebuildDwell(List<GazeEvent> events) {
+        mode = Mode.DENSITY;
+        clearGrid();
+        maxCount = 0;
+        if (events == null) {
+            return;
+        }
+        for (GazeEvent event : events) {
+            if (event.isFixation()) {
+                addToCell(event.centroidX(), event.centroidY(), Math.max(1L, event.durationMs()));
+            }
+        }
+    }
+
+    public boolean isHeatmapVisible() {
+        return heatmapVisible;
+    }
+
+    private void countPoint(double xNorm, double yNorm) {
+        addToCell(xNorm, yNorm, 1L);
+    }
+
+    private void addToCell(double xNorm, double yNorm, long weight) {
+        int col = clamp((int) Math.floor(xNorm * cols), cols);
+        int row = clamp((int) Math.floor((1.0 - yNorm) * rows), rows);
+        int count = (int) Math.min(Integer.MAX_VALUE, grid[row][col] + weight);
+        grid[row][col] = count;
+        if (count > maxCount) {
+            maxCount = count;
+        }
+    }
+
     public void resetVisuals() {
         heatmapVisible = false;
     }
 
     public void applySnapshot(int[][] snapshot, int snapshotMax) {
+        mode = Mode.DENSITY;
         clearGrid();
         if (snapshot == null) {
             maxCount = 0;
@@ -65,14 +124,38 @@ public final class HeatmapOverlay {
         maxCount = Math.max(0, snapshotMax);
     }
 
+    /**
+     * Switches to difference mode. Red cells mark where the focus group looked more than
+     * the rest, blue where it looked less; non-significant cells are drawn faintly.
+     */
+    public void applyDifference(HeatmapDifference result) {
+        if (result == null) {
+            return;
+        }
+        mode = Mode.DIFFERENCE;
+        difference = result;
+        differenceScale = result.maxAbsDifference();
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
     public void onPlaybackStopped() {
-        if (maxCount > 0) {
+        if (maxCount > 0 || (mode == Mode.DIFFERENCE && differenceScale > 0)) {
             heatmapVisible = true;
         }
     }
 
     public void paintHeatmap(Graphics2D g, Rectangle area) {
-        if (!heatmapVisible || maxCount <= 0 || area == null) {
+        if (!heatmapVisible || area == null) {
+            return;
+        }
+        if (mode == Mode.DIFFERENCE) {
+            paintDifference(g, area);
+            return;
+        }
+        if (maxCount <= 0) {
             return;
         }
         double cellW = area.getWidth() / cols;
@@ -94,6 +177,51 @@ public final class HeatmapOverlay {
         g.setComposite(previous);
     }
 
+    private void paintDifference(Graphics2D g, Rectangle area) {
+        HeatmapDifference diff = difference;
+        if (diff == null || differenceScale <= 0) {
+            return;
+        }
+        int dRows = diff.rows();
+        int dCols = diff.cols();
+        double cellW = area.getWidth() / dCols;
+        double cellH = area.getHeight() / dRows;
+        double[] values = diff.difference();
+        boolean[] significant = diff.significant();
+        Composite previous = g.getComposite();
+        Stroke previousStroke = g.getStroke();
+        g.setComposite(AlphaComposite.SrcOver);
+        for (int r = 0; r < dRows; r++) {
+            for (int c = 0; c < dCols; c++) {
+                int idx = r * dCols + c;
+                double value = values[idx];
+                if (value == 0.0) continue;
+                float intensity = (float) Math.min(1.0, Math.abs(value) / differenceScale);
+                if (!significant[idx]) {
+                    intensity *= NOT_SIGNIFICANT_ALPHA;
+                }
+                double x = area.getX() + c * cellW;
+                double y = area.getY() + r * cellH;
+                Rectangle2D cell = new Rectangle2D.Double(x, y, cellW + 1, cellH + 1);
+                g.setColor(signedColor(value, intensity));
+                g.fill(cell);
+                if (significant[idx]) {
+                    g.setColor(new Color(255, 255, 255, 160));
+                    g.setStroke(new BasicStroke(1f));
+                    g.draw(new Rectangle2D.Double(x, y, cellW, cellH));
+                }
+            }
+        }
+        g.setStroke(previousStroke);
+        g.setComposite(previous);
+    }
+
+    private Color signedColor(double value, float intensity) {
+        Color base = (value > 0) ? POSITIVE_RED : NEGATIVE_BLUE;
+        int alpha = Math.round(20 + (200 * Math.max(0f, Math.min(1f, intensity))));
+        return new Color(base.getRed(), base.getGreen(), base.getBlue(), Math.max(0, Math.min(255, alpha)));
+    }
+
     private void clearGrid() {
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
@@ -0,0 +1,65 @@
+package videoapp.ui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Pre-rendered gaze markers, one per colour, packed side by side in a single image.
+ * Drawing a marker is then one image copy instead of anti-aliased shape rasterisation,
+ * so painting many markers costs little more than copying their pixels. The atlas is
+ * built for one marker radius and set of colours and rebuilt when either changes.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class MarkerAtlas {
+    private final int radius;
+    private final int cellSize;
+    private final int[] rgbs;
+    private final BufferedImage image;
+
+    private MarkerAtlas(int radius, int[] rgbs) {
+        this.radius = radius;
+        this.rgbs = rgbs;
+        this.cellSize = radius * 2 + 2;
+        this.image = new BufferedImage(Math.max(1, cellSize * rgbs.length), cellSize, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            float stroke = Math.max(1.5f, radius * 0.2f);
+            g.setStroke(new BasicStroke(stroke));
+            for (int i = 0; i < rgbs.length; i++) {
+                Color color = new Color(rgbs[i]);
+                int x = i * cellSize + 1;
+                g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 90));
+                g.fillOval(x, 1, radius * 2, radius * 2);
+                g.setColor(color);
+                int inset = Math.round(stroke / 2f);
+                g.drawOval(x + inset, 1 + inset, radius * 2 - inset * 2, radius * 2 - inset * 2);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Returns {@code current} if it already has this radius and colours, otherwise a new
+     * atlas; {@code rgbs} is taken over, not copied.
+     */
+    static MarkerAtlas reuseOrBuild(MarkerAtlas current, int radius, int[] rgbs) {
+        if (current != null && current.radius == radius && Arrays.equals(current.rgbs, rgbs)) {
+            return current;
+        }
+        return new MarkerAtlas(radius, rgbs);
+    }
+
+    /** Draws the marker of colour number {@code cell} centred on ({@code cx}, {@code cy}). */
+    void draw(Graphics2D g, int cell, int cx, int cy) {
+        int sx = cell * cellSize;
+        int dx = cx - radius - 1;
+        int dy = cy - radius - 1;
+        g.drawImage(image, dx, dy, dx + cellSize, dy + cellSize, sx, 0, sx + cellSize, cellSize, null);
+    }
+}
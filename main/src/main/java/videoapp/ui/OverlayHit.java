@@ -0,0 +1,11 @@
+package videoapp.ui;
+
+/**
+ * Overlay point found under the mouse: its 0-based row, gaze time for timed sources,
+ * normalised position, and the rows of the nearest other points.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record OverlayHit(int row, boolean timed, long timeMs, double xNorm, double yNorm, int[] neighbours) {}
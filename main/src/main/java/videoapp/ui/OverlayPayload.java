@@ -1,53 +1,69 @@
 package videoapp.ui;
 
+import videoapp.util.CsvLoadStats;
+import videoapp.util.FrameOffsetSamples;
+
 import java.io.File;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Immutable container for overlay points and precomputed heatmap data loaded from CSV.
+ * Timed samples travel as an immutable {@link TimedSeries}, which is shared rather than copied.
+ * Also carries the frame-index samples and load statistics gathered in the same pass,
+ * so applying the payload never has to reopen the source file.
  *
  * @author Glenn Anciado
- * @version 1.0
+ * @version 1.2
  */
 
 public record OverlayPayload(
         File source,
         List<OverlayPoint> staticPoints,
-        List<TimedOverlayPoint> timedPoints,
+        TimedSeries track,
         int[][] heatmapGrid,
         int heatmapMaxCount,
         boolean timed,
+        FrameOffsetSamples frameOffsets,
+        CsvLoadStats stats,
         String message) {
 
     public static OverlayPayload staticPayload(File source,
                                                List<OverlayPoint> points,
                                                int[][] grid,
                                                int maxCount,
+                                               FrameOffsetSamples frameOffsets,
+                                               CsvLoadStats stats,
                                                String message) {
         return new OverlayPayload(
                 source,
                 List.copyOf(points),
-                Collections.emptyList(),
+                GazeTrack.EMPTY,
                 grid,
                 maxCount,
                 false,
+                frameOffsets,
+                stats,
                 message
         );
     }
 
     public static OverlayPayload timedPayload(File source,
-                                              List<TimedOverlayPoint> points,
+                                              TimedSeries track,
                                               int[][] grid,
                                               int maxCount,
+                                              FrameOffsetSamples frameOffsets,
+                                              CsvLoadStats stats,
                                               String message) {
         return new OverlayPayload(
                 source,
                 Collections.emptyList(),
-                List.copyOf(points),
+                track,
                 grid,
                 maxCount,
                 true,
+                frameOffsets,
+                stats,
                 message
         );
     }
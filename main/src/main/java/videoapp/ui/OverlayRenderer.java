@@ -1,98 +1,436 @@
 package videoapp.ui;
 
+import videoapp.util.ClockMapping;
+import videoapp.util.GazeEvent;
+import videoapp.util.GazeFilter;
+import videoapp.util.IntervalIndex;
+import videoapp.util.PointIndex;
+
 import java.awt.*;
+import java.awt.geom.Path2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Manages overlay points (static and timed) and paints them onto the video surface.
+ * Timed points are read through a {@link TimedSeries}, so a loaded track and a buffer
+ * still being filled by a loader are drawn the same way.
  *
  * @author Glenn Anciado
  * @version 1.0
  */
 public final class OverlayRenderer {
-    private static final long MAX_INTERP_GAP_MS = 250;
-    private static final long MAX_SHOW_AGE_MS = 300;
-
-    private final List<OverlayPoint> overlayPoints = new CopyOnWriteArrayList<>();
-    private final List<TimedOverlayPoint> timedOverlayPoints = new CopyOnWriteArrayList<>();
-
-    private volatile long overlayTimeOffsetMs = 0L;
+    private static final long FIXATION_TRAIL_MS = 1500;
+    private static final long FIXATION_REFERENCE_MS = 250;
+    private static final int LIVE_FIXATIONS = 8;
+    private static final Color FIXATION_COLOR = new Color(70, 200, 255);
+    private static final int SCANPATH_SAMPLES = 120;
+    private static final Color SCANPATH_COLOR = new Color(255, 170, 40);
+    private static final int HIT_NEIGHBOURS = 3;
+
+    private volatile List<OverlayPoint> overlayPoints = List.of();
+    private final StaticOverlayLayer staticLayer = new StaticOverlayLayer();
+    private volatile TimedSeries timedSeries = GazeTrack.EMPTY;
+    private final TimedSeriesCursor cursor = new TimedSeriesCursor();
+    private final double[] located = new double[2];
+    private volatile boolean followLatest;
+    private volatile boolean trackComplete;
+    private volatile double frameRate;
+    private volatile FrameGazeTable frameTable;
+    private volatile List<GazeEvent> fixations = List.of();
+    private volatile IntervalIndex<GazeEvent> fixationIndex = indexOf(List.of());
+    private volatile boolean showFixations = true;
+    private volatile boolean showScanpath;
+    private final ScanpathTrail scanpath = new ScanpathTrail(SCANPATH_SAMPLES);
+    private volatile IndexedPoints indexedPoints = new IndexedPoints(null, PointIndex.EMPTY);
+    private volatile PaintedMarker paintedMarker;
+    private volatile GazeFilter.Kind smoothing = GazeFilter.Kind.NONE;
+    private volatile SmoothedTracks smoothedTracks = new SmoothedTracks(null, Map.of());
+
+    private volatile ClockMapping overlayClock = ClockMapping.IDENTITY;
     private volatile long currentPosMs = 0L;
+    private volatile long currentVideoMs = 0L;
 
     public void setOverlayPoints(List<OverlayPoint> points) {
-        overlayPoints.clear();
-        timedOverlayPoints.clear();
-        if (points != null) {
-            overlayPoints.addAll(points);
-        }
+        overlayPoints = (points != null) ? List.copyOf(points) : List.of();
+        followLatest = false;
+        timedSeries = GazeTrack.EMPTY;
+        setFixations(null);
+        setTrackComplete(false);
     }
 
     public void setTimedOverlayPoints(List<TimedOverlayPoint> points) {
-        timedOverlayPoints.clear();
-        overlayPoints.clear();
-        if (points != null) {
-            List<TimedOverlayPoint> sorted = new ArrayList<>(points);
-            sorted.sort(java.util.Comparator.comparingLong(p -> p.timeMs));
-            timedOverlayPoints.addAll(sorted);
+        overlayPoints = List.of();
+        followLatest = false;
+        timedSeries = GazeTrack.of(points);
+        setFixations(null);
+        setTrackComplete(true);
+    }
+
+    /**
+     * Draws timed overlays from a fully loaded, immutable {@code track}. Once the video
+     * frame rate is known, gaze positions are resampled onto the frame grid in the
+     * background so painting a frame becomes a table lookup.
+     */
+    public void setTimedTrack(TimedSeries track) {
+        overlayPoints = List.of();
+        followLatest = false;
+        timedSeries = (track != null) ? track : GazeTrack.EMPTY;
+        setFixations(null);
+        setTrackComplete(true);
+    }
+
+    /**
+     * Draws timed overlays from {@code series}, which may keep growing while it is shown
+     * (for example a {@link TimedPointBuffer} filled by a streaming loader).
+     */
+    public void setTimedSeries(TimedSeries series) {
+        overlayPoints = List.of();
+        followLatest = false;
+        timedSeries = (series != null) ? series : GazeTrack.EMPTY;
+        setFixations(null);
+        setTrackComplete(false);
+    }
+
+    /**
+     * Draws the newest sample of {@code series} regardless of the playhead, for live
+     * input where the series is filled as samples arrive.
+     */
+    public void setLiveSeries(TimedSeries series) {
+        overlayPoints = List.of();
+        timedSeries = (series != null) ? series : GazeTrack.EMPTY;
+        followLatest = true;
+        setFixations(null);
+        setTrackComplete(false);
+    }
+
+    public TimedSeries timedSeries() {
+        return timedSeries;
+    }
+
+    /** Fixations of the current track, in time order; saccades in {@code events} are ignored. */
+    public synchronized void setFixations(List<GazeEvent> events) {
+        fixations = (events == null) ? List.of() : events.stream().filter(GazeEvent::isFixation).toList();
+        fixationIndex = indexOf(fixations);
+    }
+
+    /** Adds a fixation reported by a live detector, keeping only the most recent ones. */
+    public synchronized void addLiveFixation(GazeEvent event) {
+        if (event == null || !event.isFixation()) {
+            return;
         }
+        List<GazeEvent> current = fixations;
+        List<GazeEvent> next = new ArrayList<>(current.subList(Math.max(0, current.size() - LIVE_FIXATIONS + 1), current.size()));
+        next.add(event);
+        fixations = List.copyOf(next);
+        fixationIndex = indexOf(fixations);
+    }
+
+    public List<GazeEvent> fixations() {
+        return fixations;
+    }
+
+    /** Time index over {@link #fixations()}. */
+    public IntervalIndex<GazeEvent> fixationIndex() {
+        return fixationIndex;
+    }
+
+    private static IntervalIndex<GazeEvent> indexOf(List<GazeEvent> events) {
+        return IntervalIndex.of(events, GazeEvent::startMs, GazeEvent::endMs);
     }
 
+    /** Draws fixations as discs sized by their duration, fading out over {@value #FIXATION_TRAIL_MS} ms. */
+    public void setShowFixations(boolean show) {
+        showFixations = show;
+    }
+
+    public boolean isShowFixations() {
+        return showFixations;
+    }
+
+    /**
+     * Draws the scanpath: the shown fixations joined in order, or without them the last
+     * {@value #SCANPATH_SAMPLES} samples, trailed through a {@link ScanpathTrail}.
+     */
+    public void setShowScanpath(boolean show) {
+        showScanpath = show;
+    }
+
+    public boolean isShowScanpath() {
+        return showScanpath;
+    }
+
+    /**
+     * Filter applied to complete tracks before drawing; {@link GazeFilter.Kind#NONE} draws
+     * raw samples. The marker, scanpath and frame table follow the smoothed copy once it
+     * is ready, while fixations and hit-testing stay on the raw samples.
+     */
+    public void setSmoothing(GazeFilter.Kind kind) {
+        smoothing = (kind != null) ? kind : GazeFilter.Kind.NONE;
+        rebuildSmoothing();
+        rebuildFrameTable();
+    }
+
+    public GazeFilter.Kind getSmoothing() {
+        return smoothing;
+    }
+
+    /** The series the marker is drawn from: the smoothed track once it is ready, else the raw one. */
+    private TimedSeries drawnSeries() {
+        TimedSeries series = timedSeries;
+        SmoothedTracks smoothed = smoothedTracks;
+        if (smoothed.source() != series) {
+            return series;
+        }
+        TimedSeries result = smoothed.byKind().get(smoothing);
+        return (result != null) ? result : series;
+    }
+
+    /**
+     * Filters the complete track with the selected kind on the common pool, unless that
+     * copy is already cached. A new track drops the copies of the previous one.
+     */
+    private synchronized void rebuildSmoothing() {
+        TimedSeries series = timedSeries;
+        TimedSeries source = (trackComplete && series.size() > 0) ? series : null;
+        if (smoothedTracks.source() != source) {
+            smoothedTracks = new SmoothedTracks(source, Map.of());
+        }
+        GazeFilter.Kind kind = smoothing;
+        if (source == null || kind == GazeFilter.Kind.NONE || smoothedTracks.byKind().containsKey(kind)) {
+            return;
+        }
+        ForkJoinPool.commonPool().execute(() -> publishSmoothed(source, kind, smooth(source, GazeFilter.create(kind))));
+    }
+
+    private synchronized void publishSmoothed(TimedSeries source, GazeFilter.Kind kind, TimedSeries result) {
+        if (smoothedTracks.source() != source) {
+            return;
+        }
+        Map<GazeFilter.Kind, TimedSeries> byKind = new EnumMap<>(GazeFilter.Kind.class);
+        byKind.putAll(smoothedTracks.byKind());
+        byKind.put(kind, result);
+        smoothedTracks = new SmoothedTracks(source, Map.copyOf(byKind));
+        if (kind == smoothing) {
+            rebuildFrameTable();
+        }
+    }
+
+    /** {@code series} run through {@code filter}, column by column where the storage allows. */
+    private static TimedSeries smooth(TimedSeries series, GazeFilter filter) {
+        if (series instanceof GazeTrack track) {
+            return track.smoothed(filter);
+        }
+        if (series instanceof CompressedGazeTrack track) {
+            return track.smoothed(filter);
+        }
+        filter.reset();
+        double[] xy = new double[2];
+        GazeTrack.Builder builder = new GazeTrack.Builder();
+        for (int i = 0; i < series.size(); i++) {
+            long t = series.timeMs(i);
+            xy[0] = series.xNorm(i);
+            xy[1] = series.yNorm(i);
+            filter.filter(t, xy);
+            builder.add(t, xy[0], xy[1]);
+        }
+        return builder.build();
+    }
+
+    /** Shifts gaze time against video time, keeping the current clock-drift scale. */
     public void setOverlayTimeOffsetMs(long offsetMs) {
-        this.overlayTimeOffsetMs = offsetMs;
+        setOverlayClock(overlayClock.withOffset(offsetMs));
+    }
+
+    /** Sets how video time maps to gaze time: {@code scale * videoMs + offsetMs}. */
+    public void setOverlayClock(ClockMapping clock) {
+        this.overlayClock = (clock != null) ? clock : ClockMapping.IDENTITY;
+        rebuildFrameTable();
+    }
+
+    public ClockMapping getOverlayClock() {
+        return overlayClock;
+    }
+
+    /** Frame rate of the playing video; enables the per-frame gaze table. */
+    public void setFrameRate(double fps) {
+        this.frameRate = fps;
+        rebuildFrameTable();
+    }
+
+    /** The per-frame gaze table for the current track and offset, or null if there is none. */
+    public FrameGazeTable frameTable() {
+        FrameGazeTable table = frameTable;
+        return (table != null && table.matches(drawnSeries(), overlayClock)) ? table : null;
+    }
+
+    private void setTrackComplete(boolean complete) {
+        trackComplete = complete;
+        rebuildSmoothing();
+        rebuildFrameTable();
+        rebuildPointIndex();
+    }
+
+    /**
+     * Indexes the complete point set, static points or a fully loaded track, on the
+     * common pool. Growing series are not indexed; only their marker can be hit. Very
+     * long tracks are thinned to at most {@link PointIndex#MAX_POINTS} indexed samples.
+     */
+    private synchronized void rebuildPointIndex() {
+        TimedSeries series = timedSeries;
+        List<OverlayPoint> points = overlayPoints;
+        Object source = (series.size() > 0) ? (trackComplete ? series : null) : (points.isEmpty() ? null : points);
+        indexedPoints = new IndexedPoints(source, PointIndex.EMPTY);
+        if (source == null) {
+            return;
+        }
+        ForkJoinPool.commonPool().execute(() -> {
+            PointIndex index;
+            if (source != series) {
+                index = PointIndex.of(points.size(), i -> points.get(i).xNorm, i -> points.get(i).yNorm);
+            } else if (series instanceof CompressedGazeTrack packed) {
+                index = packed.pointIndex();
+            } else {
+                index = PointIndex.of(series.size(), series::xNorm, series::yNorm);
+            }
+            publishPointIndex(source, index);
+        });
+    }
+
+    private synchronized void publishPointIndex(Object source, PointIndex index) {
+        if (indexedPoints.source() == source) {
+            indexedPoints = new IndexedPoints(source, index);
+        }
+    }
+
+    /**
+     * Finds the point under ({@code px}, {@code py}), given in the same device pixels as
+     * {@code drawArea}: the gaze marker on screen if the position is on it, otherwise the
+     * nearest indexed point within one marker radius. Uses the index only, never a scan.
+     *
+     * @return the hit, or null if there is no point there or the index is still building
+     */
+    public OverlayHit hitTest(VideoDrawArea drawArea, int px, int py) {
+        if (drawArea == null || drawArea.width() <= 0 || drawArea.height() <= 0) {
+            return null;
+        }
+        TimedSeries series = timedSeries;
+        List<OverlayPoint> points = overlayPoints;
+        IndexedPoints indexed = indexedPoints;
+        int radius = OverlayStyle.from(drawArea).radius();
+        int[] rows = new int[HIT_NEIGHBOURS + 1];
+        int found = 0;
+        if (indexed.source() == series || indexed.source() == points) {
+            double xn = (px - drawArea.x()) / (double) drawArea.width();
+            double yn = 1.0 - (py - drawArea.y()) / (double) drawArea.height();
+            found = indexed.index().nearest(xn, yn, drawArea.width(), drawArea.height(), radius, rows);
+        }
+        PaintedMarker marker = paintedMarker;
+        int row;
+        if (marker != null && marker.series() == series && Math.hypot(px - marker.x(), py - marker.y()) <= radius) {
+            row = marker.index();
+        } else if (found > 0) {
+            row = rows[0];
+        } else {
+            return null;
+        }
+        int[] neighbours = new int[HIT_NEIGHBOURS];
+        int count = 0;
+        for (int i = 0; i < found && count < neighbours.length; i++) {
+            if (rows[i] != row) {
+                neighbours[count++] = rows[i];
+            }
+        }
+        neighbours = Arrays.copyOf(neighbours, count);
+        if (series.size() > 0) {
+            return (row < series.size())
+                    ? new OverlayHit(row, true, series.timeMs(row), series.xNorm(row), series.yNorm(row), neighbours)
+                    : null;
+        }
+        return (row < points.size())
+                ? new OverlayHit(row, false, 0L, points.get(row).xNorm, points.get(row).yNorm, neighbours)
+                : null;
+    }
+
+    private synchronized void rebuildFrameTable() {
+        FrameGazeTable previous = frameTable;
+        TimedSeries series = drawnSeries();
+        ClockMapping clock = overlayClock;
+        if (previous != null) {
+            if (trackComplete && previous.matches(series, clock) && previous.fps() == frameRate) {
+                return;
+            }
+            previous.cancel();
+        }
+        FrameGazeTable table = trackComplete ? FrameGazeTable.create(series, frameRate, clock) : null;
+        frameTable = table;
+        if (table != null) {
+            table.fillInBackground();
+        }
     }
 
     public long getOverlayTimeOffsetMs() {
-        return overlayTimeOffsetMs;
+        return overlayClock.offsetMs();
     }
 
     public void setTimedOverlayAnchorIndex(int index1Based) {
-        if (index1Based <= 0 || timedOverlayPoints.isEmpty()) {
-            this.overlayTimeOffsetMs = 0L;
+        TimedSeries series = timedSeries;
+        if (index1Based <= 0 || series.size() == 0) {
+            setOverlayClock(ClockMapping.IDENTITY);
             return;
         }
-        int idx = Math.min(index1Based - 1, timedOverlayPoints.size() - 1);
+        int idx = Math.min(index1Based - 1, series.size() - 1);
         if (idx >= 0) {
-            this.overlayTimeOffsetMs = -timedOverlayPoints.get(idx).timeMs;
+            setOverlayClock(ClockMapping.offset(-series.timeMs(idx)));
         }
     }
 
     public boolean hasTimedOverlayPoints() {
-        return !timedOverlayPoints.isEmpty();
+        return timedSeries.size() > 0;
     }
 
     public Long getTimedOverlayRowTimeMs(int index1Based) {
-        if (index1Based <= 0 || timedOverlayPoints.isEmpty()) {
+        TimedSeries series = timedSeries;
+        if (index1Based <= 0 || series.size() == 0) {
             return null;
         }
-        int idx = Math.min(index1Based - 1, timedOverlayPoints.size() - 1);
+        int idx = Math.min(index1Based - 1, series.size() - 1);
         if (idx < 0) {
             return null;
         }
-        return timedOverlayPoints.get(idx).timeMs;
+        return series.timeMs(idx);
     }
 
     public void onProgress(long posMs) {
-        currentPosMs = posMs + overlayTimeOffsetMs;
+        currentVideoMs = posMs;
+        currentPosMs = overlayClock.recordingMs(posMs);
     }
 
     public void clear() {
-        overlayPoints.clear();
-        timedOverlayPoints.clear();
-        overlayTimeOffsetMs = 0L;
+        overlayPoints = List.of();
+        followLatest = false;
+        timedSeries = GazeTrack.EMPTY;
+        overlayClock = ClockMapping.IDENTITY;
         currentPosMs = 0L;
+        currentVideoMs = 0L;
+        setFixations(null);
+        setTrackComplete(false);
     }
 
-    public List<? extends OverlayPoint> snapshotForHeatmap() {
-        if (!timedOverlayPoints.isEmpty()) {
-            return List.copyOf(timedOverlayPoints);
-        }
-        return List.copyOf(overlayPoints);
+    /** Read-only view of the static points; empty while timed overlays are shown. */
+    public List<OverlayPoint> staticPoints() {
+        return overlayPoints;
     }
 
     public void paint(Graphics2D graphics, VideoDrawArea drawArea) {
-        if (drawArea == null || (timedOverlayPoints.isEmpty() && overlayPoints.isEmpty())) {
+        TimedSeries series = drawnSeries();
+        List<OverlayPoint> points = overlayPoints;
+        if (drawArea == null || (series.size() == 0 && points.isEmpty())) {
             return;
         }
         OverlayStyle style = OverlayStyle.from(drawArea);
@@ -104,13 +442,20 @@ public final class OverlayRenderer {
         graphics.setStroke(new BasicStroke(style.strokePx()));
         graphics.setFont(previousFont.deriveFont((float) style.fontSize()));
 
-        if (!timedOverlayPoints.isEmpty()) {
-            OverlayLabel label = locateTimedOverlay(drawArea);
+        if (series.size() > 0) {
+            boolean fixationPath = false;
+            if (showFixations) {
+                fixationPath = drawFixations(graphics, series, drawArea, style);
+            }
+            OverlayLabel label = locateTimedOverlay(series, drawArea);
+            if (showScanpath && !fixationPath) {
+                drawSampleScanpath(graphics, series, drawArea, label, style);
+            }
             if (label != null) {
                 drawRingAndLabel(graphics, label, style);
             }
         } else {
-            drawStaticOverlays(graphics, drawArea, style);
+            staticLayer.paint(graphics, points, drawArea, style, graphics.getFont());
         }
 
         graphics.setStroke(previousStroke);
@@ -118,98 +463,100 @@ public final class OverlayRenderer {
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, previousAA);
     }
 
-    private void drawStaticOverlays(Graphics2D graphics, VideoDrawArea drawArea, OverlayStyle style) {
-        int label = 1;
-        for (OverlayPoint point : overlayPoints) {
-            OverlayLocation location = mapNorm(point.xNorm, point.yNorm, drawArea);
-            drawRingAndLabel(graphics, new OverlayLabel(location.roundX(), location.roundY(), Integer.toString(label++)), style);
+    /**
+     * Draws the fixations that overlap the trail ending at the playhead.
+     *
+     * @return true if fixations exist, so the scanpath was drawn through them
+     */
+    private boolean drawFixations(Graphics2D g, TimedSeries series, VideoDrawArea drawArea, OverlayStyle style) {
+        IntervalIndex<GazeEvent> index = fixationIndex;
+        if (index.isEmpty()) {
+            return false;
+        }
+        long posMs = followLatest ? series.timeMs(series.size() - 1) : currentPosMs;
+        if (showScanpath) {
+            drawFixationScanpath(g, index.overlapping(posMs - FIXATION_TRAIL_MS, posMs), drawArea, style);
         }
+        index.forEachOverlapping(posMs - FIXATION_TRAIL_MS, posMs,
+                event -> drawFixation(g, event, posMs, drawArea, style));
+        return true;
     }
 
-    private OverlayLabel locateTimedOverlay(VideoDrawArea drawArea) {
-        int n = timedOverlayPoints.size();
-        if (n == 0) {
-            return null;
+    /** Joins the centres of {@code recent} in time order with one path. */
+    private void drawFixationScanpath(Graphics2D g, List<GazeEvent> recent, VideoDrawArea drawArea,
+                                      OverlayStyle style) {
+        if (recent.size() < 2) {
+            return;
         }
-
-        int lo = 0;
-        int hi = n - 1;
-        int pos = n;
-        while (lo <= hi) {
-            int mid = (lo + hi) >>> 1;
-            long t = timedOverlayPoints.get(mid).timeMs;
-            if (t >= currentPosMs) {
-                pos = mid;
-                hi = mid - 1;
+        List<GazeEvent> ordered = new ArrayList<>(recent);
+        ordered.sort(Comparator.comparingLong(GazeEvent::startMs));
+        Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, ordered.size());
+        for (GazeEvent event : ordered) {
+            OverlayLocation location = mapNorm(event.centroidX(), event.centroidY(), drawArea);
+            if (path.getCurrentPoint() == null) {
+                path.moveTo(location.x(), location.y());
             } else {
-                lo = mid + 1;
+                path.lineTo(location.x(), location.y());
             }
         }
+        Stroke previous = g.getStroke();
+        g.setStroke(style.trailStroke());
+        g.setColor(withAlpha(SCANPATH_COLOR, 170));
+        g.draw(path);
+        g.setStroke(previous);
+    }
 
-        TimedOverlayPoint right = (pos < n) ? timedOverlayPoints.get(pos) : null;
-        TimedOverlayPoint left = (pos - 1 >= 0) ? timedOverlayPoints.get(pos - 1) : null;
+    /** Trails the samples before the playhead, ending at the marker when one is shown. */
+    private void drawSampleScanpath(Graphics2D g, TimedSeries series, VideoDrawArea drawArea, OverlayLabel head,
+                                    OverlayStyle style) {
+        int end = followLatest ? series.size() : cursor.ceiling(series, currentPosMs);
+        scanpath.update(series, end, drawArea);
+        Stroke previous = g.getStroke();
+        g.setStroke(style.trailStroke());
+        scanpath.paint(g, SCANPATH_COLOR, GazeInterpolator.MAX_INTERP_GAP_MS, head != null,
+                (head != null) ? head.centerX() : 0f, (head != null) ? head.centerY() : 0f);
+        g.setStroke(previous);
+    }
 
-        OverlayLocation location = interpolateTimedPoint(left, right, drawArea);
-        int labelIndex = Math.max(0, pos - 1);
-        if (location == null) {
-            var fallback = pickNearestWithinWindow(left, right, pos, drawArea);
-            if (fallback != null) {
-                location = fallback.location();
-                labelIndex = Math.max(0, fallback.index());
-            }
-        }
+    private void drawFixation(Graphics2D g, GazeEvent event, long posMs, VideoDrawArea drawArea, OverlayStyle style) {
+        boolean current = event.endMs() >= posMs;
+        double fade = current ? 1.0 : 1.0 - (posMs - event.endMs()) / (double) FIXATION_TRAIL_MS;
+        double scale = Math.sqrt(Math.max(1L, event.durationMs()) / (double) FIXATION_REFERENCE_MS);
+        int radius = (int) Math.round(style.radius() * Math.max(0.6, Math.min(3.0, scale)));
+        OverlayLocation location = mapNorm(event.centroidX(), event.centroidY(), drawArea);
+        int x = location.roundX() - radius;
+        int y = location.roundY() - radius;
+        g.setColor(withAlpha(FIXATION_COLOR, (int) Math.round((current ? 90 : 60) * fade)));
+        g.fillOval(x, y, radius * 2, radius * 2);
+        g.setColor(withAlpha(FIXATION_COLOR, (int) Math.round((current ? 230 : 150) * fade)));
+        g.drawOval(x, y, radius * 2, radius * 2);
+    }
 
-        if (location == null) {
-            return null;
-        }
-        String label = Integer.toString(labelIndex + 1);
-        return new OverlayLabel(location.roundX(), location.roundY(), label);
+    private static Color withAlpha(Color color, int alpha) {
+        return new Color(color.getRed(), color.getGreen(), color.getBlue(), Math.max(0, Math.min(255, alpha)));
     }
 
-    private OverlayLocation interpolateTimedPoint(TimedOverlayPoint left,
-                                                  TimedOverlayPoint right,
-                                                  VideoDrawArea drawArea) {
-        if (left == null || right == null || right.timeMs <= left.timeMs) {
-            return null;
-        }
-        long gap = right.timeMs - left.timeMs;
-        if (gap > MAX_INTERP_GAP_MS || currentPosMs < left.timeMs || currentPosMs > right.timeMs) {
+    private OverlayLabel locateTimedOverlay(TimedSeries series, VideoDrawArea drawArea) {
+        int n = series.size();
+        if (n == 0) {
             return null;
         }
-        double weight = (currentPosMs - left.timeMs) / (double) gap;
-        double xn = left.xNorm + (right.xNorm - left.xNorm) * weight;
-        double yn = left.yNorm + (right.yNorm - left.yNorm) * weight;
-        return mapNorm(xn, yn, drawArea);
-    }
-
-    private OverlayFallback pickNearestWithinWindow(TimedOverlayPoint left,
-                                                    TimedOverlayPoint right,
-                                                    int pos,
-                                                    VideoDrawArea drawArea) {
-        TimedOverlayPoint nearest = null;
-        long bestDt = Long.MAX_VALUE;
-        int index = -1;
-        if (left != null) {
-            long dt = Math.abs(currentPosMs - left.timeMs);
-            if (dt < bestDt) {
-                bestDt = dt;
-                nearest = left;
-                index = pos - 1;
-            }
-        }
-        if (right != null) {
-            long dt = Math.abs(currentPosMs - right.timeMs);
-            if (dt < bestDt) {
-                bestDt = dt;
-                nearest = right;
-                index = pos;
-            }
+
+        int labelIndex;
+        paintedMarker = null;
+        FrameGazeTable table = frameTable;
+        if (!followLatest && table != null && table.matches(series, overlayClock)) {
+            labelIndex = table.lookup(table.frameAt(currentVideoMs), located);
+        } else {
+            long posMs = followLatest ? series.timeMs(n - 1) : currentPosMs;
+            labelIndex = GazeInterpolator.locate(series, cursor.ceiling(series, posMs), posMs, located);
         }
-        if (nearest == null || bestDt > MAX_SHOW_AGE_MS) {
+        if (labelIndex < 0) {
             return null;
         }
-        OverlayLocation location = mapNorm(nearest.xNorm, nearest.yNorm, drawArea);
-        return new OverlayFallback(location, index);
+        OverlayLocation location = mapNorm(located[0], located[1], drawArea);
+        paintedMarker = new PaintedMarker(timedSeries, labelIndex, location.roundX(), location.roundY());
+        return new OverlayLabel(location.roundX(), location.roundY(), Integer.toString(labelIndex + 1));
     }
 
     private OverlayLocation mapNorm(double xn, double yn, VideoDrawArea drawArea) {
@@ -245,9 +592,15 @@ public final class OverlayRenderer {
 
     private record OverlayLabel(int centerX, int centerY, String text) {}
 
-    private record OverlayStyle(int radius, int diameter, float strokePx,
-                                int labelPad, Color ringColor, Color textColor,
-                                int fontSize) {
+    private record IndexedPoints(Object source, PointIndex index) {}
+
+    private record SmoothedTracks(TimedSeries source, Map<GazeFilter.Kind, TimedSeries> byKind) {}
+
+    private record PaintedMarker(TimedSeries series, int index, int x, int y) {}
+
+    record OverlayStyle(int radius, int diameter, float strokePx,
+                        int labelPad, Color ringColor, Color textColor,
+                        int fontSize) {
         static OverlayStyle from(VideoDrawArea area) {
             int radius = Math.max(12, Math.min(area.width(), area.height()) / 36);
             int diameter = radius * 2;
@@ -258,7 +611,10 @@ public final class OverlayRenderer {
             int fontSize = Math.max(16, (int) Math.round(radius * 0.95));
             return new OverlayStyle(radius, diameter, strokePx, labelPad, ringColor, textColor, fontSize);
         }
-    }
 
-    private record OverlayFallback(OverlayLocation location, int index) {}
+        /** Thinner than the ring, with round joins so dense short segments stroke cleanly. */
+        Stroke trailStroke() {
+            return new BasicStroke(Math.max(1.5f, strokePx * 0.75f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+        }
+    }
 }
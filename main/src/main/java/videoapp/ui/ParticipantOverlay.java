@@ -0,0 +1,135 @@
+package videoapp.ui;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Draws the gaze of many participants over one stimulus video at once. Each frame, every
+ * visible track is located at the playhead in a single pass over the tracks: each keeps a
+ * {@link TimedSeriesCursor}, so during playback a lookup is a few steps forward, and the
+ * positions land in flat coordinate arrays. The markers are then copied from a
+ * {@link MarkerAtlas} with one colour cell per track, so the paint cost per participant
+ * is a small image copy and stays flat as tracks are added.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class ParticipantOverlay {
+    private final List<ParticipantTrack> tracks = new CopyOnWriteArrayList<>();
+    private volatile long currentVideoMs;
+
+    private final double[] located = new double[2];
+    private TimedSeriesCursor[] cursors = new TimedSeriesCursor[0];
+    private TimedSeries[] cursorSeries = new TimedSeries[0];
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private int[] cells = new int[0];
+    private int[] rgbs = new int[0];
+    private MarkerAtlas atlas;
+
+    /** Distinct, evenly spread marker colour for the participant at {@code index}. */
+    public static Color colorFor(int index) {
+        float hue = (float) ((index * 0.6180339887) % 1.0);
+        return Color.getHSBColor(hue, 0.75f, 1.0f);
+    }
+
+    public void setTracks(List<ParticipantTrack> participants) {
+        tracks.clear();
+        if (participants != null) {
+            tracks.addAll(participants);
+        }
+    }
+
+    public List<ParticipantTrack> tracks() {
+        return List.copyOf(tracks);
+    }
+
+    public boolean isEmpty() {
+        return tracks.isEmpty();
+    }
+
+    public void clear() {
+        tracks.clear();
+    }
+
+    public void onProgress(long videoMs) {
+        currentVideoMs = videoMs;
+    }
+
+    public void paint(Graphics2D g, VideoDrawArea drawArea) {
+        if (drawArea == null || tracks.isEmpty()) {
+            return;
+        }
+        ParticipantTrack[] snapshot = tracks.toArray(new ParticipantTrack[0]);
+        int count = locateAll(snapshot, currentVideoMs, drawArea);
+        if (count == 0) {
+            return;
+        }
+        int radius = Math.max(7, Math.min(drawArea.width(), drawArea.height()) / 60);
+        atlas = MarkerAtlas.reuseOrBuild(atlas, radius, coloursOf(snapshot));
+        for (int i = 0; i < count; i++) {
+            atlas.draw(g, cells[i], xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * Locates every visible track at {@code videoMs}, writing screen positions and atlas
+     * cells to the scratch arrays.
+     *
+     * @return the number of markers to draw
+     */
+    int locateAll(ParticipantTrack[] snapshot, long videoMs, VideoDrawArea drawArea) {
+        ensureCapacity(snapshot.length);
+        int count = 0;
+        for (int t = 0; t < snapshot.length; t++) {
+            ParticipantTrack participant = snapshot[t];
+            TimedSeries series = participant.track();
+            if (!participant.isVisible() || series.size() == 0) {
+                continue;
+            }
+            if (cursorSeries[t] != series) {
+                cursors[t] = new TimedSeriesCursor();
+                cursorSeries[t] = series;
+            }
+            long posMs = participant.clock().recordingMs(videoMs);
+            if (GazeInterpolator.locate(series, cursors[t].ceiling(series, posMs), posMs, located) < 0) {
+                continue;
+            }
+            xs[count] = (int) Math.round(drawArea.x() + located[0] * drawArea.width());
+            ys[count] = (int) Math.round(drawArea.y() + (1.0 - located[1]) * drawArea.height());
+            cells[count] = t;
+            count++;
+        }
+        return count;
+    }
+
+    /** Track colours in track order; reuses the previous array while nothing changed. */
+    private int[] coloursOf(ParticipantTrack[] snapshot) {
+        boolean same = rgbs.length == snapshot.length;
+        for (int t = 0; same && t < snapshot.length; t++) {
+            same = rgbs[t] == snapshot[t].color().getRGB();
+        }
+        if (!same) {
+            int[] next = new int[snapshot.length];
+            for (int t = 0; t < snapshot.length; t++) {
+                next[t] = snapshot[t].color().getRGB();
+            }
+            rgbs = next;
+        }
+        return rgbs;
+    }
+
+    private void ensureCapacity(int n) {
+        if (cursors.length == n) {
+            return;
+        }
+        cursors = Arrays.copyOf(cursors, n);
+        cursorSeries = Arrays.copyOf(cursorSeries, n);
+        xs = new int[n];
+        ys = new int[n];
+        cells = new int[n];
+    }
+}
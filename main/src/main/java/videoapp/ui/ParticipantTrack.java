@@ -0,0 +1,70 @@
+package videoapp.ui;
+
+import videoapp.util.ClockMapping;
+
+import java.awt.*;
+import java.util.Objects;
+
+/**
+ * One participant's gaze track in a multi-participant overlay, with its own clock
+ * mapping, marker colour and visibility. The mapping follows the single-track convention:
+ * the gaze time shown at video time {@code t} is {@code clock.recordingMs(t)}. Settings
+ * may be changed from the UI while the painting thread reads them.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class ParticipantTrack {
+    private final String name;
+    private final TimedSeries track;
+    private volatile ClockMapping clock;
+    private volatile Color color;
+    private volatile boolean visible = true;
+
+    public ParticipantTrack(String name, TimedSeries track, ClockMapping clock, Color color) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.track = (track != null) ? track : GazeTrack.EMPTY;
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.color = Objects.requireNonNull(color, "color");
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public TimedSeries track() {
+        return track;
+    }
+
+    public ClockMapping clock() {
+        return clock;
+    }
+
+    public long offsetMs() {
+        return clock.offsetMs();
+    }
+
+    /** Shifts the track to {@code offsetMs}, keeping its clock drift. */
+    public void setOffsetMs(long offsetMs) {
+        this.clock = clock.withOffset(offsetMs);
+    }
+
+    public Color color() {
+        return color;
+    }
+
+    public void setColor(Color color) {
+        if (color != null) {
+            this.color = color;
+        }
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+}
@@ -6,14 +6,15 @@ import java.awt.geom.RoundRectangle2D;
 
 /**
  * Lightweight, vector Play/Pause icon with fixed dimensions to
- * avoid layout changes when toggling states.
+ * avoid layout changes when toggling states. Also draws the
+ * previous/next skip glyphs used to step between highlighted ranges.
  *
  * @author Glenn Anciado
  * @version 1.0
  */
 
 public class PlayPauseIcon implements Icon {
-    public enum Type { PLAY, PAUSE }
+    public enum Type { PLAY, PAUSE, PREVIOUS, NEXT }
 
     private final int width;
     private final int height;
@@ -47,6 +48,16 @@ public class PlayPauseIcon implements Icon {
                 int[] xs = { pad, pad, pad + w };
                 int[] ys = { pad, pad + h, pad + h / 2 };
                 g2.fillPolygon(xs, ys, 3);
+            } else if (type == Type.NEXT || type == Type.PREVIOUS) {
+                int barW = Math.max(2, w / 5);
+                int tri = w - barW - 1;
+                if (type == Type.NEXT) {
+                    g2.fillPolygon(new int[]{ pad, pad, pad + tri }, new int[]{ pad, pad + h, pad + h / 2 }, 3);
+                    g2.fillRect(pad + w - barW, pad, barW, h);
+                } else {
+                    g2.fillRect(pad, pad, barW, h);
+                    g2.fillPolygon(new int[]{ pad + w, pad + w, pad + w - tri }, new int[]{ pad, pad + h, pad + h / 2 }, 3);
+                }
             } else {
                 int barW = Math.max(2, w / 3);
                 int gap = Math.max(2, w / 6);
@@ -6,24 +6,45 @@ import javax.swing.event.ChangeEvent;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+
+import videoapp.util.ClockMapping;
+import videoapp.util.SignalChannel;
+import videoapp.util.TimeRange;
 
 import java.net.URL;
+import java.util.List;
+import java.util.Locale;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 
 /**
  * Composite control with a play/pause button, a seek slider, and a time label.
  * Uses fixed-size vector icons so toggling doesn't shift layout.
  * Provides hooks for external play/pause action and seeking by fraction.
+ * Time ranges, such as long fixations, can be highlighted under the slider
+ * and stepped through with the previous/next buttons. Loaded signal channels are
+ * drawn as sparklines below that, one row per channel. Behind the slider, a histogram
+ * shows where the loaded gaze track has samples and how dense they are.
  *
  * @author Glenn Anciado
  * @version 2.0
  */
 
 public class ProgressBar extends JPanel{
+    private static final long RANGE_JUMP_SLACK_MS = 250;
+    private static final long RANGE_RESTART_MS = 1000;
     private final JButton settings = new JButton();
     private final JButton fullscreen = new JButton();
     private final JButton play = new JButton();
-    private final JSlider progress = new JSlider(0, 1000, 0);
+    private final JButton previousRange = new JButton();
+    private final JButton nextRange = new JButton();
+    private final RangeStrip rangeStrip = new RangeStrip();
+    private final SparklineStrip sparklines = new SparklineStrip();
+    private final JPanel strips = new JPanel();
+    private final DensitySlider progress = new DensitySlider();
     private final JLabel time = new JLabel("00:00 / 00:00");
     private final JPanel leftPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 6));
     private final JPanel centerPanel = new JPanel(new BorderLayout(8, 0));
@@ -33,6 +54,13 @@ public class ProgressBar extends JPanel{
     private boolean playing = false;
     private boolean fullscreenOn = false;
     private ThemePalette theme = ThemePalette.LIGHT;
+    private List<TimeRange> highlightedRanges = List.of();
+    private List<SignalChannel> channels = List.of();
+    private Supplier<ClockMapping> channelClock = () -> ClockMapping.IDENTITY;
+    private GazeDensity gazeDensity = GazeDensity.EMPTY;
+    private Supplier<ClockMapping> densityClock = () -> ClockMapping.IDENTITY;
+    private long positionMs;
+    private long durationMs;
 
     private Runnable onPlay;
     private Runnable onSettings;
@@ -40,6 +68,7 @@ public class ProgressBar extends JPanel{
     private Consumer<Integer> progressFraction;
     private Runnable onSeekStart;
     private Runnable onSeekEnd;
+    private LongConsumer onJump;
 
     private Icon playIcon = new PlayPauseIcon(18, 18, PlayPauseIcon.Type.PLAY, Color.BLACK);
     private Icon pauseIcon = new PlayPauseIcon(18, 18, PlayPauseIcon.Type.PAUSE, Color.BLACK);
@@ -57,7 +86,26 @@ public class ProgressBar extends JPanel{
         play.setPreferredSize(new Dimension(36, 28));
         leftPanel.add(play);
 
+        JButton[] rangeButtons = {previousRange, nextRange};
+        for (JButton button : rangeButtons) {
+            button.setFocusable(false);
+            button.setMargin(new Insets(4, 6, 4, 6));
+            button.setPreferredSize(new Dimension(28, 28));
+            button.setVisible(false);
+            leftPanel.add(button);
+        }
+        previousRange.setToolTipText("Previous highlighted range");
+        nextRange.setToolTipText("Next highlighted range");
+        previousRange.addActionListener(e -> jumpToPreviousRange());
+        nextRange.addActionListener(e -> jumpToNextRange());
+
         centerPanel.add(progress, BorderLayout.CENTER);
+        rangeStrip.setVisible(false);
+        sparklines.setVisible(false);
+        strips.setLayout(new BoxLayout(strips, BoxLayout.Y_AXIS));
+        strips.add(rangeStrip);
+        strips.add(sparklines);
+        centerPanel.add(strips, BorderLayout.SOUTH);
 
         rightPanel.add(time);
 
@@ -134,6 +182,7 @@ public class ProgressBar extends JPanel{
         leftPanel.setBackground(chrome);
         rightPanel.setBackground(chrome);
         centerPanel.setBackground(chrome);
+        strips.setBackground(chrome);
         setOpaque(true);
         leftPanel.setOpaque(true);
         rightPanel.setOpaque(true);
@@ -142,11 +191,16 @@ public class ProgressBar extends JPanel{
         progress.setBackground(surface);
         progress.setForeground(palette.accentColor());
         progress.setBorder(new LineBorder(palette.borderColor()));
-        progress.setOpaque(true);
+        progress.setOpaque(false);
 
         time.setForeground(palette.textColor());
 
-        JButton[] buttons = {play, settings, fullscreen};
+        rangeStrip.setBackground(surface);
+        rangeStrip.setForeground(palette.accentColor());
+        sparklines.setBackground(surface);
+        sparklines.setForeground(palette.textColor());
+
+        JButton[] buttons = {play, previousRange, nextRange, settings, fullscreen};
         for (JButton button : buttons) {
             button.setBackground(controlBg);
             button.setForeground(controlFg);
@@ -167,6 +221,8 @@ public class ProgressBar extends JPanel{
         boolean dark = palette.isDark();
         this.playIcon = new PlayPauseIcon(18, 18, PlayPauseIcon.Type.PLAY, iconColor);
         this.pauseIcon = new PlayPauseIcon(18, 18, PlayPauseIcon.Type.PAUSE, iconColor);
+        previousRange.setIcon(new PlayPauseIcon(14, 14, PlayPauseIcon.Type.PREVIOUS, iconColor));
+        nextRange.setIcon(new PlayPauseIcon(14, 14, PlayPauseIcon.Type.NEXT, iconColor));
         this.settingsIcon = loadIcon(
                 dark ? "/settings_darkmode.png" : "/settings.png",
                 18, 18,
@@ -247,7 +303,103 @@ public class ProgressBar extends JPanel{
         this.onSeekEnd = r;
     }
 
+    /** Called with the target time in milliseconds when a highlighted range is jumped to. */
+    public void setOnJump(LongConsumer c) {
+        this.onJump = c;
+    }
+
+    /**
+     * Highlights {@code ranges}, given in video time and in time order, under the slider.
+     * An empty list hides the highlights and the previous/next buttons.
+     */
+    public void setHighlightedRanges(List<TimeRange> ranges) {
+        this.highlightedRanges = (ranges == null) ? List.of() : List.copyOf(ranges);
+        boolean any = !highlightedRanges.isEmpty();
+        rangeStrip.setVisible(any);
+        previousRange.setVisible(any);
+        nextRange.setVisible(any);
+        revalidate();
+        rangeStrip.repaint();
+    }
+
+    /**
+     * Draws {@code loaded} as sparklines under the slider, one row each, coloured like the
+     * participant markers. {@code clock} gives the current mapping from video time to
+     * channel time. An empty list hides the sparklines.
+     */
+    public void setChannels(List<SignalChannel> loaded, Supplier<ClockMapping> clock) {
+        this.channels = (loaded == null) ? List.of() : List.copyOf(loaded);
+        this.channelClock = (clock != null) ? clock : () -> ClockMapping.IDENTITY;
+        sparklines.setPreferredSize(new Dimension(10, SparklineStrip.ROW_HEIGHT * channels.size()));
+        sparklines.setVisible(!channels.isEmpty());
+        revalidate();
+        sparklines.repaint();
+    }
+
+    /**
+     * Draws the sample density of the loaded gaze track behind the slider.
+     * {@code clock} gives the current video-to-gaze time mapping. An empty density clears
+     * it.
+     */
+    void setGazeDensity(GazeDensity density, Supplier<ClockMapping> clock) {
+        this.gazeDensity = (density != null) ? density : GazeDensity.EMPTY;
+        this.densityClock = (clock != null) ? clock : () -> ClockMapping.IDENTITY;
+        progress.repaint();
+    }
+
+    /** Jumps to the start of the first range after the playhead. */
+    public void jumpToNextRange() {
+        int i = firstRangeStartingAfter(positionMs + RANGE_JUMP_SLACK_MS);
+        if (i < highlightedRanges.size()) {
+            jumpTo(highlightedRanges.get(i).startMs());
+        }
+    }
+
+    /**
+     * Jumps to the start of the range before the playhead. Just after a range starts,
+     * this goes to the one before it, like a media player's previous-track button.
+     */
+    public void jumpToPreviousRange() {
+        int i = firstRangeStartingAfter(positionMs - RANGE_RESTART_MS) - 1;
+        if (i >= 0) {
+            jumpTo(highlightedRanges.get(i).startMs());
+        }
+    }
+
+    private void jumpTo(long targetMs) {
+        positionMs = targetMs;
+        if (onJump != null) {
+            onJump.accept(targetMs);
+        }
+    }
+
+    /** Index of the first highlighted range starting after {@code timeMs}, by binary search. */
+    private int firstRangeStartingAfter(long timeMs) {
+        List<TimeRange> ranges = highlightedRanges;
+        int lo = 0;
+        int hi = ranges.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ranges.get(mid).startMs() <= timeMs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
     public void setProgress(long posMs, long durMs) {
+        if (durMs != durationMs) {
+            rangeStrip.repaint();
+            progress.repaint();
+        }
+        positionMs = posMs;
+        durationMs = durMs;
+        if (!channels.isEmpty()) {
+            sparklines.follow(posMs);
+            sparklines.repaint();
+        }
         time.setText(fmt(posMs) + " / " + fmt(durMs));
         if(!dragging && durMs > 0 ){
             int v = (int) Math.round((posMs / (double) durMs) * 1000.0);
@@ -263,6 +415,9 @@ public class ProgressBar extends JPanel{
     }
 
     public void reset() {
+        setHighlightedRanges(List.of());
+        setGazeDensity(GazeDensity.EMPTY, null);
+        sparklines.resetZoom();
         setPlayState(false);
         progress.setValue(0);
         time.setText("00:00 / 00:00");
@@ -287,4 +442,280 @@ public class ProgressBar extends JPanel{
         int y = settings.getHeight();
         menu.show(settings, x, y);
     }
+
+    /**
+     * The seek slider, drawn over a gaze-density histogram: each pixel column is a bar
+     * as tall as the number of samples in its slice of the video, relative to the
+     * densest column, and columns without samples stay empty. The histogram is rendered
+     * into a cached image that is redrawn only when the size, duration, clock mapping,
+     * track or colour change, so painting the moving thumb only copies it. The slider is
+     * not opaque and fills its own background first.
+     */
+    private final class DensitySlider extends JSlider {
+        private static final int BAR_ALPHA = 90;
+
+        private BufferedImage image;
+        private DensityKey imageKey;
+
+        DensitySlider() {
+            super(0, 1000, 0);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Insets insets = getInsets();
+            int width = getWidth() - insets.left - insets.right;
+            int height = getHeight() - insets.top - insets.bottom;
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            GazeDensity density = gazeDensity;
+            long dur = durationMs;
+            if (!density.isEmpty() && dur > 0 && width > 0 && height > 0) {
+                DensityKey key = new DensityKey(width, height, dur, densityClock.get(),
+                        density, getForeground().getRGB());
+                if (!key.equals(imageKey)) {
+                    image = render(key);
+                    imageKey = key;
+                }
+                g.drawImage(image, insets.left, insets.top, null);
+            }
+            super.paintComponent(g);
+        }
+
+        private BufferedImage render(DensityKey key) {
+            int width = key.width();
+            int height = key.height();
+            int[] counts = new int[width];
+            int densest = 0;
+            for (int x = 0; x < width; x++) {
+                long t0 = key.clock().recordingMs(key.durationMs() * x / width);
+                long t1 = key.clock().recordingMs(key.durationMs() * (x + 1) / width);
+                counts[x] = key.density().count(t0, t1);
+                densest = Math.max(densest, counts[x]);
+            }
+            BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            if (densest == 0) {
+                return out;
+            }
+            Graphics2D g = out.createGraphics();
+            try {
+                g.setColor(new Color((key.rgb() & 0xFFFFFF) | (BAR_ALPHA << 24), true));
+                for (int x = 0; x < width; x++) {
+                    if (counts[x] > 0) {
+                        int bar = Math.max(1, (int) Math.round(counts[x] / (double) densest * height));
+                        g.fillRect(x, height - bar, 1, bar);
+                    }
+                }
+            } finally {
+                g.dispose();
+            }
+            return out;
+        }
+    }
+
+    /** Thin bar under the slider marking the highlighted ranges; clicking one jumps to it. */
+    private final class RangeStrip extends JComponent {
+        RangeStrip() {
+            setPreferredSize(new Dimension(10, 6));
+            setToolTipText("Highlighted ranges");
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    if (durationMs <= 0 || getWidth() <= 0) {
+                        return;
+                    }
+                    long atMs = Math.round(e.getX() / (double) getWidth() * durationMs);
+                    int i = firstRangeStartingAfter(atMs) - 1;
+                    if (i >= 0 && highlightedRanges.get(i).contains(atMs)) {
+                        jumpTo(highlightedRanges.get(i).startMs());
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            long dur = durationMs;
+            if (dur <= 0) {
+                return;
+            }
+            g.setColor(getForeground());
+            double scale = getWidth() / (double) dur;
+            for (TimeRange range : highlightedRanges) {
+                int x0 = (int) Math.floor(Math.max(0, range.startMs()) * scale);
+                int x1 = (int) Math.ceil(Math.min(dur, range.endMs()) * scale);
+                if (x1 >= x0) {
+                    g.fillRect(x0, 0, Math.max(1, x1 - x0), getHeight());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sparkline rows for the loaded channels. Each pixel column covers a slice of the
+     * visible time window and draws the channel's minimum to maximum over that slice,
+     * taken from its min/max pyramid, so drawing costs the same at any zoom level and
+     * never misses a peak. The rows are rendered into a cached image that is redrawn only
+     * when the size, window, channels or offset change; the playhead is drawn on top.
+     * The mouse wheel zooms around the pointer, a double click shows the whole video and
+     * a click seeks.
+     */
+    private final class SparklineStrip extends JComponent {
+        static final int ROW_HEIGHT = 16;
+        private static final long MIN_SPAN_MS = 1000;
+        private static final double ZOOM_STEP = 1.25;
+
+        private final float[] minMax = new float[2];
+        private long viewStartMs;
+        private long viewSpanMs;
+        private BufferedImage image;
+        private RenderKey imageKey;
+
+        SparklineStrip() {
+            setToolTipText("");
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        resetZoom();
+                        repaint();
+                    } else if (durationMs > 0 && getWidth() > 0) {
+                        jumpTo(timeAt(e.getX()));
+                    }
+                }
+            });
+            addMouseWheelListener(this::zoom);
+        }
+
+        void resetZoom() {
+            viewStartMs = 0L;
+            viewSpanMs = 0L;
+        }
+
+        /** Pages a zoomed-in window forward or back so that it keeps showing {@code posMs}. */
+        void follow(long posMs) {
+            long span = span();
+            long start = start(span);
+            if (viewSpanMs > 0 && (posMs < start || posMs >= start + span)) {
+                viewStartMs = posMs - span / 10;
+            }
+        }
+
+        private long span() {
+            long dur = durationMs;
+            return (viewSpanMs > 0 && viewSpanMs < dur) ? viewSpanMs : dur;
+        }
+
+        private long start(long span) {
+            return Math.max(0L, Math.min(viewStartMs, durationMs - span));
+        }
+
+        private long timeAt(int x) {
+            long span = span();
+            return start(span) + Math.round(Math.max(0, Math.min(x, getWidth())) / (double) getWidth() * span);
+        }
+
+        private void zoom(MouseWheelEvent e) {
+            long dur = durationMs;
+            int width = getWidth();
+            if (dur <= 0 || width <= 0) {
+                return;
+            }
+            long span = span();
+            long anchor = timeAt(e.getX());
+            long zoomed = Math.round(span * Math.pow(ZOOM_STEP, e.getPreciseWheelRotation()));
+            zoomed = Math.max(Math.min(MIN_SPAN_MS, dur), Math.min(dur, zoomed));
+            viewSpanMs = (zoomed >= dur) ? 0L : zoomed;
+            viewStartMs = anchor - Math.round(e.getX() / (double) width * zoomed);
+            repaint();
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            List<SignalChannel> shown = channels;
+            int row = e.getY() / ROW_HEIGHT;
+            if (durationMs <= 0 || row < 0 || row >= shown.size()) {
+                return null;
+            }
+            SignalChannel channel = shown.get(row);
+            long videoMs = timeAt(e.getX());
+            double value = channel.valueAt(channelClock.get().recordingMs(videoMs));
+            String text = Double.isNaN(value) ? "no value" : String.format(Locale.ROOT, "%.3f", value);
+            return channel.name() + ": " + text + " at " + fmt(videoMs);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            int width = getWidth();
+            int height = getHeight();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, width, height);
+            long dur = durationMs;
+            List<SignalChannel> shown = channels;
+            if (dur <= 0 || width <= 0 || height <= 0 || shown.isEmpty()) {
+                return;
+            }
+            long span = span();
+            long start = start(span);
+            RenderKey key = new RenderKey(width, height, start, span, shown, channelClock.get());
+            if (!key.equals(imageKey)) {
+                image = render(key);
+                imageKey = key;
+            }
+            g.drawImage(image, 0, 0, null);
+            if (positionMs >= start && positionMs <= start + span) {
+                int x = (int) Math.round((positionMs - start) / (double) span * (width - 1));
+                g.setColor(getForeground());
+                g.drawLine(x, 0, x, height - 1);
+            }
+        }
+
+        private BufferedImage render(RenderKey key) {
+            BufferedImage out = new BufferedImage(key.width(), key.height(), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = out.createGraphics();
+            try {
+                for (int row = 0; row < key.channels().size(); row++) {
+                    g.setColor(ParticipantOverlay.colorFor(row));
+                    renderRow(g, key, key.channels().get(row), row * ROW_HEIGHT + 1, ROW_HEIGHT - 2);
+                }
+            } finally {
+                g.dispose();
+            }
+            return out;
+        }
+
+        private void renderRow(Graphics2D g, RenderKey key, SignalChannel channel, int top, int rowHeight) {
+            float low = channel.min();
+            float high = channel.max();
+            if (Float.isNaN(low)) {
+                return;
+            }
+            double scaleY = (high > low) ? (rowHeight - 1) / (double) (high - low) : 0.0;
+            int bottom = top + rowHeight - 1;
+            int width = key.width();
+            ClockMapping clock = key.clock();
+            for (int x = 0; x < width; x++) {
+                long t0 = clock.recordingMs(key.startMs() + key.spanMs() * x / width);
+                long t1 = clock.recordingMs(key.startMs() + key.spanMs() * (x + 1) / width);
+                if (channel.range(t0, t1, minMax)) {
+                    int yMax = bottom - (int) Math.round((minMax[1] - low) * scaleY);
+                    int yMin = bottom - (int) Math.round((minMax[0] - low) * scaleY);
+                    g.fillRect(x, yMax, 1, yMin - yMax + 1);
+                } else {
+                    double value = channel.valueAt((t0 + t1) / 2);
+                    if (!Double.isNaN(value)) {
+                        g.fillRect(x, bottom - (int) Math.round((value - low) * scaleY), 1, 1);
+                    }
+                }
+            }
+        }
+    }
+
+    private record DensityKey(int width, int height, long durationMs, ClockMapping clock,
+                              GazeDensity density, int rgb) {}
+
+    private record RenderKey(int width, int height, long startMs, long spanMs,
+                             List<SignalChannel> channels, ClockMapping clock) {}
 }
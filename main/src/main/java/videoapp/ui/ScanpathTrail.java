@@ -0,0 +1,125 @@
+package videoapp.ui;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+
+/**
+ * Fixed-capacity ring of the most recent gaze samples before the playhead, kept in screen
+ * coordinates so painting the scanpath needs no mapping. The ring follows the playhead
+ * incrementally: moving forward appends only the samples passed since the last frame.
+ * A seek backwards, a jump further than the ring holds, another series or a resized draw
+ * area refills it from the last {@code capacity} samples of the series, which is a direct
+ * read of the track's columns.
+ * <p>
+ * The trail is stroked as {@value #FADE_BANDS} paths of rising opacity rather than one
+ * shape per segment. Not thread-safe; it is updated and painted on the painting thread.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class ScanpathTrail {
+    private static final int FADE_BANDS = 4;
+
+    private final int capacity;
+    private final float[] xs;
+    private final float[] ys;
+    private final long[] times;
+    private final Path2D.Float[] bands = new Path2D.Float[FADE_BANDS];
+    private int oldest;
+    private int count;
+    private TimedSeries series;
+    private int endIndex;
+    private VideoDrawArea area;
+
+    ScanpathTrail(int capacity) {
+        this.capacity = Math.max(2, capacity);
+        this.xs = new float[this.capacity];
+        this.ys = new float[this.capacity];
+        this.times = new long[this.capacity];
+        for (int b = 0; b < FADE_BANDS; b++) {
+            bands[b] = new Path2D.Float(Path2D.WIND_NON_ZERO, this.capacity / FADE_BANDS + 2);
+        }
+    }
+
+    /**
+     * Moves the trail so it holds the samples before index {@code end} of {@code series},
+     * that is the samples earlier than the playhead.
+     */
+    void update(TimedSeries series, int end, VideoDrawArea area) {
+        end = Math.max(0, Math.min(end, series.size()));
+        if (series != this.series || !area.equals(this.area) || end < endIndex || end - endIndex >= capacity) {
+            this.series = series;
+            this.area = area;
+            count = 0;
+            oldest = 0;
+            append(series, Math.max(0, end - capacity), end);
+        } else {
+            append(series, endIndex, end);
+        }
+        endIndex = end;
+    }
+
+    private void append(TimedSeries series, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int slot;
+            if (count < capacity) {
+                slot = (oldest + count) % capacity;
+                count++;
+            } else {
+                slot = oldest;
+                oldest = (oldest + 1) % capacity;
+            }
+            xs[slot] = (float) (area.x() + series.xNorm(i) * area.width());
+            ys[slot] = (float) (area.y() + (1.0 - series.yNorm(i)) * area.height());
+            times[slot] = series.timeMs(i);
+        }
+    }
+
+    /**
+     * Strokes the trail, oldest part faintest, ending at the marker at
+     * ({@code headX}, {@code headY}) when {@code hasHead}. Samples further apart than
+     * {@code maxGapMs} are not joined, so tracking loss shows as a break.
+     */
+    void paint(Graphics2D g, Color color, long maxGapMs, boolean hasHead, float headX, float headY) {
+        if (count == 0) {
+            return;
+        }
+        for (Path2D.Float band : bands) {
+            band.reset();
+        }
+        int perBand = Math.max(1, (count + FADE_BANDS - 1) / FADE_BANDS);
+        long previousMs = 0L;
+        for (int k = 0; k < count; k++) {
+            int slot = (oldest + k) % capacity;
+            int b = Math.min(FADE_BANDS - 1, k / perBand);
+            Path2D.Float band = bands[b];
+            if (k == 0 || times[slot] - previousMs > maxGapMs) {
+                band.moveTo(xs[slot], ys[slot]);
+            } else if (k % perBand == 0) {
+                int previous = (slot + capacity - 1) % capacity;
+                band.moveTo(xs[previous], ys[previous]);
+                band.lineTo(xs[slot], ys[slot]);
+            } else {
+                band.lineTo(xs[slot], ys[slot]);
+            }
+            previousMs = times[slot];
+        }
+        if (hasHead) {
+            int newest = (oldest + count - 1) % capacity;
+            Path2D.Float last = bands[Math.min(FADE_BANDS - 1, (count - 1) / perBand)];
+            if (last.getCurrentPoint() == null) {
+                last.moveTo(xs[newest], ys[newest]);
+            }
+            last.lineTo(headX, headY);
+        }
+        for (int b = 0; b < FADE_BANDS; b++) {
+            if (bands[b].getCurrentPoint() == null) {
+                continue;
+            }
+            int alpha = 50 + (b + 1) * 170 / FADE_BANDS;
+            g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
+            g.draw(bands[b]);
+        }
+    }
+}
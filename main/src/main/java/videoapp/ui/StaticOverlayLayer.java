@@ -0,0 +1,121 @@
+package videoapp.ui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static overlay points rendered once into an image the size of the draw area and reused
+ * on every paint until the points or the draw area size change. Points whose rings would
+ * overlap at the current size are merged on a grid with cells one ring across: a cell with
+ * one point keeps its ring and row number, a cell with several becomes one cluster marker
+ * at their centroid, labelled with the count. Clusters are cached for the last few draw
+ * area sizes, so toggling fullscreen does not re-cluster. Markers and labels are copied
+ * from a {@link GlyphAtlas}.
+ * <p>
+ * Points outside the frame are not drawn. Painting thread only.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class StaticOverlayLayer {
+    private static final int CACHED_SIZES = 4;
+
+    private final Map<Long, Clusters> clustersBySize = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Clusters> eldest) {
+            return size() > CACHED_SIZES;
+        }
+    };
+    private List<OverlayPoint> points = List.of();
+    private BufferedImage image;
+
+    /** Clusters in order of their first point, at positions relative to the draw area. */
+    private record Clusters(int[] x, int[] y, int[] count, int[] first, int size) {}
+
+    void paint(Graphics2D g, List<OverlayPoint> current, VideoDrawArea area, OverlayRenderer.OverlayStyle style,
+               Font font) {
+        if (current != points) {
+            points = current;
+            clustersBySize.clear();
+            image = null;
+        }
+        if (points.isEmpty() || area.width() <= 0 || area.height() <= 0) {
+            return;
+        }
+        if (image == null || image.getWidth() != area.width() || image.getHeight() != area.height()) {
+            image = render(area.width(), area.height(), style, font);
+        }
+        g.drawImage(image, area.x(), area.y(), null);
+    }
+
+    private BufferedImage render(int width, int height, OverlayRenderer.OverlayStyle style, Font font) {
+        Clusters clusters = clustersBySize.computeIfAbsent(((long) width << 32) | height,
+                key -> cluster(width, height, style.diameter()));
+        GlyphAtlas atlas = new GlyphAtlas(style.radius(), style.strokePx(), style.ringColor(), style.textColor(), font);
+        BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = layer.createGraphics();
+        try {
+            int labelX = style.radius() + style.labelPad();
+            int labelY = atlas.labelBaselineOffset();
+            for (int i = 0; i < clusters.size(); i++) {
+                int x = clusters.x()[i];
+                int y = clusters.y()[i];
+                if (clusters.count()[i] == 1) {
+                    atlas.drawRing(g, x, y);
+                    atlas.drawLabel(g, Integer.toString(clusters.first()[i] + 1), x + labelX, y + labelY);
+                } else {
+                    atlas.drawCluster(g, x, y);
+                    atlas.drawLabel(g, "×" + clusters.count()[i], x + labelX, y + labelY);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return layer;
+    }
+
+    private Clusters cluster(int width, int height, int cellPx) {
+        int cell = Math.max(1, cellPx);
+        int cols = (width + cell - 1) / cell;
+        int rows = (height + cell - 1) / cell;
+        int[] counts = new int[cols * rows];
+        double[] sumX = new double[counts.length];
+        double[] sumY = new double[counts.length];
+        int[] firsts = new int[counts.length];
+        int[] order = new int[Math.min(counts.length, points.size())];
+        int used = 0;
+        int index = 0;
+        for (OverlayPoint point : points) {
+            double px = point.xNorm * width;
+            double py = (1.0 - point.yNorm) * height;
+            if (px >= 0 && px <= width && py >= 0 && py <= height) {
+                px = Math.min(px, width - 1);
+                py = Math.min(py, height - 1);
+                int c = (int) (py / cell) * cols + (int) (px / cell);
+                if (counts[c]++ == 0) {
+                    firsts[c] = index;
+                    order[used++] = c;
+                }
+                sumX[c] += px;
+                sumY[c] += py;
+            }
+            index++;
+        }
+        int[] x = new int[used];
+        int[] y = new int[used];
+        int[] count = new int[used];
+        int[] first = new int[used];
+        for (int i = 0; i < used; i++) {
+            int c = order[i];
+            count[i] = counts[c];
+            first[i] = firsts[c];
+            x[i] = (int) Math.round(sumX[c] / counts[c]);
+            y[i] = (int) Math.round(sumY[c] / counts[c]);
+        }
+        return new Clusters(x, y, count, first, used);
+    }
+}
@@ -0,0 +1,102 @@
+package videoapp.ui;
+
+import java.util.Arrays;
+
+/**
+ * Append-only store of timed gaze samples for one writer and any number of readers.
+ * Samples live in fixed-size primitive segments, so appending never copies existing data
+ * and readers index straight into the arrays without locks or snapshots.
+ * <p>
+ * The writer calls {@link #append} for each sample and {@link #publish} to make everything
+ * appended so far visible; readers only ever see published samples. Times must be
+ * appended in non-decreasing order so the buffer can serve as a {@link TimedSeries}.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class TimedPointBuffer implements TimedSeries {
+    private static final int SEGMENT_SHIFT = 14;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private volatile Segment[] segments = new Segment[8];
+    private volatile int published;
+    private int written;
+    private long lastTimeMs = Long.MIN_VALUE;
+
+    private static final class Segment {
+        final long[] t = new long[SEGMENT_SIZE];
+        final float[] x = new float[SEGMENT_SIZE];
+        final float[] y = new float[SEGMENT_SIZE];
+    }
+
+    /**
+     * Appends a sample without making it visible yet. Writer thread only.
+     *
+     * @return false if {@code timeMs} is older than the last appended sample, in which
+     *         case the sample is dropped
+     */
+    public boolean append(long timeMs, double xNorm, double yNorm) {
+        if (timeMs < lastTimeMs) {
+            return false;
+        }
+        int seg = written >>> SEGMENT_SHIFT;
+        Segment[] dir = segments;
+        if (seg == dir.length) {
+            dir = Arrays.copyOf(dir, dir.length * 2);
+            segments = dir;
+        }
+        Segment target = dir[seg];
+        if (target == null) {
+            target = new Segment();
+            dir[seg] = target;
+        }
+        int i = written & SEGMENT_MASK;
+        target.t[i] = timeMs;
+        target.x[i] = (float) xNorm;
+        target.y[i] = (float) yNorm;
+        written++;
+        lastTimeMs = timeMs;
+        return true;
+    }
+
+    /** Makes every appended sample visible to readers. Writer thread only. */
+    public void publish() {
+        if (published != written) {
+            published = written;
+        }
+    }
+
+    /** Time of the last appended sample, or {@link Long#MIN_VALUE} when empty. Writer thread only. */
+    public long lastTimeMs() {
+        return lastTimeMs;
+    }
+
+    @Override
+    public int size() {
+        return published;
+    }
+
+    @Override
+    public long timeMs(int index) {
+        return segment(index).t[index & SEGMENT_MASK];
+    }
+
+    @Override
+    public double xNorm(int index) {
+        return segment(index).x[index & SEGMENT_MASK];
+    }
+
+    @Override
+    public double yNorm(int index) {
+        return segment(index).y[index & SEGMENT_MASK];
+    }
+
+    private Segment segment(int index) {
+        if (index < 0 || index >= published) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return segments[index >>> SEGMENT_SHIFT];
+    }
+}
@@ -0,0 +1,41 @@
+package videoapp.ui;
+
+/**
+ * Read-only view of time-ordered gaze samples. Indexes run from 0 to {@code size() - 1}
+ * in non-decreasing time order, which lets the overlay locate the playhead with a
+ * binary search regardless of how the samples are stored.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public interface TimedSeries {
+    int size();
+
+    long timeMs(int index);
+
+    double xNorm(int index);
+
+    double yNorm(int index);
+
+    /**
+     * Index of the first sample at or after {@code posMs} within {@code [from, to)}, or
+     * {@code to} if every sample there is earlier. Stores with an index of their own
+     * override this plain binary search.
+     */
+    default int ceiling(long posMs, int from, int to) {
+        int lo = from;
+        int hi = to - 1;
+        int pos = to;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timeMs(mid) >= posMs) {
+                pos = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return pos;
+    }
+}
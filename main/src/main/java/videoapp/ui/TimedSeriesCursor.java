@@ -0,0 +1,52 @@
+package videoapp.ui;
+
+/**
+ * Remembers where the last lookup in a {@link TimedSeries} ended, so that repeated
+ * lookups for a playhead that moves forward cost a few steps each instead of a full
+ * binary search. After a seek backwards, a jump far ahead, or a switch to another
+ * series, the next lookup falls back to {@link TimedSeries#ceiling} and the cursor
+ * re-anchors there.
+ * <p>
+ * Not thread-safe; each painting thread keeps its own cursor.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class TimedSeriesCursor {
+    private static final int MAX_FORWARD_STEPS = 32;
+
+    private TimedSeries series;
+    private long lastMs;
+    private int lastIndex;
+
+    /**
+     * Returns the index of the first sample at or after {@code posMs}, or
+     * {@code series.size()} when every sample is earlier.
+     */
+    public int ceiling(TimedSeries series, long posMs) {
+        int n = series.size();
+        int index;
+        if (series == this.series && posMs >= lastMs && lastIndex <= n) {
+            index = walkForward(series, lastIndex, n, posMs);
+        } else {
+            index = series.ceiling(posMs, 0, n);
+        }
+        this.series = series;
+        this.lastMs = posMs;
+        this.lastIndex = index;
+        return index;
+    }
+
+    private static int walkForward(TimedSeries series, int from, int n, long posMs) {
+        int index = from;
+        int limit = Math.min(n, from + MAX_FORWARD_STEPS);
+        while (index < limit && series.timeMs(index) < posMs) {
+            index++;
+        }
+        if (index == limit && index < n) {
+            return series.ceiling(posMs, index, n);
+        }
+        return index;
+    }
+}
@@ -1,12 +1,22 @@
 package videoapp.ui;
 
 import videoapp.core.VideoRenderer;
+import videoapp.util.ClockMapping;
+import videoapp.util.GazeEvent;
+import videoapp.util.GazeFilter;
+import videoapp.util.GroupHeatmap;
+import videoapp.util.HeatmapDifference;
+import videoapp.util.IntervalIndex;
+import videoapp.util.SignalChannel;
+import videoapp.util.StreamRegistry;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -21,20 +31,33 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
 
     private static final int HEAT_ROWS = 18;
     private static final int HEAT_COLS = 32;
+    private static final int LIVE_REPAINT_MS = 8;
 
     private final AtomicBoolean packPending = new AtomicBoolean();
     private volatile BufferedImage frame;
     private volatile ScalingMode mode = ScalingMode.AUTO;
     private final OverlayRenderer overlayRenderer = new OverlayRenderer();
+    private final ParticipantOverlay participantOverlay = new ParticipantOverlay();
+    private final ChannelOverlay channelOverlay = new ChannelOverlay();
+    private final StreamRegistry sensorStreams = new StreamRegistry();
     private final HeatmapOverlay heatmap = new HeatmapOverlay(HEAT_ROWS, HEAT_COLS);
     private final LoadingOverlay loadingOverlay = new LoadingOverlay(this::repaint);
     private final Timer seekSpinnerDelay;
+    private final Timer liveRepaint;
+    private int liveSeenSize;
+    private boolean heatmapDwellWeighted;
+    private volatile VideoDrawArea lastDrawArea;
+    private volatile double deviceScaleX = 1.0;
+    private volatile double deviceScaleY = 1.0;
 
     public VideoPanelRenderer() {
         setBackground(new Color(18, 18, 18));
         setPreferredSize(new Dimension(960, 540));
         this.seekSpinnerDelay = new Timer(140, e -> loadingOverlay.show());
         this.seekSpinnerDelay.setRepeats(false);
+        this.liveRepaint = new Timer(LIVE_REPAINT_MS, e -> repaintIfLiveGrew());
+        ToolTipManager.sharedInstance().registerComponent(this);
+        channelOverlay.setStreams(sensorStreams);
     }
 
     public void setMode(ScalingMode mode) {
@@ -95,6 +118,7 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
         Graphics2D graphics = (Graphics2D) g.create();
         try {
             VideoDrawArea drawArea = configureGraphics(graphics, currentFrame);
+            lastDrawArea = drawArea;
             graphics.drawImage(currentFrame, drawArea.x(), drawArea.y(), drawArea.width(), drawArea.height(), null);
             Rectangle heatArea = new Rectangle(drawArea.x(), drawArea.y(), drawArea.width(), drawArea.height());
             heatmap.paintHeatmap(graphics, heatArea);
@@ -131,6 +155,8 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
         double scaleX = Math.max(deviceTx.getScaleX(), 1e-6);
         double scaleY = Math.max(deviceTx.getScaleY(), 1e-6);
         graphics.scale(1.0 / scaleX, 1.0 / scaleY);
+        deviceScaleX = scaleX;
+        deviceScaleY = scaleY;
 
         int deviceW = (int) Math.round(getWidth() * scaleX);
         int deviceH = (int) Math.round(getHeight() * scaleY);
@@ -170,17 +196,96 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
         return new Dimension(drawW, drawH);
     }
 
+    /**
+     * Describes the overlay point under the mouse: its row, for timed data the gaze and
+     * video time, and the nearest other rows. Answered from the overlay's point index.
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        VideoDrawArea drawArea = lastDrawArea;
+        if (drawArea == null || frame == null) {
+            return null;
+        }
+        int px = (int) Math.round(event.getX() * deviceScaleX);
+        int py = (int) Math.round(event.getY() * deviceScaleY);
+        OverlayHit hit = overlayRenderer.hitTest(drawArea, px, py);
+        if (hit == null) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder("<html>Row ").append(hit.row() + 1);
+        if (hit.timed()) {
+            long videoMs = overlayRenderer.getOverlayClock().videoMs(hit.timeMs());
+            text.append("<br>Gaze time ").append(String.format(Locale.ROOT, "%.3f s", hit.timeMs() / 1000.0))
+                    .append("<br>Video time ").append(ProgressBar.fmt(videoMs))
+                    .append(String.format(Locale.ROOT, ".%03d", Math.floorMod(videoMs, 1000L)));
+        }
+        text.append(String.format(Locale.ROOT, "<br>Position %.3f, %.3f", hit.xNorm(), hit.yNorm()));
+        if (hit.neighbours().length > 0) {
+            text.append("<br>Nearby rows ");
+            for (int i = 0; i < hit.neighbours().length; i++) {
+                text.append((i > 0) ? ", " : "").append(hit.neighbours()[i] + 1);
+            }
+        }
+        return text.append("</html>").toString();
+    }
+
     private void drawOverlays(Graphics2D graphics, VideoDrawArea drawArea) {
+        participantOverlay.paint(graphics, drawArea);
         overlayRenderer.paint(graphics, drawArea);
+        channelOverlay.paint(graphics, drawArea, overlayRenderer.getOverlayClock());
+    }
+
+    /** Shows the values of {@code channels} at the playhead; times use the overlay offset. */
+    public void setSignalChannels(List<SignalChannel> channels) {
+        channelOverlay.setChannels(channels);
+        repaint();
+    }
+
+    public List<SignalChannel> signalChannels() {
+        return channelOverlay.channels();
+    }
+
+    /**
+     * Sensor streams shown with the channel values, each aligned to the video by its own
+     * offset and drift. Call {@link #repaint()} after changing them.
+     */
+    public StreamRegistry sensorStreams() {
+        return sensorStreams;
+    }
+
+    public void setShowChannelValues(boolean show) {
+        channelOverlay.setVisible(show);
+        repaint();
+    }
+
+    public boolean isShowChannelValues() {
+        return channelOverlay.isVisible();
+    }
+
+    /** Shows {@code tracks} together, each in its own colour, under the main overlay. */
+    public void setParticipantTracks(List<ParticipantTrack> tracks) {
+        participantOverlay.setTracks(tracks);
+        repaint();
+    }
+
+    public List<ParticipantTrack> participantTracks() {
+        return participantOverlay.tracks();
+    }
+
+    public void clearParticipantTracks() {
+        participantOverlay.clear();
+        repaint();
     }
 
     public void setOverlayPoints(List<OverlayPoint> points) {
+        liveRepaint.stop();
         overlayRenderer.setOverlayPoints(points);
         rebuildDensity();
         repaint();
     }
 
     public void setTimedOverlayPoints(List<TimedOverlayPoint> points) {
+        liveRepaint.stop();
         overlayRenderer.setTimedOverlayPoints(points);
         rebuildDensity();
         repaint();
@@ -194,10 +299,106 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
         return overlayRenderer.getOverlayTimeOffsetMs();
     }
 
+    /** Maps video time to gaze time with an offset and a clock-drift scale. */
+    public void setOverlayClock(ClockMapping clock) {
+        overlayRenderer.setOverlayClock(clock);
+    }
+
+    public ClockMapping getOverlayClock() {
+        return overlayRenderer.getOverlayClock();
+    }
+
+    /** Tells the overlay the frame rate of the video that is playing, for per-frame lookups. */
+    public void setVideoFrameRate(double fps) {
+        overlayRenderer.setFrameRate(fps);
+    }
+
+    /** Gaze resampled per video frame for the loaded track, or null until one is available. */
+    public FrameGazeTable frameGazeTable() {
+        return overlayRenderer.frameTable();
+    }
+
     public void setTimedOverlayAnchorIndex(int index1Based) {
         overlayRenderer.setTimedOverlayAnchorIndex(index1Based);
     }
 
+    /** The timed series the overlay is drawing, or an empty one. */
+    public TimedSeries timedOverlaySeries() {
+        return overlayRenderer.timedSeries();
+    }
+
+    /** Fixations detected in the loaded track; cleared whenever the overlay source changes. */
+    public void setFixations(List<GazeEvent> events) {
+        overlayRenderer.setFixations(events);
+        if (heatmapDwellWeighted) {
+            refreshHeatmapWeighting();
+        }
+        repaint();
+    }
+
+    /** Time index over the fixations set with {@link #setFixations}. */
+    public IntervalIndex<GazeEvent> fixationIndex() {
+        return overlayRenderer.fixationIndex();
+    }
+
+    /** Adds a fixation from a live detector. Safe to call from the reader thread. */
+    public void addLiveFixation(GazeEvent event) {
+        overlayRenderer.addLiveFixation(event);
+    }
+
+    public void setShowFixations(boolean show) {
+        overlayRenderer.setShowFixations(show);
+        repaint();
+    }
+
+    public boolean isShowFixations() {
+        return overlayRenderer.isShowFixations();
+    }
+
+    /** Trails recent gaze behind the marker, through fixations when they are shown. */
+    public void setShowScanpath(boolean show) {
+        overlayRenderer.setShowScanpath(show);
+        repaint();
+    }
+
+    public boolean isShowScanpath() {
+        return overlayRenderer.isShowScanpath();
+    }
+
+    /** Smooths loaded tracks with {@code kind} before drawing the marker and scanpath. */
+    public void setGazeSmoothing(GazeFilter.Kind kind) {
+        overlayRenderer.setSmoothing(kind);
+        repaint();
+    }
+
+    public GazeFilter.Kind getGazeSmoothing() {
+        return overlayRenderer.getSmoothing();
+    }
+
+    /** Weights the heatmap by fixation dwell time instead of sample count, when fixations exist. */
+    public void setHeatmapDwellWeighted(boolean weighted) {
+        heatmapDwellWeighted = weighted;
+        refreshHeatmapWeighting();
+    }
+
+    public boolean isHeatmapDwellWeighted() {
+        return heatmapDwellWeighted;
+    }
+
+    private void refreshHeatmapWeighting() {
+        boolean visible = heatmap.isHeatmapVisible();
+        List<GazeEvent> events = overlayRenderer.fixations();
+        if (heatmapDwellWeighted && !events.isEmpty()) {
+            heatmap.rebuildDwell(events);
+        } else {
+            rebuildDensity();
+        }
+        if (visible) {
+            heatmap.onPlaybackStopped();
+        }
+        repaint();
+    }
+
     public boolean hasTimedOverlayPoints() {
         return overlayRenderer.hasTimedOverlayPoints();
     }
@@ -209,7 +410,9 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
     @Override
     public void onProgress(long posMs, long durationMs) {
         overlayRenderer.onProgress(posMs);
-        if (overlayRenderer.hasTimedOverlayPoints()) {
+        participantOverlay.onProgress(posMs);
+        channelOverlay.onProgress(posMs);
+        if (overlayRenderer.hasTimedOverlayPoints() || !participantOverlay.isEmpty() || channelOverlay.isActive()) {
             repaint();
         }
     }
@@ -244,8 +447,9 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
         if (payload == null) {
             return;
         }
+        liveRepaint.stop();
         if (payload.timed()) {
-            overlayRenderer.setTimedOverlayPoints(payload.timedPoints());
+            overlayRenderer.setTimedTrack(payload.track());
         } else {
             overlayRenderer.setOverlayPoints(payload.staticPoints());
         }
@@ -253,13 +457,77 @@ public class VideoPanelRenderer extends JPanel implements VideoRenderer {
         repaint();
     }
     
+    /**
+     * Draws timed overlays from {@code series} while it is still being filled, e.g. by a
+     * streaming CSV load. Replaced by the finished track once the payload is applied.
+     */
+    public void showProgressiveOverlay(TimedSeries series) {
+        liveRepaint.stop();
+        overlayRenderer.setTimedSeries(series);
+        repaint();
+    }
+
+    /** Updates the heatmap counts without changing whether the heatmap is shown. */
+    public void updateHeatmapSnapshot(int[][] grid, int maxCount) {
+        heatmap.applySnapshot(grid, maxCount);
+        repaint();
+    }
+
+    /**
+     * Shows the newest sample of a live series. The panel checks for new samples every
+     * {@value #LIVE_REPAINT_MS} ms, well within one display frame, and repaints only
+     * when something arrived.
+     */
+    public void startLiveOverlay(TimedSeries series) {
+        overlayRenderer.setLiveSeries(series);
+        liveSeenSize = -1;
+        liveRepaint.start();
+        repaint();
+    }
+
+    public void stopLiveOverlay() {
+        liveRepaint.stop();
+        overlayRenderer.clear();
+        repaint();
+    }
+
+    private void repaintIfLiveGrew() {
+        int size = overlayRenderer.timedSeries().size();
+        if (size != liveSeenSize) {
+            liveSeenSize = size;
+            repaint();
+        }
+    }
+
+    public void showGroupHeatmap(GroupHeatmap group) {
+        if (group == null) {
+            return;
+        }
+        heatmap.applySnapshot(group.snapshotGrid(), group.snapshotMax());
+        heatmap.onPlaybackStopped();
+        repaint();
+    }
+
+    public void showHeatmapComparison(HeatmapDifference difference) {
+        if (difference == null) {
+            return;
+        }
+        heatmap.applyDifference(difference);
+        heatmap.onPlaybackStopped();
+        repaint();
+    }
+
     public void hideHeatmapOverlay() {
         heatmap.resetVisuals();
         repaint();
     }
 
     private void rebuildDensity() {
-        List<? extends OverlayPoint> source = overlayRenderer.snapshotForHeatmap();
-        heatmap.rebuild(source);
+        TimedSeries series = overlayRenderer.timedSeries();
+        if (series.size() > 0) {
+            heatmap.rebuild(series);
+        } else {
+            heatmap.rebuild(overlayRenderer.staticPoints());
+        }
     }
 }
@@ -2,8 +2,24 @@ package videoapp.ui;
 
 import videoapp.core.VideoPlayer;
 import videoapp.ui.VideoPanelRenderer.ScalingMode;
+import videoapp.util.Aoi;
+import videoapp.util.ClockMapping;
+import videoapp.util.CorpusHeatmapAggregator;
 import videoapp.util.CsvOverlayLoader;
+import videoapp.util.CsvTailSource;
+import videoapp.util.GazeEvent;
+import videoapp.util.GazeEventDetector;
+import videoapp.util.GazeFilter;
+import videoapp.util.GazeSocketSource;
+import videoapp.util.GazeStreamSimulator;
+import videoapp.util.GroupHeatmap;
+import videoapp.util.HeatmapDifference;
+import videoapp.util.LiveGazeSource;
 import videoapp.util.OverlayOffsetStore;
+import videoapp.util.SensorStream;
+import videoapp.util.SignalChannel;
+import videoapp.util.StreamRegistry;
+import videoapp.util.TimeRange;
 
 import javax.swing.*;
 import java.awt.*;
@@ -11,6 +27,11 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.Insets;
 import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -31,6 +52,8 @@ public class VideoPlayerFrame extends JFrame{
     private static final int MAX_W = 3840;
     private static final int MIN_H = 90;
     private static final int MAX_H = 2160;
+    private static final long LONG_FIXATION_MS = 1000;
+    private static final int HEATMAP_PERMUTATIONS = 1000;
 
     private final VideoPanelRenderer videoPanel;
     private final VideoPlayer player;
@@ -46,6 +69,11 @@ public class VideoPlayerFrame extends JFrame{
     private final ThemeController themeController;
     private final Dimension defaultWindowSize;
     private final ExecutorService overlayLoaderExecutor;
+    private LiveGazeSource liveSource;
+    private volatile GazeEventDetector.Algorithm fixationAlgorithm = GazeEventDetector.Algorithm.IDT;
+    private boolean highlightLongFixations;
+    private List<SignalChannel> signalChannels = List.of();
+    private final Set<SignalChannel> hiddenChannels = new HashSet<>();
 
     private int clampEven(int v, int min, int max) {
         int c = Math.max(min, Math.min(max, v));
@@ -181,6 +209,7 @@ public class VideoPlayerFrame extends JFrame{
 
     @Override
     public void dispose() {
+        stopLiveInput();
         this.overlayLoaderExecutor.shutdownNow();
         super.dispose();
     }
@@ -225,16 +254,18 @@ public class VideoPlayerFrame extends JFrame{
 
     private void handleLoadCsvAndVideo(FullscreenManager.State[] fsState,
                                        VideoChooseHandler chooserHandler) {
-        File csvFile = this.csvImporter.chooseCsvFile();
-        if (csvFile == null) {
+        List<File> csvParts = this.csvImporter.chooseCsvParts();
+        if (csvParts.isEmpty()) {
             return;
         }
+        File csvFile = csvParts.get(0);
+        stopLiveInput();
         SwingUtilities.invokeLater(this.videoPanel::hideHeatmapOverlay);
         this.videoPanel.showLoadingIndicator();
         this.overlayLoaderExecutor.submit(() -> {
             try {
-                OverlayPayload payload = this.csvImporter.loadOverlayPayload(
-                        csvFile,
+                OverlayPayload payload = this.csvImporter.loadOverlayPayloadProgressively(
+                        csvParts,
                         this.videoPanel.heatmapRows(),
                         this.videoPanel.heatmapCols()
                 );
@@ -242,7 +273,13 @@ public class VideoPlayerFrame extends JFrame{
                     this.csvImporter.applyOverlayPayload(payload);
                     this.videoPanel.hideLoadingIndicator();
                     this.videoPanel.hideHeatmapOverlay();
+                    this.progressBar.setGazeDensity(GazeDensity.EMPTY, null);
+                    refreshTimelineHighlights();
                 });
+                if (payload.timed()) {
+                    detectFixations(payload.track());
+                    buildGazeDensity(payload.track());
+                }
             } catch (Exception ex) {
                 SwingUtilities.invokeLater(() -> {
                     this.videoPanel.hideLoadingIndicator();
@@ -262,7 +299,9 @@ public class VideoPlayerFrame extends JFrame{
         }
 
         File startDir = csvFile.getParentFile();
-        chooserHandler.chooseToPlay(startDir);
+        if (chooserHandler.chooseToPlay(startDir)) {
+            this.videoPanel.setVideoFrameRate(this.player.fps());
+        }
         startOrRestart(this.resizeDebounce);
 
         this.player.pause();
@@ -319,6 +358,12 @@ public class VideoPlayerFrame extends JFrame{
             }
         }));
 
+        this.progressBar.setOnJump(targetMs -> {
+            long dur = lastDurationMs.get();
+            this.videoPanel.requestSeekLoadingIndicator();
+            this.player.seekMs((dur > 0) ? Math.max(0, Math.min(targetMs, dur)) : Math.max(0, targetMs));
+        });
+
         this.progressBar.setOnSettings(() -> openSettingsMenu(currentSpeed, decodePercent, lockedW, lockedH));
         this.progressBar.setFullscreen(false);
         this.progressBar.setOnToggleFullscreen(() -> toggleFullscreen(fsState, this.progressBar));
@@ -357,9 +402,687 @@ public class VideoPlayerFrame extends JFrame{
                 this.themeController.isDarkModeEnabled(),
                 this.themeController::setDarkMode
         );
+        menu.addSeparator();
+        menu.add(buildFixationMenu());
+        menu.add(buildSmoothingMenu());
+        menu.add(buildParticipantMenu());
+        menu.add(buildChannelMenu());
+        menu.add(buildSensorMenu());
+        menu.add(buildLiveMenu());
+        menu.add(buildStudyMenu());
         this.progressBar.showSettingsMenu(menu);
     }
 
+    private JMenu buildFixationMenu() {
+        JMenu fixations = new JMenu("Fixations");
+        JCheckBoxMenuItem show = new JCheckBoxMenuItem("Show fixations", this.videoPanel.isShowFixations());
+        show.addActionListener(e -> this.videoPanel.setShowFixations(show.isSelected()));
+        fixations.add(show);
+        JCheckBoxMenuItem scanpath = new JCheckBoxMenuItem("Show scanpath", this.videoPanel.isShowScanpath());
+        scanpath.addActionListener(e -> this.videoPanel.setShowScanpath(scanpath.isSelected()));
+        fixations.add(scanpath);
+        JCheckBoxMenuItem dwell = new JCheckBoxMenuItem("Weight heatmap by dwell time",
+                this.videoPanel.isHeatmapDwellWeighted());
+        dwell.addActionListener(e -> this.videoPanel.setHeatmapDwellWeighted(dwell.isSelected()));
+        fixations.add(dwell);
+        JCheckBoxMenuItem highlight = new JCheckBoxMenuItem("Highlight fixations over 1 s on timeline",
+                this.highlightLongFixations);
+        highlight.addActionListener(e -> {
+            this.highlightLongFixations = highlight.isSelected();
+            refreshTimelineHighlights();
+        });
+        fixations.add(highlight);
+        fixations.addSeparator();
+        ButtonGroup algorithms = new ButtonGroup();
+        fixations.add(algorithmItem("Velocity threshold (I-VT)", GazeEventDetector.Algorithm.IVT, algorithms));
+        fixations.add(algorithmItem("Dispersion threshold (I-DT)", GazeEventDetector.Algorithm.IDT, algorithms));
+        return fixations;
+    }
+
+    private JMenu buildSmoothingMenu() {
+        JMenu smoothing = new JMenu("Gaze smoothing");
+        ButtonGroup kinds = new ButtonGroup();
+        for (GazeFilter.Kind kind : GazeFilter.Kind.values()) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(kind.label(),
+                    this.videoPanel.getGazeSmoothing() == kind);
+            kinds.add(item);
+            item.addActionListener(e -> {
+                this.videoPanel.setGazeSmoothing(kind);
+                LiveGazeSource source = this.liveSource;
+                if (source != null) {
+                    source.smooth(GazeFilter.create(kind));
+                }
+            });
+            smoothing.add(item);
+        }
+        return smoothing;
+    }
+
+    private JRadioButtonMenuItem algorithmItem(String label,
+                                               GazeEventDetector.Algorithm algorithm,
+                                               ButtonGroup group) {
+        JRadioButtonMenuItem item = new JRadioButtonMenuItem(label, this.fixationAlgorithm == algorithm);
+        group.add(item);
+        item.addActionListener(e -> {
+            if (this.fixationAlgorithm == algorithm) {
+                return;
+            }
+            this.fixationAlgorithm = algorithm;
+            if (this.liveSource == null) {
+                detectFixations(this.videoPanel.timedOverlaySeries());
+            }
+        });
+        return item;
+    }
+
+    /**
+     * Detects fixations in {@code track} on the loader thread and hands them to the panel,
+     * unless another track has been loaded in the meantime.
+     */
+    private void detectFixations(TimedSeries track) {
+        if (track == null || track.size() == 0) {
+            return;
+        }
+        GazeEventDetector.Settings settings = GazeEventDetector.Settings.defaults(this.fixationAlgorithm);
+        this.overlayLoaderExecutor.submit(() -> {
+            List<GazeEvent> events = GazeEventDetector.detect(track, settings);
+            SwingUtilities.invokeLater(() -> {
+                if (this.videoPanel.timedOverlaySeries() == track) {
+                    this.videoPanel.setFixations(events);
+                    refreshTimelineHighlights();
+                }
+            });
+        });
+    }
+
+    /**
+     * Counts the samples of a newly loaded track on the loader thread and shows their
+     * density behind the progress slider, unless another track has been loaded since.
+     */
+    private void buildGazeDensity(TimedSeries track) {
+        if (track == null || track.size() == 0) {
+            return;
+        }
+        this.overlayLoaderExecutor.submit(() -> {
+            GazeDensity density = GazeDensity.of(track);
+            SwingUtilities.invokeLater(() -> {
+                if (this.videoPanel.timedOverlaySeries() == track) {
+                    this.progressBar.setGazeDensity(density, this.videoPanel::getOverlayClock);
+                }
+            });
+        });
+    }
+
+    /** Marks long fixations on the progress bar, converted from gaze time to video time. */
+    private void refreshTimelineHighlights() {
+        if (!this.highlightLongFixations) {
+            this.progressBar.setHighlightedRanges(List.of());
+            return;
+        }
+        ClockMapping clock = this.videoPanel.getOverlayClock();
+        List<TimeRange> ranges = this.videoPanel.fixationIndex()
+                .ranges(event -> true, LONG_FIXATION_MS)
+                .stream()
+                .map(range -> new TimeRange(clock.videoMs(range.startMs()), clock.videoMs(range.endMs())))
+                .toList();
+        this.progressBar.setHighlightedRanges(ranges);
+    }
+
+    private JMenu buildParticipantMenu() {
+        JMenu participants = new JMenu("Participants");
+        JMenuItem load = new JMenuItem("Load participant CSVs...");
+        load.addActionListener(e -> loadParticipants());
+        participants.add(load);
+        List<ParticipantTrack> tracks = this.videoPanel.participantTracks();
+        if (tracks.isEmpty()) {
+            return participants;
+        }
+        JMenuItem showAll = new JMenuItem("Show all");
+        showAll.addActionListener(e -> setParticipantsVisible(tracks, true));
+        participants.add(showAll);
+        JMenuItem hideAll = new JMenuItem("Hide all");
+        hideAll.addActionListener(e -> setParticipantsVisible(tracks, false));
+        participants.add(hideAll);
+        JMenuItem clear = new JMenuItem("Clear participants");
+        clear.addActionListener(e -> this.videoPanel.clearParticipantTracks());
+        participants.add(clear);
+        participants.addSeparator();
+        for (ParticipantTrack track : tracks) {
+            participants.add(participantItem(track));
+        }
+        return participants;
+    }
+
+    private JMenu participantItem(ParticipantTrack track) {
+        JMenu item = new JMenu(track.name());
+        item.setIcon(new ColorSwatchIcon(12, track.color()));
+        JCheckBoxMenuItem visible = new JCheckBoxMenuItem("Visible", track.isVisible());
+        visible.addActionListener(e -> {
+            track.setVisible(visible.isSelected());
+            this.videoPanel.repaint();
+        });
+        item.add(visible);
+        JMenuItem offset = new JMenuItem("Time offset...");
+        offset.addActionListener(e -> {
+            String input = JOptionPane.showInputDialog(this, "Offset for " + track.name() + " (ms):",
+                    track.offsetMs());
+            if (input == null) {
+                return;
+            }
+            try {
+                track.setOffsetMs(Long.parseLong(input.trim()));
+                this.videoPanel.repaint();
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid offset: " + input,
+                        "Participants", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        item.add(offset);
+        return item;
+    }
+
+    private void setParticipantsVisible(List<ParticipantTrack> tracks, boolean visible) {
+        for (ParticipantTrack track : tracks) {
+            track.setVisible(visible);
+        }
+        this.videoPanel.repaint();
+    }
+
+    private JMenu buildChannelMenu() {
+        JMenu menu = new JMenu("Signal channels");
+        JMenuItem load = new JMenuItem("Load channels from CSV...");
+        load.addActionListener(e -> loadSignalChannels());
+        menu.add(load);
+        if (this.signalChannels.isEmpty()) {
+            return menu;
+        }
+        JCheckBoxMenuItem values = new JCheckBoxMenuItem("Show values on video",
+                this.videoPanel.isShowChannelValues());
+        values.addActionListener(e -> this.videoPanel.setShowChannelValues(values.isSelected()));
+        menu.add(values);
+        JMenuItem clear = new JMenuItem("Clear channels");
+        clear.addActionListener(e -> showSignalChannels(List.of()));
+        menu.add(clear);
+        menu.addSeparator();
+        int shown = 0;
+        for (SignalChannel channel : this.signalChannels) {
+            boolean visible = !this.hiddenChannels.contains(channel);
+            JCheckBoxMenuItem item = new JCheckBoxMenuItem(channel.name(), visible);
+            if (visible) {
+                item.setIcon(new ColorSwatchIcon(12, ParticipantOverlay.colorFor(shown++)));
+            }
+            item.addActionListener(e -> {
+                if (item.isSelected()) {
+                    this.hiddenChannels.remove(channel);
+                } else {
+                    this.hiddenChannels.add(channel);
+                }
+                applySignalChannels();
+            });
+            menu.add(item);
+        }
+        return menu;
+    }
+
+    private JMenu buildSensorMenu() {
+        JMenu menu = new JMenu("Sensor streams");
+        JMenuItem add = new JMenuItem("Add stream from CSV...");
+        add.addActionListener(e -> addSensorStream());
+        menu.add(add);
+        StreamRegistry registry = this.videoPanel.sensorStreams();
+        if (registry.isEmpty()) {
+            return menu;
+        }
+        JMenuItem export = new JMenuItem("Export per-frame table...");
+        export.setEnabled(this.player.fps() > 0 && this.player.durationMs() > 0);
+        export.addActionListener(e -> exportFrameTable(registry));
+        menu.add(export);
+        JMenuItem clear = new JMenuItem("Remove all streams");
+        clear.addActionListener(e -> {
+            registry.clear();
+            this.videoPanel.repaint();
+        });
+        menu.add(clear);
+        menu.addSeparator();
+        for (SensorStream stream : registry.streams()) {
+            menu.add(sensorItem(registry, stream));
+        }
+        return menu;
+    }
+
+    private JMenu sensorItem(StreamRegistry registry, SensorStream stream) {
+        JMenu item = new JMenu(stream.name());
+        JMenuItem offset = new JMenuItem("Time offset...");
+        offset.addActionListener(e -> {
+            String input = JOptionPane.showInputDialog(this,
+                    "Sensor time at video time 0 for " + stream.name() + " (ms):", stream.offsetMs());
+            if (input == null) {
+                return;
+            }
+            try {
+                stream.setOffsetMs(Long.parseLong(input.trim()));
+                this.videoPanel.repaint();
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Please enter a whole number of milliseconds.",
+                        "Sensor Streams", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        item.add(offset);
+        JMenuItem drift = new JMenuItem("Clock drift...");
+        drift.addActionListener(e -> {
+            String input = JOptionPane.showInputDialog(this,
+                    "Clock drift of " + stream.name() + " against the video (ppm, positive if fast):",
+                    stream.driftPpm());
+            if (input == null) {
+                return;
+            }
+            try {
+                stream.setDriftPpm(Double.parseDouble(input.trim()));
+                this.videoPanel.repaint();
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, "Please enter a number above -1000000.",
+                        "Sensor Streams", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        item.add(drift);
+        JMenuItem remove = new JMenuItem("Remove");
+        remove.addActionListener(e -> {
+            registry.remove(stream);
+            this.videoPanel.repaint();
+        });
+        item.add(remove);
+        return item;
+    }
+
+    private void addSensorStream() {
+        File csv = this.csvImporter.chooseCsvFile();
+        if (csv == null) {
+            return;
+        }
+        this.videoPanel.showLoadingIndicator();
+        this.overlayLoaderExecutor.submit(() -> {
+            SensorStream stream = this.csvImporter.loadSensorStream(csv);
+            SwingUtilities.invokeLater(() -> {
+                this.videoPanel.hideLoadingIndicator();
+                if (stream == null) {
+                    JOptionPane.showMessageDialog(this,
+                            "No numeric channels with timestamps found in " + csv.getName(),
+                            "Sensor Streams", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                this.videoPanel.sensorStreams().add(stream);
+                this.videoPanel.repaint();
+            });
+        });
+    }
+
+    private void exportFrameTable(StreamRegistry registry) {
+        File target = this.csvImporter.chooseCsvSaveFile("aligned_frames.csv");
+        if (target == null) {
+            return;
+        }
+        double fps = this.player.fps();
+        long durationMs = this.player.durationMs();
+        this.videoPanel.showLoadingIndicator();
+        this.overlayLoaderExecutor.submit(() -> {
+            String error = null;
+            try {
+                registry.writeFrameTable(target, fps, durationMs, Runtime.getRuntime().availableProcessors());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
+            } catch (IOException ex) {
+                error = ex.getMessage();
+            }
+            String failure = error;
+            SwingUtilities.invokeLater(() -> {
+                this.videoPanel.hideLoadingIndicator();
+                if (failure != null) {
+                    JOptionPane.showMessageDialog(this, "Failed to export: " + failure,
+                            "Sensor Streams", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Saved " + target.getName(),
+                            "Sensor Streams", JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
+        });
+    }
+
+    private JMenu buildStudyMenu() {
+        JMenu study = new JMenu("Study");
+        JMenuItem group = new JMenuItem("Group heatmap...");
+        group.addActionListener(e -> showGroupHeatmap());
+        study.add(group);
+        JMenuItem compare = new JMenuItem("Compare participant with group...");
+        compare.addActionListener(e -> compareParticipantWithGroup());
+        study.add(compare);
+        JMenuItem aoiReport = new JMenuItem("AOI report...");
+        aoiReport.addActionListener(e -> writeAoiReport());
+        study.add(aoiReport);
+        return study;
+    }
+
+    /**
+     * Asks for AOI definitions, a study and where to save, then computes the AOI metrics
+     * of every participant on the loader thread and writes them as CSV or JSON.
+     */
+    private void writeAoiReport() {
+        File aoiFile = this.csvImporter.chooseAoiFile();
+        if (aoiFile == null) {
+            return;
+        }
+        List<Aoi> aois;
+        try {
+            aois = Aoi.read(aoiFile);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Failed to read " + aoiFile.getName() + ": " + ex.getMessage(),
+                    "Study", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (aois.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No AOIs found in " + aoiFile.getName(),
+                    "Study", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        List<File> participants = chooseStudyParticipants();
+        if (participants.isEmpty()) {
+            return;
+        }
+        File target = this.csvImporter.chooseReportSaveFile("aoi_metrics.csv");
+        if (target == null) {
+            return;
+        }
+        GazeEventDetector.Algorithm algorithm = this.fixationAlgorithm;
+        this.videoPanel.showLoadingIndicator();
+        this.overlayLoaderExecutor.submit(() -> {
+            String error = null;
+            try {
+                this.csvImporter.analyseAois(participants, aois, algorithm).save(target);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
+            } catch (IOException | RuntimeException ex) {
+                error = ex.getMessage();
+            }
+            String failure = error;
+            SwingUtilities.invokeLater(() -> {
+                this.videoPanel.hideLoadingIndicator();
+                if (failure != null) {
+                    JOptionPane.showMessageDialog(this, "Failed to write AOI report: " + failure,
+                            "Study", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            String.format(Locale.ROOT, "Saved AOI metrics of %d participants for %d AOIs to %s",
+                                    participants.size(), aois.size(), target.getName()),
+                            "Study", JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
+        });
+    }
+
+    /**
+     * Asks for a study and one of its participants, then runs the permutation test of
+     * that participant against the rest on the loader thread and shows the difference
+     * heatmap.
+     */
+    private void compareParticipantWithGroup() {
+        List<File> participants = chooseStudyParticipants();
+        if (participants.size() < 2) {
+            if (participants.size() == 1) {
+                JOptionPane.showMessageDialog(this, "A comparison needs at least two participants.",
+                        "Study", JOptionPane.WARNING_MESSAGE);
+            }
+            return;
+        }
+        String[] names = participants.stream().map(File::getName).toArray(String[]::new);
+        Object chosen = JOptionPane.showInputDialog(this, "Participant to compare with the rest:",
+                "Study", JOptionPane.QUESTION_MESSAGE, null, names, names[0]);
+        if (chosen == null) {
+            return;
+        }
+        File focus = participants.get(List.of(names).indexOf(chosen));
+        this.videoPanel.showLoadingIndicator();
+        this.overlayLoaderExecutor.submit(() -> {
+            HeatmapDifference difference = null;
+            String error = null;
+            try {
+                difference = this.csvImporter.compareWithGroup(participants, focus, HEATMAP_PERMUTATIONS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
+            } catch (RuntimeException ex) {
+                error = ex.getMessage();
+            }
+            HeatmapDifference result = difference;
+            String failure = error;
+            SwingUtilities.invokeLater(() -> {
+                this.videoPanel.hideLoadingIndicator();
+                if (result == null) {
+                    JOptionPane.showMessageDialog(this,
+                            (failure != null) ? "Failed to compare heatmaps: " + failure
+                                    : focus.getName() + " or the rest of the group has no gaze samples.",
+                            "Study", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                this.videoPanel.showHeatmapComparison(result);
+                JOptionPane.showMessageDialog(this,
+                        String.format(Locale.ROOT, "%s vs rest: %d of %d cells differ at p < %.2f",
+                                focus.getName(), result.significantCells(), result.rows() * result.cols(),
+                                result.alpha()),
+                        "Study", JOptionPane.INFORMATION_MESSAGE);
+            });
+        });
+    }
+
+    /**
+     * Asks for a folder or manifest of participant CSVs, then aggregates them on the
+     * loader thread and shows the result as the heatmap.
+     */
+    private void showGroupHeatmap() {
+        List<File> participants = chooseStudyParticipants();
+        if (participants.isEmpty()) {
+            return;
+        }
+        this.videoPanel.showLoadingIndicator();
+        this.overlayLoaderExecutor.submit(() -> {
+            GroupHeatmap group = null;
+            String error = null;
+            try {
+                group = this.csvImporter.loadGroupHeatmap(participants);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
+            } catch (RuntimeException ex) {
+                error = ex.getMessage();
+            }
+            GroupHeatmap result = group;
+            String failure = error;
+            SwingUtilities.invokeLater(() -> {
+                this.videoPanel.hideLoadingIndicator();
+                if (result == null || result.participants() == 0) {
+                    JOptionPane.showMessageDialog(this,
+                            (failure != null) ? "Failed to build group heatmap: " + failure
+                                    : "No participant CSV had gaze samples.",
+                            "Study", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                this.videoPanel.showGroupHeatmap(result);
+                JOptionPane.showMessageDialog(this,
+                        String.format("Group heatmap of %d participants, %d samples",
+                                result.participants(), result.samples()),
+                        "Study", JOptionPane.INFORMATION_MESSAGE);
+            });
+        });
+    }
+
+    /** The participant CSVs of a chosen folder or manifest; empty if cancelled or none were found. */
+    private List<File> chooseStudyParticipants() {
+        File source = this.csvImporter.chooseStudyInputs();
+        if (source == null) {
+            return List.of();
+        }
+        List<File> files;
+        try {
+            files = CorpusHeatmapAggregator.resolveInputs(source);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Failed to read " + source.getName() + ": " + ex.getMessage(),
+                    "Study", JOptionPane.ERROR_MESSAGE);
+            return List.of();
+        }
+        if (files.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No participant CSVs found in " + source.getName(),
+                    "Study", JOptionPane.WARNING_MESSAGE);
+        }
+        return files;
+    }
+
+    private void loadSignalChannels() {
+        File csv = this.csvImporter.chooseCsvFile();
+        if (csv == null) {
+            return;
+        }
+        this.videoPanel.showLoadingIndicator();
+        this.overlayLoaderExecutor.submit(() -> {
+            List<SignalChannel> channels = this.csvImporter.loadSignalChannels(csv);
+            SwingUtilities.invokeLater(() -> {
+                this.videoPanel.hideLoadingIndicator();
+                if (channels.isEmpty()) {
+                    JOptionPane.showMessageDialog(this,
+                            "No numeric channels with timestamps found in " + csv.getName(),
+                            "Signal Channels", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                showSignalChannels(channels);
+            });
+        });
+    }
+
+    private void showSignalChannels(List<SignalChannel> channels) {
+        this.signalChannels = channels;
+        this.hiddenChannels.clear();
+        applySignalChannels();
+    }
+
+    /** Hands the channels that are not hidden to the video overlay and the progress bar. */
+    private void applySignalChannels() {
+        List<SignalChannel> visible = this.signalChannels.stream()
+                .filter(channel -> !this.hiddenChannels.contains(channel))
+                .toList();
+        this.videoPanel.setSignalChannels(visible);
+        this.progressBar.setChannels(visible, this.videoPanel::getOverlayClock);
+    }
+
+    /** Loads one track per chosen CSV on the loader thread and shows them together. */
+    private void loadParticipants() {
+        List<File> files = this.csvImporter.chooseParticipantCsvs();
+        if (files.isEmpty()) {
+            return;
+        }
+        this.videoPanel.showLoadingIndicator();
+        this.overlayLoaderExecutor.submit(() -> {
+            try {
+                List<ParticipantTrack> tracks = this.csvImporter.loadParticipantTracks(files);
+                SwingUtilities.invokeLater(() -> {
+                    this.videoPanel.setParticipantTracks(tracks);
+                    this.videoPanel.hideLoadingIndicator();
+                    JOptionPane.showMessageDialog(this,
+                            String.format("Loaded %d of %d participants", tracks.size(), files.size()),
+                            "Participants", JOptionPane.INFORMATION_MESSAGE);
+                });
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> {
+                    this.videoPanel.hideLoadingIndicator();
+                    JOptionPane.showMessageDialog(this,
+                            "Failed to load participants: " + ex.getMessage(),
+                            "Participants", JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        });
+    }
+
+    private JMenu buildLiveMenu() {
+        JMenu live = new JMenu("Live gaze input");
+        JMenuItem tail = new JMenuItem("Follow growing CSV...");
+        tail.addActionListener(e -> {
+            File csv = this.csvImporter.chooseCsvFile();
+            if (csv != null) {
+                startLiveInput(new CsvTailSource(csv));
+            }
+        });
+        live.add(tail);
+        live.add(socketItem("Listen on TCP port...", GazeSocketSource.Protocol.TCP));
+        live.add(socketItem("Listen on UDP port...", GazeSocketSource.Protocol.UDP));
+        JMenuItem stop = new JMenuItem("Stop live input");
+        stop.setEnabled(this.liveSource != null);
+        stop.addActionListener(e -> {
+            stopLiveInput();
+            this.videoPanel.stopLiveOverlay();
+        });
+        live.add(stop);
+        return live;
+    }
+
+    private JMenuItem socketItem(String label, GazeSocketSource.Protocol protocol) {
+        JMenuItem item = new JMenuItem(label);
+        item.addActionListener(e -> {
+            String input = JOptionPane.showInputDialog(this, "Local port:", GazeStreamSimulator.DEFAULT_PORT);
+            if (input == null) {
+                return;
+            }
+            try {
+                startLiveInput(new GazeSocketSource(protocol, Integer.parseInt(input.trim())));
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid port: " + input,
+                        "Live Gaze Input", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        return item;
+    }
+
+    private void startLiveInput(LiveGazeSource source) {
+        stopLiveInput();
+        this.liveSource = source;
+        source.detectEvents(GazeEventDetector.Settings.defaults(this.fixationAlgorithm),
+                this.videoPanel::addLiveFixation);
+        source.smooth(GazeFilter.create(this.videoPanel.getGazeSmoothing()));
+        source.listen(new LiveGazeSource.Listener() {
+            @Override
+            public void onRestart(TimedPointBuffer buffer) {
+                SwingUtilities.invokeLater(() -> {
+                    if (VideoPlayerFrame.this.liveSource == source) {
+                        VideoPlayerFrame.this.videoPanel.startLiveOverlay(buffer);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(IOException error) {
+                SwingUtilities.invokeLater(() -> {
+                    if (VideoPlayerFrame.this.liveSource != source) {
+                        return;
+                    }
+                    stopLiveInput();
+                    VideoPlayerFrame.this.videoPanel.stopLiveOverlay();
+                    JOptionPane.showMessageDialog(VideoPlayerFrame.this,
+                            "Live input stopped: " + error.getMessage(),
+                            "Live Gaze Input", JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        });
+        source.start();
+        this.videoPanel.hideHeatmapOverlay();
+        this.progressBar.setGazeDensity(GazeDensity.EMPTY, null);
+        this.videoPanel.startLiveOverlay(source.buffer());
+    }
+
+    private void stopLiveInput() {
+        LiveGazeSource source = this.liveSource;
+        this.liveSource = null;
+        if (source != null) {
+            source.close();
+        }
+    }
+
     private int[] resolveTargetSize(AtomicInteger lockedW, AtomicInteger lockedH, int decodePercent) {
         int lw = lockedW.get();
         int lh = lockedH.get();
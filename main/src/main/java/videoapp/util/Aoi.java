@@ -0,0 +1,180 @@
+package videoapp.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Area of interest on the video frame: a rectangle or a simple polygon in normalised
+ * coordinates, with y pointing up like gaze samples. Polygons use the even-odd rule.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class Aoi {
+    private final String name;
+    private final double[] xs;
+    private final double[] ys;
+    private final boolean rectangle;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    private Aoi(String name, double[] xs, double[] ys, boolean rectangle) {
+        this.name = name;
+        this.xs = xs;
+        this.ys = ys;
+        this.rectangle = rectangle;
+        double loX = Double.POSITIVE_INFINITY;
+        double loY = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY;
+        double hiY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < xs.length; i++) {
+            loX = Math.min(loX, xs[i]);
+            hiX = Math.max(hiX, xs[i]);
+            loY = Math.min(loY, ys[i]);
+            hiY = Math.max(hiY, ys[i]);
+        }
+        this.minX = loX;
+        this.minY = loY;
+        this.maxX = hiX;
+        this.maxY = hiY;
+    }
+
+    /** Axis-aligned rectangle spanning two opposite corners. */
+    public static Aoi rectangle(String name, double x0, double y0, double x1, double y1) {
+        double loX = Math.min(x0, x1);
+        double hiX = Math.max(x0, x1);
+        double loY = Math.min(y0, y1);
+        double hiY = Math.max(y0, y1);
+        return new Aoi(name, new double[]{loX, hiX, hiX, loX}, new double[]{loY, loY, hiY, hiY}, true);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there are fewer than three vertices or the
+     *                                  coordinate arrays differ in length
+     */
+    public static Aoi polygon(String name, double[] xs, double[] ys) {
+        if (xs.length != ys.length || xs.length < 3) {
+            throw new IllegalArgumentException("a polygon needs at least three vertices");
+        }
+        return new Aoi(name, xs.clone(), ys.clone(), false);
+    }
+
+    /**
+     * Reads AOIs from a text file with one AOI per line: a name followed by vertex
+     * coordinates, {@code name,x,y,x,y,...}. Two vertices are the opposite corners of a
+     * rectangle; three or more form a polygon. Blank lines, lines starting with
+     * {@code #} and lines that do not parse are skipped.
+     */
+    public static List<Aoi> read(File file) throws IOException {
+        List<Aoi> aois = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String entry = line.trim();
+                if (entry.isEmpty() || entry.startsWith("#")) {
+                    continue;
+                }
+                Aoi aoi = parse(StringCsvRow.split(entry));
+                if (aoi != null) {
+                    aois.add(aoi);
+                }
+            }
+        }
+        return aois;
+    }
+
+    private static Aoi parse(String[] fields) {
+        int coords = fields.length - 1;
+        if (coords < 4 || (coords & 1) != 0) {
+            return null;
+        }
+        double[] values = new double[coords];
+        try {
+            for (int i = 0; i < coords; i++) {
+                values[i] = StringCsvRow.parse(fields[i + 1]);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        String name = fields[0].trim();
+        if (coords == 4) {
+            return rectangle(name, values[0], values[1], values[2], values[3]);
+        }
+        double[] px = new double[coords / 2];
+        double[] py = new double[coords / 2];
+        for (int i = 0; i < px.length; i++) {
+            px[i] = values[2 * i];
+            py[i] = values[2 * i + 1];
+        }
+        return new Aoi(name, px, py, false);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isRectangle() {
+        return rectangle;
+    }
+
+    public double minX() {
+        return minX;
+    }
+
+    public double minY() {
+        return minY;
+    }
+
+    public double maxX() {
+        return maxX;
+    }
+
+    public double maxY() {
+        return maxY;
+    }
+
+    /** Vertex x coordinates, counter-clockwise from the bottom-left for rectangles. */
+    public double[] xs() {
+        return xs.clone();
+    }
+
+    public double[] ys() {
+        return ys.clone();
+    }
+
+    public boolean contains(double x, double y) {
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        if (rectangle) {
+            return true;
+        }
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            if ((ys[i] > y) != (ys[j] > y)
+                    && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /** True if every point of the box lies inside this AOI; only decided for rectangles. */
+    boolean coversBox(double x0, double y0, double x1, double y1) {
+        return rectangle && x0 >= minX && x1 <= maxX && y0 >= minY && y1 <= maxY;
+    }
+
+    @Override
+    public String toString() {
+        return name + (rectangle ? " rect " : " polygon ") + Arrays.toString(xs) + Arrays.toString(ys);
+    }
+}
@@ -0,0 +1,203 @@
+package videoapp.util;
+
+import videoapp.ui.TimedSeries;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes {@link AoiMetrics} for a set of AOIs, one participant or a whole study at a
+ * time. Each participant takes a single streaming pass: samples go through a
+ * {@link GazeEventDetector}, and each fixation is assigned to an AOI by its centre through
+ * an {@link AoiGrid} and folded into running counters. Nothing per sample is kept, so a
+ * participant costs the same memory whatever the recording length. Studies are split
+ * across a bounded pool, one participant per task, like {@link CorpusHeatmapAggregator}.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class AoiAnalytics {
+    private final CsvOverlayLoader loader;
+    private final List<Aoi> aois;
+    private final AoiGrid grid;
+    private final GazeEventDetector.Settings settings;
+    private final int parallelism;
+
+    public AoiAnalytics(CsvOverlayLoader loader, List<Aoi> aois, GazeEventDetector.Settings settings) {
+        this(loader, aois, settings, Runtime.getRuntime().availableProcessors());
+    }
+
+    public AoiAnalytics(CsvOverlayLoader loader, List<Aoi> aois, GazeEventDetector.Settings settings,
+                        int parallelism) {
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.aois = List.copyOf(aois);
+        this.grid = new AoiGrid(this.aois);
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public List<Aoi> aois() {
+        return aois;
+    }
+
+    /** Metrics for a track that is already loaded, e.g. the one on screen. */
+    public AoiMetrics analyse(String participant, TimedSeries series) {
+        Pass pass = new Pass(participant);
+        for (int i = 0; i < series.size(); i++) {
+            pass.accept(series.timeMs(i), series.xNorm(i), series.yNorm(i));
+        }
+        return pass.finish();
+    }
+
+    /** Metrics for one participant's timed CSV, streamed from disk. */
+    public AoiMetrics analyse(File csv) {
+        Pass pass = new Pass(participantName(csv));
+        loader.forEachTimedPoint(csv, pass::accept);
+        return pass.finish();
+    }
+
+    /**
+     * Analyses every file of a study in parallel. The result lists participants in the
+     * order of {@code csvFiles}; files without timed samples give all-empty metrics.
+     */
+    public AoiStudyReport analyseStudy(List<File> csvFiles) throws InterruptedException {
+        List<File> files = (csvFiles != null) ? List.copyOf(csvFiles) : List.of();
+        AoiMetrics[] results = new AoiMetrics[files.size()];
+        if (files.isEmpty()) {
+            return new AoiStudyReport(aois, List.of());
+        }
+        int workers = Math.min(parallelism, files.size());
+        AtomicInteger nextFile = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "aoi-analytics");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    int idx;
+                    while ((idx = nextFile.getAndIncrement()) < files.size()) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            break;
+                        }
+                        results[idx] = analyse(files.get(idx));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            return new AoiStudyReport(aois, List.of(results));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("AOI analysis failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    static String participantName(File csv) {
+        String name = csv.getName();
+        int dot = name.indexOf('.');
+        return (dot > 0) ? name.substring(0, dot) : name;
+    }
+
+    /** One participant's streaming state: detector plus per-AOI counters. */
+    private final class Pass implements GazeEventDetector.Listener {
+        private final String participant;
+        private final GazeEventDetector detector;
+        private final long[] firstFixation;
+        private final long[] dwell;
+        private final int[] visits;
+        private final int[] fixations;
+        private final int[][] transitions;
+        private boolean hasFirstSample;
+        private long firstSampleMs;
+        private long lastSampleMs;
+        private long samples;
+        private int visitAoi = -1;
+        private long visitStartMs;
+        private long visitEndMs;
+        private int previousVisitAoi = -1;
+
+        Pass(String participant) {
+            int n = aois.size();
+            this.participant = participant;
+            this.detector = new GazeEventDetector(settings, this);
+            this.firstFixation = new long[n];
+            this.dwell = new long[n];
+            this.visits = new int[n];
+            this.fixations = new int[n];
+            this.transitions = new int[n][n];
+            Arrays.fill(firstFixation, -1L);
+        }
+
+        /** Samples that go back in time are dropped, as the detector needs ordered input. */
+        void accept(long timeMs, double x, double y) {
+            if (!hasFirstSample) {
+                hasFirstSample = true;
+                firstSampleMs = timeMs;
+                lastSampleMs = timeMs;
+            } else if (timeMs < lastSampleMs) {
+                return;
+            }
+            lastSampleMs = timeMs;
+            samples++;
+            detector.accept(timeMs, x, y);
+        }
+
+        @Override
+        public void onEvent(GazeEvent event) {
+            if (!event.isFixation()) {
+                return;
+            }
+            int aoi = grid.locate(event.centroidX(), event.centroidY());
+            if (aoi != visitAoi) {
+                closeVisit();
+            }
+            if (aoi < 0) {
+                return;
+            }
+            fixations[aoi]++;
+            if (firstFixation[aoi] < 0) {
+                firstFixation[aoi] = event.startMs() - firstSampleMs;
+            }
+            if (visitAoi < 0) {
+                visitAoi = aoi;
+                visitStartMs = event.startMs();
+            }
+            visitEndMs = event.endMs();
+        }
+
+        private void closeVisit() {
+            if (visitAoi < 0) {
+                return;
+            }
+            visits[visitAoi]++;
+            dwell[visitAoi] += visitEndMs - visitStartMs;
+            if (previousVisitAoi >= 0) {
+                transitions[previousVisitAoi][visitAoi]++;
+            }
+            previousVisitAoi = visitAoi;
+            visitAoi = -1;
+        }
+
+        AoiMetrics finish() {
+            detector.flush();
+            closeVisit();
+            long duration = hasFirstSample ? lastSampleMs - firstSampleMs : 0L;
+            return new AoiMetrics(participant, firstFixation, dwell, visits, fixations, transitions,
+                    samples, duration);
+        }
+    }
+}
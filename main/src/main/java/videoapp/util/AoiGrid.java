@@ -0,0 +1,84 @@
+package videoapp.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid over the frame that narrows a point-in-AOI test to the few AOIs near the
+ * point. Each cell lists, in definition order, the AOIs whose bounding box touches it,
+ * and remembers which of them cover the whole cell so those need no exact test. A lookup
+ * therefore costs one cell index plus, typically, zero or one polygon tests, however many
+ * AOIs are defined.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class AoiGrid {
+    private static final int CELLS = 64;
+    private static final int[] NONE = new int[0];
+
+    private final Aoi[] aois;
+    private final int[][] candidates = new int[CELLS * CELLS][];
+    private final boolean[][] covers = new boolean[CELLS * CELLS][];
+
+    AoiGrid(List<Aoi> aois) {
+        this.aois = aois.toArray(new Aoi[0]);
+        int[] scratch = new int[this.aois.length];
+        boolean[] scratchCovers = new boolean[this.aois.length];
+        for (int row = 0; row < CELLS; row++) {
+            double y0 = row / (double) CELLS;
+            double y1 = (row + 1) / (double) CELLS;
+            for (int col = 0; col < CELLS; col++) {
+                double x0 = col / (double) CELLS;
+                double x1 = (col + 1) / (double) CELLS;
+                int count = 0;
+                for (int a = 0; a < this.aois.length; a++) {
+                    Aoi aoi = this.aois[a];
+                    if (aoi.maxX() < x0 || aoi.minX() > x1 || aoi.maxY() < y0 || aoi.minY() > y1) {
+                        continue;
+                    }
+                    scratch[count] = a;
+                    scratchCovers[count] = aoi.coversBox(x0, y0, x1, y1);
+                    count++;
+                    if (scratchCovers[count - 1]) {
+                        break;
+                    }
+                }
+                int cell = row * CELLS + col;
+                candidates[cell] = (count == 0) ? NONE : Arrays.copyOf(scratch, count);
+                covers[cell] = Arrays.copyOf(scratchCovers, count);
+            }
+        }
+    }
+
+    int size() {
+        return aois.length;
+    }
+
+    /**
+     * @return index of the first AOI, in definition order, containing the point, or -1.
+     *         Overlapping AOIs therefore resolve to the one listed first.
+     */
+    int locate(double x, double y) {
+        if (!(x >= 0.0 && x <= 1.0 && y >= 0.0 && y <= 1.0)) {
+            for (int a = 0; a < aois.length; a++) {
+                if (aois[a].contains(x, y)) {
+                    return a;
+                }
+            }
+            return -1;
+        }
+        int col = Math.max(0, Math.min(CELLS - 1, (int) Math.floor(x * CELLS)));
+        int row = Math.max(0, Math.min(CELLS - 1, (int) Math.floor(y * CELLS)));
+        int cell = row * CELLS + col;
+        int[] ids = candidates[cell];
+        boolean[] full = covers[cell];
+        for (int i = 0; i < ids.length; i++) {
+            if (full[i] || aois[ids[i]].contains(x, y)) {
+                return ids[i];
+            }
+        }
+        return -1;
+    }
+}
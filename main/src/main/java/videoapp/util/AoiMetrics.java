@@ -0,0 +1,36 @@
+package videoapp.util;
+
+/**
+ * AOI metrics of one participant, indexed like the AOI list they were computed for.
+ * <ul>
+ *     <li>{@code timeToFirstFixationMs}: from the first sample to the start of the first
+ *     fixation in the AOI, or -1 if there was none</li>
+ *     <li>{@code dwellMs}: summed visit durations, each from the start of a visit's first
+ *     fixation to the end of its last</li>
+ *     <li>{@code visits}: runs of consecutive fixations in the AOI</li>
+ *     <li>{@code transitions[from][to]}: consecutive visits from one AOI to another.
+ *     Fixations outside every AOI are skipped, so a return to the same AOI after looking
+ *     elsewhere counts on the diagonal.</li>
+ * </ul>
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record AoiMetrics(String participant,
+                         long[] timeToFirstFixationMs,
+                         long[] dwellMs,
+                         int[] visits,
+                         int[] fixations,
+                         int[][] transitions,
+                         long samples,
+                         long durationMs) {
+
+    public int aoiCount() {
+        return dwellMs.length;
+    }
+
+    public boolean fixated(int aoi) {
+        return timeToFirstFixationMs[aoi] >= 0;
+    }
+}
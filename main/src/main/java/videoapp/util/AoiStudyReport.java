@@ -0,0 +1,218 @@
+package videoapp.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * AOI metrics of every participant in a study, with per-AOI summaries and CSV and JSON
+ * export. CSV output is in long format, one row per participant and AOI (or AOI pair for
+ * transitions), so it loads directly into R or pandas.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record AoiStudyReport(List<Aoi> aois, List<AoiMetrics> participants) {
+
+    public AoiStudyReport {
+        aois = List.copyOf(aois);
+        participants = List.copyOf(participants);
+    }
+
+    /** Number of participants who fixated {@code aoi} at least once. */
+    public int participantsFixating(int aoi) {
+        int count = 0;
+        for (AoiMetrics m : participants) {
+            if (m.fixated(aoi)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Mean time to first fixation over the participants who fixated {@code aoi}, or NaN. */
+    public double meanTimeToFirstFixationMs(int aoi) {
+        long sum = 0L;
+        int count = 0;
+        for (AoiMetrics m : participants) {
+            if (m.fixated(aoi)) {
+                sum += m.timeToFirstFixationMs()[aoi];
+                count++;
+            }
+        }
+        return (count > 0) ? sum / (double) count : Double.NaN;
+    }
+
+    /** Mean dwell time over all participants, counting those who never looked as zero. */
+    public double meanDwellMs(int aoi) {
+        if (participants.isEmpty()) {
+            return Double.NaN;
+        }
+        long sum = 0L;
+        for (AoiMetrics m : participants) {
+            sum += m.dwellMs()[aoi];
+        }
+        return sum / (double) participants.size();
+    }
+
+    public double meanVisits(int aoi) {
+        if (participants.isEmpty()) {
+            return Double.NaN;
+        }
+        long sum = 0L;
+        for (AoiMetrics m : participants) {
+            sum += m.visits()[aoi];
+        }
+        return sum / (double) participants.size();
+    }
+
+    /** Transition counts summed over all participants. */
+    public long[][] totalTransitions() {
+        int n = aois.size();
+        long[][] total = new long[n][n];
+        for (AoiMetrics m : participants) {
+            for (int from = 0; from < n; from++) {
+                for (int to = 0; to < n; to++) {
+                    total[from][to] += m.transitions()[from][to];
+                }
+            }
+        }
+        return total;
+    }
+
+    /** Writes JSON when {@code file} ends in {@code .json}, otherwise the metrics CSV. */
+    public void save(File file) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            if (file.getName().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                writeJson(out);
+            } else {
+                writeMetricsCsv(out);
+            }
+        }
+    }
+
+    /** {@code participant,aoi,time_to_first_fixation_ms,dwell_ms,visits,fixations}; TTFF is empty if none. */
+    public void writeMetricsCsv(Writer out) throws IOException {
+        out.write("participant,aoi,time_to_first_fixation_ms,dwell_ms,visits,fixations\n");
+        for (AoiMetrics m : participants) {
+            for (int a = 0; a < aois.size(); a++) {
+                out.write(csv(m.participant()) + ',' + csv(aois.get(a).name()) + ','
+                        + (m.fixated(a) ? Long.toString(m.timeToFirstFixationMs()[a]) : "") + ','
+                        + m.dwellMs()[a] + ',' + m.visits()[a] + ',' + m.fixations()[a] + '\n');
+            }
+        }
+    }
+
+    /** {@code participant,from_aoi,to_aoi,count}, listing non-zero counts only. */
+    public void writeTransitionsCsv(Writer out) throws IOException {
+        out.write("participant,from_aoi,to_aoi,count\n");
+        for (AoiMetrics m : participants) {
+            for (int from = 0; from < aois.size(); from++) {
+                for (int to = 0; to < aois.size(); to++) {
+                    int count = m.transitions()[from][to];
+                    if (count > 0) {
+                        out.write(csv(m.participant()) + ',' + csv(aois.get(from).name()) + ','
+                                + csv(aois.get(to).name()) + ',' + count + '\n');
+                    }
+                }
+            }
+        }
+    }
+
+    /** One row per AOI with the group summaries. */
+    public void writeSummaryCsv(Writer out) throws IOException {
+        out.write("aoi,participants_fixating,mean_time_to_first_fixation_ms,mean_dwell_ms,mean_visits\n");
+        for (int a = 0; a < aois.size(); a++) {
+            out.write(csv(aois.get(a).name()) + ',' + participantsFixating(a) + ','
+                    + number(meanTimeToFirstFixationMs(a)) + ',' + number(meanDwellMs(a)) + ','
+                    + number(meanVisits(a)) + '\n');
+        }
+    }
+
+    /** Everything in one document: AOI names, group summary, and each participant's metrics. */
+    public void writeJson(Writer out) throws IOException {
+        out.write("{\n  \"aois\": [");
+        for (int a = 0; a < aois.size(); a++) {
+            out.write((a > 0 ? ", " : "") + json(aois.get(a).name()));
+        }
+        out.write("],\n  \"summary\": [");
+        for (int a = 0; a < aois.size(); a++) {
+            out.write((a > 0 ? "," : "") + "\n    {\"aoi\": " + json(aois.get(a).name())
+                    + ", \"participantsFixating\": " + participantsFixating(a)
+                    + ", \"meanTimeToFirstFixationMs\": " + jsonNumber(meanTimeToFirstFixationMs(a))
+                    + ", \"meanDwellMs\": " + jsonNumber(meanDwellMs(a))
+                    + ", \"meanVisits\": " + jsonNumber(meanVisits(a)) + "}");
+        }
+        out.write("\n  ],\n  \"participants\": [");
+        for (int p = 0; p < participants.size(); p++) {
+            AoiMetrics m = participants.get(p);
+            out.write((p > 0 ? "," : "") + "\n    {\"participant\": " + json(m.participant())
+                    + ", \"samples\": " + m.samples() + ", \"durationMs\": " + m.durationMs()
+                    + ",\n     \"timeToFirstFixationMs\": [");
+            for (int a = 0; a < aois.size(); a++) {
+                out.write((a > 0 ? ", " : "") + (m.fixated(a) ? Long.toString(m.timeToFirstFixationMs()[a]) : "null"));
+            }
+            out.write("],\n     \"dwellMs\": " + array(m.dwellMs())
+                    + ",\n     \"visits\": " + array(m.visits())
+                    + ",\n     \"fixations\": " + array(m.fixations())
+                    + ",\n     \"transitions\": [");
+            for (int from = 0; from < aois.size(); from++) {
+                out.write((from > 0 ? ", " : "") + array(m.transitions()[from]));
+            }
+            out.write("]}");
+        }
+        out.write("\n  ]\n}\n");
+    }
+
+    private static String array(long[] values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            sb.append(i > 0 ? ", " : "").append(values[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String array(int[] values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            sb.append(i > 0 ? ", " : "").append(values[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String jsonNumber(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,220 @@
+package videoapp.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link CsvRow} over raw UTF-8 bytes. A line is tokenised into field offsets only;
+ * numbers are parsed straight from the byte range of the fields that are actually
+ * requested, so ordinary rows allocate nothing. Fields with quotes or with number
+ * syntax outside the plain decimal form fall back to decoding a String and applying
+ * the {@link StringCsvRow} rules, which keeps results identical to the text loader.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class ByteCsvRow implements CsvRow {
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+
+    private ByteBuffer buf;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int count;
+    private double value;
+
+    /**
+     * Tokenises the line beginning at {@code from}, stopping at the first CR or LF before
+     * {@code limit}. Line breaks end the row even inside quotes, as with
+     * {@link java.io.BufferedReader#readLine()}.
+     *
+     * @return index of the terminator, or {@code limit} if none was found
+     */
+    int tokenize(ByteBuffer source, int from, int limit) {
+        this.buf = source;
+        count = 0;
+        int fieldStart = from;
+        boolean inQuotes = false;
+        boolean sawQuote = false;
+        int i = from;
+        for (; i < limit; i++) {
+            byte b = source.get(i);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            if (b == '"') {
+                sawQuote = true;
+                inQuotes = !inQuotes;
+            } else if (b == ',' && !inQuotes) {
+                addField(fieldStart, i, sawQuote);
+                fieldStart = i + 1;
+                sawQuote = false;
+            }
+        }
+        addField(fieldStart, i, sawQuote);
+        return i;
+    }
+
+    private void addField(int start, int end, boolean hasQuote) {
+        if (count == starts.length) {
+            int grown = count * 2;
+            starts = Arrays.copyOf(starts, grown);
+            ends = Arrays.copyOf(ends, grown);
+            quoted = Arrays.copyOf(quoted, grown);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        quoted[count] = hasQuote;
+        count++;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean parseNumber(int index) {
+        if (index < 0 || index >= count) {
+            return false;
+        }
+        if (quoted[index] || !parseDecimal(starts[index], ends[index])) {
+            return !isBlank(starts[index], ends[index]) && parseSlow(index);
+        }
+        return true;
+    }
+
+    /** Empty and whitespace-only fields are never numbers; saves the slow path for missing values. */
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ((buf.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double number() {
+        return value;
+    }
+
+    /**
+     * Decodes field {@code index} with the loader's unquoting rules. Used for headers and
+     * the rare fields the byte parser cannot handle itself.
+     */
+    String text(int index) {
+        int start = starts[index];
+        int len = ends[index] - start;
+        byte[] bytes = new byte[len];
+        buf.get(start, bytes, 0, len);
+        String raw = new String(bytes, StandardCharsets.UTF_8);
+        return quoted[index] ? StringCsvRow.split(raw)[0] : raw;
+    }
+
+    String[] texts() {
+        String[] out = new String[count];
+        for (int i = 0; i < count; i++) {
+            out[i] = text(i);
+        }
+        return out;
+    }
+
+    private boolean parseSlow(int index) {
+        try {
+            value = StringCsvRow.parse(text(index));
+            return true;
+        } catch (IllegalArgumentException ignore) {
+            return false;
+        }
+    }
+
+    /**
+     * Clinger's fast path: plain decimals whose mantissa fits in 53 bits and whose
+     * power of ten is exact give a correctly rounded result with one multiply or divide.
+     * Returns false (without deciding validity) for anything else.
+     */
+    private boolean parseDecimal(int from, int to) {
+        while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+        while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+        if (from == to) {
+            return false;
+        }
+        int i = from;
+        boolean negative = false;
+        byte b = buf.get(i);
+        if (b == '-' || b == '+') {
+            negative = (b == '-');
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        while (i < to && (b = buf.get(i)) >= '0' && b <= '9') {
+            anyDigit = true;
+            if (mantissa != 0 || b != '0') {
+                if (++digits > MAX_MANTISSA_DIGITS) return false;
+                mantissa = mantissa * 10 + (b - '0');
+            }
+            i++;
+        }
+        if (i < to && buf.get(i) == '.') {
+            i++;
+            while (i < to && (b = buf.get(i)) >= '0' && b <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    if (++digits > MAX_MANTISSA_DIGITS) return false;
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+                scale--;
+                i++;
+            }
+        }
+        if (!anyDigit) {
+            return false;
+        }
+        int exponent = 0;
+        if (i < to && ((b = buf.get(i)) == 'e' || b == 'E')) {
+            i++;
+            boolean negExp = false;
+            if (i < to && ((b = buf.get(i)) == '-' || b == '+')) {
+                negExp = (b == '-');
+                i++;
+            }
+            int expDigits = 0;
+            while (i < to && (b = buf.get(i)) >= '0' && b <= '9') {
+                if (++expDigits > 4) return false;
+                exponent = exponent * 10 + (b - '0');
+                i++;
+            }
+            if (expDigits == 0) {
+                return false;
+            }
+            if (negExp) {
+                exponent = -exponent;
+            }
+        }
+        if (i != to) {
+            return false;
+        }
+        if (mantissa == 0) {
+            value = negative ? -0.0 : 0.0;
+            return true;
+        }
+        int exp10 = scale + exponent;
+        if (mantissa > MAX_EXACT_MANTISSA || exp10 < -22 || exp10 > 22) {
+            return false;
+        }
+        double v = (exp10 < 0) ? mantissa / POW10[-exp10] : mantissa * POW10[exp10];
+        value = negative ? -v : v;
+        return true;
+    }
+}
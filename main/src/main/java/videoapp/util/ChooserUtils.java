@@ -38,7 +38,7 @@ public final class ChooserUtils {
     }
 
     public static void applyCsvFilter(JFileChooser chooser) {
-        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files (.csv, .csv.gz, .zip)", "csv", "gz", "zip"));
     }
 }
 
@@ -0,0 +1,218 @@
+package videoapp.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scans a large gaze CSV with several workers. The data section is cut into byte ranges
+ * that each start at a line boundary; since rows end at every CR/LF (quotes never span
+ * lines, exactly as with {@code readLine}) such ranges are also quote-safe.
+ * <p>
+ * Loading happens in two steps. A short probe first finds the file-wide first timestamps
+ * (normally on the first data row). Every chunk is then scanned in parallel with those
+ * timestamps preset, so rows are normalised against the file start. Finally the chunk
+ * results are stitched together in file order.
+ * <p>
+ * For a streaming load the calling thread scans the first chunk itself and publishes
+ * batches from it as it goes, exactly like a sequential scan, while the other chunks are
+ * parsed on the pool. Each later chunk is then published as it is stitched on, in file
+ * order. Overlays therefore appear as early as before, but after the first chunk they
+ * advance a chunk at a time rather than every few hundred milliseconds.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class ChunkedCsvScanner {
+    static final long MIN_CHUNK_BYTES = 8L << 20;
+    private static final int BOUNDARY_PROBE_BYTES = 64 * 1024;
+
+    private ChunkedCsvScanner() {}
+
+    static boolean worthSplitting(long fileBytes, int parallelism) {
+        return parallelism > 1 && fileBytes >= 2 * MIN_CHUNK_BYTES;
+    }
+
+    /**
+     * @param listener receives batches in file order, or {@code null} for a plain scan
+     * @return the stitched scanner, or {@code null} when the file has no header line
+     */
+    static OverlayScanner scan(File csv, int heatRows, int heatCols, int parallelism,
+                               CsvOverlayLoader.BatchListener listener)
+            throws IOException, InterruptedException {
+        return scan(csv, heatRows, heatCols, parallelism, listener, MIN_CHUNK_BYTES);
+    }
+
+    /** Like the above with chunks of at least {@code minChunkBytes}; small values force many chunk boundaries. */
+    static OverlayScanner scan(File csv, int heatRows, int heatCols, int parallelism,
+                               CsvOverlayLoader.BatchListener listener, long minChunkBytes)
+            throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            String[] header;
+            long dataStart;
+            try (MappedCsvReader headerReader = new MappedCsvReader(channel, 0L, size, false)) {
+                header = headerReader.readHeader();
+                dataStart = headerReader.position();
+            }
+            if (header == null) {
+                return null;
+            }
+            CsvSchema schema = CsvSchema.detect(header);
+            long[] bounds = splitRanges(channel, dataStart, size,
+                    (int) Math.max(1, Math.min(parallelism, (size - dataStart) / minChunkBytes)));
+            int chunks = bounds.length - 1;
+
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, chunks), r -> {
+                Thread t = new Thread(r, "csv-chunk-parser");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                OverlayScanner reference = probeFirstTimes(channel, schema, bounds, heatRows, heatCols, pool);
+                int pooled = (listener != null) ? 1 : 0;
+                List<Future<OverlayScanner>> parts = new ArrayList<>(chunks);
+                for (int i = pooled; i < chunks; i++) {
+                    long from = bounds[i];
+                    long to = bounds[i + 1];
+                    parts.add(pool.submit(() -> {
+                        OverlayScanner part = new OverlayScanner(schema, heatRows, heatCols);
+                        part.presetFirstTimes(reference);
+                        scanRange(channel, part, from, to, null);
+                        return part;
+                    }));
+                }
+                if (listener == null) {
+                    OverlayScanner stitched = parts.get(0).get();
+                    for (int i = 1; i < chunks; i++) {
+                        stitched.append(parts.get(i).get());
+                    }
+                    return stitched;
+                }
+                OverlayScanner stitched = new OverlayScanner(schema, heatRows, heatCols);
+                stitched.presetFirstTimes(reference);
+                OverlayBatchPublisher publisher = new OverlayBatchPublisher(stitched, listener);
+                scanRange(channel, stitched, bounds[0], bounds[1], publisher);
+                for (Future<OverlayScanner> part : parts) {
+                    stitched.append(part.get());
+                    publisher.flush();
+                }
+                publisher.flush();
+                return stitched;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("Chunked CSV scan failed", cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static void scanRange(FileChannel channel, OverlayScanner scanner, long from, long to,
+                                  OverlayBatchPublisher publisher) throws IOException {
+        try (MappedCsvReader reader = new MappedCsvReader(channel, from, to, false)) {
+            while (reader.next()) {
+                scanner.accept(reader.row());
+                if (publisher != null) {
+                    publisher.rowRead();
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the first timestamps of the whole file. The first chunk almost always
+     * settles this on its first row; other chunks are only probed, in parallel, when it
+     * does not, and the earliest chunk with a hit wins.
+     */
+    private static OverlayScanner probeFirstTimes(FileChannel channel, CsvSchema schema, long[] bounds,
+                                                  int heatRows, int heatCols, ExecutorService pool)
+            throws IOException, InterruptedException, ExecutionException {
+        OverlayScanner first = probeRange(channel, schema, bounds[0], bounds[1], heatRows, heatCols);
+        int chunks = bounds.length - 1;
+        if (first.probeComplete() || chunks == 1) {
+            return first;
+        }
+        List<Future<OverlayScanner>> probes = new ArrayList<>(chunks - 1);
+        for (int i = 1; i < chunks; i++) {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            probes.add(pool.submit(() -> probeRange(channel, schema, from, to, heatRows, heatCols)));
+        }
+        for (Future<OverlayScanner> probe : probes) {
+            first.presetFirstTimes(probe.get());
+        }
+        return first;
+    }
+
+    private static OverlayScanner probeRange(FileChannel channel, CsvSchema schema, long from, long to,
+                                             int heatRows, int heatCols) throws IOException {
+        OverlayScanner probe = new OverlayScanner(schema, heatRows, heatCols);
+        if (probe.probeComplete()) {
+            return probe;
+        }
+        try (MappedCsvReader reader = new MappedCsvReader(channel, from, to, false)) {
+            while (reader.next()) {
+                if (probe.probe(reader.row())) {
+                    break;
+                }
+            }
+        }
+        return probe;
+    }
+
+    /**
+     * Cuts {@code [start, end)} into about {@code parts} ranges, moving each cut forward to
+     * just past the next CR or LF so every range begins at a line start.
+     */
+    static long[] splitRanges(FileChannel channel, long start, long end, int parts) throws IOException {
+        List<Long> cuts = new ArrayList<>();
+        cuts.add(start);
+        long span = end - start;
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_BYTES);
+        for (int i = 1; i < parts; i++) {
+            long target = start + (span * i) / parts;
+            long cut = nextLineStart(channel, Math.max(target, cuts.get(cuts.size() - 1)), end, probe);
+            if (cut > cuts.get(cuts.size() - 1) && cut < end) {
+                cuts.add(cut);
+            }
+        }
+        cuts.add(end);
+        long[] bounds = new long[cuts.size()];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = cuts.get(i);
+        }
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long end, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (pos < end) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) {
+                return end;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = probe.get(i);
+                if (b == '\n' || b == '\r') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,48 @@
+package videoapp.util;
+
+/**
+ * Linear mapping from video time to the time of a recording made on another clock: the
+ * recording time shown at video time {@code t} is {@code scale * t + offsetMs}. A scale
+ * other than one corrects for the two clocks running at slightly different rates, which
+ * over an hour-long session adds up to a visible lag. With a scale of exactly one the
+ * mapping is a plain offset and gives the same times as adding {@code offsetMs}.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record ClockMapping(double scale, long offsetMs) {
+    public static final ClockMapping IDENTITY = new ClockMapping(1.0, 0L);
+
+    /** @throws IllegalArgumentException if {@code scale} is not a positive finite number */
+    public ClockMapping {
+        if (!(scale > 0) || !Double.isFinite(scale)) {
+            throw new IllegalArgumentException("scale must be positive and finite: " + scale);
+        }
+    }
+
+    /** A mapping that only shifts by {@code offsetMs}. */
+    public static ClockMapping offset(long offsetMs) {
+        return new ClockMapping(1.0, offsetMs);
+    }
+
+    /** The same rate with the recording shifted to {@code offsetMs} at video time zero. */
+    public ClockMapping withOffset(long offsetMs) {
+        return new ClockMapping(scale, offsetMs);
+    }
+
+    /** Recording time shown at {@code videoMs}. */
+    public long recordingMs(long videoMs) {
+        return Math.round(videoMs * scale) + offsetMs;
+    }
+
+    /** Video time at which recording time {@code recordingMs} is shown. */
+    public long videoMs(long recordingMs) {
+        return Math.round((recordingMs - offsetMs) / scale);
+    }
+
+    /** How much faster the recording clock runs, in parts per million. */
+    public double driftPpm() {
+        return (scale - 1.0) * 1e6;
+    }
+}
@@ -0,0 +1,78 @@
+package videoapp.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens gaze CSVs that may be gzip- or zip-compressed. The format is recognised from the
+ * file's leading magic bytes rather than its name. Compressed input is inflated on a
+ * separate thread while the caller parses, and never written to disk. Zip archives yield
+ * their first {@code .csv} entry.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class CompressedCsv {
+    enum Format {PLAIN, GZIP, ZIP}
+
+    private static final int INFLATE_BUFFER_BYTES = 1 << 16;
+
+    private CompressedCsv() {}
+
+    static Format detect(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            int b0 = raf.read();
+            int b1 = raf.read();
+            if (b0 == 0x1F && b1 == 0x8B) {
+                return Format.GZIP;
+            }
+            if (b0 == 'P' && b1 == 'K' && raf.read() == 3 && raf.read() == 4) {
+                return Format.ZIP;
+            }
+        } catch (IOException ignore) {
+        }
+        return Format.PLAIN;
+    }
+
+    static boolean isCompressed(File file) {
+        return detect(file) != Format.PLAIN;
+    }
+
+    /** Opens {@code file} for reading, decompressing it on the fly when needed. */
+    static InputStream open(File file) throws IOException {
+        Format format = detect(file);
+        InputStream raw = new FileInputStream(file);
+        try {
+            return switch (format) {
+                case PLAIN -> raw;
+                case GZIP -> new PipelinedInputStream(
+                        new GZIPInputStream(raw, INFLATE_BUFFER_BYTES), "csv-decompressor");
+                case ZIP -> new PipelinedInputStream(openZipEntry(raw), "csv-decompressor");
+            };
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    private static InputStream openZipEntry(InputStream raw) throws IOException {
+        ZipInputStream zip = new ZipInputStream(new BufferedInputStream(raw, INFLATE_BUFFER_BYTES));
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                return zip;
+            }
+        }
+        zip.close();
+        throw new IOException("No CSV entry in archive");
+    }
+}
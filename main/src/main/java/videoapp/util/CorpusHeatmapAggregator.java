@@ -0,0 +1,301 @@
+package videoapp.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds a group heatmap from a folder or manifest of participant CSVs.
+ * Files are parsed in parallel on a bounded pool; each worker streams rows straight into
+ * a reusable per-file grid and folds it into its own accumulator, so memory depends on
+ * the pool size and grid size only, never on the number of files. The worker
+ * accumulators are combined with a fork/join reduction at the end.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class CorpusHeatmapAggregator {
+    private final CsvOverlayLoader loader;
+    private final int parallelism;
+
+    public CorpusHeatmapAggregator(CsvOverlayLoader loader) {
+        this(loader, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CorpusHeatmapAggregator(CsvOverlayLoader loader, int parallelism) {
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Accepts either a directory (all {@code *.csv}, {@code *.csv.gz} and {@code *.zip}
+     * files inside it) or a manifest text file listing one CSV path per line.
+     */
+    public static List<File> resolveInputs(File folderOrManifest) throws IOException {
+        if (folderOrManifest == null) {
+            return List.of();
+        }
+        if (folderOrManifest.isDirectory()) {
+            return listCsvFiles(folderOrManifest);
+        }
+        return readManifest(folderOrManifest);
+    }
+
+    public static List<File> listCsvFiles(File folder) {
+        File[] files = (folder != null)
+                ? folder.listFiles(f -> f.isFile() && isCsvName(f.getName()))
+                : null;
+        if (files == null) {
+            return List.of();
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return List.of(files);
+    }
+
+    private static boolean isCsvName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".csv") || lower.endsWith(".csv.gz") || lower.endsWith(".zip");
+    }
+
+    /**
+     * Reads a manifest with one CSV path per line. Blank lines and lines starting with
+     * {@code #} are ignored; relative paths resolve against the manifest's directory.
+     */
+    public static List<File> readManifest(File manifest) throws IOException {
+        List<File> files = new ArrayList<>();
+        File baseDir = manifest.getAbsoluteFile().getParentFile();
+        try (BufferedReader br = new BufferedReader(new FileReader(manifest, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String entry = line.trim();
+                if (entry.isEmpty() || entry.startsWith("#")) {
+                    continue;
+                }
+                File f = new File(entry);
+                if (!f.isAbsolute()) {
+                    f = new File(baseDir, entry);
+                }
+                if (f.isFile()) {
+                    files.add(f);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Aggregates all readable CSVs into one grid.
+     *
+     * @param normalizePerParticipant when true each participant contributes a total weight
+     *                                of 1 regardless of how many samples their file holds
+     */
+    public GroupHeatmap aggregate(List<File> csvFiles, int rows, int cols, boolean normalizePerParticipant)
+            throws InterruptedException {
+        int safeRows = Math.max(1, rows);
+        int safeCols = Math.max(1, cols);
+        List<File> files = (csvFiles != null) ? List.copyOf(csvFiles) : List.of();
+        if (files.isEmpty()) {
+            return new GroupHeatmap(safeRows, safeCols, new double[safeRows * safeCols], 0, 0L, normalizePerParticipant);
+        }
+
+        int workers = Math.min(parallelism, files.size());
+        AtomicInteger nextFile = new AtomicInteger();
+        ExecutorService pool = newPool(workers);
+        try {
+            List<Future<WorkerGrid>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> drainFiles(files, nextFile, safeRows, safeCols, normalizePerParticipant)));
+            }
+            WorkerGrid[] partials = new WorkerGrid[workers];
+            for (int i = 0; i < workers; i++) {
+                partials[i] = futures.get(i).get();
+            }
+            WorkerGrid merged = ForkJoinPool.commonPool().invoke(new MergeTask(partials, 0, partials.length));
+            return new GroupHeatmap(safeRows, safeCols, merged.sums, merged.participants, merged.samples,
+                    normalizePerParticipant);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Heatmap aggregation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Normalized grids (each summing to 1) of the participants that have gaze samples, in
+     * the order of the files they came from.
+     */
+    public record ParticipantGrids(List<File> files, double[][] grids) {
+        /** Index of {@code file} among the participants, or -1 if it was left out. */
+        public int indexOf(File file) {
+            return files.indexOf(file);
+        }
+    }
+
+    /**
+     * Loads one normalized grid per participant for statistical comparisons that need the
+     * individual distributions. Files without valid points are left out, as they would
+     * otherwise pull the group mean and variance towards zero.
+     */
+    public ParticipantGrids participantGrids(List<File> csvFiles, int rows, int cols) throws InterruptedException {
+        int safeRows = Math.max(1, rows);
+        int safeCols = Math.max(1, cols);
+        List<File> files = (csvFiles != null) ? List.copyOf(csvFiles) : List.of();
+        double[][] grids = new double[files.size()][];
+        if (files.isEmpty()) {
+            return new ParticipantGrids(List.of(), grids);
+        }
+        AtomicInteger nextFile = new AtomicInteger();
+        int workers = Math.min(parallelism, files.size());
+        ExecutorService pool = newPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    int[] fileCounts = new int[safeRows * safeCols];
+                    int idx;
+                    while ((idx = nextFile.getAndIncrement()) < files.size()) {
+                        grids[idx] = normalizedGrid(files.get(idx), fileCounts, safeRows, safeCols);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            List<File> kept = new ArrayList<>(files.size());
+            List<double[]> keptGrids = new ArrayList<>(files.size());
+            for (int i = 0; i < grids.length; i++) {
+                if (grids[i] != null) {
+                    kept.add(files.get(i));
+                    keptGrids.add(grids[i]);
+                }
+            }
+            return new ParticipantGrids(List.copyOf(kept), keptGrids.toArray(new double[0][]));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Heatmap aggregation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** The grid of {@code csv} scaled to sum to 1, or null if it has no valid points. */
+    private double[] normalizedGrid(File csv, int[] fileCounts, int rows, int cols) {
+        Arrays.fill(fileCounts, 0);
+        int samples = accumulate(csv, fileCounts, rows, cols);
+        if (samples <= 0) {
+            return null;
+        }
+        double[] grid = new double[fileCounts.length];
+        double weight = 1.0 / samples;
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = fileCounts[i] * weight;
+        }
+        return grid;
+    }
+
+    private int accumulate(File csv, int[] counts, int rows, int cols) {
+        return loader.forEachPoint(csv, (x, y) -> {
+            int col = clamp((int) Math.floor(x * cols), cols);
+            int row = clamp((int) Math.floor((1.0 - y) * rows), rows);
+            counts[row * cols + col]++;
+        });
+    }
+
+    private WorkerGrid drainFiles(List<File> files, AtomicInteger nextFile,
+                                  int rows, int cols, boolean normalize) {
+        WorkerGrid acc = new WorkerGrid(rows * cols);
+        int[] fileCounts = new int[rows * cols];
+        int idx;
+        while ((idx = nextFile.getAndIncrement()) < files.size()) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            Arrays.fill(fileCounts, 0);
+            int samples = accumulate(files.get(idx), fileCounts, rows, cols);
+            if (samples <= 0) {
+                continue;
+            }
+            double weight = normalize ? 1.0 / samples : 1.0;
+            double[] sums = acc.sums;
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += fileCounts[i] * weight;
+            }
+            acc.participants++;
+            acc.samples += samples;
+        }
+        return acc;
+    }
+
+    private static ExecutorService newPool(int workers) {
+        return Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "heatmap-aggregator");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static int clamp(int value, int bound) {
+        if (value < 0) return 0;
+        if (value >= bound) return bound - 1;
+        return value;
+    }
+
+    private static final class WorkerGrid {
+        final double[] sums;
+        int participants;
+        long samples;
+
+        WorkerGrid(int cells) {
+            this.sums = new double[cells];
+        }
+
+        void add(WorkerGrid other) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other.sums[i];
+            }
+            participants += other.participants;
+            samples += other.samples;
+        }
+    }
+
+    private static final class MergeTask extends RecursiveTask<WorkerGrid> {
+        private final WorkerGrid[] parts;
+        private final int from;
+        private final int to;
+
+        MergeTask(WorkerGrid[] parts, int from, int to) {
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected WorkerGrid compute() {
+            if (to - from == 1) {
+                return parts[from];
+            }
+            int mid = (from + to) >>> 1;
+            MergeTask left = new MergeTask(parts, from, mid);
+            left.fork();
+            WorkerGrid right = new MergeTask(parts, mid, to).compute();
+            WorkerGrid merged = left.join();
+            merged.add(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package videoapp.util;
+
+/**
+ * Counters collected while scanning a gaze CSV.
+ *
+ * @param rows        non-empty data rows read (header excluded)
+ * @param points      rows that produced an overlay point
+ * @param skippedRows rows rejected for missing or invalid values
+ * @param bytes       size of the source file
+ * @param elapsedMs   wall-clock time spent loading
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record CsvLoadStats(long rows, long points, long skippedRows, long bytes, long elapsedMs) {
+    public static CsvLoadStats empty() {
+        return new CsvLoadStats(0L, 0L, 0L, 0L, 0L);
+    }
+}
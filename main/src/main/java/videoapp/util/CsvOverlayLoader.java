@@ -5,13 +5,12 @@ import videoapp.ui.TimedOverlayPoint;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.InputStreamReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Loads overlay points from CSV files while keeping parsing logic isolated from UI concerns.
@@ -22,39 +21,281 @@ import java.util.Locale;
  */
 
 public class CsvOverlayLoader {
+    private static final int TEXT_PROBE_ROWS = 1000;
+
+    private final int parallelism;
+    private final OverlayScanCache cache;
+
+    public CsvOverlayLoader() {
+        this(Runtime.getRuntime().availableProcessors(), ProjectPaths.overlayCacheDir());
+    }
+
+    /**
+     * @param parallelism maximum number of worker threads used to parse one large file
+     */
+    public CsvOverlayLoader(int parallelism) {
+        this(parallelism, ProjectPaths.overlayCacheDir());
+    }
+
+    /**
+     * @param parallelism maximum number of worker threads used to parse one large file
+     * @param cacheDir    directory for binary scan caches, or {@code null} to always parse
+     */
+    public CsvOverlayLoader(int parallelism, File cacheDir) {
+        this.parallelism = Math.max(1, parallelism);
+        this.cache = (cacheDir != null) ? new OverlayScanCache(cacheDir) : null;
+    }
+
+    /**
+     * Receives normalized coordinates one row at a time so callers can fold points into
+     * their own structures without the loader materialising a list.
+     */
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(double xNorm, double yNorm);
+    }
+
+    /**
+     * Receives timed samples one row at a time, with times in milliseconds relative to the
+     * file's first timestamp.
+     */
+    @FunctionalInterface
+    public interface TimedPointConsumer {
+        void accept(long timeMs, double xNorm, double yNorm);
+    }
+
+    /**
+     * Receives the batches of a streaming {@link #scan(File, int, int, BatchListener)} on the
+     * loading thread, in time order.
+     */
+    @FunctionalInterface
+    public interface BatchListener {
+        void onBatch(OverlayBatch batch);
+    }
 
     public List<OverlayPoint> load(File csv) {
         List<OverlayPoint> points = new ArrayList<>();
-        if (!isReadable(csv)) {
-            return points;
+        forEachPoint(csv, (x, y) -> points.add(new OverlayPoint(x, y)));
+        return points;
+    }
+
+    /**
+     * Streams every valid normalized point in {@code csv} to {@code consumer} using the same
+     * column rules as {@link #load(File)}.
+     *
+     * @return number of points delivered
+     */
+    public int forEachPoint(File csv, PointConsumer consumer) {
+        int delivered = 0;
+        if (!isReadable(csv) || consumer == null) {
+            return delivered;
         }
 
         try (BufferedReader br = reader(csv)) {
             String[] header = readHeader(br);
             if (header == null) {
-                return points;
+                return delivered;
             }
 
-            OverlayColumns columns = detectOverlayColumns(header, false);
+            CsvSchema schema = CsvSchema.detect(header);
             String line;
             while ((line = br.readLine()) != null) {
                 if (line.isEmpty()) {
                     continue;
                 }
-                String[] parts = splitCsv(line);
-                double[] xy = extractCoordinates(parts, columns);
+                String[] parts = StringCsvRow.split(line);
+                double[] xy = extractCoordinates(parts, schema, -1);
                 if (xy == null) {
                     continue;
                 }
                 double x = xy[0];
                 double y = xy[1];
-                if (isValidNorm(x) && isValidNorm(y)) {
-                    points.add(new OverlayPoint(x, y));
+                if (CsvSchema.isValidNorm(x) && CsvSchema.isValidNorm(y)) {
+                    consumer.accept(x, y);
+                    delivered++;
                 }
             }
         } catch (Exception ignore) {
         }
-        return points;
+        return delivered;
+    }
+
+    /**
+     * Streams the timed points of {@code csv} to {@code consumer} in file order, using the
+     * same row rules as {@link #scan}, without keeping them. Plain files are read through
+     * a memory map and compressed ones are inflated on the fly, so any number of files can
+     * be processed this way with constant memory each.
+     *
+     * @return number of points delivered; 0 if the file has no time column
+     */
+    public long forEachTimedPoint(File csv, TimedPointConsumer consumer) {
+        if (!isReadable(csv) || consumer == null) {
+            return 0L;
+        }
+        CsvRowReader rows = openRowsOrStream(csv);
+        return (rows != null) ? forEachTimedRow(rows, consumer) : 0L;
+    }
+
+    /**
+     * Loads every numeric column of {@code csv} other than time, gaze coordinates and
+     * frame bookkeeping, such as emotion scores or valence, as {@link SignalChannel}s
+     * sharing one time array. Rows follow the timed-point rules: times relative to the
+     * first timestamp, and rows out of time order are dropped. A cell that is empty or not
+     * a number becomes NaN. Columns without a number in the first
+     * {@value #TEXT_PROBE_ROWS} rows are taken to be text and left out.
+     *
+     * @return the channels in column order; empty if the file has no time column
+     */
+    public List<SignalChannel> loadChannels(File csv) {
+        CsvRowReader rows = isReadable(csv) ? openRowsOrStream(csv) : null;
+        if (rows == null) {
+            return List.of();
+        }
+        try (CsvRowReader reader = rows) {
+            String[] header = reader.readHeader();
+            CsvSchema schema = (header != null) ? CsvSchema.detect(header) : null;
+            if (schema == null || !schema.hasTime()) {
+                return List.of();
+            }
+            int[] columns = channelColumns(header, schema);
+            if (columns.length == 0) {
+                return List.of();
+            }
+            int timeIdx = schema.timeIdx();
+            long[] times = new long[1024];
+            float[][] values = new float[columns.length][times.length];
+            int[] known = new int[columns.length];
+            int n = 0;
+            boolean hasFirstTime = false;
+            double firstTimeSec = 0.0;
+            long lastMs = Long.MIN_VALUE;
+            while (reader.next()) {
+                CsvRow row = reader.row();
+                if (timeIdx >= row.size() || !row.parseNumber(timeIdx)) {
+                    continue;
+                }
+                double tSec = row.number();
+                if (!hasFirstTime) {
+                    hasFirstTime = true;
+                    firstTimeSec = tSec;
+                }
+                double relSec = tSec - firstTimeSec;
+                if (!Double.isFinite(relSec) || relSec < -3600 || relSec > 1e8) {
+                    continue;
+                }
+                long timeMs = Math.round(relSec * 1000.0);
+                if (timeMs < lastMs) {
+                    continue;
+                }
+                lastMs = timeMs;
+                if (n == times.length) {
+                    int grown = n + (n >> 1);
+                    times = Arrays.copyOf(times, grown);
+                    for (int c = 0; c < columns.length; c++) {
+                        values[c] = Arrays.copyOf(values[c], grown);
+                    }
+                }
+                times[n] = timeMs;
+                for (int c = 0; c < columns.length; c++) {
+                    int column = columns[c];
+                    if (column < row.size() && row.parseNumber(column)) {
+                        values[c][n] = (float) row.number();
+                        known[c]++;
+                    } else {
+                        values[c][n] = Float.NaN;
+                    }
+                }
+                n++;
+                if (n == TEXT_PROBE_ROWS) {
+                    columns = dropTextColumns(columns, known, values);
+                    known = Arrays.copyOf(known, columns.length);
+                    if (columns.length == 0) {
+                        return List.of();
+                    }
+                }
+            }
+            long[] sharedTimes = Arrays.copyOf(times, n);
+            List<SignalChannel> channels = new ArrayList<>();
+            for (int c = 0; c < columns.length; c++) {
+                if (known[c] > 0) {
+                    channels.add(new SignalChannel(header[columns[c]].trim(), sharedTimes,
+                            Arrays.copyOf(values[c], n), n));
+                }
+            }
+            return channels;
+        } catch (IOException ignore) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Removes the columns that had no number in the first {@value #TEXT_PROBE_ROWS} rows,
+     * such as labels, so the rest of the file does not pay for failed parses. The value
+     * arrays are compacted in place to match.
+     */
+    private static int[] dropTextColumns(int[] columns, int[] known, float[][] values) {
+        int kept = 0;
+        for (int c = 0; c < columns.length; c++) {
+            if (known[c] > 0) {
+                columns[kept] = columns[c];
+                known[kept] = known[c];
+                values[kept] = values[c];
+                kept++;
+            }
+        }
+        return Arrays.copyOf(columns, kept);
+    }
+
+    /** Header indices that are neither time, gaze nor frame columns. */
+    private static int[] channelColumns(String[] header, CsvSchema schema) {
+        int[] columns = new int[header.length];
+        int count = 0;
+        for (int i = 0; i < header.length; i++) {
+            boolean reserved = i == schema.xIdx() || i == schema.yIdx() || i == schema.frameIdx()
+                    || i == schema.durationIdx() || CsvSchema.isTimeName(header[i]);
+            if (!reserved && !header[i].isBlank()) {
+                columns[count++] = i;
+            }
+        }
+        return Arrays.copyOf(columns, count);
+    }
+
+    private long forEachTimedRow(CsvRowReader rows, TimedPointConsumer consumer) {
+        long delivered = 0L;
+        try (CsvRowReader reader = rows) {
+            String[] header = reader.readHeader();
+            CsvSchema schema = (header != null) ? CsvSchema.detect(header) : null;
+            if (schema == null || !schema.hasTime()) {
+                return 0L;
+            }
+            int timeIdx = schema.timeIdx();
+            double[] xy = new double[2];
+            boolean hasFirstTime = false;
+            double firstTimeSec = 0.0;
+            while (reader.next()) {
+                CsvRow row = reader.row();
+                if (timeIdx >= row.size() || !row.parseNumber(timeIdx)) {
+                    continue;
+                }
+                double tSec = row.number();
+                if (!hasFirstTime) {
+                    hasFirstTime = true;
+                    firstTimeSec = tSec;
+                }
+                double relSec = tSec - firstTimeSec;
+                if (!Double.isFinite(relSec) || relSec < -3600 || relSec > 1e8) {
+                    continue;
+                }
+                if (!schema.readCoordinates(row, timeIdx, xy)
+                        || !CsvSchema.isValidNorm(xy[0]) || !CsvSchema.isValidNorm(xy[1])) {
+                    continue;
+                }
+                consumer.accept(Math.round(relSec * 1000.0), xy[0], xy[1]);
+                delivered++;
+            }
+        } catch (IOException ignore) {
+        }
+        return delivered;
     }
 
     public List<TimedOverlayPoint> loadTimed(File csv) {
@@ -69,8 +310,8 @@ public class CsvOverlayLoader {
                 return points;
             }
 
-            OverlayColumns columns = detectOverlayColumns(header, true);
-            if (!columns.hasTime()) {
+            CsvSchema schema = CsvSchema.detect(header);
+            if (!schema.hasTime()) {
                 return points;
             }
 
@@ -80,12 +321,12 @@ public class CsvOverlayLoader {
                 if (line.isEmpty()) {
                     continue;
                 }
-                String[] parts = splitCsv(line);
-                if (columns.timeIdx() >= parts.length) {
+                String[] parts = StringCsvRow.split(line);
+                if (schema.timeIdx() >= parts.length) {
                     continue;
                 }
                 try {
-                    double tSec = parse(parts[columns.timeIdx()]);
+                    double tSec = StringCsvRow.parse(parts[schema.timeIdx()]);
                     if (firstTimeSec == null) {
                         firstTimeSec = tSec;
                     }
@@ -94,13 +335,13 @@ public class CsvOverlayLoader {
                         continue;
                     }
 
-                    double[] xy = extractCoordinates(parts, columns);
+                    double[] xy = extractCoordinates(parts, schema, schema.timeIdx());
                     if (xy == null) {
                         continue;
                     }
                     double x = xy[0];
                     double y = xy[1];
-                    if (!isValidNorm(x) || !isValidNorm(y)) {
+                    if (!CsvSchema.isValidNorm(x) || !CsvSchema.isValidNorm(y)) {
                         continue;
                     }
                     long ms = Math.round(relSec * 1000.0);
@@ -113,7 +354,33 @@ public class CsvOverlayLoader {
         return points;
     }
 
+    /**
+     * Overlay offset suggested by the frame-index column of {@code csv}, assuming the
+     * tracker and video clocks run at the same rate.
+     *
+     * @return the offset, or null if the file has no usable frame-index samples or
+     *         {@code fps} is unusable
+     * @see FrameOffsetSamples#suggestOffset
+     */
     public Long suggestOffsetFromFrameIndex(File csv, double fps) {
+        FrameOffsetSamples samples = frameOffsetSamples(csv, fps);
+        return (samples != null) ? samples.suggestOffset(fps) : null;
+    }
+
+    /**
+     * Offset and clock drift fitted to the frame-index column of every row of
+     * {@code csv}.
+     *
+     * @return the mapping, or null if the file has no usable frame-index samples or
+     *         {@code fps} is unusable
+     * @see FrameOffsetSamples#fitClock
+     */
+    public ClockMapping fitClockFromFrameIndex(File csv, double fps) {
+        FrameOffsetSamples samples = frameOffsetSamples(csv, fps);
+        return (samples != null) ? samples.fitClock(fps) : null;
+    }
+
+    private FrameOffsetSamples frameOffsetSamples(File csv, double fps) {
         if (!isReadable(csv) || !(fps > 0 && Double.isFinite(fps))) {
             return null;
         }
@@ -124,25 +391,24 @@ public class CsvOverlayLoader {
                 return null;
             }
 
-            FrameColumns columns = detectFrameColumns(header);
-            if (!columns.valid()) {
+            CsvSchema schema = CsvSchema.detect(header);
+            if (!schema.hasFrameIndex()) {
                 return null;
             }
 
-            List<Long> offsets = new ArrayList<>();
+            FrameOffsetSamples.Builder samples = new FrameOffsetSamples.Builder();
             String line;
             Double firstTimeSec = null;
-            int rows = 0;
-            while ((line = br.readLine()) != null && rows < 500) {
+            while ((line = br.readLine()) != null) {
                 if (line.isEmpty()) {
                     continue;
                 }
-                String[] parts = splitCsv(line);
-                if (!columns.inBounds(parts.length)) {
+                String[] parts = StringCsvRow.split(line);
+                if (!schema.frameColumnsInBounds(parts.length)) {
                     continue;
                 }
                 try {
-                    double tSec = parse(parts[columns.timeIdx()]);
+                    double tSec = StringCsvRow.parse(parts[schema.frameTimeIdx()]);
                     if (firstTimeSec == null) {
                         firstTimeSec = tSec;
                     }
@@ -151,187 +417,249 @@ public class CsvOverlayLoader {
                         continue;
                     }
                     long csvMs = Math.round(relSec * 1000.0);
-                    csvMs += columns.durationAdjustment(parts);
-                    long frameIndex = Math.round(parse(parts[columns.frameIdx()]));
-                    long expectedMs = Math.round((frameIndex * 1000.0) / fps);
-                    offsets.add(expectedMs - csvMs);
-                    rows++;
+                    csvMs += durationAdjustment(parts, schema.durationIdx());
+                    long frameIndex = Math.round(StringCsvRow.parse(parts[schema.frameIdx()]));
+                    samples.add(frameIndex, csvMs);
                 } catch (Exception ignore) {
                 }
             }
 
-            if (offsets.isEmpty()) {
-                return null;
-            }
-            Collections.sort(offsets);
-            return offsets.get(offsets.size() / 2);
+            FrameOffsetSamples built = samples.build();
+            return (built.size() > 0) ? built : null;
         } catch (Exception ignore) {
             return null;
         }
     }
 
-    private boolean isReadable(File csv) {
-        return csv != null && csv.isFile();
+    /**
+     * Reads {@code csv} once and returns everything the overlay pipeline needs: the timed
+     * points (or static points when the file has no usable time column), the heatmap grid,
+     * frame-index samples for offset estimation and load statistics. Equivalent to calling
+     * {@link #loadTimed}, {@link #load} and {@link #suggestOffsetFromFrameIndex} in turn,
+     * without reopening the file. The file is read through a memory map and tokenised as
+     * bytes, split into line-aligned chunks parsed in parallel once it is large enough;
+     * the text reader is only used if the file cannot be mapped. Gzip and zip files are
+     * inflated on a separate thread and tokenised from the stream. Results for larger files
+     * are kept in a binary cache and reused while the CSV is unchanged.
+     */
+    public CsvOverlayScan scan(File csv, int heatRows, int heatCols) {
+        return scan(csv, heatRows, heatCols, null);
     }
 
-    private BufferedReader reader(File csv) throws IOException {
-        return new BufferedReader(new FileReader(csv, StandardCharsets.UTF_8));
-    }
+    /**
+     * Like {@link #scan(File, int, int)}, but also hands points to {@code listener} in
+     * time-ordered batches while the file is still being read, so overlays can be shown
+     * before a large file has been parsed completely. A file large enough to split is still
+     * parsed in parallel; see {@link ChunkedCsvScanner} for how its batches arrive. A cache
+     * hit returns at once without any batches.
+     *
+     * @param listener receives progress batches, or {@code null} for a plain scan
+     */
+    public CsvOverlayScan scan(File csv, int heatRows, int heatCols, BatchListener listener) {
+        long start = System.nanoTime();
+        if (!isReadable(csv)) {
+            return CsvOverlayScan.empty(heatRows, heatCols);
+        }
 
-    private String[] readHeader(BufferedReader br) throws IOException {
-        String header = br.readLine();
-        return (header == null) ? null : splitCsv(header);
-    }
+        OverlayScanCache.Key key = (cache != null) ? cache.keyFor(csv) : null;
+        CsvOverlayScan cached = (key != null) ? cache.read(key, heatRows, heatCols, start) : null;
+        if (cached != null) {
+            return cached;
+        }
 
-    private OverlayColumns detectOverlayColumns(String[] cols, boolean includeTime) {
-        int xIdx = -1;
-        int yIdx = -1;
-        int timeIdx = -1;
-        for (int i = 0; i < cols.length; i++) {
-            String name = cols[i];
-            if (isXName(name)) {
-                xIdx = i;
-            } else if (isYName(name)) {
-                yIdx = i;
-            } else if (includeTime && timeIdx < 0 && isTimeName(name)) {
-                timeIdx = i;
+        OverlayScanner scanner;
+        try {
+            if (!CompressedCsv.isCompressed(csv) && ChunkedCsvScanner.worthSplitting(csv.length(), parallelism)) {
+                scanner = ChunkedCsvScanner.scan(csv, heatRows, heatCols, parallelism, listener);
+            } else {
+                scanner = scanRows(openRows(csv), heatRows, heatCols, listener);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CsvOverlayScan.empty(heatRows, heatCols);
+        } catch (IOException | UnsupportedOperationException mapFailed) {
+            scanner = scanText(csv, heatRows, heatCols, listener);
         }
-        return new OverlayColumns(xIdx, yIdx, includeTime ? timeIdx : -1);
+        if (scanner == null) {
+            return CsvOverlayScan.empty(heatRows, heatCols);
+        }
+        CsvOverlayScan result = scanner.finish(csv.length(), System.nanoTime() - start);
+        if (key != null && key.stillMatches(csv)) {
+            cache.writeLater(key, scanner.schema(), result);
+        }
+        return result;
     }
 
-    private FrameColumns detectFrameColumns(String[] cols) {
-        int frameIdx = -1;
-        int timeIdx = -1;
-        int durationIdx = -1;
-        for (int i = 0; i < cols.length; i++) {
-            String name = cols[i].trim().toLowerCase(Locale.ROOT);
-            if (frameIdx < 0 && (name.equals("start_frame_index") || name.equals("frame") ||
-                    name.equals("start_frame") || name.equals("frame_index"))) {
-                frameIdx = i;
-            } else if (durationIdx < 0 && (name.equals("duration") || name.equals("duration_ms"))) {
-                durationIdx = i;
-            } else if (timeIdx < 0 && isTimeName(name)) {
-                timeIdx = i;
+    /**
+     * Scans a recording split over several files, e.g. rotated parts or one file per eye,
+     * as if it were one CSV. The parts are merged row by row in timestamp order, holding
+     * only one row per part at a time, and times are made relative to the earliest sample
+     * of all parts. Each part is assumed to be in time order itself; columns follow the
+     * first part's header. Batches reach {@code listener} as with {@link #scan}.
+     */
+    public CsvOverlayScan scanParts(List<File> parts, int heatRows, int heatCols, BatchListener listener) {
+        long start = System.nanoTime();
+        List<File> readable = new ArrayList<>();
+        long bytes = 0L;
+        if (parts != null) {
+            for (File part : parts) {
+                if (isReadable(part)) {
+                    readable.add(part);
+                    bytes += part.length();
+                }
             }
         }
-        return new FrameColumns(frameIdx, timeIdx, durationIdx);
+        if (readable.isEmpty()) {
+            return CsvOverlayScan.empty(heatRows, heatCols);
+        }
+        if (readable.size() == 1) {
+            return scan(readable.get(0), heatRows, heatCols, listener);
+        }
+
+        List<CsvRowReader> readers = new ArrayList<>(readable.size());
+        OverlayScanner scanner;
+        try {
+            for (File part : readable) {
+                readers.add(openRows(part));
+            }
+            scanner = scanRows(new MergedCsvReader(readers), heatRows, heatCols, listener);
+        } catch (IOException | UnsupportedOperationException e) {
+            for (CsvRowReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException ignore) {
+                }
+            }
+            return CsvOverlayScan.empty(heatRows, heatCols);
+        }
+        if (scanner == null) {
+            return CsvOverlayScan.empty(heatRows, heatCols);
+        }
+        return scanner.finish(bytes, System.nanoTime() - start);
     }
 
-    private double[] extractCoordinates(String[] parts, OverlayColumns columns) {
-        if (columns.xIdx() >= 0 && columns.yIdx() >= 0 &&
-                columns.xIdx() < parts.length && columns.yIdx() < parts.length) {
+    /** Opens {@code csv} for row reading, streaming it if it cannot be mapped; null if neither works. */
+    private CsvRowReader openRowsOrStream(File csv) {
+        try {
+            return openRows(csv);
+        } catch (IOException | UnsupportedOperationException mapFailed) {
             try {
-                return new double[]{parse(parts[columns.xIdx()]), parse(parts[columns.yIdx()])};
-            } catch (Exception ignore) {
+                return new StreamCsvReader(CompressedCsv.open(csv));
+            } catch (IOException ignore) {
                 return null;
             }
         }
-        return findFirstTwoNumbers(parts, columns.timeIdx());
     }
 
-    private double[] findFirstTwoNumbers(String[] parts, int skipIndex) {
-        double[] tmp = new double[2];
-        int found = 0;
-        for (int i = 0; i < parts.length && found < 2; i++) {
-            if (i == skipIndex) {
-                continue;
+    private CsvRowReader openRows(File csv) throws IOException {
+        return CompressedCsv.isCompressed(csv)
+                ? new StreamCsvReader(CompressedCsv.open(csv))
+                : MappedCsvReader.open(csv);
+    }
+
+    private OverlayScanner scanRows(CsvRowReader rows, int heatRows, int heatCols, BatchListener listener)
+            throws IOException {
+        try (CsvRowReader reader = rows) {
+            String[] header = reader.readHeader();
+            if (header == null) {
+                return null;
             }
-            try {
-                tmp[found++] = parse(parts[i]);
-            } catch (Exception ignore) {
+            OverlayScanner scanner = new OverlayScanner(CsvSchema.detect(header), heatRows, heatCols);
+            OverlayBatchPublisher publisher = (listener != null) ? new OverlayBatchPublisher(scanner, listener) : null;
+            while (reader.next()) {
+                scanner.accept(reader.row());
+                if (publisher != null) {
+                    publisher.rowRead();
+                }
             }
+            if (publisher != null) {
+                publisher.flush();
+            }
+            return scanner;
         }
-        return (found == 2) ? tmp : null;
     }
 
-    private boolean isValidNorm(double value) {
-        return Double.isFinite(value) && value >= 0.0 && value <= 1.0;
-    }
+    private OverlayScanner scanText(File csv, int heatRows, int heatCols, BatchListener listener) {
+        OverlayScanner scanner = null;
+        OverlayBatchPublisher publisher = null;
+        try (BufferedReader br = reader(csv)) {
+            String[] header = readHeader(br);
+            if (header == null) {
+                return null;
+            }
 
-    private boolean isXName(String name) {
-        String normalized = name.trim().toLowerCase(Locale.ROOT);
-        return normalized.equals("surfacex") || normalized.equals("norm_pos_x");
+            scanner = new OverlayScanner(CsvSchema.detect(header), heatRows, heatCols);
+            publisher = (listener != null) ? new OverlayBatchPublisher(scanner, listener) : null;
+            StringCsvRow row = new StringCsvRow();
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                row.reset(StringCsvRow.split(line));
+                scanner.accept(row);
+                if (publisher != null) {
+                    publisher.rowRead();
+                }
+            }
+        } catch (Exception ignore) {
+        }
+        if (publisher != null) {
+            publisher.flush();
+        }
+        return scanner;
     }
 
-    private boolean isYName(String name) {
-        String normalized = name.trim().toLowerCase(Locale.ROOT);
-        return normalized.equals("surfacey") || normalized.equals("norm_pos_y");
+    private boolean isReadable(File csv) {
+        return csv != null && csv.isFile();
     }
 
-    private boolean isTimeName(String name) {
-        String normalized = name.trim().toLowerCase(Locale.ROOT);
-        return normalized.equals("devicetimestamp") || normalized.equals("localtimestamp") ||
-                normalized.equals("timestamp") || normalized.equals("time") || normalized.equals("t") ||
-                normalized.equals("start_timestamp") || normalized.contains("timestamp");
+    private BufferedReader reader(File csv) throws IOException {
+        return new BufferedReader(new InputStreamReader(CompressedCsv.open(csv), StandardCharsets.UTF_8));
     }
 
-    private double parse(String s) {
-        String trimmed = s.trim();
-        if (trimmed.isEmpty()) {
-            throw new IllegalArgumentException("empty");
-        }
-        return Double.parseDouble(trimmed);
+    private String[] readHeader(BufferedReader br) throws IOException {
+        String header = br.readLine();
+        return (header == null) ? null : StringCsvRow.split(header);
     }
 
-    private String[] splitCsv(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        boolean inQuotes = false;
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (inQuotes) {
-                if (c == '"') {
-                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                        sb.append('"');
-                        i++;
-                    } else {
-                        inQuotes = false;
-                    }
-                } else {
-                    sb.append(c);
-                }
-            } else if (c == ',') {
-                fields.add(sb.toString());
-                sb.setLength(0);
-            } else if (c == '"') {
-                inQuotes = true;
-            } else {
-                sb.append(c);
+    private double[] extractCoordinates(String[] parts, CsvSchema schema, int skipIndex) {
+        if (schema.hasXY() && schema.xIdx() < parts.length && schema.yIdx() < parts.length) {
+            try {
+                return new double[]{
+                        StringCsvRow.parse(parts[schema.xIdx()]),
+                        StringCsvRow.parse(parts[schema.yIdx()])
+                };
+            } catch (Exception ignore) {
+                return null;
             }
         }
-        fields.add(sb.toString());
-        return fields.toArray(new String[0]);
+        return findFirstTwoNumbers(parts, skipIndex);
     }
 
-    private record OverlayColumns(int xIdx, int yIdx, int timeIdx) {
-        boolean hasTime() {
-            return timeIdx >= 0;
+    private double[] findFirstTwoNumbers(String[] parts, int skipIndex) {
+        double[] tmp = new double[2];
+        int found = 0;
+        for (int i = 0; i < parts.length && found < 2; i++) {
+            if (i == skipIndex) {
+                continue;
+            }
+            try {
+                tmp[found++] = StringCsvRow.parse(parts[i]);
+            } catch (Exception ignore) {
+            }
         }
+        return (found == 2) ? tmp : null;
     }
 
-    private record FrameColumns(int frameIdx, int timeIdx, int durationIdx) {
-        boolean valid() {
-            return frameIdx >= 0 && timeIdx >= 0;
-        }
-
-        boolean inBounds(int length) {
-            return frameIdx >= 0 && timeIdx >= 0 && frameIdx < length && timeIdx < length;
-        }
-
-        long durationAdjustment(String[] parts) {
-            if (durationIdx >= 0 && durationIdx < parts.length) {
-                try {
-                    double dur = Double.parseDouble(parts[durationIdx].trim());
-                    if (dur > 1000) {
-                        dur /= 1000.0;
-                    }
-                    return Math.round((dur * 1000.0) / 2.0);
-                } catch (Exception ignore) {
-                    return 0L;
-                }
+    private long durationAdjustment(String[] parts, int durationIdx) {
+        if (durationIdx >= 0 && durationIdx < parts.length) {
+            try {
+                return OverlayScanner.durationAdjustmentMs(Double.parseDouble(parts[durationIdx].trim()));
+            } catch (Exception ignore) {
+                return 0L;
             }
-            return 0L;
         }
+        return 0L;
     }
 }
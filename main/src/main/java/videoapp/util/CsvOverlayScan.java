@@ -0,0 +1,39 @@
+package videoapp.util;
+
+import videoapp.ui.OverlayPoint;
+import videoapp.ui.GazeTrack;
+import videoapp.ui.TimedSeries;
+
+import java.util.List;
+
+/**
+ * Result of a single pass over a gaze CSV. Exactly one of {@code track} and
+ * {@code staticPoints} is populated, depending on {@code timed}.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record CsvOverlayScan(boolean timed,
+                             TimedSeries track,
+                             List<OverlayPoint> staticPoints,
+                             int[][] heatmapGrid,
+                             int heatmapMaxCount,
+                             FrameOffsetSamples frameOffsets,
+                             CsvLoadStats stats) {
+
+    static CsvOverlayScan timed(TimedSeries track, int[][] grid, int maxCount,
+                                FrameOffsetSamples offsets, CsvLoadStats stats) {
+        return new CsvOverlayScan(true, track, List.of(), grid, maxCount, offsets, stats);
+    }
+
+    static CsvOverlayScan fixed(List<OverlayPoint> points, int[][] grid, int maxCount,
+                                FrameOffsetSamples offsets, CsvLoadStats stats) {
+        return new CsvOverlayScan(false, GazeTrack.EMPTY, points, grid, maxCount, offsets, stats);
+    }
+
+    static CsvOverlayScan empty(int heatRows, int heatCols) {
+        int[][] grid = new int[Math.max(1, heatRows)][Math.max(1, heatCols)];
+        return fixed(List.of(), grid, 0, FrameOffsetSamples.empty(), CsvLoadStats.empty());
+    }
+}
@@ -0,0 +1,22 @@
+package videoapp.util;
+
+/**
+ * One tokenised CSV data row as seen by the overlay scanners. Implementations may reuse
+ * a single instance for every row, so callers must not hold on to it.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+interface CsvRow {
+    int size();
+
+    /**
+     * Parses field {@code index} with the loader's numeric rules (trimmed, non-empty,
+     * {@link Double#parseDouble} syntax). On success the value is available from
+     * {@link #number()} until the next call.
+     */
+    boolean parseNumber(int index);
+
+    double number();
+}
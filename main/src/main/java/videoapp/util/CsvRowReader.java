@@ -0,0 +1,31 @@
+package videoapp.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Line reader that exposes each CSV row as a {@link CsvRow}. Rows end at CR, LF or CRLF
+ * (even inside quotes), empty lines are skipped, and the header is the first line.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+interface CsvRowReader extends Closeable {
+    /**
+     * Reads the next line, even if empty, and decodes its fields with the loader's rules.
+     *
+     * @return the header fields, or {@code null} at end of input
+     */
+    String[] readHeader() throws IOException;
+
+    /**
+     * Advances to the next non-empty line.
+     *
+     * @return false at end of input
+     */
+    boolean next() throws IOException;
+
+    /** The current row; valid until the next call to {@link #next()}. */
+    CsvRow row();
+}
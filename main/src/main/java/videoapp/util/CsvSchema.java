@@ -0,0 +1,115 @@
+package videoapp.util;
+
+import java.util.Locale;
+
+/**
+ * Column layout detected once from a gaze CSV header. Holds the overlay columns
+ * (x, y, time) and the frame-index columns used for offset estimation, applying the
+ * same name rules the loader has always used.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+record CsvSchema(int xIdx, int yIdx, int timeIdx, int frameIdx, int frameTimeIdx, int durationIdx) {
+
+    static CsvSchema detect(String[] cols) {
+        int xIdx = -1;
+        int yIdx = -1;
+        int timeIdx = -1;
+        for (int i = 0; i < cols.length; i++) {
+            String name = cols[i];
+            if (isXName(name)) {
+                xIdx = i;
+            } else if (isYName(name)) {
+                yIdx = i;
+            } else if (timeIdx < 0 && isTimeName(name)) {
+                timeIdx = i;
+            }
+        }
+
+        int frameIdx = -1;
+        int frameTimeIdx = -1;
+        int durationIdx = -1;
+        for (int i = 0; i < cols.length; i++) {
+            String name = cols[i].trim().toLowerCase(Locale.ROOT);
+            if (frameIdx < 0 && (name.equals("start_frame_index") || name.equals("frame") ||
+                    name.equals("start_frame") || name.equals("frame_index"))) {
+                frameIdx = i;
+            } else if (durationIdx < 0 && (name.equals("duration") || name.equals("duration_ms"))) {
+                durationIdx = i;
+            } else if (frameTimeIdx < 0 && isTimeName(name)) {
+                frameTimeIdx = i;
+            }
+        }
+        return new CsvSchema(xIdx, yIdx, timeIdx, frameIdx, frameTimeIdx, durationIdx);
+    }
+
+    boolean hasTime() {
+        return timeIdx >= 0;
+    }
+
+    boolean hasXY() {
+        return xIdx >= 0 && yIdx >= 0;
+    }
+
+    boolean hasFrameIndex() {
+        return frameIdx >= 0 && frameTimeIdx >= 0;
+    }
+
+    boolean frameColumnsInBounds(int length) {
+        return hasFrameIndex() && frameIdx < length && frameTimeIdx < length;
+    }
+
+    /**
+     * Reads a row's coordinates into {@code xy}. With no x/y header the loader falls back
+     * to the first two fields other than {@code skipIndex}; unparseable fields there count
+     * as 0.0, which is how the String loader has always behaved.
+     *
+     * @return false if the row has no usable coordinates
+     */
+    boolean readCoordinates(CsvRow row, int skipIndex, double[] xy) {
+        int size = row.size();
+        if (hasXY() && xIdx < size && yIdx < size) {
+            if (!row.parseNumber(xIdx)) {
+                return false;
+            }
+            double px = row.number();
+            if (!row.parseNumber(yIdx)) {
+                return false;
+            }
+            xy[0] = px;
+            xy[1] = row.number();
+            return true;
+        }
+        int found = 0;
+        for (int i = 0; i < size && found < 2; i++) {
+            if (i == skipIndex) {
+                continue;
+            }
+            xy[found++] = row.parseNumber(i) ? row.number() : 0.0;
+        }
+        return found == 2;
+    }
+
+    static boolean isValidNorm(double value) {
+        return Double.isFinite(value) && value >= 0.0 && value <= 1.0;
+    }
+
+    static boolean isXName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("surfacex") || normalized.equals("norm_pos_x");
+    }
+
+    static boolean isYName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("surfacey") || normalized.equals("norm_pos_y");
+    }
+
+    static boolean isTimeName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("devicetimestamp") || normalized.equals("localtimestamp") ||
+                normalized.equals("timestamp") || normalized.equals("time") || normalized.equals("t") ||
+                normalized.equals("start_timestamp") || normalized.contains("timestamp");
+    }
+}
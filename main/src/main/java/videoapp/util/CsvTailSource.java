@@ -0,0 +1,81 @@
+package videoapp.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Live source that follows a CSV file while a recorder is still appending to it, like
+ * {@code tail -f}. Existing rows are read first, then the file is polled for growth every
+ * millisecond; a file watcher would be too coarse on some platforms for sub-frame latency.
+ * Only complete lines are parsed. If the file shrinks it is read again from the top.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class CsvTailSource extends LiveGazeSource {
+    private static final long IDLE_POLL_NANOS = 1_000_000L;
+    private static final int READ_BYTES = 64 * 1024;
+
+    private final File csv;
+
+    public CsvTailSource(File csv) {
+        super("csv-tail");
+        this.csv = csv;
+    }
+
+    @Override
+    protected void readLoop() throws IOException {
+        while (isRunning() && !csv.isFile()) {
+            LockSupport.parkNanos(IDLE_POLL_NANOS * 50);
+        }
+        try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate(READ_BYTES);
+            ByteArrayOutputStream pending = new ByteArrayOutputStream();
+            long position = 0;
+            while (isRunning()) {
+                long size = channel.size();
+                if (size < position) {
+                    position = 0;
+                    pending.reset();
+                    restartStream();
+                }
+                if (size == position) {
+                    LockSupport.parkNanos(IDLE_POLL_NANOS);
+                    continue;
+                }
+                chunk.clear();
+                int read = channel.read(chunk, position);
+                if (read <= 0) {
+                    continue;
+                }
+                position += read;
+                byte[] bytes = chunk.array();
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    byte b = bytes[i];
+                    if (b == '\n' || b == '\r') {
+                        pending.write(bytes, lineStart, i - lineStart);
+                        acceptLine(pending.toString(StandardCharsets.UTF_8));
+                        pending.reset();
+                        lineStart = i + 1;
+                    }
+                }
+                pending.write(bytes, lineStart, read - lineStart);
+                flush();
+            }
+        } catch (NoSuchFileException ignore) {
+        }
+    }
+
+    @Override
+    protected void unblock() {
+    }
+}
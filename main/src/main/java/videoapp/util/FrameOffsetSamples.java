@@ -0,0 +1,226 @@
+package videoapp.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Frame-index samples gathered while scanning a CSV: for each usable row the video frame
+ * index and the row's CSV time in milliseconds. Keeping the raw pairs lets the clock
+ * mapping be resolved later, once the video's frame rate is known, without reopening the
+ * file.
+ * <p>
+ * Samples are taken from the whole file, not just its start, so that drift between the
+ * tracker and video clocks can be measured. At most {@value #MAX_SAMPLES} are kept: when
+ * the buffer fills, every other sample is dropped and only every other row is taken from
+ * then on, so the samples stay evenly spread over the file.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class FrameOffsetSamples {
+    static final int MAX_SAMPLES = 1 << 16;
+
+    /** Estimated drift beyond this fraction means the frame column is not a clock; the scale is then 1. */
+    private static final double MAX_SKEW = 0.01;
+    private static final int PARALLEL_CHUNK = 1 << 13;
+    private static final FrameOffsetSamples EMPTY = new FrameOffsetSamples(new long[0], new long[0], 0);
+
+    private final long[] frameIndices;
+    private final long[] csvMs;
+
+    FrameOffsetSamples(long[] frameIndices, long[] csvMs, int count) {
+        this.frameIndices = Arrays.copyOf(frameIndices, count);
+        this.csvMs = Arrays.copyOf(csvMs, count);
+    }
+
+    public static FrameOffsetSamples empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return frameIndices.length;
+    }
+
+    /** Copies of the frame-index and CSV-millisecond columns, in that order. */
+    long[][] toArrays() {
+        return new long[][]{frameIndices.clone(), csvMs.clone()};
+    }
+
+    /**
+     * Median of {@code csvMs - expectedMs} over the samples: the overlay offset if both
+     * clocks run at the same rate.
+     *
+     * @return the offset in milliseconds, or {@code null} when there are no samples or
+     *         {@code fps} is not a positive finite number
+     */
+    public Long suggestOffset(double fps) {
+        if (frameIndices.length == 0 || !(fps > 0 && Double.isFinite(fps))) {
+            return null;
+        }
+        double[] video = videoTimes(fps);
+        return Math.round(medianResidual(video, 1.0));
+    }
+
+    /**
+     * Fits {@code csvMs = scale * expectedMs + offset} over all samples with a Theil-Sen
+     * estimator, so that a minority of bad rows, such as a frame column that resets or
+     * stalls, does not pull the fit. The slope is the median of the slopes between each
+     * sample in the first half and its partner half the samples later, which keeps the
+     * pairs far apart in time and the work linear; the offset is then the median
+     * residual. Both are computed over chunks of samples on the common pool.
+     *
+     * @return the mapping, or {@code null} when there are no samples or {@code fps} is
+     *         not a positive finite number. The scale is 1 when fewer than two samples
+     *         are distinct in time or the fitted drift is implausibly large.
+     */
+    public ClockMapping fitClock(double fps) {
+        if (frameIndices.length == 0 || !(fps > 0 && Double.isFinite(fps))) {
+            return null;
+        }
+        double[] video = videoTimes(fps);
+        int half = video.length / 2;
+        double[] slopes = new double[half];
+        inParallel(half, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double dv = video[i + half] - video[i];
+                slopes[i] = (dv != 0.0) ? (csvMs[i + half] - csvMs[i]) / dv : Double.NaN;
+            }
+        });
+        int valid = 0;
+        for (double slope : slopes) {
+            if (!Double.isNaN(slope)) {
+                slopes[valid++] = slope;
+            }
+        }
+        double scale = (valid > 0) ? median(slopes, valid) : 1.0;
+        if (!(Math.abs(scale - 1.0) <= MAX_SKEW)) {
+            scale = 1.0;
+        }
+        return new ClockMapping(scale, Math.round(medianResidual(video, scale)));
+    }
+
+    private double[] videoTimes(double fps) {
+        double[] video = new double[frameIndices.length];
+        for (int i = 0; i < video.length; i++) {
+            video[i] = Math.round((frameIndices[i] * 1000.0) / fps);
+        }
+        return video;
+    }
+
+    private double medianResidual(double[] video, double scale) {
+        double[] residuals = new double[video.length];
+        inParallel(residuals.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                residuals[i] = csvMs[i] - scale * video[i];
+            }
+        });
+        return median(residuals, residuals.length);
+    }
+
+    /** Upper median of {@code values[0..count-1]}, like the median used before; sorts them. */
+    private static double median(double[] values, int count) {
+        Arrays.parallelSort(values, 0, count);
+        return values[count / 2];
+    }
+
+    private static void inParallel(int count, ChunkBody body) {
+        ForkJoinPool.commonPool().invoke(new ChunkTask(body, 0, count));
+    }
+
+    private interface ChunkBody {
+        void run(int from, int to);
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private final ChunkBody body;
+        private final int from;
+        private final int to;
+
+        ChunkTask(ChunkBody body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(body, from, mid), new ChunkTask(body, mid, to));
+        }
+    }
+
+    /**
+     * Collects samples row by row, thinning them out as described above. Builders for
+     * consecutive parts of a file can be joined with {@link #append}.
+     */
+    static final class Builder {
+        private long[] frames = new long[256];
+        private long[] times = new long[256];
+        private int count;
+        private int stride = 1;
+        private long rows;
+
+        void add(long frameIndex, long csvMs) {
+            long row = rows++;
+            if ((row & (stride - 1)) != 0) {
+                return;
+            }
+            if (count == MAX_SAMPLES) {
+                halve();
+                if ((row & (stride - 1)) != 0) {
+                    return;
+                }
+            }
+            ensureCapacity(count + 1);
+            frames[count] = frameIndex;
+            times[count] = csvMs;
+            count++;
+        }
+
+        /** Adds the samples of {@code next}, which covers the rows following this builder's. */
+        void append(Builder next) {
+            while (stride < next.stride) {
+                halve();
+            }
+            int step = stride / next.stride;
+            ensureCapacity(count + (next.count + step - 1) / step);
+            for (int i = 0; i < next.count; i += step) {
+                frames[count] = next.frames[i];
+                times[count] = next.times[i];
+                count++;
+            }
+            rows += next.rows;
+            while (count > MAX_SAMPLES) {
+                halve();
+            }
+        }
+
+        FrameOffsetSamples build() {
+            return new FrameOffsetSamples(frames, times, count);
+        }
+
+        private void halve() {
+            int kept = (count + 1) / 2;
+            for (int i = 0; i < kept; i++) {
+                frames[i] = frames[i * 2];
+                times[i] = times[i * 2];
+            }
+            count = kept;
+            stride *= 2;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed > frames.length) {
+                int capacity = Math.max(needed, frames.length * 2);
+                frames = Arrays.copyOf(frames, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+        }
+    }
+}
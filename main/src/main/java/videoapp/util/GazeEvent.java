@@ -0,0 +1,29 @@
+package videoapp.util;
+
+/**
+ * A fixation or saccade found by {@link GazeEventDetector}. Times are in the same
+ * milliseconds as the gaze samples; positions are normalised like overlay points.
+ * {@code dispersion} is the width plus the height of the box around the event's samples.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record GazeEvent(Type type,
+                        long startMs,
+                        long endMs,
+                        double centroidX,
+                        double centroidY,
+                        double dispersion,
+                        int samples) {
+
+    public enum Type {FIXATION, SACCADE}
+
+    public long durationMs() {
+        return endMs - startMs;
+    }
+
+    public boolean isFixation() {
+        return type == Type.FIXATION;
+    }
+}
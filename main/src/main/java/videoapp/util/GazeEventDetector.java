@@ -0,0 +1,466 @@
+package videoapp.util;
+
+import videoapp.ui.TimedSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming fixation and saccade classifier. Samples are fed one at a time in time order,
+ * and each finished event is handed to a listener, so the same detector runs over a loaded
+ * track and behind a live source. Two classic algorithms are available:
+ * <ul>
+ *     <li>{@link Algorithm#IVT I-VT}: a sample belongs to a fixation when the gaze velocity
+ *     over the last {@value #VELOCITY_SPAN_MS} ms is below a threshold. Slow runs shorter
+ *     than the minimum fixation duration count as part of the surrounding saccade.</li>
+ *     <li>{@link Algorithm#IDT I-DT}: a fixation starts once a window spanning the minimum
+ *     duration stays within the dispersion threshold, and grows until the next sample
+ *     would break it.</li>
+ * </ul>
+ * Velocities and dispersions are measured in normalised frame units. A gap longer than
+ * {@code maxGapMs}, such as a blink, ends the current event. A fixation that starts within
+ * {@code maxGapMs} of the previous one, with its first {@code minFixationMs} centred within
+ * the dispersion threshold of it, continues the previous one, so a single noisy sample
+ * does not split a fixation. A fixation is therefore reported once the next one has been
+ * confirmed, or once no fixation can start within {@code maxGapMs} of it.
+ * <p>
+ * Only events allocate. The sample windows are ring buffers with monotonic min/max queues,
+ * and everything else is running sums. Not thread-safe; feed it from one thread.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class GazeEventDetector {
+    public enum Algorithm {IVT, IDT}
+
+    /** I-VT measures velocity over at least this span, so sensor noise does not dominate. */
+    public static final long VELOCITY_SPAN_MS = 20;
+
+    /**
+     * @param velocityThreshold   I-VT: normalised units per second below which gaze is fixating
+     * @param dispersionThreshold I-DT: largest width plus height of a fixation, normalised;
+     *                            both: farthest apart two fixations can be and still merge
+     * @param minFixationMs       shortest fixation reported
+     * @param maxGapMs            longest time between samples within one event
+     */
+    public record Settings(Algorithm algorithm,
+                           double velocityThreshold,
+                           double dispersionThreshold,
+                           long minFixationMs,
+                           long maxGapMs) {
+
+        public static Settings defaults(Algorithm algorithm) {
+            return new Settings(algorithm, 0.75, 0.03, 80, 75);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onEvent(GazeEvent event);
+    }
+
+    private final Settings settings;
+    private final Listener listener;
+    private final Accumulator fixation = new Accumulator();
+    private final Accumulator saccade = new Accumulator();
+    private final Accumulator held = new Accumulator();
+    private final Accumulator heldSaccade = new Accumulator();
+    private final SampleWindow window = new SampleWindow();
+    private final SampleWindow velocityWindow = new SampleWindow();
+
+    private boolean hasPrevious;
+    private long previousMs;
+    private boolean fixationConfirmed;
+
+    public GazeEventDetector(Settings settings, Listener listener) {
+        this.settings = settings;
+        this.listener = listener;
+    }
+
+    /** Runs a detector over a whole series and returns its events in time order. */
+    public static List<GazeEvent> detect(TimedSeries series, Settings settings) {
+        List<GazeEvent> events = new ArrayList<>();
+        GazeEventDetector detector = new GazeEventDetector(settings, events::add);
+        for (int i = 0; i < series.size(); i++) {
+            detector.accept(series.timeMs(i), series.xNorm(i), series.yNorm(i));
+        }
+        detector.flush();
+        return events;
+    }
+
+    /** Feeds the next sample; times must not decrease. */
+    public void accept(long timeMs, double xNorm, double yNorm) {
+        if (hasPrevious && timeMs - previousMs > settings.maxGapMs()) {
+            flush();
+        }
+        long candidateStartMs;
+        if (settings.algorithm() == Algorithm.IVT) {
+            acceptVelocity(timeMs, xNorm, yNorm);
+            candidateStartMs = (fixation.count > 0) ? fixation.startMs : timeMs;
+        } else {
+            acceptDispersion(timeMs, xNorm, yNorm);
+            candidateStartMs = (window.size() > 0) ? window.timeAt(0) : timeMs;
+        }
+        if (held.count > 0 && !fixationConfirmed && candidateStartMs - held.endMs > settings.maxGapMs()) {
+            release();
+        }
+        hasPrevious = true;
+        previousMs = timeMs;
+    }
+
+    /** Ends the current event, e.g. at the end of the data or when a live stream stops. */
+    public void flush() {
+        if (fixationConfirmed) {
+            endFixation();
+        } else {
+            saccade.merge(fixation);
+        }
+        for (int i = 0; i < window.size(); i++) {
+            saccade.add(window.timeAt(i), window.xAt(i), window.yAt(i));
+        }
+        endSaccade();
+        release();
+        fixation.reset();
+        window.clear();
+        velocityWindow.clear();
+        fixationConfirmed = false;
+        hasPrevious = false;
+    }
+
+    private void acceptVelocity(long timeMs, double x, double y) {
+        velocityWindow.push(timeMs, x, y);
+        while (velocityWindow.size() > 2 && timeMs - velocityWindow.timeAt(1) >= VELOCITY_SPAN_MS) {
+            velocityWindow.popOldest();
+        }
+        long spanMs = timeMs - velocityWindow.timeAt(0);
+        boolean slow;
+        if (!hasPrevious) {
+            slow = true;
+        } else if (spanMs <= 0) {
+            slow = fixation.count > 0;
+        } else {
+            double dx = x - velocityWindow.xAt(0);
+            double dy = y - velocityWindow.yAt(0);
+            slow = Math.hypot(dx, dy) * 1000.0 / spanMs < settings.velocityThreshold();
+        }
+        if (!slow) {
+            if (fixationConfirmed) {
+                endFixation();
+                fixationConfirmed = false;
+            } else {
+                saccade.merge(fixation);
+            }
+            fixation.reset();
+            saccade.add(timeMs, x, y);
+            return;
+        }
+        fixation.add(timeMs, x, y);
+        if (!fixationConfirmed && fixation.durationMs() >= settings.minFixationMs()) {
+            fixationConfirmed = true;
+            endSaccade();
+            confirmFixation();
+        }
+    }
+
+    private void acceptDispersion(long timeMs, double x, double y) {
+        if (fixationConfirmed) {
+            if (fixation.dispersionWith(x, y) <= settings.dispersionThreshold()) {
+                fixation.add(timeMs, x, y);
+                return;
+            }
+            endFixation();
+            fixationConfirmed = false;
+        }
+        window.push(timeMs, x, y);
+        while (window.durationMs() >= settings.minFixationMs()
+                && window.dispersion() > settings.dispersionThreshold()) {
+            saccade.add(window.timeAt(0), window.xAt(0), window.yAt(0));
+            window.popOldest();
+        }
+        if (window.durationMs() >= settings.minFixationMs()) {
+            endSaccade();
+            for (int i = 0; i < window.size(); i++) {
+                fixation.add(window.timeAt(i), window.xAt(i), window.yAt(i));
+            }
+            window.clear();
+            fixationConfirmed = true;
+            confirmFixation();
+        }
+    }
+
+    /**
+     * Called once the current fixation has lasted {@code minFixationMs}: reports the held
+     * fixation now unless the current one continues it.
+     */
+    private void confirmFixation() {
+        if (held.count == 0) {
+            return;
+        }
+        double distance = Math.hypot(fixation.sumX / fixation.count - held.sumX / held.count,
+                fixation.sumY / fixation.count - held.sumY / held.count);
+        if (fixation.startMs - held.endMs > settings.maxGapMs()
+                || distance > settings.dispersionThreshold()) {
+            release();
+        }
+    }
+
+    /**
+     * Holds the finished fixation back until the next one shows whether the two should
+     * merge; any fixation still held at this point is being continued.
+     */
+    private void endFixation() {
+        held.merge(heldSaccade);
+        held.merge(fixation);
+        heldSaccade.reset();
+        fixation.reset();
+    }
+
+    private void endSaccade() {
+        if (held.count > 0) {
+            heldSaccade.merge(saccade);
+            saccade.reset();
+        } else {
+            emit(saccade, GazeEvent.Type.SACCADE);
+        }
+    }
+
+    /** Reports the held fixation and the saccade after it. */
+    private void release() {
+        emit(held, GazeEvent.Type.FIXATION);
+        emit(heldSaccade, GazeEvent.Type.SACCADE);
+    }
+
+    /** Reports {@code acc} as an event if it holds any samples, then clears it. */
+    private void emit(Accumulator acc, GazeEvent.Type type) {
+        if (acc.count == 0) {
+            return;
+        }
+        GazeEvent event = new GazeEvent(type, acc.startMs, acc.endMs,
+                acc.sumX / acc.count, acc.sumY / acc.count, acc.dispersion(), acc.count);
+        acc.reset();
+        listener.onEvent(event);
+    }
+
+    /** Running bounds and sums of consecutive samples. */
+    private static final class Accumulator {
+        long startMs;
+        long endMs;
+        int count;
+        double sumX;
+        double sumY;
+        double minX;
+        double maxX;
+        double minY;
+        double maxY;
+
+        void add(long timeMs, double x, double y) {
+            if (count == 0) {
+                startMs = timeMs;
+                minX = maxX = x;
+                minY = maxY = y;
+            } else {
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+            endMs = timeMs;
+            sumX += x;
+            sumY += y;
+            count++;
+        }
+
+        /** Appends the samples of {@code later}, which all come after this one's. */
+        void merge(Accumulator later) {
+            if (later.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                startMs = later.startMs;
+                minX = later.minX;
+                maxX = later.maxX;
+                minY = later.minY;
+                maxY = later.maxY;
+            } else {
+                minX = Math.min(minX, later.minX);
+                maxX = Math.max(maxX, later.maxX);
+                minY = Math.min(minY, later.minY);
+                maxY = Math.max(maxY, later.maxY);
+            }
+            endMs = later.endMs;
+            sumX += later.sumX;
+            sumY += later.sumY;
+            count += later.count;
+        }
+
+        long durationMs() {
+            return (count == 0) ? 0L : endMs - startMs;
+        }
+
+        double dispersion() {
+            return (maxX - minX) + (maxY - minY);
+        }
+
+        double dispersionWith(double x, double y) {
+            return (Math.max(maxX, x) - Math.min(minX, x)) + (Math.max(maxY, y) - Math.min(minY, y));
+        }
+
+        void reset() {
+            count = 0;
+            sumX = 0;
+            sumY = 0;
+        }
+    }
+
+    /**
+     * Sliding window of samples in a ring buffer. Four monotonic queues of sample sequence
+     * numbers keep the window's min and max coordinates available in O(1) as samples
+     * enter at one end and leave at the other. The buffers double only when a window
+     * outgrows them.
+     */
+    private static final class SampleWindow {
+        private long[] times = new long[64];
+        private double[] xs = new double[64];
+        private double[] ys = new double[64];
+        private long head;
+        private long tail;
+        private final MonotonicQueue minX = new MonotonicQueue(true);
+        private final MonotonicQueue maxX = new MonotonicQueue(false);
+        private final MonotonicQueue minY = new MonotonicQueue(true);
+        private final MonotonicQueue maxY = new MonotonicQueue(false);
+
+        int size() {
+            return (int) (tail - head);
+        }
+
+        long timeAt(int i) {
+            return times[slot(head + i)];
+        }
+
+        double xAt(int i) {
+            return xs[slot(head + i)];
+        }
+
+        double yAt(int i) {
+            return ys[slot(head + i)];
+        }
+
+        void push(long timeMs, double x, double y) {
+            if (size() == times.length) {
+                grow();
+            }
+            int s = slot(tail);
+            times[s] = timeMs;
+            xs[s] = x;
+            ys[s] = y;
+            minX.push(tail, xs, times.length - 1);
+            maxX.push(tail, xs, times.length - 1);
+            minY.push(tail, ys, times.length - 1);
+            maxY.push(tail, ys, times.length - 1);
+            tail++;
+        }
+
+        void popOldest() {
+            minX.evict(head);
+            maxX.evict(head);
+            minY.evict(head);
+            maxY.evict(head);
+            head++;
+        }
+
+        void clear() {
+            head = tail;
+            minX.clear();
+            maxX.clear();
+            minY.clear();
+            maxY.clear();
+        }
+
+        long durationMs() {
+            return (tail == head) ? 0L : times[slot(tail - 1)] - times[slot(head)];
+        }
+
+        double dispersion() {
+            return (xs[slot(maxX.front())] - xs[slot(minX.front())])
+                    + (ys[slot(maxY.front())] - ys[slot(minY.front())]);
+        }
+
+        private int slot(long seq) {
+            return (int) (seq & (times.length - 1));
+        }
+
+        private void grow() {
+            int capacity = times.length * 2;
+            long[] t = new long[capacity];
+            double[] x = new double[capacity];
+            double[] y = new double[capacity];
+            for (long seq = head; seq < tail; seq++) {
+                int from = slot(seq);
+                int to = (int) (seq & (capacity - 1));
+                t[to] = times[from];
+                x[to] = xs[from];
+                y[to] = ys[from];
+            }
+            times = t;
+            xs = x;
+            ys = y;
+            minX.ensureCapacity(capacity);
+            maxX.ensureCapacity(capacity);
+            minY.ensureCapacity(capacity);
+            maxY.ensureCapacity(capacity);
+        }
+    }
+
+    /** Ring of sequence numbers whose values are kept increasing (min) or decreasing (max). */
+    private static final class MonotonicQueue {
+        private final boolean min;
+        private long[] seqs = new long[64];
+        private long head;
+        private long tail;
+
+        MonotonicQueue(boolean min) {
+            this.min = min;
+        }
+
+        void push(long seq, double[] values, int mask) {
+            double value = values[(int) (seq & mask)];
+            while (tail > head) {
+                double back = values[(int) (seqs[(int) ((tail - 1) & (seqs.length - 1))] & mask)];
+                if (min ? back < value : back > value) {
+                    break;
+                }
+                tail--;
+            }
+            seqs[(int) (tail++ & (seqs.length - 1))] = seq;
+        }
+
+        void evict(long seq) {
+            if (tail > head && seqs[(int) (head & (seqs.length - 1))] == seq) {
+                head++;
+            }
+        }
+
+        long front() {
+            return seqs[(int) (head & (seqs.length - 1))];
+        }
+
+        void clear() {
+            head = 0;
+            tail = 0;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= seqs.length) {
+                return;
+            }
+            long[] grown = new long[capacity];
+            for (long i = head; i < tail; i++) {
+                grown[(int) (i - head)] = seqs[(int) (i & (seqs.length - 1))];
+            }
+            tail -= head;
+            head = 0;
+            seqs = grown;
+        }
+    }
+}
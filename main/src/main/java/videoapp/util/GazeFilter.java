@@ -0,0 +1,116 @@
+package videoapp.util;
+
+/**
+ * Streaming smoothing filter for gaze samples, applied to x and y independently. A filter
+ * is fed samples in time order, either one at a time (live input) or a column at a time
+ * (a loaded track), and never allocates per sample. A gap of more than
+ * {@value #GAP_RESET_MS} ms, such as a blink or tracking loss, restarts the filter so
+ * it does not smear across the gap.
+ * <p>
+ * Each filter is a recurrence over time, so a column cannot be split across lanes or
+ * threads. Instead the column is cut at gaps and each gap-free run goes through one tight
+ * loop over the primitive arrays that steps x and y together, so the two independent
+ * recurrences overlap in the pipeline and there is no per-sample call or allocation.
+ * Single samples go through the same loop with a run of one.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public abstract class GazeFilter {
+    public static final long GAP_RESET_MS = 250;
+
+    public enum Kind {
+        NONE("Off"),
+        ONE_EURO("One-Euro"),
+        MEDIAN("Moving median"),
+        KALMAN("Kalman");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final long[] sampleTime = new long[1];
+    private final float[] sampleX = new float[1];
+    private final float[] sampleY = new float[1];
+    private boolean started;
+    private long lastMs;
+
+    /** A filter of {@code kind} with default settings, or null for {@link Kind#NONE}. */
+    public static GazeFilter create(Kind kind) {
+        return switch (kind) {
+            case NONE -> null;
+            case ONE_EURO -> new OneEuroFilter(1.0, 5.0, 1.0);
+            case MEDIAN -> new MedianFilter(5);
+            case KALMAN -> new KalmanFilter(0.01, 10.0);
+        };
+    }
+
+    /** Forgets all history; the next sample starts afresh. */
+    public final void reset() {
+        started = false;
+    }
+
+    /**
+     * Smooths the sample in {@code xy} in place. The result is the same as filtering the
+     * sample as part of a column.
+     */
+    public final void filter(long timeMs, double[] xy) {
+        sampleTime[0] = timeMs;
+        sampleX[0] = (float) xy[0];
+        sampleY[0] = (float) xy[1];
+        filter(sampleTime, sampleX, sampleY, sampleX, sampleY, 0, 1);
+        xy[0] = sampleX[0];
+        xy[1] = sampleY[0];
+    }
+
+    /**
+     * Smooths samples {@code from..to-1} of the columns into {@code outX} and
+     * {@code outY}, continuing from the samples filtered before. The output arrays may be
+     * the input arrays.
+     */
+    public final void filter(long[] times, float[] xs, float[] ys, float[] outX, float[] outY, int from, int to) {
+        int i = from;
+        while (i < to) {
+            if (!started || times[i] - lastMs > GAP_RESET_MS) {
+                start(xs[i], ys[i]);
+                outX[i] = xs[i];
+                outY[i] = ys[i];
+                started = true;
+                lastMs = times[i];
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < to && times[end] - times[end - 1] <= GAP_RESET_MS) {
+                end++;
+            }
+            run(times, xs, ys, outX, outY, i, end, lastMs);
+            lastMs = times[end - 1];
+            i = end;
+        }
+    }
+
+    /** Duplicate timestamps still move the filter, as if a millisecond had passed. */
+    protected static double seconds(long dtMs) {
+        return Math.max(1L, dtMs) / 1000.0;
+    }
+
+    /** Restarts the filter at ({@code x}, {@code y}), which is passed through unchanged. */
+    protected abstract void start(double x, double y);
+
+    /**
+     * Filters samples {@code from..to-1}, none of which follows a gap; the sample before
+     * {@code from} was at {@code previousMs}. Implementations keep their state in locals
+     * for the length of the run and write it back at the end.
+     */
+    protected abstract void run(long[] times, float[] xs, float[] ys, float[] outX, float[] outY,
+                                int from, int to, long previousMs);
+}
@@ -0,0 +1,131 @@
+package videoapp.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Live source that receives gaze samples on a local port. Both protocols carry the same
+ * text lines a CSV would contain: over TCP one client at a time streams lines, and each
+ * new connection may start with its own header; over UDP every datagram holds one or
+ * more complete lines. Only the loopback interface is bound.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class GazeSocketSource extends LiveGazeSource {
+    public enum Protocol {TCP, UDP}
+
+    private static final int MAX_DATAGRAM_BYTES = 65_507;
+
+    private final Protocol protocol;
+    private final int port;
+    private volatile Closeable openSocket;
+    private volatile int boundPort = -1;
+
+    public GazeSocketSource(Protocol protocol, int port) {
+        super("gaze-socket-" + protocol.name().toLowerCase(Locale.ROOT));
+        this.protocol = protocol;
+        this.port = port;
+    }
+
+    public Protocol protocol() {
+        return protocol;
+    }
+
+    /** Port actually bound, once listening; useful when created with port 0. */
+    public int boundPort() {
+        return boundPort;
+    }
+
+    @Override
+    protected void readLoop() throws IOException {
+        if (protocol == Protocol.TCP) {
+            readTcp();
+        } else {
+            readUdp();
+        }
+    }
+
+    private void readTcp() throws IOException {
+        try (ServerSocket server = new ServerSocket()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1);
+            openSocket = server;
+            boundPort = server.getLocalPort();
+            while (isRunning()) {
+                try (Socket client = server.accept()) {
+                    client.setTcpNoDelay(true);
+                    openSocket = client;
+                    restartStream();
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                    String line;
+                    while (isRunning() && (line = reader.readLine()) != null) {
+                        acceptLine(line);
+                        if (!reader.ready()) {
+                            flush();
+                        }
+                    }
+                    flush();
+                } catch (IOException e) {
+                    if (!isRunning()) {
+                        return;
+                    }
+                } finally {
+                    openSocket = server;
+                }
+            }
+        }
+    }
+
+    private void readUdp() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            openSocket = socket;
+            boundPort = socket.getLocalPort();
+            DatagramPacket packet = new DatagramPacket(new byte[MAX_DATAGRAM_BYTES], MAX_DATAGRAM_BYTES);
+            while (isRunning()) {
+                try {
+                    packet.setLength(MAX_DATAGRAM_BYTES);
+                    socket.receive(packet);
+                } catch (IOException e) {
+                    if (!isRunning()) {
+                        return;
+                    }
+                    throw e;
+                }
+                String text = new String(packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8);
+                int start = 0;
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == '\n' || c == '\r') {
+                        acceptLine(text.substring(start, i));
+                        start = i + 1;
+                    }
+                }
+                acceptLine(text.substring(start));
+                flush();
+            }
+        }
+    }
+
+    @Override
+    protected void unblock() {
+        Closeable socket = openSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package videoapp.util;
+
+import videoapp.ui.TimedSeries;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded gaze CSV to a {@link GazeSocketSource} on this machine, keeping the
+ * original sample spacing, so live mode can be tried without an eye tracker.
+ * <p>
+ * Usage: {@code GazeStreamSimulator <csv> [tcp|udp] [port] [speed]}
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class GazeStreamSimulator {
+    public static final int DEFAULT_PORT = 5555;
+    private static final int MAX_DATAGRAM_CHARS = 60_000;
+
+    private GazeStreamSimulator() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: GazeStreamSimulator <csv> [tcp|udp] [port] [speed]");
+            return;
+        }
+        File csv = new File(args[0]);
+        GazeSocketSource.Protocol protocol = (args.length > 1)
+                ? GazeSocketSource.Protocol.valueOf(args[1].toUpperCase(Locale.ROOT))
+                : GazeSocketSource.Protocol.TCP;
+        int port = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_PORT;
+        double speed = (args.length > 3) ? Double.parseDouble(args[3]) : 1.0;
+        long sent = replay(csv, protocol, port, speed);
+        System.out.println("Sent " + sent + " samples");
+    }
+
+    /**
+     * Sends the timed points of {@code csv} as {@code timestampSec,xNorm,yNorm} lines,
+     * pacing them by their timestamps divided by {@code speed}. Samples that fall due
+     * together go out in one write or datagram.
+     *
+     * @return number of samples sent
+     */
+    public static long replay(File csv, GazeSocketSource.Protocol protocol, int port, double speed)
+            throws IOException {
+        TimedSeries points = new CsvOverlayLoader(1, null).scan(csv, 1, 1).track();
+        if (points.size() == 0) {
+            return 0L;
+        }
+        double rate = (speed > 0 && Double.isFinite(speed)) ? speed : 1.0;
+        InetAddress host = InetAddress.getLoopbackAddress();
+        if (protocol == GazeSocketSource.Protocol.TCP) {
+            try (Socket socket = new Socket(host, port)) {
+                socket.setTcpNoDelay(true);
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                out.write("timestamp,norm_pos_x,norm_pos_y\n");
+                return pace(points, rate, text -> {
+                    out.write(text);
+                    out.flush();
+                });
+            }
+        }
+        try (DatagramSocket socket = new DatagramSocket()) {
+            return pace(points, rate, text -> {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                socket.send(new DatagramPacket(bytes, bytes.length, host, port));
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface Sender {
+        void send(String text) throws IOException;
+    }
+
+    private static long pace(TimedSeries points, double speed, Sender sender) throws IOException {
+        long startNanos = System.nanoTime();
+        long firstMs = points.timeMs(0);
+        StringBuilder pending = new StringBuilder();
+        long sent = 0;
+        int i = 0;
+        while (i < points.size()) {
+            long dueNanos = startNanos + Math.round((points.timeMs(i) - firstMs) * 1_000_000.0 / speed);
+            long wait = dueNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            long now = System.nanoTime();
+            while (i < points.size() && pending.length() < MAX_DATAGRAM_CHARS) {
+                long t = points.timeMs(i);
+                if (startNanos + Math.round((t - firstMs) * 1_000_000.0 / speed) > now) {
+                    break;
+                }
+                pending.append(t / 1000.0).append(',')
+                        .append(points.xNorm(i)).append(',')
+                        .append(points.yNorm(i)).append('\n');
+                i++;
+                sent++;
+            }
+            sender.send(pending.toString());
+            pending.setLength(0);
+        }
+        return sent;
+    }
+}
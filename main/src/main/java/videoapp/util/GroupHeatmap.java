@@ -0,0 +1,57 @@
+package videoapp.util;
+
+/**
+ * Immutable result of aggregating many participants' gaze CSVs into one heatmap grid.
+ * Cells are stored row-major with row 0 at the top of the video, matching
+ * {@link videoapp.ui.HeatmapOverlay}.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record GroupHeatmap(int rows,
+                           int cols,
+                           double[] cells,
+                           int participants,
+                           long samples,
+                           boolean normalized) {
+    private static final int SNAPSHOT_LEVELS = 1000;
+
+    public double cell(int row, int col) {
+        return cells[row * cols + col];
+    }
+
+    public double max() {
+        double max = 0.0;
+        for (double v : cells) {
+            if (v > max) {
+                max = v;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Quantises the grid into the integer snapshot format used by the heatmap overlay,
+     * scaled so the densest cell equals {@link #snapshotMax()}.
+     */
+    public int[][] snapshotGrid() {
+        int[][] grid = new int[rows][cols];
+        double max = max();
+        if (max <= 0.0) {
+            return grid;
+        }
+        double scale = SNAPSHOT_LEVELS / max;
+        for (int r = 0; r < rows; r++) {
+            int base = r * cols;
+            for (int c = 0; c < cols; c++) {
+                grid[r][c] = (int) Math.round(cells[base + c] * scale);
+            }
+        }
+        return grid;
+    }
+
+    public int snapshotMax() {
+        return (max() > 0.0) ? SNAPSHOT_LEVELS : 0;
+    }
+}
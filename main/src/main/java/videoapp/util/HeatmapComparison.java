@@ -0,0 +1,192 @@
+package videoapp.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compares a participant or subgroup against the rest of the group with a cell-wise
+ * permutation test on normalized heatmap grids (see
+ * {@link CorpusHeatmapAggregator#participantGrids}).
+ * Permutations are split into fork/join leaves; each leaf allocates its scratch arrays
+ * once and then shuffles and sums in place, so the inner loops never allocate.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class HeatmapComparison {
+    private static final int PERMUTATIONS_PER_LEAF = 64;
+    private static final double TIE_EPSILON = 1e-12;
+
+    private final int permutations;
+    private final double alpha;
+    private final long seed;
+
+    public HeatmapComparison(int permutations, double alpha, long seed) {
+        this.permutations = Math.max(1, permutations);
+        this.alpha = (alpha > 0.0 && alpha < 1.0) ? alpha : 0.05;
+        this.seed = seed;
+    }
+
+    public HeatmapDifference participantVsRest(double[][] grids, int participant, int rows, int cols) {
+        Objects.requireNonNull(grids, "grids");
+        boolean[] focus = new boolean[grids.length];
+        if (participant >= 0 && participant < focus.length) {
+            focus[participant] = true;
+        }
+        return compare(grids, focus, rows, cols);
+    }
+
+    /**
+     * Runs the permutation test for {@code focus} (true entries) versus everyone else.
+     *
+     * @throws IllegalArgumentException if either side of the split is empty or the grids
+     *                                  do not match {@code rows * cols}
+     */
+    public HeatmapDifference compare(double[][] grids, boolean[] focus, int rows, int cols) {
+        Objects.requireNonNull(grids, "grids");
+        Objects.requireNonNull(focus, "focus");
+        int participants = grids.length;
+        int cells = rows * cols;
+        if (focus.length != participants) {
+            throw new IllegalArgumentException("focus length must match participant count");
+        }
+
+        double[] data = new double[participants * cells];
+        int focusCount = 0;
+        for (int p = 0; p < participants; p++) {
+            double[] grid = grids[p];
+            if (grid == null || grid.length != cells) {
+                throw new IllegalArgumentException("grid " + p + " does not match " + rows + "x" + cols);
+            }
+            System.arraycopy(grid, 0, data, p * cells, cells);
+            if (focus[p]) {
+                focusCount++;
+            }
+        }
+        int restCount = participants - focusCount;
+        if (focusCount == 0 || restCount == 0) {
+            throw new IllegalArgumentException("both groups need at least one participant");
+        }
+
+        double[] totals = new double[cells];
+        double[] focusSums = new double[cells];
+        for (int p = 0; p < participants; p++) {
+            int base = p * cells;
+            for (int c = 0; c < cells; c++) {
+                double v = data[base + c];
+                totals[c] += v;
+                if (focus[p]) {
+                    focusSums[c] += v;
+                }
+            }
+        }
+
+        // The shuffled side is summed explicitly, so always shuffle the smaller group.
+        boolean sampleFocus = focusCount <= restCount;
+        int sampled = sampleFocus ? focusCount : restCount;
+        double[] observed = new double[cells];
+        double[] observedAbs = new double[cells];
+        for (int c = 0; c < cells; c++) {
+            double d = focusSums[c] / focusCount - (totals[c] - focusSums[c]) / restCount;
+            observed[c] = d;
+            observedAbs[c] = Math.abs(d) - TIE_EPSILON;
+        }
+
+        PermutationTask root = new PermutationTask(new PermutationInput(
+                data, totals, observedAbs, participants, cells, sampled,
+                sampleFocus ? focusCount : restCount,
+                sampleFocus ? restCount : focusCount),
+                0, permutations, seed);
+        int[] exceed = ForkJoinPool.commonPool().invoke(root);
+
+        double[] pValues = new double[cells];
+        boolean[] significant = new boolean[cells];
+        for (int c = 0; c < cells; c++) {
+            double p = (exceed[c] + 1.0) / (permutations + 1.0);
+            pValues[c] = p;
+            significant[c] = p < alpha && observed[c] != 0.0;
+        }
+        return new HeatmapDifference(rows, cols, observed, pValues, significant, permutations, alpha);
+    }
+
+    private record PermutationInput(double[] data, double[] totals, double[] observedAbs,
+                                    int participants, int cells, int sampled,
+                                    int sampledGroupSize, int otherGroupSize) {}
+
+    private static final class PermutationTask extends RecursiveTask<int[]> {
+        private final PermutationInput in;
+        private final int from;
+        private final int to;
+        private final long seed;
+
+        PermutationTask(PermutationInput in, int from, int to, long seed) {
+            this.in = in;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= PERMUTATIONS_PER_LEAF) {
+                return runLeaf();
+            }
+            int mid = (from + to) >>> 1;
+            PermutationTask left = new PermutationTask(in, from, mid, seed);
+            left.fork();
+            int[] right = new PermutationTask(in, mid, to, seed).compute();
+            int[] merged = left.join();
+            for (int c = 0; c < merged.length; c++) {
+                merged[c] += right[c];
+            }
+            return merged;
+        }
+
+        private int[] runLeaf() {
+            int cells = in.cells();
+            int participants = in.participants();
+            int sampled = in.sampled();
+            double[] data = in.data();
+            double[] totals = in.totals();
+            double[] observedAbs = in.observedAbs();
+            double invSampled = 1.0 / in.sampledGroupSize();
+            double invOther = 1.0 / in.otherGroupSize();
+
+            int[] exceed = new int[cells];
+            int[] order = new int[participants];
+            double[] sums = new double[cells];
+            // Seeding by leaf start keeps results reproducible regardless of scheduling.
+            SplittableRandom rng = new SplittableRandom(seed ^ (from * 0x9E3779B97F4A7C15L));
+
+            for (int perm = from; perm < to; perm++) {
+                for (int i = 0; i < participants; i++) {
+                    order[i] = i;
+                }
+                for (int i = 0; i < sampled; i++) {
+                    int j = i + rng.nextInt(participants - i);
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+                Arrays.fill(sums, 0.0);
+                for (int i = 0; i < sampled; i++) {
+                    int base = order[i] * cells;
+                    for (int c = 0; c < cells; c++) {
+                        sums[c] += data[base + c];
+                    }
+                }
+                for (int c = 0; c < cells; c++) {
+                    double d = sums[c] * invSampled - (totals[c] - sums[c]) * invOther;
+                    if (Math.abs(d) >= observedAbs[c]) {
+                        exceed[c]++;
+                    }
+                }
+            }
+            return exceed;
+        }
+    }
+}
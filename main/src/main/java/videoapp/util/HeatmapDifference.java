@@ -0,0 +1,41 @@
+package videoapp.util;
+
+/**
+ * Cell-wise comparison of two participant groups. {@code difference} holds the mean
+ * density of the focus group minus the mean density of the rest, {@code pValues} the
+ * two-sided permutation p-value per cell, and {@code significant} marks cells whose
+ * p-value falls below the alpha used for the test. All arrays are row-major.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record HeatmapDifference(int rows,
+                                int cols,
+                                double[] difference,
+                                double[] pValues,
+                                boolean[] significant,
+                                int permutations,
+                                double alpha) {
+
+    public double maxAbsDifference() {
+        double max = 0.0;
+        for (double d : difference) {
+            double abs = Math.abs(d);
+            if (abs > max) {
+                max = abs;
+            }
+        }
+        return max;
+    }
+
+    public int significantCells() {
+        int count = 0;
+        for (boolean s : significant) {
+            if (s) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,216 @@
+package videoapp.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable index over items that span closed time intervals, such as fixations, AOI
+ * visits or annotations, answering "which items overlap this time?" in O(log n + k) for
+ * k results.
+ * <p>
+ * Items live in a centred interval tree. Each node keeps the items that contain its
+ * centre twice, sorted by start and by descending end, so a point query only scans items
+ * it reports plus one per level. A range query is the point query at its start plus the
+ * items starting inside it, which are a contiguous run of the start-sorted array.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class IntervalIndex<T> {
+    private final Object[] items;
+    private final long[] starts;
+    private final long[] ends;
+    /** Item ids ordered by start time. */
+    private final int[] byStart;
+    private final long[] sortedStarts;
+    private final Node root;
+
+    private record Node(long center, int[] byStart, int[] byEnd, Node left, Node right) {}
+
+    private IntervalIndex(Object[] items, long[] starts, long[] ends) {
+        this.items = items;
+        this.starts = starts;
+        this.ends = ends;
+        this.byStart = TimeOrder.order(starts, items.length);
+        this.sortedStarts = new long[byStart.length];
+        for (int i = 0; i < byStart.length; i++) {
+            sortedStarts[i] = starts[byStart[i]];
+        }
+        this.root = build(byStart);
+    }
+
+    /**
+     * Indexes {@code items}, reading each one's interval through {@code start} and
+     * {@code end}. Items whose end precedes their start are skipped.
+     */
+    public static <T> IntervalIndex<T> of(Collection<? extends T> items,
+                                          ToLongFunction<? super T> start,
+                                          ToLongFunction<? super T> end) {
+        List<T> kept = new ArrayList<>(items.size());
+        for (T item : items) {
+            if (item != null && end.applyAsLong(item) >= start.applyAsLong(item)) {
+                kept.add(item);
+            }
+        }
+        Object[] array = kept.toArray();
+        long[] s = new long[array.length];
+        long[] e = new long[array.length];
+        for (int i = 0; i < array.length; i++) {
+            s[i] = start.applyAsLong(kept.get(i));
+            e[i] = end.applyAsLong(kept.get(i));
+        }
+        return new IntervalIndex<>(array, s, e);
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public boolean isEmpty() {
+        return items.length == 0;
+    }
+
+    /** Calls {@code action} for every item whose interval contains {@code timeMs}, in no particular order. */
+    public void forEachOverlapping(long timeMs, Consumer<? super T> action) {
+        Node node = root;
+        while (node != null) {
+            if (timeMs < node.center()) {
+                for (int id : node.byStart()) {
+                    if (starts[id] > timeMs) {
+                        break;
+                    }
+                    action.accept(item(id));
+                }
+                node = node.left();
+            } else if (timeMs > node.center()) {
+                for (int id : node.byEnd()) {
+                    if (ends[id] < timeMs) {
+                        break;
+                    }
+                    action.accept(item(id));
+                }
+                node = node.right();
+            } else {
+                for (int id : node.byStart()) {
+                    action.accept(item(id));
+                }
+                return;
+            }
+        }
+    }
+
+    /** Calls {@code action} for every item overlapping {@code fromMs..toMs}, in no particular order. */
+    public void forEachOverlapping(long fromMs, long toMs, Consumer<? super T> action) {
+        if (toMs < fromMs) {
+            return;
+        }
+        forEachOverlapping(fromMs, action);
+        for (int i = firstStartAfter(fromMs); i < sortedStarts.length && sortedStarts[i] <= toMs; i++) {
+            action.accept(item(byStart[i]));
+        }
+    }
+
+    public List<T> overlapping(long timeMs) {
+        List<T> result = new ArrayList<>();
+        forEachOverlapping(timeMs, result::add);
+        return result;
+    }
+
+    public List<T> overlapping(long fromMs, long toMs) {
+        List<T> result = new ArrayList<>();
+        forEachOverlapping(fromMs, toMs, result::add);
+        return result;
+    }
+
+    /**
+     * Time ranges covered by the items that pass {@code filter} and last at least
+     * {@code minDurationMs}, in time order. Overlapping matches are joined into one range,
+     * so the result is ready to be highlighted or stepped through.
+     */
+    public List<TimeRange> ranges(Predicate<? super T> filter, long minDurationMs) {
+        List<TimeRange> result = new ArrayList<>();
+        boolean open = false;
+        long rangeStart = 0L;
+        long rangeEnd = 0L;
+        for (int id : byStart) {
+            if (ends[id] - starts[id] < minDurationMs || !filter.test(item(id))) {
+                continue;
+            }
+            if (open && starts[id] <= rangeEnd) {
+                rangeEnd = Math.max(rangeEnd, ends[id]);
+                continue;
+            }
+            if (open) {
+                result.add(new TimeRange(rangeStart, rangeEnd));
+            }
+            open = true;
+            rangeStart = starts[id];
+            rangeEnd = ends[id];
+        }
+        if (open) {
+            result.add(new TimeRange(rangeStart, rangeEnd));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int id) {
+        return (T) items[id];
+    }
+
+    /** Position in the start-sorted order of the first item starting after {@code timeMs}. */
+    private int firstStartAfter(long timeMs) {
+        int lo = 0;
+        int hi = sortedStarts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedStarts[mid] <= timeMs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Builds the subtree for {@code ids}, given in start order. The centre is the median
+     * start, so both children hold at most half of the items and the depth stays O(log n).
+     */
+    private Node build(int[] ids) {
+        if (ids.length == 0) {
+            return null;
+        }
+        long center = starts[ids[ids.length / 2]];
+        int[] left = new int[ids.length];
+        int[] right = new int[ids.length];
+        int[] here = new int[ids.length];
+        int leftCount = 0;
+        int rightCount = 0;
+        int hereCount = 0;
+        for (int id : ids) {
+            if (ends[id] < center) {
+                left[leftCount++] = id;
+            } else if (starts[id] > center) {
+                right[rightCount++] = id;
+            } else {
+                here[hereCount++] = id;
+            }
+        }
+        int[] hereByStart = Arrays.copyOf(here, hereCount);
+        int[] byEnd = Arrays.copyOf(here, hereCount);
+        TimeOrder.sort(byEnd, hereCount, ends);
+        int[] hereByEnd = new int[hereCount];
+        for (int i = 0; i < hereCount; i++) {
+            hereByEnd[i] = byEnd[hereCount - 1 - i];
+        }
+        return new Node(center, hereByStart, hereByEnd,
+                build(Arrays.copyOf(left, leftCount)), build(Arrays.copyOf(right, rightCount)));
+    }
+}
@@ -0,0 +1,94 @@
+package videoapp.util;
+
+/**
+ * Constant-velocity Kalman filter per axis. Each axis tracks position and velocity; the
+ * prediction uses the actual time since the previous sample, so uneven sample rates are
+ * handled, and the measurement noise sets how much a single sample is trusted. Both axes
+ * share one noise model and start together, so they share the covariance and gains too.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class KalmanFilter extends GazeFilter {
+    private static final double INITIAL_VELOCITY_VARIANCE = 1.0;
+
+    private final double measurementVariance;
+    private final double accelerationVariance;
+    private double x;
+    private double y;
+    private double vx;
+    private double vy;
+    private double pp;
+    private double pv;
+    private double vv;
+
+    /**
+     * @param measurementNoise standard deviation of sample jitter, normalised units
+     * @param accelerationNoise spectral density of unmodelled acceleration; higher follows
+     *                          saccades more closely and smooths less
+     */
+    public KalmanFilter(double measurementNoise, double accelerationNoise) {
+        this.measurementVariance = measurementNoise * measurementNoise;
+        this.accelerationVariance = accelerationNoise;
+    }
+
+    @Override
+    protected void start(double x, double y) {
+        this.x = x;
+        this.y = y;
+        this.vx = 0.0;
+        this.vy = 0.0;
+        this.pp = measurementVariance;
+        this.pv = 0.0;
+        this.vv = INITIAL_VELOCITY_VARIANCE;
+    }
+
+    @Override
+    protected void run(long[] times, float[] xs, float[] ys, float[] outX, float[] outY,
+                       int from, int to, long previousMs) {
+        double q = accelerationVariance;
+        double r = measurementVariance;
+        double x = this.x;
+        double y = this.y;
+        double vx = this.vx;
+        double vy = this.vy;
+        double pp = this.pp;
+        double pv = this.pv;
+        double vv = this.vv;
+        long last = previousMs;
+        for (int i = from; i < to; i++) {
+            long t = times[i];
+            double dt = seconds(t - last);
+            last = t;
+            double dt2 = dt * dt;
+            double a = pp + 2.0 * dt * pv + dt2 * vv + q * dt2 * dt / 3.0;
+            double b = pv + dt * vv + q * dt2 / 2.0;
+            double c = vv + q * dt;
+            double s = a + r;
+            double kp = a / s;
+            double kv = b / s;
+            pp = (1.0 - kp) * a;
+            pv = (1.0 - kp) * b;
+            vv = c - kv * b;
+
+            double predictedX = x + vx * dt;
+            double predictedY = y + vy * dt;
+            double innovationX = xs[i] - predictedX;
+            double innovationY = ys[i] - predictedY;
+            x = predictedX + kp * innovationX;
+            y = predictedY + kp * innovationY;
+            vx += kv * innovationX;
+            vy += kv * innovationY;
+            outX[i] = (float) x;
+            outY[i] = (float) y;
+        }
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+        this.pp = pp;
+        this.pv = pv;
+        this.vv = vv;
+    }
+}
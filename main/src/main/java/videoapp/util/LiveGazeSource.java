@@ -0,0 +1,223 @@
+package videoapp.util;
+
+import videoapp.ui.TimedPointBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Base class for live gaze inputs. Each source runs one daemon reader thread that parses
+ * text lines and appends the samples to its {@link TimedPointBuffer}, which the overlay
+ * reads directly. Being the buffer's only writer keeps the hand-off lock-free.
+ * <p>
+ * Lines use the CSV rules of {@link CsvOverlayLoader}. If the first line of a stream does
+ * not start with a number it is treated as a header and the columns are detected from it;
+ * otherwise lines are read as {@code timestampSec,xNorm,yNorm}. Times are made relative
+ * to the first sample, as with timed CSV files. A {@link GazeEventDetector} can be attached
+ * to classify the samples into fixations and saccades as they arrive, and a {@link GazeFilter}
+ * to smooth the samples before they reach the buffer; the detector sees the raw samples.
+ * <p>
+ * When a new stream starts on the same source, such as a new client connecting or the
+ * followed file being truncated, the source starts over: a fresh buffer is handed to the
+ * {@link Listener}, and times are made relative to the new stream's first sample.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public abstract class LiveGazeSource implements Closeable {
+    private static final CsvSchema HEADERLESS = new CsvSchema(1, 2, 0, -1, -1, -1);
+
+    /** Told about changes of stream and about failures, on the reader thread. */
+    public interface Listener {
+        /** A new stream started; its samples go to {@code buffer} from now on. */
+        void onRestart(TimedPointBuffer buffer);
+
+        /** Reading stopped because of {@code error}, e.g. the port could not be bound. */
+        void onFailure(IOException error);
+    }
+
+    private final String threadName;
+    private final StringCsvRow row = new StringCsvRow();
+    private final double[] xy = new double[2];
+    private volatile TimedPointBuffer buffer = new TimedPointBuffer();
+    private Listener listener;
+    private GazeEventDetector.Settings detectorSettings;
+    private GazeEventDetector.Listener detectorListener;
+    private GazeEventDetector detector;
+    private volatile GazeFilter filter;
+    private CsvSchema schema = HEADERLESS;
+    private boolean expectHeader = true;
+    private boolean hasFirstTime;
+    private double firstTimeSec;
+    private volatile long samples;
+    private volatile boolean running;
+    private Thread thread;
+
+    protected LiveGazeSource(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /** The buffer of the current stream; see {@link Listener#onRestart}. */
+    public final TimedPointBuffer buffer() {
+        return buffer;
+    }
+
+    /** Reports new streams and failures to {@code listener}. Call before {@link #start()}. */
+    public final synchronized void listen(Listener listener) {
+        if (thread == null) {
+            this.listener = listener;
+        }
+    }
+
+    /** Number of samples accepted so far. */
+    public final long samples() {
+        return samples;
+    }
+
+    /**
+     * Runs a fixation and saccade detector over the accepted samples, reporting each
+     * finished event to {@code listener} on the reader thread. Call before {@link #start()}.
+     */
+    public final synchronized void detectEvents(GazeEventDetector.Settings settings,
+                                                GazeEventDetector.Listener listener) {
+        if (thread == null) {
+            detectorSettings = settings;
+            detectorListener = listener;
+            detector = new GazeEventDetector(settings, listener);
+        }
+    }
+
+    /**
+     * Smooths the samples that follow with {@code filter}, or stops smoothing if it is
+     * null. May be called while running; the filter is then used by the reader thread only.
+     */
+    public final void smooth(GazeFilter filter) {
+        this.filter = filter;
+    }
+
+    public final synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(() -> {
+            try {
+                readLoop();
+            } catch (IOException e) {
+                if (running && listener != null) {
+                    listener.onFailure(e);
+                }
+            } finally {
+                buffer.publish();
+                if (detector != null) {
+                    detector.flush();
+                }
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public final synchronized void close() {
+        running = false;
+        unblock();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    protected final boolean isRunning() {
+        return running;
+    }
+
+    /** Reads until {@link #isRunning()} turns false, handing lines to {@link #acceptLine}. */
+    protected abstract void readLoop() throws IOException;
+
+    /** Releases anything {@link #readLoop()} may be blocked on. Called from any thread. */
+    protected abstract void unblock();
+
+    /**
+     * Forgets everything about the current stream, e.g. when a new client connects: its
+     * header, first time, the detector's unfinished event and the smoothing filter's
+     * history. If the stream had any samples, the next ones go to a new buffer, which
+     * also resets the last time. Reader thread only.
+     */
+    protected final void restartStream() {
+        schema = HEADERLESS;
+        expectHeader = true;
+        hasFirstTime = false;
+        if (detector != null) {
+            detector = new GazeEventDetector(detectorSettings, detectorListener);
+        }
+        GazeFilter smoothing = filter;
+        if (smoothing != null) {
+            smoothing.reset();
+        }
+        TimedPointBuffer current = buffer;
+        if (current.lastTimeMs() != Long.MIN_VALUE) {
+            current.publish();
+            TimedPointBuffer next = new TimedPointBuffer();
+            buffer = next;
+            if (listener != null) {
+                listener.onRestart(next);
+            }
+        }
+    }
+
+    /** Parses one line and appends its sample, if any. Reader thread only. */
+    protected final void acceptLine(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        String[] fields = StringCsvRow.split(line);
+        if (expectHeader) {
+            expectHeader = false;
+            row.reset(fields);
+            if (!row.parseNumber(0)) {
+                schema = CsvSchema.detect(fields);
+                return;
+            }
+        }
+        if (!schema.hasTime()) {
+            return;
+        }
+        row.reset(fields);
+        if (schema.timeIdx() >= row.size() || !row.parseNumber(schema.timeIdx())) {
+            return;
+        }
+        double tSec = row.number();
+        if (!hasFirstTime) {
+            hasFirstTime = true;
+            firstTimeSec = tSec;
+        }
+        double relSec = tSec - firstTimeSec;
+        if (!Double.isFinite(relSec) || relSec < -3600 || relSec > 1e8) {
+            return;
+        }
+        if (!schema.readCoordinates(row, schema.timeIdx(), xy)
+                || !CsvSchema.isValidNorm(xy[0]) || !CsvSchema.isValidNorm(xy[1])) {
+            return;
+        }
+        long timeMs = Math.round(relSec * 1000.0);
+        TimedPointBuffer target = buffer;
+        if (timeMs < target.lastTimeMs()) {
+            return;
+        }
+        if (detector != null) {
+            detector.accept(timeMs, xy[0], xy[1]);
+        }
+        GazeFilter smoothing = filter;
+        if (smoothing != null) {
+            smoothing.filter(timeMs, xy);
+        }
+        target.append(timeMs, xy[0], xy[1]);
+        samples++;
+    }
+
+    /** Makes the samples accepted so far visible to the overlay. Reader thread only. */
+    protected final void flush() {
+        buffer.publish();
+    }
+}
@@ -0,0 +1,133 @@
+package videoapp.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads CSV lines from a memory-mapped file without decoding them to Strings.
+ * The file is mapped in windows of up to {@link #WINDOW_BYTES}; a window is re-mapped from
+ * the start of the current line whenever a line would cross its end, so files larger
+ * than 2 GB work. A reader may be limited to the lines that start inside a byte range,
+ * which is what the chunked parallel loader uses.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class MappedCsvReader implements CsvRowReader {
+    static final long WINDOW_BYTES = 1L << 28;
+
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private final long fileSize;
+    private final long rangeEnd;
+    private final ByteCsvRow row = new ByteCsvRow();
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLength;
+    private long position;
+    private boolean lastLineEmpty;
+
+    MappedCsvReader(FileChannel channel, long start, long end, boolean ownsChannel) throws IOException {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.fileSize = channel.size();
+        this.position = Math.max(0L, start);
+        this.rangeEnd = Math.min(end, fileSize);
+    }
+
+    static MappedCsvReader open(File csv) throws IOException {
+        FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ);
+        try {
+            return new MappedCsvReader(channel, 0L, Long.MAX_VALUE, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long position() {
+        return position;
+    }
+
+    @Override
+    public String[] readHeader() throws IOException {
+        return readLine() ? row.texts() : null;
+    }
+
+    /** Advances to the next non-empty line that starts before the end of the range. */
+    @Override
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (!lastLineEmpty) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public CsvRow row() {
+        return row;
+    }
+
+    private boolean readLine() throws IOException {
+        if (position >= rangeEnd) {
+            return false;
+        }
+        long minLength = 0;
+        while (true) {
+            ensureWindow(position, minLength);
+            int from = (int) (position - windowStart);
+            int end = row.tokenize(window, from, windowLength);
+            boolean windowAtEof = windowStart + windowLength >= fileSize;
+            if (end < windowLength) {
+                int terminator = 1;
+                if (window.get(end) == '\r') {
+                    if (end + 1 < windowLength) {
+                        terminator = (window.get(end + 1) == '\n') ? 2 : 1;
+                    } else if (!windowAtEof) {
+                        minLength = (long) (end - from) + 2;
+                        continue;
+                    }
+                }
+                lastLineEmpty = (end == from);
+                position = windowStart + end + terminator;
+                return true;
+            }
+            if (windowAtEof) {
+                lastLineEmpty = (end == from);
+                position = fileSize;
+                return true;
+            }
+            minLength = Math.max(2L * (end - from), 1L);
+        }
+    }
+
+    private void ensureWindow(long start, long minLength) throws IOException {
+        boolean covered = window != null && start >= windowStart
+                && start + Math.max(1, minLength) <= windowStart + windowLength;
+        if (covered) {
+            return;
+        }
+        long length = Math.min(fileSize - start, Math.max(WINDOW_BYTES, minLength));
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("CSV line longer than 2 GB at offset " + start);
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        windowStart = start;
+        windowLength = (int) length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
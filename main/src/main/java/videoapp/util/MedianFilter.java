@@ -0,0 +1,96 @@
+package videoapp.util;
+
+/**
+ * Causal moving median over the last three or five samples. Removes single-sample spikes
+ * without blurring edges, at the cost of a lag of half the window. The medians are
+ * computed with fixed min/max networks rather than by sorting, so there is no
+ * data-dependent branch for noisy input to mispredict. Until the window has filled after
+ * a restart, the median of the last three samples, or the newest sample, is reported.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class MedianFilter extends GazeFilter {
+    private final int window;
+    private int filled;
+    private double x1;
+    private double x2;
+    private double x3;
+    private double x4;
+    private double y1;
+    private double y2;
+    private double y3;
+    private double y4;
+
+    /**
+     * @param window samples in the window, 3 or 5
+     * @throws IllegalArgumentException for any other window
+     */
+    public MedianFilter(int window) {
+        if (window != 3 && window != 5) {
+            throw new IllegalArgumentException("window must be 3 or 5");
+        }
+        this.window = window;
+    }
+
+    @Override
+    protected void start(double x, double y) {
+        filled = 1;
+        x1 = x;
+        y1 = y;
+    }
+
+    @Override
+    protected void run(long[] times, float[] xs, float[] ys, float[] outX, float[] outY,
+                       int from, int to, long previousMs) {
+        int n = filled;
+        double x1 = this.x1, x2 = this.x2, x3 = this.x3, x4 = this.x4;
+        double y1 = this.y1, y2 = this.y2, y3 = this.y3, y4 = this.y4;
+        for (int i = from; i < to; i++) {
+            double inX = xs[i];
+            double inY = ys[i];
+            if (n < window) {
+                n++;
+            }
+            if (n == 5) {
+                outX[i] = (float) median5(x4, x3, x2, x1, inX);
+                outY[i] = (float) median5(y4, y3, y2, y1, inY);
+            } else if (n == 3 || n == 4) {
+                outX[i] = (float) median3(x2, x1, inX);
+                outY[i] = (float) median3(y2, y1, inY);
+            } else {
+                outX[i] = (float) inX;
+                outY[i] = (float) inY;
+            }
+            x4 = x3;
+            x3 = x2;
+            x2 = x1;
+            x1 = inX;
+            y4 = y3;
+            y3 = y2;
+            y2 = y1;
+            y1 = inY;
+        }
+        filled = n;
+        this.x1 = x1;
+        this.x2 = x2;
+        this.x3 = x3;
+        this.x4 = x4;
+        this.y1 = y1;
+        this.y2 = y2;
+        this.y3 = y3;
+        this.y4 = y4;
+    }
+
+    private static double median3(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /** Median of five: the larger of the pair minima and the smaller of the pair maxima bracket it. */
+    private static double median5(double a, double b, double c, double d, double e) {
+        double low = Math.max(Math.min(a, b), Math.min(c, d));
+        double high = Math.min(Math.max(a, b), Math.max(c, d));
+        return median3(e, low, high);
+    }
+}
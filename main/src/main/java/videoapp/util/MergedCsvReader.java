@@ -0,0 +1,199 @@
+package videoapp.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * {@link CsvRowReader} that merges several time-ordered CSV parts (rotated files, one file
+ * per eye, ...) into a single stream ordered by timestamp. A k-way merge over a heap keeps
+ * exactly one current row per part, so memory does not grow with the input; rows are
+ * never copied.
+ * <p>
+ * The first part's header defines the columns of the merged stream; rows of parts whose
+ * header differs are remapped by column name. Rows whose time cannot be parsed keep
+ * their position within their own part. Ties go to the earlier part, so merging the
+ * consecutive pieces of one file reproduces that file.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class MergedCsvReader implements CsvRowReader {
+    private final List<CsvRowReader> parts;
+    private final PriorityQueue<Cursor> heap = new PriorityQueue<>((a, b) -> {
+        int byTime = Double.compare(a.key, b.key);
+        return (byTime != 0) ? byTime : Integer.compare(a.order, b.order);
+    });
+    private Cursor current;
+
+    private static final class Cursor {
+        final CsvRowReader reader;
+        final int order;
+        final int timeIdx;
+        final RemappedCsvRow remapped;
+        double key = Double.NEGATIVE_INFINITY;
+
+        Cursor(CsvRowReader reader, int order, int timeIdx, int[] columns) {
+            this.reader = reader;
+            this.order = order;
+            this.timeIdx = timeIdx;
+            this.remapped = (columns != null) ? new RemappedCsvRow(columns) : null;
+        }
+
+        boolean advance() throws IOException {
+            if (!reader.next()) {
+                return false;
+            }
+            CsvRow row = reader.row();
+            if (timeIdx >= 0 && timeIdx < row.size() && row.parseNumber(timeIdx)) {
+                double t = row.number();
+                if (!Double.isNaN(t)) {
+                    key = t;
+                }
+            }
+            return true;
+        }
+
+        CsvRow row() {
+            CsvRow row = reader.row();
+            return (remapped != null) ? remapped.wrap(row) : row;
+        }
+    }
+
+    MergedCsvReader(List<CsvRowReader> parts) {
+        this.parts = List.copyOf(parts);
+    }
+
+    /** Reads every part's header and returns the first one, which the merged rows follow. */
+    @Override
+    public String[] readHeader() throws IOException {
+        String[] canonical = null;
+        int timeIdx = -1;
+        List<Cursor> cursors = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            CsvRowReader part = parts.get(i);
+            String[] header = part.readHeader();
+            if (header == null) {
+                continue;
+            }
+            if (canonical == null) {
+                canonical = header;
+                timeIdx = CsvSchema.detect(header).timeIdx();
+                cursors.add(new Cursor(part, i, timeIdx, null));
+                continue;
+            }
+            int[] columns = columnMap(canonical, header);
+            int partTimeIdx = (timeIdx >= 0) ? columns[timeIdx] : -1;
+            boolean identity = header.length == canonical.length && isIdentity(columns);
+            cursors.add(new Cursor(part, i, partTimeIdx, identity ? null : columns));
+        }
+        for (Cursor cursor : cursors) {
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return canonical;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (current != null && current.advance()) {
+            heap.add(current);
+        }
+        current = heap.poll();
+        return current != null;
+    }
+
+    @Override
+    public CsvRow row() {
+        return current.row();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException first = null;
+        for (CsvRowReader part : parts) {
+            try {
+                part.close();
+            } catch (IOException e) {
+                if (first == null) {
+                    first = e;
+                }
+            }
+        }
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    private static Map<String, Integer> indexByName(String[] header) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            index.putIfAbsent(normalize(header[i]), i);
+        }
+        return index;
+    }
+
+    /** For each canonical column, the index of the same-named column in {@code header}, or -1. */
+    private static int[] columnMap(String[] canonical, String[] header) {
+        Map<String, Integer> byName = indexByName(header);
+        int[] columns = new int[canonical.length];
+        for (int i = 0; i < canonical.length; i++) {
+            columns[i] = byName.getOrDefault(normalize(canonical[i]), -1);
+        }
+        return columns;
+    }
+
+    private static boolean isIdentity(int[] columns) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String name) {
+        String trimmed = name.trim().toLowerCase(Locale.ROOT);
+        return (!trimmed.isEmpty() && trimmed.charAt(0) == '\uFEFF') ? trimmed.substring(1) : trimmed;
+    }
+
+    /** Presents a part's row in the canonical column order. */
+    private static final class RemappedCsvRow implements CsvRow {
+        private final int[] columns;
+        private CsvRow row;
+
+        RemappedCsvRow(int[] columns) {
+            this.columns = columns;
+        }
+
+        RemappedCsvRow wrap(CsvRow source) {
+            this.row = source;
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public boolean parseNumber(int index) {
+            if (index < 0 || index >= columns.length) {
+                return false;
+            }
+            int source = columns[index];
+            return source >= 0 && source < row.size() && row.parseNumber(source);
+        }
+
+        @Override
+        public double number() {
+            return row.number();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package videoapp.util;
+
+/**
+ * Minimum and maximum of a value column over any index range, in O(log n). Level 0 is the
+ * column itself and each level above holds the minima and maxima of pairs from the level
+ * below, so a range is covered by at most two entries per level. Missing values are NaN
+ * and are skipped. The levels together take as much memory as the column twice over.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class MinMaxPyramid {
+    private final float[] values;
+    private final int size;
+    private final float[][] mins;
+    private final float[][] maxs;
+
+    /** Builds the pyramid over {@code values[0..size-1]}; the array is kept, not copied. */
+    public MinMaxPyramid(float[] values, int size) {
+        this.values = values;
+        this.size = size;
+        int levels = 0;
+        for (int n = size; n > 1; n = (n + 1) >> 1) {
+            levels++;
+        }
+        mins = new float[levels][];
+        maxs = new float[levels][];
+        float[] belowMin = values;
+        float[] belowMax = values;
+        int belowSize = size;
+        for (int level = 0; level < levels; level++) {
+            int n = (belowSize + 1) >> 1;
+            float[] min = new float[n];
+            float[] max = new float[n];
+            for (int i = 0; i < n; i++) {
+                int left = i << 1;
+                int right = Math.min(left + 1, belowSize - 1);
+                min[i] = lesser(belowMin[left], belowMin[right]);
+                max[i] = greater(belowMax[left], belowMax[right]);
+            }
+            mins[level] = min;
+            maxs[level] = max;
+            belowMin = min;
+            belowMax = max;
+            belowSize = n;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the minimum and maximum of entries {@code from..to-1} to {@code out[0]} and
+     * {@code out[1]}.
+     *
+     * @return false if the range is empty or holds only missing values
+     */
+    public boolean range(int from, int to, float[] out) {
+        int lo = Math.max(0, from);
+        int hi = Math.min(size, to);
+        float min = Float.NaN;
+        float max = Float.NaN;
+        for (int level = 0; lo < hi; level++) {
+            float[] levelMin = (level == 0) ? values : mins[level - 1];
+            float[] levelMax = (level == 0) ? values : maxs[level - 1];
+            if ((lo & 1) != 0) {
+                min = lesser(min, levelMin[lo]);
+                max = greater(max, levelMax[lo]);
+                lo++;
+            }
+            if ((hi & 1) != 0) {
+                hi--;
+                min = lesser(min, levelMin[hi]);
+                max = greater(max, levelMax[hi]);
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        out[0] = min;
+        out[1] = max;
+        return !Float.isNaN(min);
+    }
+
+    /** Minimum of the whole column, or NaN if every value is missing. */
+    public float min() {
+        return (mins.length > 0) ? mins[mins.length - 1][0] : (size > 0 ? values[0] : Float.NaN);
+    }
+
+    /** Maximum of the whole column, or NaN if every value is missing. */
+    public float max() {
+        return (maxs.length > 0) ? maxs[maxs.length - 1][0] : (size > 0 ? values[0] : Float.NaN);
+    }
+
+    private static float lesser(float a, float b) {
+        return (a <= b || b != b) ? a : b;
+    }
+
+    private static float greater(float a, float b) {
+        return (a >= b || b != b) ? a : b;
+    }
+}
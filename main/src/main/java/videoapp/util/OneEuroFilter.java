@@ -0,0 +1,76 @@
+package videoapp.util;
+
+/**
+ * One-Euro filter (Casiez et al., 2012): a low-pass filter whose cutoff rises with the
+ * speed of the signal, so fixations are smoothed heavily while saccades pass with
+ * little lag.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class OneEuroFilter extends GazeFilter {
+    private static final double TWO_PI = 2.0 * Math.PI;
+
+    private final double minCutoffHz;
+    private final double beta;
+    private final double derivativeCutoffHz;
+    private double x;
+    private double y;
+    private double dx;
+    private double dy;
+
+    /**
+     * @param minCutoffHz        cutoff while the gaze is still; lower smooths more
+     * @param beta               cutoff added per normalised unit per second of speed
+     * @param derivativeCutoffHz cutoff of the speed estimate
+     */
+    public OneEuroFilter(double minCutoffHz, double beta, double derivativeCutoffHz) {
+        this.minCutoffHz = minCutoffHz;
+        this.beta = beta;
+        this.derivativeCutoffHz = derivativeCutoffHz;
+    }
+
+    @Override
+    protected void start(double x, double y) {
+        this.x = x;
+        this.y = y;
+        this.dx = 0.0;
+        this.dy = 0.0;
+    }
+
+    @Override
+    protected void run(long[] times, float[] xs, float[] ys, float[] outX, float[] outY,
+                       int from, int to, long previousMs) {
+        double x = this.x;
+        double y = this.y;
+        double dx = this.dx;
+        double dy = this.dy;
+        long last = previousMs;
+        for (int i = from; i < to; i++) {
+            long t = times[i];
+            double dt = seconds(t - last);
+            last = t;
+            double rate = 1.0 / dt;
+            double derivativeAlpha = alpha(derivativeCutoffHz, dt);
+            double inX = xs[i];
+            double inY = ys[i];
+            dx += derivativeAlpha * ((inX - x) * rate - dx);
+            dy += derivativeAlpha * ((inY - y) * rate - dy);
+            x += alpha(minCutoffHz + beta * Math.abs(dx), dt) * (inX - x);
+            y += alpha(minCutoffHz + beta * Math.abs(dy), dt) * (inY - y);
+            outX[i] = (float) x;
+            outY[i] = (float) y;
+        }
+        this.x = x;
+        this.y = y;
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    /** Smoothing factor of a first-order low-pass at {@code cutoffHz}. */
+    private static double alpha(double cutoffHz, double dtSec) {
+        double w = TWO_PI * cutoffHz * dtSec;
+        return w / (w + 1.0);
+    }
+}
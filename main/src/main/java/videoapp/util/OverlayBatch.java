@@ -0,0 +1,33 @@
+package videoapp.util;
+
+import videoapp.ui.TimedPointBuffer;
+
+/**
+ * Progress of a streaming load: the points published since the previous batch, in
+ * non-decreasing time order, together with the heatmap and frame-offset state of the whole
+ * file so far. Batches of a file without a time column carry no points, only the growing
+ * heatmap.
+ *
+ * @param timed           whether the file has produced timed points
+ * @param points          every point published so far, shared by all batches of the load
+ *                        and still growing; times are relative to the first row
+ * @param from            index in {@code points} of this batch's first point
+ * @param count           number of points in this batch
+ * @param heatmapGrid     heatmap counts over every row read so far
+ * @param heatmapMaxCount largest cell in {@code heatmapGrid}
+ * @param frameOffsets    frame-index samples gathered so far
+ * @param rowsRead        data rows read so far
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record OverlayBatch(boolean timed,
+                           TimedPointBuffer points,
+                           int from,
+                           int count,
+                           int[][] heatmapGrid,
+                           int heatmapMaxCount,
+                           FrameOffsetSamples frameOffsets,
+                           long rowsRead) {
+}
@@ -0,0 +1,69 @@
+package videoapp.util;
+
+import videoapp.ui.TimedPointBuffer;
+
+/**
+ * Turns the progress of an {@link OverlayScanner} into {@link OverlayBatch}es for a
+ * streaming load. The first batch goes out after {@link #FIRST_BATCH_ROWS} rows so overlays
+ * appear almost at once; later batches at most every {@link #BATCH_INTERVAL_NANOS}.
+ * <p>
+ * Points are published to one {@link TimedPointBuffer} shared by every batch, and that
+ * buffer also becomes the bulk of the final track, so the samples are held once. Batches
+ * are time-ordered across the whole load: points are sorted within a batch and any point
+ * older than the last one already published is held back. Such late points are still
+ * part of the final scan, which the caller applies once loading completes.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class OverlayBatchPublisher {
+    static final int FIRST_BATCH_ROWS = 1024;
+    static final long BATCH_INTERVAL_NANOS = 100_000_000L;
+    private static final int CHECK_EVERY_ROWS = 1024;
+
+    private final OverlayScanner scanner;
+    private final CsvOverlayLoader.BatchListener listener;
+    private final TimedPointBuffer points;
+    private long lastPublishNanos;
+    private boolean sentFirst;
+    private int rowsSinceCheck;
+
+    OverlayBatchPublisher(OverlayScanner scanner, CsvOverlayLoader.BatchListener listener) {
+        this.scanner = scanner;
+        this.listener = listener;
+        this.points = scanner.timedSoFar().stream();
+    }
+
+    /** Call after every row handed to the scanner. */
+    void rowRead() {
+        if (++rowsSinceCheck < (sentFirst ? CHECK_EVERY_ROWS : FIRST_BATCH_ROWS)) {
+            return;
+        }
+        rowsSinceCheck = 0;
+        long now = System.nanoTime();
+        if (!sentFirst || now - lastPublishNanos >= BATCH_INTERVAL_NANOS) {
+            publish(now);
+        }
+    }
+
+    /** Publishes whatever is left once the file has been read. */
+    void flush() {
+        if (!sentFirst || scanner.timedSoFar().pendingCount() > 0) {
+            publish(System.nanoTime());
+        }
+    }
+
+    private void publish(long now) {
+        int from = points.size();
+        int count = scanner.timedSoFar().publish();
+        sentFirst = true;
+        lastPublishNanos = now;
+        OverlayBatch batch = new OverlayBatch(scanner.isTimed(), points, from, count,
+                scanner.gridCopy(), scanner.gridMax(), scanner.frameOffsetsSoFar(), scanner.dataRows());
+        try {
+            listener.onBatch(batch);
+        } catch (RuntimeException ignore) {
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package videoapp.util;
+
+import videoapp.ui.CompressedGazeTrack;
+import videoapp.ui.GazeTrack;
+import videoapp.ui.OverlayPoint;
+import videoapp.ui.TimedSeries;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Columnar binary cache of parsed gaze CSVs. After a successful scan the points are written
+ * to {@code <cacheDir>/<name>-<hash>.gzc}: times as zig-zag varint deltas, x and y as float
+ * columns for timed points (which a track stores as floats) or double columns for static
+ * ones, plus the detected schema, the heatmap grid, the frame-offset samples and the row
+ * counters. Later scans read that file instead of parsing text. Entries are written and
+ * read a column at a time through small buffers, so neither side holds a whole entry in
+ * memory and entries may exceed 2 GiB.
+ * <p>
+ * An entry is only used while the CSV still has the same path, size and modification
+ * time and the same content fingerprint (CRC32C over the head, tail and evenly spaced
+ * blocks of the file), so edited or replaced files are simply parsed again.
+ * <p>
+ * Entries are written on a background thread once the scan has been handed back, so a
+ * load is never held up by the cache. The directory is kept under a size limit: after
+ * each write the least recently used entries are deleted, where reading an entry counts
+ * as a use.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class OverlayScanCache {
+    static final long MIN_CSV_BYTES = 1L << 20;
+
+    private static final int MAGIC = 0x315A4347; // "GCZ1"
+    private static final int VERSION = 3;
+    private static final int EDGE_BYTES = 64 * 1024;
+    private static final int SAMPLE_BLOCKS = 16;
+    private static final int SAMPLE_BYTES = 4 * 1024;
+    private static final long DEFAULT_MAX_BYTES = 2L << 30;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final String ENTRY_SUFFIX = ".gzc";
+    private static final String TEMP_SUFFIX = ".tmp";
+    /** Temporary files older than this are left over from a crashed write. */
+    private static final long STALE_TEMP_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final ExecutorService WRITER = writer();
+
+    private final File dir;
+    private final long maxBytes;
+
+    OverlayScanCache(File dir) {
+        this(dir, DEFAULT_MAX_BYTES);
+    }
+
+    /** @param maxBytes total size of the entries kept in {@code dir} */
+    OverlayScanCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    private static ExecutorService writer() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 10L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "overlay-cache-writer");
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /** Identity of a CSV at the moment it was examined. */
+    record Key(String path, long size, long modified, long fingerprint) {
+        boolean stillMatches(File csv) {
+            return csv.length() == size && csv.lastModified() == modified;
+        }
+    }
+
+    /**
+     * @return the CSV's current identity, or {@code null} when it is too small to be worth
+     *         caching or cannot be read
+     */
+    Key keyFor(File csv) {
+        long size = csv.length();
+        if (size < MIN_CSV_BYTES) {
+            return null;
+        }
+        try {
+            return new Key(csv.getCanonicalPath(), size, csv.lastModified(), fingerprint(csv.toPath(), size));
+        } catch (IOException ignore) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads the cached scan for {@code key}, re-binning the heatmap from the cached points
+     * when the requested grid size differs from the stored one.
+     *
+     * @return the cached scan, or {@code null} on a miss or a stale/corrupt entry
+     */
+    CsvOverlayScan read(Key key, int heatRows, int heatCols, long startNanos) {
+        if (key == null) {
+            return null;
+        }
+        File file = entryFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            CsvOverlayScan scan = decode(channel, key, Math.max(1, heatRows), Math.max(1, heatCols), startNanos);
+            if (scan != null) {
+                file.setLastModified(System.currentTimeMillis());
+            }
+            return scan;
+        } catch (IOException | RuntimeException stale) {
+            return null;
+        }
+    }
+
+    /** Queues {@link #write} on the background writer and returns at once. */
+    void writeLater(Key key, CsvSchema schema, CsvOverlayScan scan) {
+        if (key == null || scan == null || schema == null) {
+            return;
+        }
+        WRITER.execute(() -> {
+            write(key, schema, scan);
+            evict();
+        });
+    }
+
+    /**
+     * Stores {@code scan} for {@code key}. Written to a temporary file, flushed to disk and
+     * only then moved into place, so neither a concurrent reader nor a write cut short by
+     * a crash ever leaves a partial entry under the entry's name. Failures are ignored;
+     * the cache is only an accelerator.
+     */
+    void write(Key key, CsvSchema schema, CsvOverlayScan scan) {
+        if (key == null || scan == null || schema == null) {
+            return;
+        }
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir.toPath());
+            Path target = entryFor(key).toPath();
+            tmp = Files.createTempFile(dir.toPath(), target.getFileName().toString(), TEMP_SUFFIX);
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                encode(channel, key, schema, scan);
+                channel.force(false);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (IOException | RuntimeException ignore) {
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the rest fit in the size limit, and
+     * temporary files left behind by writes that never finished.
+     */
+    void evict() {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long total = 0L;
+        List<Entry> entries = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TEMP_SUFFIX) && now - file.lastModified() > STALE_TEMP_MS) {
+                file.delete();
+            } else if (name.endsWith(ENTRY_SUFFIX) && file.isFile()) {
+                Entry entry = new Entry(file, file.length(), file.lastModified());
+                entries.add(entry);
+                total += entry.bytes();
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(Entry::lastUsed));
+        for (int i = 0; i < entries.size() && total > maxBytes; i++) {
+            Entry victim = entries.get(i);
+            if (victim.file().delete()) {
+                total -= victim.bytes();
+            }
+        }
+    }
+
+    private record Entry(File file, long bytes, long lastUsed) {
+    }
+
+    private File entryFor(Key key) {
+        String name = new File(key.path()).getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(dir, name + "-" + Integer.toHexString(key.path().hashCode()) + ENTRY_SUFFIX);
+    }
+
+    private static void encode(FileChannel channel, Key key, CsvSchema schema, CsvOverlayScan scan)
+            throws IOException {
+        boolean timed = scan.timed();
+        TimedSeries track = scan.track();
+        List<OverlayPoint> fixed = scan.staticPoints();
+        int count = timed ? track.size() : fixed.size();
+        int[][] grid = scan.heatmapGrid();
+        int rows = grid.length;
+        int cols = (rows > 0) ? grid[0].length : 0;
+        long[][] samples = scan.frameOffsets().toArrays();
+        byte[] path = key.path().getBytes(StandardCharsets.UTF_8);
+
+        long timeBytes = 0;
+        if (timed) {
+            long prev = 0;
+            for (int i = 0; i < count; i++) {
+                long t = track.timeMs(i);
+                timeBytes += varintLength(zigZag(t - prev));
+                prev = t;
+            }
+        }
+        long total = 4L * 2 + 4 + path.length + 8L * 3 + 4L * 6
+                + 4L + 4 + 8 * 2 + 4L * 3 + 4L + 8L
+                + 4L * rows * cols + 16L * samples[0].length + (timed ? 8L : 16L) * count + timeBytes;
+        ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        room(channel, out, 12 + path.length).putInt(MAGIC).putInt(VERSION).putInt(path.length).put(path);
+        room(channel, out, 8 * 3).putLong(key.size()).putLong(key.modified()).putLong(key.fingerprint());
+        room(channel, out, 4 * 6).putInt(schema.xIdx()).putInt(schema.yIdx()).putInt(schema.timeIdx())
+                .putInt(schema.frameIdx()).putInt(schema.frameTimeIdx()).putInt(schema.durationIdx());
+        CsvLoadStats stats = scan.stats();
+        room(channel, out, 4 * 2 + 8 * 2).putInt(timed ? 1 : 0).putInt(count)
+                .putLong(stats.rows()).putLong(stats.skippedRows());
+        room(channel, out, 4 * 4 + 8).putInt(rows).putInt(cols).putInt(scan.heatmapMaxCount())
+                .putInt(samples[0].length).putLong(timeBytes);
+
+        for (int[] row : grid) {
+            for (int v : row) {
+                room(channel, out, 4).putInt(v);
+            }
+        }
+        for (long[] column : samples) {
+            for (long v : column) {
+                room(channel, out, 8).putLong(v);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (timed) {
+                room(channel, out, 4).putFloat((float) track.xNorm(i));
+            } else {
+                room(channel, out, 8).putDouble(fixed.get(i).xNorm);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (timed) {
+                room(channel, out, 4).putFloat((float) track.yNorm(i));
+            } else {
+                room(channel, out, 8).putDouble(fixed.get(i).yNorm);
+            }
+        }
+        if (timed) {
+            long prev = 0;
+            for (int i = 0; i < count; i++) {
+                long t = track.timeMs(i);
+                putVarint(room(channel, out, 10), zigZag(t - prev));
+                prev = t;
+            }
+        }
+        drain(channel, out);
+        if (channel.position() != total) {
+            throw new IOException("Cache entry is " + channel.position() + " bytes, expected " + total);
+        }
+    }
+
+    /** {@code out}, first written to {@code channel} if it has less than {@code bytes} left. */
+    private static ByteBuffer room(FileChannel channel, ByteBuffer out, int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            drain(channel, out);
+        }
+        return out;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    private static CsvOverlayScan decode(FileChannel channel, Key key, int heatRows, int heatCols, long startNanos)
+            throws IOException {
+        ColumnReader in = new ColumnReader(channel, 0L);
+        if (in.need(8).getInt() != MAGIC || in.buffer().getInt() != VERSION) {
+            return null;
+        }
+        byte[] path = new byte[in.need(4).getInt()];
+        in.need(path.length).get(path);
+        if (!key.path().equals(new String(path, StandardCharsets.UTF_8))
+                || in.need(8 * 3).getLong() != key.size() || in.buffer().getLong() != key.modified()
+                || in.buffer().getLong() != key.fingerprint()) {
+            return null;
+        }
+        in.need(4 * 6).position(in.buffer().position() + 4 * 6); // schema; not needed to rebuild the scan
+        ByteBuffer head = in.need(4 * 2 + 8 * 2 + 4 * 4 + 8);
+        boolean timed = head.getInt() == 1;
+        int count = head.getInt();
+        long dataRows = head.getLong();
+        long skipped = head.getLong();
+        int rows = head.getInt();
+        int cols = head.getInt();
+        int max = head.getInt();
+        int sampleCount = head.getInt();
+        long timeBytes = head.getLong();
+
+        int[][] grid = new int[rows][cols];
+        for (int[] row : grid) {
+            for (int c = 0; c < cols; c++) {
+                row[c] = in.need(4).getInt();
+            }
+        }
+        long[] frameIndices = new long[sampleCount];
+        long[] frameCsvMs = new long[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            frameIndices[i] = in.need(8).getLong();
+        }
+        for (int i = 0; i < sampleCount; i++) {
+            frameCsvMs[i] = in.need(8).getLong();
+        }
+        int width = timed ? 4 : 8;
+        long xsStart = in.position();
+        long ysStart = xsStart + (long) width * count;
+        long timesStart = ysStart + (long) width * count;
+        if (channel.size() != timesStart + (timed ? timeBytes : 0L)) {
+            return null;
+        }
+        ColumnReader xs = new ColumnReader(channel, xsStart);
+        ColumnReader ys = new ColumnReader(channel, ysStart);
+
+        boolean rebin = rows != heatRows || cols != heatCols;
+        if (rebin) {
+            grid = new int[heatRows][heatCols];
+            max = 0;
+        }
+        FrameOffsetSamples offsets = new FrameOffsetSamples(frameIndices, frameCsvMs, sampleCount);
+        CsvLoadStats stats = new CsvLoadStats(dataRows, count, skipped, key.size(), 0L);
+        if (timed) {
+            ColumnReader times = new ColumnReader(channel, timesStart);
+            boolean compact = count >= CompressedGazeTrack.COMPACT_THRESHOLD;
+            GazeTrack.Builder plain = compact ? null : new GazeTrack.Builder(count);
+            CompressedGazeTrack.Builder packed = compact ? new CompressedGazeTrack.Builder() : null;
+            long t = 0;
+            for (int i = 0; i < count; i++) {
+                t += unZigZag(getVarint(times));
+                float x = xs.need(4).getFloat();
+                float y = ys.need(4).getFloat();
+                if (packed == null) {
+                    plain.add(t, x, y);
+                } else if (!packed.append(t, x, y)) {
+                    return null;
+                }
+                if (rebin) {
+                    max = Math.max(max, ++grid[OverlayScanner.gridRow(y, heatRows)][OverlayScanner.gridCol(x, heatCols)]);
+                }
+            }
+            TimedSeries track = (packed != null) ? packed.build() : plain.build();
+            return CsvOverlayScan.timed(track, grid, max, offsets, withElapsed(stats, startNanos));
+        }
+        List<OverlayPoint> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double x = xs.need(8).getDouble();
+            double y = ys.need(8).getDouble();
+            points.add(new OverlayPoint(x, y));
+            if (rebin) {
+                max = Math.max(max, ++grid[OverlayScanner.gridRow(y, heatRows)][OverlayScanner.gridCol(x, heatCols)]);
+            }
+        }
+        return CsvOverlayScan.fixed(points, grid, max, offsets, withElapsed(stats, startNanos));
+    }
+
+    /** Sequential reader over one region of an entry, refilled by positional reads. */
+    private static final class ColumnReader {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(READ_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long next;
+
+        ColumnReader(FileChannel channel, long start) {
+            this.channel = channel;
+            this.next = start;
+            buf.limit(0);
+        }
+
+        /** The buffer, holding at least {@code bytes} unread bytes. */
+        ByteBuffer need(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                buf.compact();
+                while (buf.position() < bytes) {
+                    int read = channel.read(buf, next);
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    next += read;
+                }
+                buf.flip();
+            }
+            return buf;
+        }
+
+        ByteBuffer buffer() {
+            return buf;
+        }
+
+        /** File position of the next unread byte. */
+        long position() {
+            return next - buf.remaining();
+        }
+    }
+
+    private static CsvLoadStats withElapsed(CsvLoadStats stats, long startNanos) {
+        return new CsvLoadStats(stats.rows(), stats.points(), stats.skippedRows(), stats.bytes(),
+                (System.nanoTime() - startNanos) / 1_000_000L);
+    }
+
+    /**
+     * CRC32C over the first and last {@link #EDGE_BYTES} and {@link #SAMPLE_BLOCKS} blocks
+     * spread across the middle. Cheap enough to run on every open even for large files,
+     * while still catching in-place edits that keep the size and timestamp.
+     */
+    static long fingerprint(Path csv, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(EDGE_BYTES);
+            if (size <= 2L * EDGE_BYTES + (long) SAMPLE_BLOCKS * SAMPLE_BYTES) {
+                for (long pos = 0; pos < size; pos += EDGE_BYTES) {
+                    update(crc, channel, buf, pos, EDGE_BYTES);
+                }
+                return crc.getValue();
+            }
+            update(crc, channel, buf, 0L, EDGE_BYTES);
+            long middle = size - 2L * EDGE_BYTES;
+            for (int i = 0; i < SAMPLE_BLOCKS; i++) {
+                update(crc, channel, buf, EDGE_BYTES + (middle * i) / SAMPLE_BLOCKS, SAMPLE_BYTES);
+            }
+            update(crc, channel, buf, size - EDGE_BYTES, EDGE_BYTES);
+        }
+        return crc.getValue();
+    }
+
+    private static void update(CRC32C crc, FileChannel channel, ByteBuffer buf, long pos, int length)
+            throws IOException {
+        buf.clear().limit(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0) {
+                break;
+            }
+        }
+        buf.flip();
+        crc.update(buf);
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static int varintLength(long v) {
+        int n = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            n++;
+        }
+        return n;
+    }
+
+    private static void putVarint(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static long getVarint(ColumnReader in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.need(1).get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return v;
+    }
+}
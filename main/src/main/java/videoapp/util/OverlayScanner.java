@@ -0,0 +1,276 @@
+package videoapp.util;
+
+import videoapp.ui.OverlayPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass accumulator behind {@link CsvOverlayLoader#scan}. Each data row is examined
+ * once and feeds, in the same step, the timed points, the static fallback points, the
+ * matching heatmap grid, and the frame-index samples used for offset estimation.
+ * Row handling mirrors {@code loadTimed}, {@code load} and
+ * {@code suggestOffsetFromFrameIndex} exactly so the results are interchangeable.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class OverlayScanner {
+    private final CsvSchema schema;
+    private final int rows;
+    private final int cols;
+
+    private final TrackAccumulator timed = new TrackAccumulator();
+    private final int[][] timedGrid;
+    private int timedMax;
+
+    // Static points are only needed while no timed point exists; dropped after the first one.
+    private List<OverlayPoint> fallback = new ArrayList<>();
+    private int[][] fallbackGrid;
+    private int fallbackMax;
+
+    private boolean hasFirstTime;
+    private double firstTimeSec;
+    private boolean hasFirstFrameTime;
+    private double firstFrameTimeSec;
+    private final FrameOffsetSamples.Builder frameSamples = new FrameOffsetSamples.Builder();
+
+    private long dataRows;
+    private final double[] xy = new double[2];
+    private double x;
+    private double y;
+
+    OverlayScanner(CsvSchema schema, int heatRows, int heatCols) {
+        this.schema = schema;
+        this.rows = Math.max(1, heatRows);
+        this.cols = Math.max(1, heatCols);
+        this.timedGrid = new int[rows][cols];
+        this.fallbackGrid = new int[rows][cols];
+    }
+
+    /**
+     * Records the first timestamps this row would establish without accumulating anything.
+     * Used to resolve the file-wide reference times before chunks are scanned in parallel.
+     *
+     * @return true once every first timestamp this schema needs is known
+     */
+    boolean probe(CsvRow row) {
+        int size = row.size();
+        if (schema.hasTime() && !hasFirstTime
+                && schema.timeIdx() < size && row.parseNumber(schema.timeIdx())) {
+            hasFirstTime = true;
+            firstTimeSec = row.number();
+        }
+        if (!hasFirstFrameTime && schema.frameColumnsInBounds(size)
+                && row.parseNumber(schema.frameTimeIdx())) {
+            hasFirstFrameTime = true;
+            firstFrameTimeSec = row.number();
+        }
+        return probeComplete();
+    }
+
+    boolean probeComplete() {
+        return (!schema.hasTime() || hasFirstTime) && (!schema.hasFrameIndex() || hasFirstFrameTime);
+    }
+
+    /**
+     * Adopts the first timestamps found by {@code source}'s probe, so rows are normalised
+     * against the start of the whole file rather than the start of a chunk.
+     */
+    void presetFirstTimes(OverlayScanner source) {
+        if (source.hasFirstTime && !hasFirstTime) {
+            hasFirstTime = true;
+            firstTimeSec = source.firstTimeSec;
+        }
+        if (source.hasFirstFrameTime && !hasFirstFrameTime) {
+            hasFirstFrameTime = true;
+            firstFrameTimeSec = source.firstFrameTimeSec;
+        }
+    }
+
+    /**
+     * Appends the rows scanned by {@code next}, which must cover the lines directly
+     * following this scanner's and share its first timestamps.
+     */
+    void append(OverlayScanner next) {
+        dataRows += next.dataRows;
+        if (next.timed.size() > 0) {
+            timed.addAll(next.timed);
+            timedMax = addGrid(timedGrid, next.timedGrid);
+            fallback = null;
+            fallbackGrid = null;
+        }
+        if (fallback != null && timed.size() == 0 && next.fallback != null) {
+            fallback.addAll(next.fallback);
+            fallbackMax = addGrid(fallbackGrid, next.fallbackGrid);
+        }
+        frameSamples.append(next.frameSamples);
+    }
+
+    private static int addGrid(int[][] target, int[][] source) {
+        int max = 0;
+        for (int r = 0; r < target.length; r++) {
+            for (int c = 0; c < target[r].length; c++) {
+                int v = target[r][c] + source[r][c];
+                target[r][c] = v;
+                if (v > max) {
+                    max = v;
+                }
+            }
+        }
+        return max;
+    }
+
+    static long durationAdjustmentMs(double dur) {
+        if (dur > 1000) {
+            dur /= 1000.0;
+        }
+        return Math.round((dur * 1000.0) / 2.0);
+    }
+
+    void accept(CsvRow row) {
+        dataRows++;
+        int size = row.size();
+        if (schema.hasTime()) {
+            acceptTimed(row, size);
+        }
+        if (fallback != null && extractCoordinates(row, -1)
+                && CsvSchema.isValidNorm(x) && CsvSchema.isValidNorm(y)) {
+            fallback.add(new OverlayPoint(x, y));
+            fallbackMax = Math.max(fallbackMax, ++fallbackGrid[rowOf(y)][colOf(x)]);
+        }
+        if (schema.frameColumnsInBounds(size)) {
+            acceptFrameSample(row, size);
+        }
+    }
+
+    private void acceptTimed(CsvRow row, int size) {
+        if (schema.timeIdx() >= size || !row.parseNumber(schema.timeIdx())) {
+            return;
+        }
+        double tSec = row.number();
+        if (!hasFirstTime) {
+            hasFirstTime = true;
+            firstTimeSec = tSec;
+        }
+        double relSec = tSec - firstTimeSec;
+        if (!Double.isFinite(relSec) || relSec < -3600 || relSec > 1e8) {
+            return;
+        }
+        if (!extractCoordinates(row, schema.timeIdx())
+                || !CsvSchema.isValidNorm(x) || !CsvSchema.isValidNorm(y)) {
+            return;
+        }
+        long ms = Math.round(relSec * 1000.0);
+        timed.add(ms, x, y);
+        timedMax = Math.max(timedMax, ++timedGrid[rowOf(y)][colOf(x)]);
+        if (fallback != null) {
+            fallback = null;
+            fallbackGrid = null;
+        }
+    }
+
+    private void acceptFrameSample(CsvRow row, int size) {
+        if (!row.parseNumber(schema.frameTimeIdx())) {
+            return;
+        }
+        double tSec = row.number();
+        if (!hasFirstFrameTime) {
+            hasFirstFrameTime = true;
+            firstFrameTimeSec = tSec;
+        }
+        double relSec = tSec - firstFrameTimeSec;
+        if (!Double.isFinite(relSec)) {
+            return;
+        }
+        long csvMs = Math.round(relSec * 1000.0);
+        int durationIdx = schema.durationIdx();
+        if (durationIdx >= 0 && durationIdx < size && row.parseNumber(durationIdx)) {
+            csvMs += durationAdjustmentMs(row.number());
+        }
+        if (!row.parseNumber(schema.frameIdx())) {
+            return;
+        }
+        frameSamples.add(Math.round(row.number()), csvMs);
+    }
+
+    private boolean extractCoordinates(CsvRow row, int skipIndex) {
+        if (!schema.readCoordinates(row, skipIndex, xy)) {
+            return false;
+        }
+        x = xy[0];
+        y = xy[1];
+        return true;
+    }
+
+    private int colOf(double xNorm) {
+        return gridCol(xNorm, cols);
+    }
+
+    private int rowOf(double yNorm) {
+        return gridRow(yNorm, rows);
+    }
+
+    static int gridCol(double xNorm, int cols) {
+        return clamp((int) Math.floor(xNorm * cols), cols);
+    }
+
+    static int gridRow(double yNorm, int rows) {
+        return clamp((int) Math.floor((1.0 - yNorm) * rows), rows);
+    }
+
+    private static int clamp(int value, int bound) {
+        if (value < 0) return 0;
+        if (value >= bound) return bound - 1;
+        return value;
+    }
+
+    CsvSchema schema() {
+        return schema;
+    }
+
+    /** Timed points accepted so far; see {@link TrackAccumulator#keepRecent}. Only valid until {@link #finish}. */
+    TrackAccumulator timedSoFar() {
+        return timed;
+    }
+
+    boolean isTimed() {
+        return timed.size() > 0;
+    }
+
+    long dataRows() {
+        return dataRows;
+    }
+
+    /** Copy of the grid {@link #finish} would currently report. */
+    int[][] gridCopy() {
+        int[][] source = (timed.size() == 0 && fallbackGrid != null) ? fallbackGrid : timedGrid;
+        int[][] copy = new int[rows][];
+        for (int r = 0; r < rows; r++) {
+            copy[r] = source[r].clone();
+        }
+        return copy;
+    }
+
+    int gridMax() {
+        return (timed.size() == 0 && fallbackGrid != null) ? fallbackMax : timedMax;
+    }
+
+    FrameOffsetSamples frameOffsetsSoFar() {
+        return frameSamples.build();
+    }
+
+    CsvOverlayScan finish(long bytes, long elapsedNanos) {
+        FrameOffsetSamples offsets = frameSamples.build();
+        long elapsedMs = elapsedNanos / 1_000_000L;
+        if (timed.size() > 0) {
+            CsvLoadStats stats = new CsvLoadStats(dataRows, timed.size(), dataRows - timed.size(), bytes, elapsedMs);
+            return CsvOverlayScan.timed(timed.build(), timedGrid, timedMax, offsets, stats);
+        }
+        List<OverlayPoint> points = (fallback != null) ? fallback : List.of();
+        int[][] grid = (fallbackGrid != null) ? fallbackGrid : new int[rows][cols];
+        CsvLoadStats stats = new CsvLoadStats(dataRows, points.size(), dataRows - points.size(), bytes, elapsedMs);
+        return CsvOverlayScan.fixed(points, grid, fallbackMax, offsets, stats);
+    }
+}
@@ -0,0 +1,133 @@
+package videoapp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a source stream ahead on its own daemon thread, so slow producers such as
+ * decompression run concurrently with whoever consumes this stream. Data moves in a
+ * small fixed pool of recycled blocks, which bounds memory no matter how large the
+ * source is. Only the read-ahead thread touches the source, and it also closes it.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class PipelinedInputStream extends InputStream {
+    private static final int BLOCK_BYTES = 1 << 20;
+    private static final int BLOCKS = 4;
+
+    private record Block(byte[] data, int length, IOException error) {
+        boolean isEnd() {
+            return length < 0;
+        }
+    }
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BLOCKS);
+    private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(BLOCKS + 1);
+    private final Thread producer;
+    private Block current;
+    private int offset;
+    private boolean finished;
+
+    PipelinedInputStream(InputStream source, String threadName) {
+        this.source = source;
+        for (int i = 0; i < BLOCKS; i++) {
+            free.add(new byte[BLOCK_BYTES]);
+        }
+        this.producer = new Thread(this::produce, threadName);
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    private void produce() {
+        try {
+            while (true) {
+                byte[] block = free.take();
+                int length = 0;
+                int read = 0;
+                while (length < block.length && (read = source.read(block, length, block.length - length)) >= 0) {
+                    length += read;
+                }
+                if (length > 0) {
+                    filled.put(new Block(block, length, null));
+                }
+                if (read < 0) {
+                    filled.put(new Block(null, -1, null));
+                    return;
+                }
+            }
+        } catch (InterruptedException ignore) {
+        } catch (IOException e) {
+            filled.offer(new Block(null, -1, e));
+        } finally {
+            try {
+                source.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current.data()[offset++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length() - offset);
+        System.arraycopy(current.data(), offset, b, off, n);
+        offset += n;
+        return n;
+    }
+
+    private boolean ensureData() throws IOException {
+        if (current != null && offset < current.length()) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        if (current != null) {
+            free.offer(current.data());
+            current = null;
+        }
+        Block next;
+        try {
+            next = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for input");
+        }
+        if (next.isEnd()) {
+            finished = true;
+            if (next.error() != null) {
+                throw next.error();
+            }
+            return false;
+        }
+        current = next;
+        offset = 0;
+        return true;
+    }
+
+    /** Stops the read-ahead thread, which closes the source once it is done with it. */
+    @Override
+    public void close() {
+        finished = true;
+        producer.interrupt();
+    }
+}
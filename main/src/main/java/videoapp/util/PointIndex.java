@@ -0,0 +1,259 @@
+package videoapp.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Static 2-d tree over normalised point coordinates for nearest-point queries, such as
+ * finding the gaze sample under the mouse. The tree is implicit: points are reordered so
+ * that each range has its median at the middle slot, split alternately on x and y, and
+ * no node objects are allocated. Unlike a uniform grid it adapts to the dense clusters
+ * gaze data forms, so a query visits O(log n) points wherever it lands. Construction
+ * sorts subtrees in parallel on the common pool.
+ * <p>
+ * Distances are measured after scaling x and y separately, so a query in screen pixels
+ * works for any frame aspect ratio without rebuilding.
+ * <p>
+ * At most {@value #MAX_POINTS} points are indexed. Longer recordings are thinned to every
+ * {@link #stride(int)}-th point, so a query finds a sample near the one asked for rather
+ * than necessarily the nearest, and the index never holds more than a few megabytes.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class PointIndex {
+    public static final PointIndex EMPTY = new PointIndex(new float[0], new float[0], new int[0]);
+    public static final int MAX_POINTS = 1 << 20;
+
+    private static final int LEAF_SIZE = 8;
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private final float[] xs;
+    private final float[] ys;
+    private final int[] ids;
+
+    private PointIndex(float[] xs, float[] ys, int[] ids) {
+        this.xs = xs;
+        this.ys = ys;
+        this.ids = ids;
+    }
+
+    /**
+     * Indexes points {@code 0..n-1}, or every {@link #stride(int)}-th of them; queries
+     * report these indices.
+     */
+    public static PointIndex of(int n, IntToDoubleFunction x, IntToDoubleFunction y) {
+        if (n <= 0) {
+            return EMPTY;
+        }
+        int stride = stride(n);
+        int count = indexedCount(n);
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        int[] ids = new int[count];
+        for (int k = 0; k < count; k++) {
+            int i = k * stride;
+            xs[k] = (float) x.applyAsDouble(i);
+            ys[k] = (float) y.applyAsDouble(i);
+            ids[k] = i;
+        }
+        return of(xs, ys, ids);
+    }
+
+    /**
+     * Indexes points already gathered by the caller, taking over the arrays; queries
+     * report the entries of {@code ids}.
+     */
+    public static PointIndex of(float[] xs, float[] ys, int[] ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        PointIndex index = new PointIndex(xs, ys, ids);
+        ForkJoinPool.commonPool().invoke(index.new BuildTask(0, ids.length, 0));
+        return index;
+    }
+
+    /** Every how many of {@code n} points one is indexed. */
+    public static int stride(int n) {
+        return (int) Math.max(1L, (n + (long) MAX_POINTS - 1) / MAX_POINTS);
+    }
+
+    /** How many of {@code n} points are indexed. */
+    public static int indexedCount(int n) {
+        int stride = stride(n);
+        return (int) ((n + (long) stride - 1) / stride);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Finds up to {@code out.length} points nearest to ({@code x}, {@code y}) and no
+     * farther than {@code maxDistance}, with distance measured as
+     * {@code hypot(dx * scaleX, dy * scaleY)}.
+     *
+     * @return how many point indices were written to {@code out}, nearest first
+     */
+    public int nearest(double x, double y, double scaleX, double scaleY, double maxDistance, int[] out) {
+        if (out.length == 0 || ids.length == 0) {
+            return 0;
+        }
+        Query query = new Query(x, y, scaleX, scaleY, maxDistance, out.length);
+        query.search(0, ids.length, 0);
+        System.arraycopy(query.bestIds, 0, out, 0, query.found);
+        return query.found;
+    }
+
+    /** Nearest point within {@code maxDistance}, or -1; see {@link #nearest(double, double, double, double, double, int[])}. */
+    public int nearest(double x, double y, double scaleX, double scaleY, double maxDistance) {
+        int[] out = new int[1];
+        return (nearest(x, y, scaleX, scaleY, maxDistance, out) > 0) ? out[0] : -1;
+    }
+
+    private float coordinate(int slot, int axis) {
+        return (axis == 0) ? xs[slot] : ys[slot];
+    }
+
+    /** Places the median of {@code [lo, hi)} on {@code axis} at the middle slot (quickselect). */
+    private void selectMedian(int lo, int hi, int axis) {
+        int k = (lo + hi) >>> 1;
+        int left = lo;
+        int right = hi - 1;
+        while (left < right) {
+            float pivot = coordinate((left + right) >>> 1, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        float x = xs[a];
+        xs[a] = xs[b];
+        xs[b] = x;
+        float y = ys[a];
+        ys[a] = ys[b];
+        ys[b] = y;
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+
+    private final class BuildTask extends RecursiveAction {
+        private final int lo;
+        private final int hi;
+        private final int depth;
+
+        BuildTask(int lo, int hi, int depth) {
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            build(lo, hi, depth);
+        }
+
+        private void build(int from, int to, int level) {
+            if (to - from <= LEAF_SIZE) {
+                return;
+            }
+            selectMedian(from, to, level & 1);
+            int mid = (from + to) >>> 1;
+            if (to - from > PARALLEL_THRESHOLD) {
+                invokeAll(new BuildTask(from, mid, level + 1), new BuildTask(mid + 1, to, level + 1));
+            } else {
+                build(from, mid, level + 1);
+                build(mid + 1, to, level + 1);
+            }
+        }
+    }
+
+    /** Bounded best-k search state; distances are kept squared. */
+    private final class Query {
+        private final double x;
+        private final double y;
+        private final double scaleX;
+        private final double scaleY;
+        private final double[] bestDistances;
+        private final int[] bestIds;
+        private int found;
+
+        Query(double x, double y, double scaleX, double scaleY, double maxDistance, int k) {
+            this.x = x;
+            this.y = y;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.bestDistances = new double[k];
+            this.bestIds = new int[k];
+            Arrays.fill(bestDistances, maxDistance * maxDistance);
+        }
+
+        private double worst() {
+            return bestDistances[bestDistances.length - 1];
+        }
+
+        void search(int lo, int hi, int depth) {
+            if (hi - lo <= LEAF_SIZE) {
+                for (int i = lo; i < hi; i++) {
+                    consider(i);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            consider(mid);
+            double diff = (depth & 1) == 0 ? (x - xs[mid]) * scaleX : (y - ys[mid]) * scaleY;
+            if (diff < 0) {
+                search(lo, mid, depth + 1);
+                if (diff * diff <= worst()) {
+                    search(mid + 1, hi, depth + 1);
+                }
+            } else {
+                search(mid + 1, hi, depth + 1);
+                if (diff * diff <= worst()) {
+                    search(lo, mid, depth + 1);
+                }
+            }
+        }
+
+        private void consider(int slot) {
+            double dx = (x - xs[slot]) * scaleX;
+            double dy = (y - ys[slot]) * scaleY;
+            double d = dx * dx + dy * dy;
+            if (d > worst()) {
+                return;
+            }
+            int i = Math.min(found, bestDistances.length - 1);
+            while (i > 0 && bestDistances[i - 1] > d) {
+                bestDistances[i] = bestDistances[i - 1];
+                bestIds[i] = bestIds[i - 1];
+                i--;
+            }
+            bestDistances[i] = d;
+            bestIds[i] = ids[slot];
+            found = Math.min(found + 1, bestDistances.length);
+        }
+    }
+}
@@ -32,6 +32,11 @@ public final class ProjectPaths {
         return new File(legacyRepoRoot(), "jgs-testing-data");
     }
 
+    /** Per-user directory holding binary caches of parsed overlay CSVs. */
+    public static File overlayCacheDir() {
+        return new File(new File(System.getProperty("user.home"), ".videoapp"), "overlay-cache");
+    }
+
     public static File firstExisting(File... candidates) {
         if (candidates == null) return null;
         for (File f : candidates) {
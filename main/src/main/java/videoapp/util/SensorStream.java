@@ -0,0 +1,107 @@
+package videoapp.util;
+
+import java.util.List;
+
+/**
+ * One recorded sensor, such as heart rate, GSR or facial-expression scores, with the
+ * channels loaded from its file and the {@link ClockMapping} from video time onto the
+ * sensor's own clock. A positive drift means the sensor clock runs fast against the
+ * video. The mapping may be changed at any time from any thread.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class SensorStream {
+    private final String name;
+    private final List<SignalChannel> channels;
+    private final SignalCursor cursor = new SignalCursor();
+    private volatile ClockMapping clock;
+
+    /**
+     * @param channels channels sharing one time axis, as returned by
+     *                 {@link CsvOverlayLoader#loadChannels}
+     * @throws IllegalArgumentException if the channels do not share their times
+     */
+    public SensorStream(String name, List<SignalChannel> channels, long offsetMs) {
+        this.name = name;
+        this.channels = List.copyOf(channels);
+        for (SignalChannel channel : this.channels) {
+            if (channel.times() != this.channels.get(0).times()) {
+                throw new IllegalArgumentException("channels of a stream must share their times");
+            }
+        }
+        this.clock = ClockMapping.offset(offsetMs);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<SignalChannel> channels() {
+        return channels;
+    }
+
+    public ClockMapping clock() {
+        return clock;
+    }
+
+    public void setClock(ClockMapping clock) {
+        this.clock = clock;
+    }
+
+    public long offsetMs() {
+        return clock.offsetMs();
+    }
+
+    public void setOffsetMs(long offsetMs) {
+        clock = clock.withOffset(offsetMs);
+    }
+
+    public double driftPpm() {
+        return clock.driftPpm();
+    }
+
+    /** @throws IllegalArgumentException if {@code driftPpm} is not above -1e6 */
+    public void setDriftPpm(double driftPpm) {
+        clock = new ClockMapping(1.0 + driftPpm * 1e-6, clock.offsetMs());
+    }
+
+    /**
+     * Sets offset and drift from two sync points, for example a marker event seen at
+     * {@code videoA}/{@code streamA} near the start and at {@code videoB}/{@code streamB}
+     * near the end of the recording. With a single sync point only the offset changes.
+     *
+     * @throws IllegalArgumentException if the stream time does not advance between the points
+     */
+    public void alignTo(long videoA, long streamA, long videoB, long streamB) {
+        double rate = (videoB == videoA) ? clock.scale()
+                : (streamB - streamA) / (double) (videoB - videoA);
+        clock = new ClockMapping(rate, streamA - Math.round(videoA * rate));
+    }
+
+    /** The sensor time at {@code videoMs}, with offset and drift applied. */
+    public long streamTimeMs(long videoMs) {
+        return clock.recordingMs(videoMs);
+    }
+
+    /**
+     * Writes the value of every channel at {@code videoMs} to {@code out}, starting at
+     * {@code from}, using the stream's own cursor. For the presentation thread only.
+     */
+    public void sample(long videoMs, double[] out, int from) {
+        sample(videoMs, cursor, out, from);
+    }
+
+    /** Like {@link #sample(long, double[], int)} with a cursor owned by the caller. */
+    public void sample(long videoMs, SignalCursor cursor, double[] out, int from) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        long streamMs = streamTimeMs(videoMs);
+        int next = cursor.ceiling(channels.get(0), streamMs);
+        for (int c = 0; c < channels.size(); c++) {
+            out[from + c] = channels.get(c).valueAt(streamMs, next);
+        }
+    }
+}
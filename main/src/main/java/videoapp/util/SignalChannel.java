@@ -0,0 +1,128 @@
+package videoapp.util;
+
+/**
+ * One numeric column of a timed CSV, such as an emotion score or valence, held as
+ * primitive arrays in time order. Times are milliseconds relative to the file's first
+ * timestamp, like gaze samples, so the overlay time offset applies to them as well.
+ * Channels loaded from the same file share one time array. A {@link MinMaxPyramid} over
+ * the values answers the range of any time window in logarithmic time, which keeps a
+ * sparkline's cost tied to its pixel width rather than the sample count.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class SignalChannel {
+    private final String name;
+    private final long[] times;
+    private final float[] values;
+    private final int size;
+    private final MinMaxPyramid pyramid;
+
+    /**
+     * @param times  sample times in non-decreasing order; may be shared with other channels
+     * @param values one value per time, NaN where the row had none
+     */
+    public SignalChannel(String name, long[] times, float[] values, int size) {
+        this.name = name;
+        this.times = times;
+        this.values = values;
+        this.size = size;
+        this.pyramid = new MinMaxPyramid(values, size);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timeMs(int index) {
+        return times[index];
+    }
+
+    /** Value of sample {@code index}, NaN if the row had none. */
+    public float value(int index) {
+        return values[index];
+    }
+
+    /** Smallest value of the channel, NaN if it has none. */
+    public float min() {
+        return pyramid.min();
+    }
+
+    /** Largest value of the channel, NaN if it has none. */
+    public float max() {
+        return pyramid.max();
+    }
+
+    /** The time array, shared by the channels of one file. */
+    long[] times() {
+        return times;
+    }
+
+    /** Index of the first sample at or after {@code timeMs}, or {@link #size()} if none. */
+    public int ceiling(long timeMs) {
+        return ceiling(timeMs, 0, size);
+    }
+
+    /** Like {@link #ceiling(long)}, searching only indices {@code from..to}. */
+    public int ceiling(long timeMs, int from, int to) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < timeMs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Value at {@code timeMs}, interpolated linearly between the samples around it. A
+     * missing sample exactly at {@code timeMs} is interpolated across; next to a missing
+     * value the nearer known one is used.
+     *
+     * @return the value, or NaN outside the channel's time span
+     */
+    public double valueAt(long timeMs) {
+        return valueAt(timeMs, ceiling(timeMs));
+    }
+
+    /** Like {@link #valueAt(long)}, given {@code next}, the {@link #ceiling} of {@code timeMs}. */
+    public double valueAt(long timeMs, int next) {
+        int prev = next - 1;
+        if (next < size && times[next] == timeMs) {
+            if (!Float.isNaN(values[next])) {
+                return values[next];
+            }
+            next++;
+        }
+        if (prev < 0 || next >= size) {
+            return Double.NaN;
+        }
+        float a = values[prev];
+        float b = values[next];
+        long span = times[next] - times[prev];
+        double f = (span > 0) ? (timeMs - times[prev]) / (double) span : 0.0;
+        if (Float.isNaN(a) || Float.isNaN(b)) {
+            return (f < 0.5) ? (Float.isNaN(a) ? b : a) : (Float.isNaN(b) ? a : b);
+        }
+        return a + (b - a) * f;
+    }
+
+    /**
+     * Writes the smallest and largest value of the samples in [{@code fromMs},
+     * {@code toMs}) to {@code out[0]} and {@code out[1]}.
+     *
+     * @return false if the window holds no known value
+     */
+    public boolean range(long fromMs, long toMs, float[] out) {
+        return pyramid.range(ceiling(fromMs), ceiling(toMs), out);
+    }
+}
@@ -0,0 +1,47 @@
+package videoapp.util;
+
+/**
+ * Remembers where the last lookup in a {@link SignalChannel} ended, so that sampling a
+ * playhead that moves forward costs a few steps instead of a binary search. Channels
+ * loaded from one file share their times, so one cursor serves all of them. After a seek
+ * backwards, a jump far ahead or a switch to other times, the next lookup falls back to
+ * {@link SignalChannel#ceiling(long)} and the cursor re-anchors there.
+ * <p>
+ * Not thread-safe; each sampling thread keeps its own cursor.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class SignalCursor {
+    private static final int MAX_FORWARD_STEPS = 32;
+
+    private long[] times;
+    private long lastMs;
+    private int lastIndex;
+
+    /**
+     * Returns the index of the first sample of {@code channel} at or after {@code timeMs},
+     * or {@code channel.size()} when every sample is earlier.
+     */
+    public int ceiling(SignalChannel channel, long timeMs) {
+        int n = channel.size();
+        int index;
+        if (channel.times() == times && timeMs >= lastMs && lastIndex <= n) {
+            index = lastIndex;
+            int limit = Math.min(n, index + MAX_FORWARD_STEPS);
+            while (index < limit && channel.timeMs(index) < timeMs) {
+                index++;
+            }
+            if (index == limit && index < n) {
+                index = channel.ceiling(timeMs, index, n);
+            }
+        } else {
+            index = channel.ceiling(timeMs);
+        }
+        times = channel.times();
+        lastMs = timeMs;
+        lastIndex = index;
+        return index;
+    }
+}
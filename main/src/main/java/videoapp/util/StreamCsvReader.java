@@ -0,0 +1,113 @@
+package videoapp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link CsvRowReader} over an arbitrary byte stream, for input that cannot be mapped
+ * such as decompressed archives. Bytes are read into a reusable window and tokenised in
+ * place by {@link ByteCsvRow}, so only the window is ever held in memory; it grows only
+ * when a single line does not fit.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class StreamCsvReader implements CsvRowReader {
+    private static final int INITIAL_BYTES = 1 << 16;
+
+    private final InputStream in;
+    private final ByteCsvRow row = new ByteCsvRow();
+    private byte[] data = new byte[INITIAL_BYTES];
+    private ByteBuffer view = ByteBuffer.wrap(data);
+    private int start;
+    private int limit;
+    private boolean eof;
+    private boolean lastLineEmpty;
+
+    StreamCsvReader(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public String[] readHeader() throws IOException {
+        return readLine() ? row.texts() : null;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (!lastLineEmpty) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public CsvRow row() {
+        return row;
+    }
+
+    private boolean readLine() throws IOException {
+        while (true) {
+            if (start == limit) {
+                if (eof) {
+                    return false;
+                }
+                fill();
+                continue;
+            }
+            int end = row.tokenize(view, start, limit);
+            if (end < limit) {
+                int terminator = 1;
+                if (data[end] == '\r') {
+                    if (end + 1 < limit) {
+                        terminator = (data[end + 1] == '\n') ? 2 : 1;
+                    } else if (!eof) {
+                        fill();
+                        continue;
+                    }
+                }
+                lastLineEmpty = (end == start);
+                start = end + terminator;
+                return true;
+            }
+            if (eof) {
+                lastLineEmpty = (end == start);
+                start = limit;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    /** Moves the unread bytes to the front, growing the window if it is full, and reads more. */
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(data, start, data, 0, limit - start);
+            limit -= start;
+            start = 0;
+        }
+        if (limit == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+            view = ByteBuffer.wrap(data);
+        }
+        int read;
+        do {
+            read = in.read(data, limit, data.length - limit);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,206 @@
+package videoapp.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The sensor streams recorded alongside a video, each at its own rate and on its own
+ * clock, aligned to the video timeline through their {@link SensorStream} offset and
+ * drift. During playback {@link #sample} reads every channel at the playhead through
+ * per-stream cursors. {@link #writeFrameTable} resamples all streams onto the video's
+ * frames and writes one CSV row per frame; blocks of frames are formatted in parallel
+ * on a bounded pool and written in order, with only a few blocks held at a time.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class StreamRegistry {
+    private static final int FRAMES_PER_BLOCK = 4096;
+    private static final int BLOCKS_IN_FLIGHT_PER_WORKER = 2;
+
+    private final List<SensorStream> streams = new CopyOnWriteArrayList<>();
+
+    public void add(SensorStream stream) {
+        streams.add(stream);
+    }
+
+    public void remove(SensorStream stream) {
+        streams.remove(stream);
+    }
+
+    public void clear() {
+        streams.clear();
+    }
+
+    public List<SensorStream> streams() {
+        return List.copyOf(streams);
+    }
+
+    public boolean isEmpty() {
+        return streams.isEmpty();
+    }
+
+    /** Total number of channels over all streams, the length {@link #sample} fills. */
+    public int channelCount() {
+        int count = 0;
+        for (SensorStream stream : streams) {
+            count += stream.channels().size();
+        }
+        return count;
+    }
+
+    /** Column names in {@link #sample} order, as {@code stream.channel}. */
+    public List<String> columnNames() {
+        List<String> names = new ArrayList<>();
+        for (SensorStream stream : streams) {
+            for (SignalChannel channel : stream.channels()) {
+                names.add(stream.name() + '.' + channel.name());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Writes the value of every channel at {@code videoMs} to {@code out} from index
+     * {@code from}, stream by stream, NaN where a stream has no value. Streams that do not
+     * fit are left out. For the presentation thread only.
+     *
+     * @return number of values written
+     */
+    public int sample(long videoMs, double[] out, int from) {
+        int filled = 0;
+        for (SensorStream stream : streams) {
+            if (from + filled + stream.channels().size() > out.length) {
+                break;
+            }
+            stream.sample(videoMs, out, from + filled);
+            filled += stream.channels().size();
+        }
+        return filled;
+    }
+
+    /**
+     * Writes a CSV with one row per video frame, {@code frame,video_ms} followed by every
+     * channel in {@link #columnNames()} order, sampled at the frame's start time. Missing
+     * values are left empty. The rows go to a temporary file next to {@code file}, which
+     * replaces {@code file} only once it is complete, so a failed export leaves no
+     * truncated table behind.
+     *
+     * @param parallelism maximum number of worker threads formatting rows
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void writeFrameTable(File file, double fps, long durationMs, int parallelism)
+            throws IOException, InterruptedException {
+        if (!(fps > 0 && Double.isFinite(fps))) {
+            throw new IllegalArgumentException("fps must be positive");
+        }
+        List<SensorStream> snapshot = streams();
+        long frames = (long) Math.floor(Math.max(0L, durationMs) * fps / 1000.0) + 1;
+        int blocks = (int) ((frames + FRAMES_PER_BLOCK - 1) / FRAMES_PER_BLOCK);
+        int workers = Math.max(1, Math.min(parallelism, blocks));
+        Path target = file.getAbsoluteFile().toPath();
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        ExecutorService pool = newPool(workers);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                out.write(header(snapshot).getBytes(StandardCharsets.UTF_8));
+                ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+                int nextBlock = 0;
+                int window = workers * BLOCKS_IN_FLIGHT_PER_WORKER;
+                while (nextBlock < blocks || !inFlight.isEmpty()) {
+                    while (nextBlock < blocks && inFlight.size() < window) {
+                        long first = (long) nextBlock * FRAMES_PER_BLOCK;
+                        long end = Math.min(frames, first + FRAMES_PER_BLOCK);
+                        inFlight.add(pool.submit(() -> formatBlock(snapshot, fps, first, end)));
+                        nextBlock++;
+                    }
+                    out.write(inFlight.poll().get());
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to resample streams", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    private static String header(List<SensorStream> streams) {
+        StringBuilder sb = new StringBuilder("frame,video_ms");
+        for (SensorStream stream : streams) {
+            for (SignalChannel channel : stream.channels()) {
+                sb.append(',').append(csv(stream.name() + '.' + channel.name()));
+            }
+        }
+        return sb.append('\n').toString();
+    }
+
+    /** Formats frames {@code first..end-1}, each stream read through its own cursor. */
+    private static byte[] formatBlock(List<SensorStream> streams, double fps, long first, long end) {
+        int columns = 0;
+        for (SensorStream stream : streams) {
+            columns += stream.channels().size();
+        }
+        SignalCursor[] cursors = new SignalCursor[streams.size()];
+        for (int s = 0; s < cursors.length; s++) {
+            cursors[s] = new SignalCursor();
+        }
+        double[] values = new double[columns];
+        StringBuilder sb = new StringBuilder((int) (end - first) * (16 + 10 * columns));
+        for (long frame = first; frame < end; frame++) {
+            long videoMs = Math.round(frame * 1000.0 / fps);
+            int filled = 0;
+            for (int s = 0; s < cursors.length; s++) {
+                SensorStream stream = streams.get(s);
+                stream.sample(videoMs, cursors[s], values, filled);
+                filled += stream.channels().size();
+            }
+            sb.append(frame).append(',').append(videoMs);
+            for (int c = 0; c < columns; c++) {
+                sb.append(',');
+                if (!Double.isNaN(values[c])) {
+                    sb.append((float) values[c]);
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static ExecutorService newPool(int workers) {
+        return Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "stream-resampler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
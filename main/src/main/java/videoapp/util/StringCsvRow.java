@@ -0,0 +1,82 @@
+package videoapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link CsvRow} backed by decoded String fields. Also owns the reference quoting and
+ * number rules every other row implementation must match.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class StringCsvRow implements CsvRow {
+    private String[] parts = new String[0];
+    private double value;
+
+    void reset(String[] fields) {
+        this.parts = fields;
+    }
+
+    @Override
+    public int size() {
+        return parts.length;
+    }
+
+    @Override
+    public boolean parseNumber(int index) {
+        if (index < 0 || index >= parts.length) {
+            return false;
+        }
+        try {
+            value = parse(parts[index]);
+            return true;
+        } catch (IllegalArgumentException ignore) {
+            return false;
+        }
+    }
+
+    @Override
+    public double number() {
+        return value;
+    }
+
+    static double parse(String s) {
+        String trimmed = s.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("empty");
+        }
+        return Double.parseDouble(trimmed);
+    }
+
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    sb.append(c);
+                }
+            } else if (c == ',') {
+                fields.add(sb.toString());
+                sb.setLength(0);
+            } else if (c == '"') {
+                inQuotes = true;
+            } else {
+                sb.append(c);
+            }
+        }
+        fields.add(sb.toString());
+        return fields.toArray(new String[0]);
+    }
+}
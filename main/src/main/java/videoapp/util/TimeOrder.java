@@ -0,0 +1,100 @@
+package videoapp.util;
+
+import java.util.Arrays;
+
+/**
+ * Stable ordering of sample indices by a {@code long} key, such as a timestamp, using only
+ * primitive arrays. The sort is a natural merge sort: it merges the ascending runs already
+ * present in the data, so input that is in order costs one pass and input with a few late
+ * rows costs little more.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public final class TimeOrder {
+    private TimeOrder() {
+    }
+
+    /** True if {@code keys[0..count-1]} never decrease. */
+    public static boolean isSorted(long[] keys, int count) {
+        for (int i = 1; i < count; i++) {
+            if (keys[i] < keys[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indices {@code 0..count-1} ordered by {@code keys}; equal keys keep their index
+     * order.
+     */
+    public static int[] order(long[] keys, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+        }
+        sort(ids, count, keys);
+        return ids;
+    }
+
+    /**
+     * Sorts {@code ids[0..count-1]} by {@code keys[id]}, keeping ids with equal keys in
+     * their current order.
+     */
+    public static void sort(int[] ids, int count, long[] keys) {
+        int[] runEnds = new int[16];
+        int runs = 0;
+        int start = 0;
+        while (start < count) {
+            int end = start + 1;
+            while (end < count && keys[ids[end]] >= keys[ids[end - 1]]) {
+                end++;
+            }
+            if (runs == runEnds.length) {
+                runEnds = Arrays.copyOf(runEnds, runs * 2);
+            }
+            runEnds[runs++] = end;
+            start = end;
+        }
+        if (runs <= 1) {
+            return;
+        }
+        int[] src = ids;
+        int[] dst = new int[count];
+        while (runs > 1) {
+            int merged = 0;
+            int from = 0;
+            for (int r = 0; r < runs; r += 2) {
+                int mid = runEnds[r];
+                int to = (r + 1 < runs) ? runEnds[r + 1] : mid;
+                merge(src, dst, from, mid, to, keys);
+                runEnds[merged++] = to;
+                from = to;
+            }
+            runs = merged;
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != ids) {
+            System.arraycopy(src, 0, ids, 0, count);
+        }
+    }
+
+    private static void merge(int[] src, int[] dst, int from, int mid, int to, long[] keys) {
+        int a = from;
+        int b = mid;
+        int out = from;
+        while (a < mid && b < to) {
+            dst[out++] = (keys[src[b]] < keys[src[a]]) ? src[b++] : src[a++];
+        }
+        while (a < mid) {
+            dst[out++] = src[a++];
+        }
+        while (b < to) {
+            dst[out++] = src[b++];
+        }
+    }
+}
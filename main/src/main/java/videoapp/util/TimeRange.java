@@ -0,0 +1,24 @@
+package videoapp.util;
+
+/**
+ * Closed span of time in milliseconds, {@code startMs} to {@code endMs} inclusive.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+public record TimeRange(long startMs, long endMs) {
+
+    public long durationMs() {
+        return endMs - startMs;
+    }
+
+    public boolean contains(long timeMs) {
+        return timeMs >= startMs && timeMs <= endMs;
+    }
+
+    /** The same span moved by {@code deltaMs}, e.g. from gaze time to video time. */
+    public TimeRange shift(long deltaMs) {
+        return new TimeRange(startMs + deltaMs, endMs + deltaMs);
+    }
+}
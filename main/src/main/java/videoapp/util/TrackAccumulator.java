@@ -0,0 +1,278 @@
+package videoapp.util;
+
+import videoapp.ui.CompressedGazeTrack;
+import videoapp.ui.GazeTrack;
+import videoapp.ui.TimedPointBuffer;
+import videoapp.ui.TimedSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the timed samples of a scan in file order and builds the time-sorted track.
+ * Small scans keep the samples in a {@link GazeTrack.Builder}. Once a scan reaches
+ * {@link CompressedGazeTrack#COMPACT_THRESHOLD} samples they are sorted once and from then
+ * on compressed as they arrive, so a recording too long for the heap as a plain track
+ * never exists in plain form.
+ * <p>
+ * After compaction, a sample no older than the last compressed one is appended directly.
+ * An older one is held in a small buffer that is sorted and compressed into a run each
+ * time it fills. {@link #build} merges the compressed samples with those runs. Ties go to
+ * the source holding the earlier rows, so the result is exactly the stable sort by time
+ * that a {@code GazeTrack.Builder} would produce, compressed.
+ * <p>
+ * A streaming load {@linkplain #stream switches} the accumulator to a different store:
+ * samples wait only until the next {@link #publish}, which appends the ones not older than
+ * anything already published to a {@link TimedPointBuffer} the overlay draws from, and
+ * keeps the late ones in a nested accumulator. The final track is built from that buffer
+ * and the late rows, so a streaming load does not hold a second copy of the samples.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+final class TrackAccumulator {
+    /** Late samples held before they are sorted and compressed into a run. */
+    static final int LATE_RUN_SAMPLES = 1 << 18;
+
+    private GazeTrack.Builder plain = new GazeTrack.Builder();
+    private CompressedGazeTrack.Builder inOrder;
+    private GazeTrack.Builder lateBuffer;
+    /** Sorted sources finished so far; every row in one precedes every row in the next. */
+    private final List<TimedSeries> sealed = new ArrayList<>();
+    /** Compressed late runs of the current {@code inOrder} stretch, in the order they filled. */
+    private final List<TimedSeries> lateRuns = new ArrayList<>();
+    /** Set while streaming: samples not yet published, the published ones, and late rows. */
+    private GazeTrack.Builder pending;
+    private TimedPointBuffer published;
+    private TrackAccumulator late;
+    private int size;
+    private final int compactAt;
+    private final int lateRunSamples;
+
+    TrackAccumulator() {
+        this(CompressedGazeTrack.COMPACT_THRESHOLD, LATE_RUN_SAMPLES);
+    }
+
+    /** Compacts at {@code compactAt} samples and compresses late runs of {@code lateRunSamples}; small values are for tests. */
+    TrackAccumulator(int compactAt, int lateRunSamples) {
+        this.compactAt = compactAt;
+        this.lateRunSamples = lateRunSamples;
+    }
+
+    void add(long timeMs, double xNorm, double yNorm) {
+        size++;
+        if (pending != null) {
+            pending.add(timeMs, xNorm, yNorm);
+            return;
+        }
+        if (plain != null) {
+            plain.add(timeMs, xNorm, yNorm);
+            if (plain.size() >= compactAt) {
+                compact();
+            }
+            return;
+        }
+        // Rounded to float first, as a plain track stores them, so both paths quantise alike.
+        if (!inOrder.append(timeMs, (float) xNorm, (float) yNorm)) {
+            lateBuffer.add(timeMs, xNorm, yNorm);
+            if (lateBuffer.size() >= lateRunSamples) {
+                lateRuns.add(CompressedGazeTrack.compress(lateBuffer.build()));
+                lateBuffer = new GazeTrack.Builder();
+            }
+        }
+    }
+
+    /** Adds the samples of {@code next}, whose rows directly follow this accumulator's. */
+    void addAll(TrackAccumulator next) {
+        if (pending != null && next.plain == null) {
+            TimedSeries samples = next.build();
+            for (int i = 0; i < samples.size(); i++) {
+                add(samples.timeMs(i), samples.xNorm(i), samples.yNorm(i));
+            }
+            return;
+        }
+        if (next.plain != null) {
+            for (int i = 0; i < next.plain.size(); i++) {
+                add(next.plain.timeMs(i), next.plain.xNorm(i), next.plain.yNorm(i));
+            }
+            return;
+        }
+        if (plain != null) {
+            compact();
+        }
+        sealCurrent();
+        next.sealCurrent();
+        sealed.addAll(next.sealed);
+        size += next.size;
+        startInOrder();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Switches to streaming; see the class comment. Must be called before any sample is
+     * added.
+     *
+     * @return the buffer published samples go to, in time order
+     */
+    TimedPointBuffer stream() {
+        if (size > 0) {
+            throw new IllegalStateException("samples already added");
+        }
+        plain = null;
+        pending = new GazeTrack.Builder();
+        published = new TimedPointBuffer();
+        late = new TrackAccumulator(compactAt, lateRunSamples);
+        return published;
+    }
+
+    /** Samples added since the last {@link #publish}; zero unless streaming. */
+    int pendingCount() {
+        return (pending != null) ? pending.size() : 0;
+    }
+
+    /**
+     * Appends the pending samples that are not older than the last published one to the
+     * buffer, sorted by time, and makes them visible; older ones are set aside as late.
+     *
+     * @return how many samples were appended
+     */
+    int publish() {
+        int n = pending.size();
+        long watermark = published.lastTimeMs();
+        long[] times = new long[n];
+        int[] rows = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            long t = pending.timeMs(i);
+            if (t < watermark) {
+                late.add(t, pending.xNorm(i), pending.yNorm(i));
+            } else {
+                times[count] = t;
+                rows[count] = i;
+                count++;
+            }
+        }
+        if (!TimeOrder.isSorted(times, count)) {
+            int[] order = TimeOrder.order(times, count);
+            int[] sortedRows = new int[count];
+            for (int i = 0; i < count; i++) {
+                sortedRows[i] = rows[order[i]];
+            }
+            rows = sortedRows;
+        }
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            published.append(pending.timeMs(row), pending.xNorm(row), pending.yNorm(row));
+        }
+        published.publish();
+        pending = new GazeTrack.Builder();
+        return count;
+    }
+
+    /** The samples sorted by time, compressed once there are enough of them. The accumulator is spent. */
+    TimedSeries build() {
+        if (pending != null) {
+            return buildStreamed();
+        }
+        if (plain != null) {
+            return plain.build();
+        }
+        sealCurrent();
+        List<TimedSeries> sources = new ArrayList<>(sealed.size());
+        for (TimedSeries source : sealed) {
+            if (source.size() > 0) {
+                sources.add(source);
+            }
+        }
+        if (sources.size() == 1) {
+            return sources.get(0);
+        }
+        return merge(sources);
+    }
+
+    /**
+     * The published buffer itself when nothing was late and the track is small; otherwise
+     * the buffer merged with the late rows, which always come from later rows than any
+     * published sample of the same time.
+     */
+    private TimedSeries buildStreamed() {
+        if (pending.size() > 0) {
+            publish();
+        }
+        TimedSeries lateTrack = late.build();
+        if (size < compactAt) {
+            if (lateTrack.size() == 0) {
+                return published;
+            }
+            GazeTrack.Builder merged = new GazeTrack.Builder(size);
+            forEachMerged(List.of(published, lateTrack), merged::add);
+            return merged.build();
+        }
+        return merge(List.of(published, lateTrack));
+    }
+
+    private void compact() {
+        GazeTrack sorted = plain.build();
+        plain = null;
+        startInOrder();
+        for (int i = 0; i < sorted.size(); i++) {
+            inOrder.append(sorted.timeMs(i), sorted.xNorm(i), sorted.yNorm(i));
+        }
+    }
+
+    private void startInOrder() {
+        inOrder = new CompressedGazeTrack.Builder();
+        lateBuffer = new GazeTrack.Builder();
+    }
+
+    /**
+     * Moves the current stretch to {@link #sealed}: the in-order samples first, since an
+     * equal-time late sample always comes from a later row, then the late runs in the order
+     * they filled.
+     */
+    private void sealCurrent() {
+        sealed.add(inOrder.build());
+        sealed.addAll(lateRuns);
+        lateRuns.clear();
+        if (lateBuffer.size() > 0) {
+            sealed.add(CompressedGazeTrack.compress(lateBuffer.build()));
+        }
+        startInOrder();
+    }
+
+    private static CompressedGazeTrack merge(List<TimedSeries> sources) {
+        CompressedGazeTrack.Builder merged = new CompressedGazeTrack.Builder();
+        forEachMerged(sources, merged::append);
+        return merged.build();
+    }
+
+    /** K-way merge of sorted sources; on equal times the earlier source wins. */
+    private static void forEachMerged(List<TimedSeries> sources, CsvOverlayLoader.TimedPointConsumer out) {
+        int k = sources.size();
+        int[] next = new int[k];
+        while (true) {
+            int best = -1;
+            long bestMs = 0;
+            for (int s = 0; s < k; s++) {
+                TimedSeries source = sources.get(s);
+                if (next[s] < source.size()) {
+                    long t = source.timeMs(next[s]);
+                    if (best < 0 || t < bestMs) {
+                        best = s;
+                        bestMs = t;
+                    }
+                }
+            }
+            if (best < 0) {
+                return;
+            }
+            TimedSeries source = sources.get(best);
+            int i = next[best]++;
+            out.accept(bestMs, source.xNorm(i), source.yNorm(i));
+        }
+    }
+}
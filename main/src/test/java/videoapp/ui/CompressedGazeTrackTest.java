@@ -0,0 +1,105 @@
+package videoapp.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a {@link CompressedGazeTrack} gives back every time exactly and every
+ * coordinate to within half a quantisation step, and that its block-indexed
+ * {@code ceiling} agrees with a plain search over any range. Tracks span several blocks
+ * and include repeated times, long gaps and coordinates outside the frame.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class CompressedGazeTrackTest {
+    private static final double HALF_QUANTUM = 0.5 / 0xFFFF;
+    private static final double FLOAT_SLACK = 1e-7;
+
+    @Test
+    void samplesRoundTrip() {
+        Random random = new Random(4);
+        for (int round = 0; round < 10; round++) {
+            GazeTrack track = randomTrack(random, random.nextInt(20_000));
+            CompressedGazeTrack compressed = compress(track);
+            assertEquals(track.size(), compressed.size());
+            for (int i = 0; i < track.size(); i++) {
+                assertEquals(track.timeMs(i), compressed.timeMs(i), "time " + i);
+                assertEquals(clamp(track.xNorm(i)), compressed.xNorm(i), HALF_QUANTUM + FLOAT_SLACK, "x " + i);
+                assertEquals(clamp(track.yNorm(i)), compressed.yNorm(i), HALF_QUANTUM + FLOAT_SLACK, "y " + i);
+            }
+        }
+    }
+
+    @Test
+    void ceilingMatchesReferenceSearch() {
+        Random random = new Random(8);
+        for (int round = 0; round < 10; round++) {
+            GazeTrack track = randomTrack(random, 1 + random.nextInt(30_000));
+            CompressedGazeTrack compressed = compress(track);
+            int n = track.size();
+            long last = track.timeMs(n - 1);
+            for (int i = 0; i < 5000; i++) {
+                long pos = random.nextLong(track.timeMs(0) - 100, last + 100);
+                int from = random.nextBoolean() ? 0 : random.nextInt(n + 1);
+                int to = random.nextBoolean() ? n : from + random.nextInt(n - from + 1);
+                assertEquals(reference(track, pos, from, to), compressed.ceiling(pos, from, to),
+                        "round " + round + " at " + pos + " in [" + from + ", " + to + ")");
+            }
+        }
+    }
+
+    @Test
+    void builderDropsOutOfOrderSamples() {
+        CompressedGazeTrack.Builder builder = new CompressedGazeTrack.Builder();
+        assertTrue(builder.append(10, 0.5, 0.5));
+        assertTrue(builder.append(10, 0.6, 0.6));
+        assertFalse(builder.append(9, 0.7, 0.7));
+        CompressedGazeTrack track = builder.build();
+        assertEquals(2, track.size());
+        assertEquals(10, track.timeMs(1));
+    }
+
+    private static GazeTrack randomTrack(Random random, int n) {
+        GazeTrack.Builder builder = new GazeTrack.Builder();
+        long time = random.nextLong(-1_000_000, 1_700_000_000_000L);
+        for (int i = 0; i < n; i++) {
+            int step = random.nextInt(50);
+            time += step == 0 ? random.nextInt(10_000_000) : step < 10 ? 0 : random.nextInt(8);
+            builder.add(time, random.nextDouble() * 1.2 - 0.1, random.nextDouble() * 1.2 - 0.1);
+        }
+        return builder.build();
+    }
+
+    private static CompressedGazeTrack compress(TimedSeries track) {
+        CompressedGazeTrack.Builder builder = new CompressedGazeTrack.Builder();
+        for (int i = 0; i < track.size(); i++) {
+            assertTrue(builder.append(track.timeMs(i), track.xNorm(i), track.yNorm(i)));
+        }
+        return builder.build();
+    }
+
+    private static double clamp(double norm) {
+        return Math.max(0.0, Math.min(1.0, norm));
+    }
+
+    private static int reference(TimedSeries series, long posMs, int from, int to) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (series.timeMs(mid) < posMs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
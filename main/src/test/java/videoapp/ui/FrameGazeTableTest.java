@@ -0,0 +1,86 @@
+package videoapp.ui;
+
+import org.junit.jupiter.api.Test;
+import videoapp.util.ClockMapping;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that every frame of a {@link FrameGazeTable} shows what searching the track at
+ * that frame's time would show: the same label, or nothing, and the same position to
+ * float precision. Covers plain and compressed tracks with gaps and repeated times,
+ * common frame rates, offsets either side of zero and a drifting clock, and frames past
+ * the end of the table.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class FrameGazeTableTest {
+    private static final double[] FRAME_RATES = {23.976, 25, 29.97, 30, 60};
+    private static final double POSITION_SLACK = 1e-6;
+
+    @Test
+    void lookupMatchesSearchPerFrame() {
+        Random random = new Random(6);
+        for (int round = 0; round < 24; round++) {
+            GazeTrack track = randomTrack(random, 1 + random.nextInt(40_000));
+            TimedSeries series = round % 2 == 0 ? track : compress(track);
+            double fps = FRAME_RATES[random.nextInt(FRAME_RATES.length)];
+            long offset = random.nextInt(4000) - 2000;
+            ClockMapping clock = random.nextBoolean() ? ClockMapping.offset(offset)
+                    : new ClockMapping(1.0 + (random.nextDouble() - 0.5) * 1e-3, offset);
+            FrameGazeTable table = FrameGazeTable.create(series, fps, clock);
+            assertNotNull(table, "round " + round);
+            assertSameFrames(series, clock, table, "round " + round);
+        }
+    }
+
+    @Test
+    void tableIsNotBuiltWhenNothingIsVisible() {
+        GazeTrack track = randomTrack(new Random(2), 100);
+        long pastEnd = track.timeMs(track.size() - 1) + GazeInterpolator.MAX_SHOW_AGE_MS + 1000;
+        assertNull(FrameGazeTable.create(track, 30, ClockMapping.offset(pastEnd)));
+        assertNull(FrameGazeTable.create(GazeTrack.EMPTY, 30, ClockMapping.IDENTITY));
+        assertNull(FrameGazeTable.create(track, 0, ClockMapping.IDENTITY));
+    }
+
+    private static void assertSameFrames(TimedSeries series, ClockMapping clock, FrameGazeTable table, String name) {
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        for (long frame = 0; frame < table.frameCount() + 10; frame++) {
+            long posMs = clock.recordingMs(table.frameTimeMs(frame));
+            int wanted = GazeInterpolator.locate(series, series.ceiling(posMs, 0, series.size()), posMs, expected);
+            int found = table.lookup(frame, actual);
+            assertEquals(wanted, found, name + " frame " + frame);
+            if (found >= 0) {
+                assertEquals(expected[0], actual[0], POSITION_SLACK, name + " x at frame " + frame);
+                assertEquals(expected[1], actual[1], POSITION_SLACK, name + " y at frame " + frame);
+            }
+        }
+    }
+
+    /** Samples at 120 Hz or so, with repeated times and gaps either side of the interpolation limit. */
+    private static GazeTrack randomTrack(Random random, int n) {
+        GazeTrack.Builder builder = new GazeTrack.Builder();
+        long time = random.nextInt(3000);
+        for (int i = 0; i < n; i++) {
+            int step = random.nextInt(200);
+            time += step == 0 ? random.nextInt(2000) : step < 20 ? 0 : random.nextInt(17);
+            builder.add(time, random.nextDouble(), random.nextDouble());
+        }
+        return builder.build();
+    }
+
+    private static CompressedGazeTrack compress(TimedSeries track) {
+        CompressedGazeTrack.Builder builder = new CompressedGazeTrack.Builder();
+        for (int i = 0; i < track.size(); i++) {
+            builder.append(track.timeMs(i), track.xNorm(i), track.yNorm(i));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,122 @@
+package videoapp.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link TimedSeriesCursor} finds the same sample as a plain binary search
+ * for every kind of playhead movement: small steps forward, jumps far ahead, seeks
+ * backwards, switches between series and a buffer that grows between lookups. Also
+ * checks that {@link GazeTrack#of} sorts its input by time and keeps ties in order.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class TimedSeriesCursorTest {
+
+    @Test
+    void cursorMatchesBinarySearchOnTracks() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            GazeTrack track = randomTrack(random, random.nextInt(3000));
+            GazeTrack other = randomTrack(random, random.nextInt(50));
+            TimedSeriesCursor cursor = new TimedSeriesCursor();
+            long end = track.size() == 0 ? 1000 : track.timeMs(track.size() - 1) + 100;
+            long pos = -50;
+            for (int i = 0; i < 2000; i++) {
+                pos = nextPosition(random, pos, end);
+                TimedSeries series = random.nextInt(100) == 0 ? other : track;
+                assertEquals(reference(series, pos), cursor.ceiling(series, pos), "round " + round + " at " + pos);
+            }
+        }
+    }
+
+    @Test
+    void cursorFollowsGrowingBuffer() {
+        Random random = new Random(9);
+        for (int round = 0; round < 20; round++) {
+            TimedPointBuffer buffer = new TimedPointBuffer();
+            TimedSeriesCursor cursor = new TimedSeriesCursor();
+            long time = 0;
+            long pos = 0;
+            for (int burst = 0; burst < 200; burst++) {
+                int count = random.nextInt(40);
+                for (int i = 0; i < count; i++) {
+                    time += random.nextInt(4) == 0 ? 0 : random.nextInt(20);
+                    buffer.append(time, random.nextDouble(), random.nextDouble());
+                }
+                buffer.publish();
+                for (int i = 0; i < 10; i++) {
+                    pos = nextPosition(random, pos, time + 50);
+                    assertEquals(reference(buffer, pos), cursor.ceiling(buffer, pos), "round " + round + " at " + pos);
+                }
+            }
+        }
+    }
+
+    @Test
+    void gazeTrackOfSortsByTimeKeepingTiesInOrder() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            List<TimedOverlayPoint> points = new ArrayList<>();
+            int n = random.nextInt(500);
+            for (int i = 0; i < n; i++) {
+                points.add(new TimedOverlayPoint(random.nextFloat(), random.nextFloat(), random.nextInt(200) - 20));
+            }
+            GazeTrack track = GazeTrack.of(points);
+            List<TimedOverlayPoint> sorted = new ArrayList<>(points);
+            sorted.sort(Comparator.comparingLong(p -> p.timeMs));
+            assertEquals(sorted.size(), track.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                TimedOverlayPoint p = sorted.get(i);
+                assertEquals(p.timeMs, track.timeMs(i), "time " + i);
+                assertEquals((float) p.xNorm, track.xNorm(i), "x " + i);
+                assertEquals((float) p.yNorm, track.yNorm(i), "y " + i);
+            }
+        }
+    }
+
+    private static GazeTrack randomTrack(Random random, int n) {
+        GazeTrack.Builder builder = new GazeTrack.Builder();
+        long time = random.nextInt(1000);
+        for (int i = 0; i < n; i++) {
+            time += random.nextInt(5) == 0 ? 0 : random.nextInt(30);
+            builder.add(time, random.nextDouble(), random.nextDouble());
+        }
+        return builder.build();
+    }
+
+    /** Mostly small steps forward, as in playback, with the occasional jump or seek. */
+    private static long nextPosition(Random random, long pos, long end) {
+        int move = random.nextInt(20);
+        if (move == 0) {
+            return random.nextLong(-100, end + 100);
+        } else if (move == 1) {
+            return pos + random.nextInt(5000);
+        } else if (move == 2) {
+            return pos - random.nextInt(200);
+        }
+        return pos + random.nextInt(40);
+    }
+
+    private static int reference(TimedSeries series, long posMs) {
+        int lo = 0;
+        int hi = series.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (series.timeMs(mid) < posMs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
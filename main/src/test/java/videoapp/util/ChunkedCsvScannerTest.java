@@ -0,0 +1,120 @@
+package videoapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import videoapp.ui.TimedSeries;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a scan split into line-aligned chunks and stitched back together gives
+ * exactly what a sequential scan gives. Chunks are forced down to a few hundred bytes so
+ * that boundaries land next to every kind of line ending, quoted field and bad row.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class ChunkedCsvScannerTest {
+    private static final int HEAT_ROWS = 18;
+    private static final int HEAT_COLS = 32;
+    private static final long TINY_CHUNK_BYTES = 256;
+    private static final String[] ODD_FIELDS = {"", "abc", "NaN", "\"0,4\"", "\"a\"\"b\"", "1.5", "-0.1"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void chunkedScanMatchesSequentialScan() throws IOException, InterruptedException {
+        Random random = new Random(11);
+        CsvOverlayLoader sequential = new CsvOverlayLoader(1, null);
+        for (int i = 0; i < 60; i++) {
+            File csv = writeRandomCsv(random, i, random.nextInt(6) == 0);
+            CsvOverlayScan expected = sequential.scan(csv, HEAT_ROWS, HEAT_COLS);
+            for (int workers : new int[]{3, 5}) {
+                OverlayScanner stitched = ChunkedCsvScanner.scan(csv, HEAT_ROWS, HEAT_COLS, workers, null,
+                        TINY_CHUNK_BYTES);
+                assertSameScan(expected, stitched.finish(csv.length(), 0L), csv.getName() + " x" + workers);
+            }
+        }
+    }
+
+    @Test
+    void progressiveChunkedScanPublishesEveryPointInOrder() throws IOException, InterruptedException {
+        File csv = writeRandomCsv(new Random(5), 0, false);
+        List<OverlayBatch> batches = new ArrayList<>();
+        OverlayScanner stitched = ChunkedCsvScanner.scan(csv, HEAT_ROWS, HEAT_COLS, 4, batches::add,
+                TINY_CHUNK_BYTES);
+        TimedSeries track = stitched.finish(csv.length(), 0L).track();
+        assertTrue(batches.size() > 1, "one batch per chunk at least");
+        int published = 0;
+        for (OverlayBatch batch : batches) {
+            assertEquals(published, batch.from());
+            for (int i = batch.from(); i < batch.from() + batch.count(); i++) {
+                assertEquals(track.timeMs(published), batch.points().timeMs(i), "batch time " + published);
+                published++;
+            }
+        }
+        assertEquals(track.size(), published);
+    }
+
+    private File writeRandomCsv(Random random, int n, boolean untimed) throws IOException {
+        StringBuilder sb = new StringBuilder(untimed ? "surfaceX,surfaceY\n" : "timestamp,frame_index,norm_pos_x,norm_pos_y\r\n");
+        int rows = 200 + random.nextInt(2000);
+        for (int i = 0; i < rows; i++) {
+            if (random.nextInt(25) == 0) {
+                sb.append(ODD_FIELDS[random.nextInt(ODD_FIELDS.length)]).append(',')
+                        .append(ODD_FIELDS[random.nextInt(ODD_FIELDS.length)]);
+            } else if (untimed) {
+                sb.append(random.nextDouble()).append(',').append(random.nextDouble());
+            } else {
+                sb.append(1_700_000_000.0 + i / 120.0).append(',').append(i / 4).append(',')
+                        .append(random.nextBoolean() ? "\"" + random.nextDouble() + "\"" : random.nextDouble())
+                        .append(',').append(random.nextDouble());
+            }
+            int end = random.nextInt(10);
+            sb.append(end == 0 ? "\r" : end == 1 ? "\r\n" : end == 2 ? "\n\n" : "\n");
+        }
+        Path csv = dir.resolve("chunked-" + n + ".csv");
+        Files.writeString(csv, sb.toString());
+        return csv.toFile();
+    }
+
+    private static void assertSameScan(CsvOverlayScan expected, CsvOverlayScan actual, String name) {
+        assertEquals(expected.timed(), actual.timed(), name);
+        if (expected.timed()) {
+            TimedSeries a = expected.track();
+            TimedSeries b = actual.track();
+            assertEquals(a.size(), b.size(), name);
+            for (int i = 0; i < a.size(); i++) {
+                assertEquals(a.timeMs(i), b.timeMs(i), name + " time " + i);
+                assertEquals(a.xNorm(i), b.xNorm(i), name + " x " + i);
+                assertEquals(a.yNorm(i), b.yNorm(i), name + " y " + i);
+            }
+        } else {
+            assertEquals(expected.staticPoints().size(), actual.staticPoints().size(), name);
+            for (int i = 0; i < expected.staticPoints().size(); i++) {
+                assertEquals(expected.staticPoints().get(i).xNorm, actual.staticPoints().get(i).xNorm, name + " x " + i);
+                assertEquals(expected.staticPoints().get(i).yNorm, actual.staticPoints().get(i).yNorm, name + " y " + i);
+            }
+        }
+        assertArrayEquals(expected.heatmapGrid(), actual.heatmapGrid(), name);
+        assertEquals(expected.heatmapMaxCount(), actual.heatmapMaxCount(), name);
+        assertEquals(expected.stats().rows(), actual.stats().rows(), name);
+        assertEquals(expected.stats().skippedRows(), actual.stats().skippedRows(), name);
+        long[][] expectedSamples = expected.frameOffsets().toArrays();
+        long[][] actualSamples = actual.frameOffsets().toArrays();
+        assertArrayEquals(expectedSamples[0], actualSamples[0], name + " frame indices");
+        assertArrayEquals(expectedSamples[1], actualSamples[1], name + " frame times");
+    }
+}
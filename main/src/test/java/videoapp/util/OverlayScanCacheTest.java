@@ -0,0 +1,109 @@
+package videoapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import videoapp.ui.TimedSeries;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that a scan read back from the cache is the scan that was written: the same
+ * points, bit for bit, whether timed or static, the same grid, counters and frame-offset
+ * samples, and a re-binned grid when a different size is asked for.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class OverlayScanCacheTest {
+    private static final int HEAT_ROWS = 18;
+    private static final int HEAT_COLS = 32;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void timedScanRoundTrips() throws IOException {
+        assertRoundTrip(writeCsv("timed.csv", true));
+    }
+
+    @Test
+    void staticScanRoundTrips() throws IOException {
+        assertRoundTrip(writeCsv("static.csv", false));
+    }
+
+    @Test
+    void changedCsvMisses() throws IOException {
+        File csv = writeCsv("changed.csv", true);
+        OverlayScanCache cache = new OverlayScanCache(dir.resolve("cache").toFile());
+        OverlayScanCache.Key key = cache.keyFor(csv);
+        CsvOverlayScan scan = new CsvOverlayLoader(1, null).scan(csv, HEAT_ROWS, HEAT_COLS);
+        cache.write(key, CsvSchema.detect(new String[]{"timestamp", "norm_pos_x", "norm_pos_y"}), scan);
+        Files.writeString(csv.toPath(), "timestamp,norm_pos_x,norm_pos_y\n1,0.5,0.5\n");
+        assertNull(cache.read(cache.keyFor(csv), HEAT_ROWS, HEAT_COLS, System.nanoTime()));
+    }
+
+    private void assertRoundTrip(File csv) {
+        OverlayScanCache cache = new OverlayScanCache(dir.resolve("cache").toFile());
+        OverlayScanCache.Key key = cache.keyFor(csv);
+        assertNotNull(key);
+        CsvOverlayScan fresh = new CsvOverlayLoader(1, null).scan(csv, HEAT_ROWS, HEAT_COLS);
+        cache.write(key, CsvSchema.detect(new String[]{"timestamp", "frame_index", "norm_pos_x", "norm_pos_y"}), fresh);
+        CsvOverlayScan cached = cache.read(key, HEAT_ROWS, HEAT_COLS, System.nanoTime());
+        assertNotNull(cached);
+        assertEquals(fresh.timed(), cached.timed());
+        if (fresh.timed()) {
+            TimedSeries a = fresh.track();
+            TimedSeries b = cached.track();
+            assertEquals(a.size(), b.size());
+            for (int i = 0; i < a.size(); i++) {
+                assertEquals(a.timeMs(i), b.timeMs(i), "time " + i);
+                assertEquals(a.xNorm(i), b.xNorm(i), "x " + i);
+                assertEquals(a.yNorm(i), b.yNorm(i), "y " + i);
+            }
+        } else {
+            assertEquals(fresh.staticPoints().size(), cached.staticPoints().size());
+            for (int i = 0; i < fresh.staticPoints().size(); i++) {
+                assertEquals(fresh.staticPoints().get(i).xNorm, cached.staticPoints().get(i).xNorm, "x " + i);
+                assertEquals(fresh.staticPoints().get(i).yNorm, cached.staticPoints().get(i).yNorm, "y " + i);
+            }
+        }
+        assertArrayEquals(fresh.heatmapGrid(), cached.heatmapGrid());
+        assertEquals(fresh.heatmapMaxCount(), cached.heatmapMaxCount());
+        assertEquals(fresh.stats().rows(), cached.stats().rows());
+        assertEquals(fresh.stats().skippedRows(), cached.stats().skippedRows());
+        assertArrayEquals(fresh.frameOffsets().toArrays()[0], cached.frameOffsets().toArrays()[0]);
+        assertArrayEquals(fresh.frameOffsets().toArrays()[1], cached.frameOffsets().toArrays()[1]);
+
+        CsvOverlayScan rebinned = cache.read(key, 9, 16, System.nanoTime());
+        assertNotNull(rebinned);
+        assertArrayEquals(new CsvOverlayLoader(1, null).scan(csv, 9, 16).heatmapGrid(), rebinned.heatmapGrid());
+    }
+
+    /** A little over the cache's minimum size, with full-precision coordinates. */
+    private File writeCsv(String name, boolean timed) throws IOException {
+        Random random = new Random(name.hashCode());
+        StringBuilder sb = new StringBuilder(timed ? "timestamp,frame_index,norm_pos_x,norm_pos_y\n" : "norm_pos_x,norm_pos_y\n");
+        int i = 0;
+        while (sb.length() < OverlayScanCache.MIN_CSV_BYTES + 1000) {
+            if (timed) {
+                sb.append(1_700_000_000.0 + i / 240.0 - (random.nextInt(50) == 0 ? 1 : 0)).append(',')
+                        .append(i / 8).append(',');
+            }
+            sb.append(random.nextDouble()).append(',').append(random.nextDouble()).append('\n');
+            i++;
+        }
+        Path csv = dir.resolve(name);
+        Files.writeString(csv, sb.toString());
+        return csv.toFile();
+    }
+}
@@ -0,0 +1,141 @@
+package videoapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import videoapp.ui.GazeTrack;
+import videoapp.ui.OverlayPoint;
+import videoapp.ui.TimedOverlayPoint;
+import videoapp.ui.TimedSeries;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the single pass of {@link CsvOverlayLoader#scan} finds the same points,
+ * heatmap grid and frame offset as the separate {@code loadTimed}, {@code load} and
+ * {@code suggestOffsetFromFrameIndex} passes, over randomly generated messy CSVs: odd
+ * headers, quoted and malformed fields, mixed line endings and missing final newlines.
+ * A streaming scan must build the same track.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class OverlayScanParityTest {
+    private static final int HEAT_ROWS = 18;
+    private static final int HEAT_COLS = 32;
+    private static final String[] HEADERS = {
+            "timestamp,norm_pos_x,norm_pos_y",
+            "t,a,b",
+            "norm_pos_x,norm_pos_y",
+            "start_timestamp,start_frame_index,duration,norm_pos_x,norm_pos_y",
+            "\uFEFFtimestamp,surfaceX,surfaceY",
+            "frame,time,duration_ms,surfacex,\"surfacey\"",
+            "x,y,device timestamp",
+    };
+    private static final String[] ODD_FIELDS = {
+            "0.5", "1", "0", "1.5", "-0.1", "NaN", "abc", "", "\"0.3\"", "\"0,4\"", "1e-1", ".5", "5.",
+            "+0.5", "0x1p-1", "1d", "Infinity", "\"a\"\"b\"", "1700000000.123", "3", "42",
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void scanMatchesSeparatePasses() throws IOException {
+        Random random = new Random(7);
+        CsvOverlayLoader loader = new CsvOverlayLoader(1, null);
+        for (int i = 0; i < 300; i++) {
+            File csv = writeRandomCsv(random, i);
+            String name = csv.getName();
+            double fps = 25 + random.nextInt(10);
+            CsvOverlayScan scan = loader.scan(csv, HEAT_ROWS, HEAT_COLS);
+
+            assertEquals(loader.suggestOffsetFromFrameIndex(csv, fps), scan.frameOffsets().suggestOffset(fps), name);
+            List<TimedOverlayPoint> timed = loader.loadTimed(csv);
+            List<? extends OverlayPoint> expected;
+            if (!timed.isEmpty()) {
+                assertTrue(scan.timed(), name);
+                assertSameTrack(GazeTrack.of(timed), scan.track(), name);
+                assertSameTrack(scan.track(), loader.scan(csv, HEAT_ROWS, HEAT_COLS, batch -> { }).track(), name + " streamed");
+                expected = timed;
+            } else {
+                assertFalse(scan.timed(), name);
+                expected = loader.load(csv);
+                assertSamePoints(expected, scan.staticPoints(), name);
+            }
+            assertSameGrid(expected, scan, name);
+        }
+    }
+
+    private File writeRandomCsv(Random random, int n) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADERS[random.nextInt(HEADERS.length)]).append(random.nextBoolean() ? "\n" : "\r\n");
+        int rows = random.nextInt(700);
+        double t0 = 1_700_000_000 + random.nextInt(100);
+        for (int i = 0; i < rows; i++) {
+            int cols = 1 + random.nextInt(6);
+            List<String> fields = new ArrayList<>();
+            for (int c = 0; c < cols; c++) {
+                int kind = random.nextInt(10);
+                if (kind < 3) {
+                    fields.add(String.valueOf(t0 + i * 0.01 * random.nextInt(3)));
+                } else if (kind < 7) {
+                    fields.add(String.valueOf(random.nextDouble()));
+                } else if (kind < 8) {
+                    fields.add(String.valueOf(random.nextInt(1000)));
+                } else {
+                    fields.add(ODD_FIELDS[random.nextInt(ODD_FIELDS.length)]);
+                }
+            }
+            sb.append(String.join(",", fields));
+            int end = random.nextInt(20);
+            sb.append(end == 0 ? "\r" : end == 1 ? "\r\n" : end == 2 ? "\n\n" : "\n");
+        }
+        if (random.nextBoolean()) {
+            sb.setLength(Math.max(0, sb.length() - 1));
+        }
+        Path csv = dir.resolve("parity-" + n + ".csv");
+        Files.writeString(csv, sb.toString());
+        return csv.toFile();
+    }
+
+    private static void assertSameTrack(TimedSeries expected, TimedSeries actual, String name) {
+        assertEquals(expected.size(), actual.size(), name);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.timeMs(i), actual.timeMs(i), name + " time " + i);
+            assertEquals(expected.xNorm(i), actual.xNorm(i), name + " x " + i);
+            assertEquals(expected.yNorm(i), actual.yNorm(i), name + " y " + i);
+        }
+    }
+
+    private static void assertSamePoints(List<? extends OverlayPoint> expected, List<OverlayPoint> actual, String name) {
+        assertEquals(expected.size(), actual.size(), name);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).xNorm, actual.get(i).xNorm, name + " x " + i);
+            assertEquals(expected.get(i).yNorm, actual.get(i).yNorm, name + " y " + i);
+        }
+    }
+
+    private static void assertSameGrid(List<? extends OverlayPoint> points, CsvOverlayScan scan, String name) {
+        int[][] grid = new int[HEAT_ROWS][HEAT_COLS];
+        int max = 0;
+        for (OverlayPoint p : points) {
+            int col = Math.max(0, Math.min(HEAT_COLS - 1, (int) Math.floor(p.xNorm * HEAT_COLS)));
+            int row = Math.max(0, Math.min(HEAT_ROWS - 1, (int) Math.floor((1 - p.yNorm) * HEAT_ROWS)));
+            max = Math.max(max, ++grid[row][col]);
+        }
+        assertEquals(max, scan.heatmapMaxCount(), name);
+        assertArrayEquals(grid, scan.heatmapGrid(), name);
+    }
+}
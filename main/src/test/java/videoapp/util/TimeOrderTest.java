@@ -0,0 +1,65 @@
+package videoapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link TimeOrder} orders indices exactly like a stable library sort, for
+ * sorted input, input with a few late rows, reversed input and random keys with many ties.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class TimeOrderTest {
+
+    @Test
+    void orderMatchesStableSort() {
+        Random random = new Random(12);
+        for (int round = 0; round < 400; round++) {
+            int n = random.nextInt(3000);
+            long[] keys = randomKeys(random, n, round % 4);
+            Integer[] expected = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                expected[i] = i;
+            }
+            Arrays.sort(expected, Comparator.comparingLong(i -> keys[i]));
+            int[] actual = TimeOrder.order(keys, n);
+            assertArrayEquals(Arrays.stream(expected).mapToInt(Integer::intValue).toArray(), actual, "round " + round);
+            boolean inOrder = true;
+            for (int i = 1; i < n; i++) {
+                inOrder &= keys[i] >= keys[i - 1];
+            }
+            assertEquals(inOrder, TimeOrder.isSorted(keys, n), "round " + round);
+        }
+    }
+
+    @Test
+    void sortUsesOnlyTheGivenPrefix() {
+        long[] keys = {5, 3, 9, 1};
+        int[] ids = {0, 1, 2, 3};
+        TimeOrder.sort(ids, 2, keys);
+        assertArrayEquals(new int[]{1, 0, 2, 3}, ids);
+    }
+
+    private static long[] randomKeys(Random random, int n, int shape) {
+        long[] keys = new long[n];
+        long t = random.nextInt(1000);
+        for (int i = 0; i < n; i++) {
+            t += random.nextInt(3);
+            keys[i] = switch (shape) {
+                case 0 -> t;
+                case 1 -> random.nextInt(40) == 0 ? t - random.nextInt(500) : t;
+                case 2 -> -t;
+                default -> random.nextInt(50);
+            };
+        }
+        return keys;
+    }
+}
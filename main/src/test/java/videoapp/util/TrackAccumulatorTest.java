@@ -0,0 +1,134 @@
+package videoapp.util;
+
+import org.junit.jupiter.api.Test;
+import videoapp.ui.CompressedGazeTrack;
+import videoapp.ui.GazeTrack;
+import videoapp.ui.TimedOverlayPoint;
+import videoapp.ui.TimedPointBuffer;
+import videoapp.ui.TimedSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a {@link TrackAccumulator} builds exactly the track a plain stable sort
+ * would, compressed once it is large enough, whether samples arrive in order, with a few
+ * late rows or shuffled, whether they are added directly or stitched from parts, and
+ * whether they are kept or streamed through a published buffer.
+ * Thresholds are scaled down so every path is taken many times.
+ *
+ * @author Glenn Anciado
+ * @version 1.0
+ */
+
+class TrackAccumulatorTest {
+    private static final int COMPACT_AT = 500;
+    private static final int LATE_RUN = 37;
+
+    @Test
+    void buildMatchesStableSort() {
+        Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            List<TimedOverlayPoint> points = randomPoints(random, random.nextInt(3 * COMPACT_AT), round % 3);
+            TrackAccumulator accumulator = new TrackAccumulator(COMPACT_AT, LATE_RUN);
+            for (TimedOverlayPoint p : points) {
+                accumulator.add(p.timeMs, p.xNorm, p.yNorm);
+            }
+            assertEquals(points.size(), accumulator.size());
+            assertSameTrack(expected(points), accumulator.build(), "round " + round);
+        }
+    }
+
+    @Test
+    void stitchedPartsMatchStableSort() {
+        Random random = new Random(22);
+        for (int round = 0; round < 300; round++) {
+            List<TimedOverlayPoint> points = randomPoints(random, random.nextInt(4 * COMPACT_AT), round % 3);
+            TrackAccumulator stitched = null;
+            int from = 0;
+            while (from < points.size() || stitched == null) {
+                int to = Math.min(points.size(), from + random.nextInt(2 * COMPACT_AT));
+                TrackAccumulator part = new TrackAccumulator(COMPACT_AT, LATE_RUN);
+                for (TimedOverlayPoint p : points.subList(from, to)) {
+                    part.add(p.timeMs, p.xNorm, p.yNorm);
+                }
+                if (stitched == null) {
+                    stitched = part;
+                } else {
+                    stitched.addAll(part);
+                }
+                from = to;
+            }
+            assertEquals(points.size(), stitched.size());
+            assertSameTrack(expected(points), stitched.build(), "round " + round);
+        }
+    }
+
+    @Test
+    void streamedBuildMatchesStableSort() {
+        Random random = new Random(23);
+        for (int round = 0; round < 300; round++) {
+            List<TimedOverlayPoint> points = randomPoints(random, random.nextInt(3 * COMPACT_AT), round % 3);
+            TrackAccumulator accumulator = new TrackAccumulator(COMPACT_AT, LATE_RUN);
+            TimedPointBuffer published = accumulator.stream();
+            int from = 0;
+            while (from < points.size()) {
+                int to = Math.min(points.size(), from + random.nextInt(COMPACT_AT));
+                if (random.nextBoolean()) {
+                    for (TimedOverlayPoint p : points.subList(from, to)) {
+                        accumulator.add(p.timeMs, p.xNorm, p.yNorm);
+                    }
+                } else {
+                    TrackAccumulator part = new TrackAccumulator(COMPACT_AT, LATE_RUN);
+                    for (TimedOverlayPoint p : points.subList(from, to)) {
+                        part.add(p.timeMs, p.xNorm, p.yNorm);
+                    }
+                    accumulator.addAll(part);
+                }
+                int before = published.size();
+                int appended = accumulator.publish();
+                assertEquals(before + appended, published.size());
+                for (int i = Math.max(1, before); i < published.size(); i++) {
+                    assertTrue(published.timeMs(i) >= published.timeMs(i - 1), "published out of order");
+                }
+                from = to;
+            }
+            TimedSeries built = accumulator.build();
+            assertSameTrack(expected(points), built, "round " + round);
+        }
+    }
+
+    private static List<TimedOverlayPoint> randomPoints(Random random, int n, int shape) {
+        List<TimedOverlayPoint> points = new ArrayList<>(n);
+        long t = random.nextInt(1000);
+        for (int i = 0; i < n; i++) {
+            t += random.nextInt(4) == 0 ? 0 : random.nextInt(5);
+            long time = switch (shape) {
+                case 0 -> t;
+                case 1 -> random.nextInt(30) == 0 ? t - random.nextInt(400) : t;
+                default -> random.nextInt(2000);
+            };
+            points.add(new TimedOverlayPoint(random.nextDouble(), random.nextDouble(), time));
+        }
+        return points;
+    }
+
+    private static TimedSeries expected(List<TimedOverlayPoint> points) {
+        GazeTrack sorted = GazeTrack.of(points);
+        return (sorted.size() >= COMPACT_AT) ? CompressedGazeTrack.compress(sorted) : sorted;
+    }
+
+    private static void assertSameTrack(TimedSeries expected, TimedSeries actual, String name) {
+        assertEquals(expected instanceof CompressedGazeTrack, actual instanceof CompressedGazeTrack, name);
+        assertEquals(expected.size(), actual.size(), name);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.timeMs(i), actual.timeMs(i), name + " time " + i);
+            assertEquals(expected.xNorm(i), actual.xNorm(i), name + " x " + i);
+            assertEquals(expected.yNorm(i), actual.yNorm(i), name + " y " + i);
+        }
+    }
+}